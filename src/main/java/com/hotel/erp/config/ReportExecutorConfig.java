@@ -0,0 +1,29 @@
+package com.hotel.erp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Thread pool the asynchronous report jobs run on, so report work never holds
+ * a request thread. The queue is bounded; a submit that finds it full is
+ * rejected rather than queued without limit.
+ */
+@Configuration
+public class ReportExecutorConfig {
+
+    @Bean(name = "reportExecutor")
+    public ThreadPoolTaskExecutor reportExecutor(
+            @Value("${hotel.report.executor-threads:4}") int threads,
+            @Value("${hotel.report.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,190 @@
+package com.hotel.erp.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Applies the versioned DDL scripts in {@code db/migration} at startup.
+ *
+ * Scripts are named {@code V<version>__<description>.sql} and run once each in
+ * version order; applied versions are recorded in {@code schema_migration}.
+ * Hibernate still creates and updates the tables themselves, so this runs
+ * after the entity manager factory is built and the scripts only hold what
+ * Hibernate does not manage, such as the lookup indexes. A script is never
+ * edited once released; changes go in a new version.
+ *
+ * MySQL commits each DDL statement as it runs, so a script that fails part way
+ * leaves its earlier statements in place. Such a script is recorded with
+ * success false and startup is refused until an operator has finished or
+ * undone it by hand and then deleted its row, to run it again, or set success
+ * to true.
+ */
+@Component
+public class SchemaMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private static final String CREATE_HISTORY = "CREATE TABLE IF NOT EXISTS schema_migration ("
+            + "version INT NOT NULL PRIMARY KEY, "
+            + "description VARCHAR(200) NOT NULL, "
+            + "checksum BIGINT NOT NULL, "
+            + "installed_on TIMESTAMP NOT NULL, "
+            + "execution_ms BIGINT NOT NULL, "
+            + "success BOOLEAN NOT NULL DEFAULT TRUE)";
+
+    private static final String ADD_SUCCESS = "ALTER TABLE schema_migration "
+            + "ADD COLUMN success BOOLEAN NOT NULL DEFAULT TRUE";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String location;
+    private final boolean enabled;
+
+    /**
+     * @param entityManagerFactory not used; taking it makes Hibernate build the
+     *                             schema before the scripts run
+     */
+    @Autowired
+    public SchemaMigrator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+            @Value("${hotel.schema.migration-location:classpath:db/migration}") String location,
+            @Value("${hotel.schema.migrations-enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.location = location;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Apply every script newer than the last recorded version
+     */
+    @PostConstruct
+    public void migrate() {
+        if (!enabled) {
+            logger.info("Schema migrations are disabled");
+            return;
+        }
+        jdbcTemplate.execute(CREATE_HISTORY);
+        addSuccessColumn();
+        List<String> failed = jdbcTemplate.query(
+                "SELECT version, description, installed_on FROM schema_migration WHERE success = FALSE "
+                        + "ORDER BY version",
+                (rs, rowNum) -> "V" + rs.getInt(1) + " (" + rs.getString(2) + ", " + rs.getTimestamp(3) + ")");
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException("Schema migration " + String.join(", ", failed) + " failed part way. "
+                    + "Finish or undo it by hand, then delete its row from schema_migration to run it again "
+                    + "or set its success to true");
+        }
+        Map<Integer, Long> applied = jdbcTemplate.query("SELECT version, checksum FROM schema_migration",
+                (rs, rowNum) -> Map.entry(rs.getInt(1), rs.getLong(2)))
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+        int count = 0;
+        for (Map.Entry<Integer, Resource> entry : findScripts().entrySet()) {
+            int version = entry.getKey();
+            Resource script = entry.getValue();
+            long checksum = checksum(script);
+            if (applied.containsKey(version)) {
+                if (applied.get(version) != checksum) {
+                    logger.warn("Schema migration {} was changed after it was applied", script.getFilename());
+                }
+                continue;
+            }
+            apply(version, script, checksum);
+            count++;
+        }
+        logger.info("Schema is at version {} ({} migration(s) applied now)",
+                jdbcTemplate.queryForObject("SELECT MAX(version) FROM schema_migration", Integer.class), count);
+    }
+
+    private void apply(int version, Resource script, long checksum) {
+        long started = System.currentTimeMillis();
+        logger.info("Applying schema migration {}", script.getFilename());
+        Matcher name = SCRIPT_NAME.matcher(script.getFilename());
+        String description = name.matches() ? name.group(2).replace('_', ' ') : script.getFilename();
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                ScriptUtils.executeSqlScript(connection, script);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            record(version, description, checksum, started, false);
+            throw new IllegalStateException("Schema migration " + script.getFilename() + " failed part way; "
+                    + "its earlier statements may have been applied", e);
+        }
+        record(version, description, checksum, started, true);
+    }
+
+    private void record(int version, String description, long checksum, long started, boolean success) {
+        jdbcTemplate.update("INSERT INTO schema_migration "
+                + "(version, description, checksum, installed_on, execution_ms, success) VALUES (?, ?, ?, ?, ?, ?)",
+                version, description, checksum, Timestamp.valueOf(LocalDateTime.now()),
+                System.currentTimeMillis() - started, success);
+    }
+
+    /**
+     * Add the success column to a history table created before it existed;
+     * every version recorded then was applied in full
+     */
+    private void addSuccessColumn() {
+        try {
+            jdbcTemplate.queryForList("SELECT success FROM schema_migration WHERE 1 = 0");
+        } catch (BadSqlGrammarException e) {
+            logger.info("Adding the success column to schema_migration");
+            jdbcTemplate.execute(ADD_SUCCESS);
+        }
+    }
+
+    private Map<Integer, Resource> findScripts() {
+        Map<Integer, Resource> scripts = new TreeMap<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver()
+                    .getResources(location + "/V*__*.sql")) {
+                Matcher name = SCRIPT_NAME.matcher(resource.getFilename());
+                if (!name.matches()) {
+                    throw new IllegalStateException("Badly named schema migration " + resource.getFilename());
+                }
+                Resource previous = scripts.put(Integer.valueOf(name.group(1)), resource);
+                if (previous != null) {
+                    throw new IllegalStateException("Two schema migrations with version " + name.group(1));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot list schema migrations in " + location, e);
+        }
+        return scripts;
+    }
+
+    private static long checksum(Resource script) {
+        CRC32 crc = new CRC32();
+        try (InputStream in = script.getInputStream()) {
+            crc.update(in.readAllBytes());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read schema migration " + script.getFilename(), e);
+        }
+        return crc.getValue();
+    }
+}
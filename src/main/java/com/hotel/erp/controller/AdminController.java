@@ -1,9 +1,17 @@
 package com.hotel.erp.controller;
 
+import com.hotel.erp.entity.NightAuditRun;
+import com.hotel.erp.service.NightAuditService;
+import com.hotel.erp.service.OptimisticRetryExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -13,6 +21,17 @@ import java.util.Map;
 @CrossOrigin(origins = "*", allowedHeaders = "*")
 public class AdminController {
 
+    private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+
+    private final NightAuditService nightAuditService;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+
+    @Autowired
+    public AdminController(NightAuditService nightAuditService, OptimisticRetryExecutor optimisticRetryExecutor) {
+        this.nightAuditService = nightAuditService;
+        this.optimisticRetryExecutor = optimisticRetryExecutor;
+    }
+
     @GetMapping("/dashboard")
     public ResponseEntity<Map<String, Object>> getAdminDashboard() {
         Map<String, Object> dashboard = new HashMap<>();
@@ -40,16 +59,64 @@ public class AdminController {
         return ResponseEntity.ok(dashboard);
     }
 
+    /**
+     * Run the night audit for the current audit date: posts room rent and tax to
+     * every in-house folio and moves the audit date on. Safe to call again; a
+     * completed audit is not posted twice and an interrupted one resumes.
+     */
     @PostMapping("/audit-date-change")
-    public ResponseEntity<Map<String, Object>> auditDateChange(@RequestBody Map<String, Object> request) {
-        // In a real implementation, this would update post_transaction with room
-        // charges for all in-house guests
+    public ResponseEntity<Map<String, Object>> auditDateChange(@RequestBody(required = false) Map<String, Object> request) {
+        Integer userId = null;
+        if (request != null && request.get("userId") != null) {
+            userId = Integer.valueOf(request.get("userId").toString());
+        }
+
         Map<String, Object> response = new HashMap<>();
-        response.put("status", "success");
-        response.put("message", "Audit date changed successfully");
-        response.put("timestamp", LocalDateTime.now().toString());
+        try {
+            NightAuditRun run = nightAuditService.runNightAudit(userId);
+            response.put("status", "success");
+            response.put("message", "Audit date changed successfully");
+            response.put("auditDate", run.getAuditDate().toString());
+            response.put("nextAuditDate", run.getAuditDate().plusDays(1).toString());
+            response.put("foliosPosted", run.getFoliosPosted());
+            response.put("roomRentTotal", run.getRoomRentTotal());
+            response.put("taxTotal", run.getTaxTotal());
+            response.put("timestamp", LocalDateTime.now().toString());
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (Exception e) {
+            logger.error("Night audit failed: {}", e.getMessage(), e);
+            response.put("status", "error");
+            response.put("message", "Night audit failed, run it again to resume: " + e.getMessage());
+            response.put("timestamp", LocalDateTime.now().toString());
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping("/audit-date")
+    public ResponseEntity<Map<String, Object>> getAuditDate() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("auditDate", nightAuditService.getCurrentAuditDate().toString());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/night-audit/{auditDate}")
+    public ResponseEntity<NightAuditRun> getNightAudit(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate auditDate) {
+        try {
+            return ResponseEntity.ok(nightAuditService.getRun(auditDate));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
 
-        return new ResponseEntity<>(response, HttpStatus.OK);
+    /**
+     * Optimistic lock conflict counts per front desk operation since
+     * startup: how often concurrent updates collided, how many were saved on
+     * retry, and how many were given up with 409 Conflict
+     */
+    @GetMapping("/concurrency-metrics")
+    public ResponseEntity<Map<String, Map<String, Long>>> getConcurrencyMetrics() {
+        return ResponseEntity.ok(optimisticRetryExecutor.getMetrics());
     }
 
     @GetMapping("/health")
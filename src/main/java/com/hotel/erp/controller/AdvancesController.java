@@ -1,17 +1,26 @@
 package com.hotel.erp.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hotel.erp.dto.AdvancesDTO;
 import com.hotel.erp.entity.Advances;
 import com.hotel.erp.service.AdvancesService;
+import com.hotel.erp.service.KeysetPager;
+import com.hotel.erp.util.NdjsonResponses;
+import com.hotel.erp.util.RequestValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/advances")
@@ -22,6 +31,9 @@ public class AdvancesController {
     @Autowired
     private AdvancesService advancesService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Test endpoint to debug JSON deserialization
      */
@@ -32,176 +44,27 @@ public class AdvancesController {
     }
 
     /**
-     * Create a new advance
+     * Create a new advance. Missing payment date, audit date and shift date
+     * default to today, payment mode to Cash and user to 1.
      * 
-     * @param requestData the advance data as Map
+     * @param advancesDTO the advance data
      * @return the created advance
      */
     @PostMapping
-    public ResponseEntity<?> createAdvance(@RequestBody Map<String, Object> requestData) {
-        logger.info("Received create advance request with data: {}", requestData);
-
-        try {
-            // Validate required fields at controller level
-            if (!requestData.containsKey("amount") || requestData.get("amount") == null) {
-                return ResponseEntity.badRequest().body(Map.of(
-                        "status", "error",
-                        "message", "Amount is required"));
-            }
+    public ResponseEntity<?> createAdvance(@RequestBody AdvancesDTO advancesDTO) {
+        logger.debug("Received create advance request for folio {} reservation {}", advancesDTO.getFolioNo(),
+                advancesDTO.getReservationNo());
 
-            // Convert Map to DTO manually with robust error handling
-            AdvancesDTO advancesDTO = new AdvancesDTO();
+        RequestValidator.check()
+                .required("amount", advancesDTO.getAmount())
+                .positive("amount", advancesDTO.getAmount())
+                .validate();
 
-            try {
-                if (requestData.containsKey("amount") && requestData.get("amount") != null) {
-                    try {
-                        advancesDTO.setAmount(new java.math.BigDecimal(requestData.get("amount").toString()));
-                    } catch (NumberFormatException e) {
-                        logger.warn("Invalid amount format: {}", requestData.get("amount"));
-                        return ResponseEntity.badRequest().body(Map.of(
-                                "status", "error",
-                                "message", "Invalid amount format: must be a valid number"));
-                    }
-                }
-
-                if (requestData.containsKey("paymentDate") && requestData.get("paymentDate") != null) {
-                    String paymentDateStr = requestData.get("paymentDate").toString().trim();
-                    if (!paymentDateStr.isEmpty()) {
-                        try {
-                            advancesDTO.setPaymentDate(java.time.LocalDate.parse(paymentDateStr));
-                        } catch (Exception e) {
-                            logger.warn("Invalid payment date format: {}", paymentDateStr);
-                            return ResponseEntity.badRequest().body(Map.of(
-                                    "status", "error",
-                                    "message", "Invalid payment date format: must be in YYYY-MM-DD format"));
-                        }
-                    } else {
-                        // Default to today if payment date is empty string
-                        advancesDTO.setPaymentDate(java.time.LocalDate.now());
-                        logger.info("Empty payment date string provided, defaulting to today: {}",
-                                advancesDTO.getPaymentDate());
-                    }
-                } else {
-                    // Default to today if payment date not provided
-                    advancesDTO.setPaymentDate(java.time.LocalDate.now());
-                    logger.info("Setting default payment date to today: {}", advancesDTO.getPaymentDate());
-                }
-
-                if (requestData.containsKey("paymentMode") && requestData.get("paymentMode") != null) {
-                    advancesDTO.setPaymentMode(requestData.get("paymentMode").toString());
-                } else {
-                    // Default to Cash if payment mode not provided
-                    advancesDTO.setPaymentMode("Cash");
-                    logger.info("Setting default payment mode to Cash");
-                }
-
-                if (requestData.containsKey("remarks") && requestData.get("remarks") != null) {
-                    advancesDTO.setRemarks(requestData.get("remarks").toString());
-                }
-
-                if (requestData.containsKey("referenceNo") && requestData.get("referenceNo") != null) {
-                    advancesDTO.setReferenceNo(requestData.get("referenceNo").toString());
-                }
-
-                if (requestData.containsKey("guestName") && requestData.get("guestName") != null) {
-                    advancesDTO.setGuestName(requestData.get("guestName").toString());
-                }
-
-                if (requestData.containsKey("folioNo") && requestData.get("folioNo") != null) {
-                    advancesDTO.setFolioNo(requestData.get("folioNo").toString());
-                }
-
-                if (requestData.containsKey("reservationNo") && requestData.get("reservationNo") != null) {
-                    advancesDTO.setReservationNo(requestData.get("reservationNo").toString());
-                }
-
-                if (requestData.containsKey("userId") && requestData.get("userId") != null) {
-                    try {
-                        advancesDTO.setUserId(Integer.valueOf(requestData.get("userId").toString()));
-                    } catch (NumberFormatException e) {
-                        // Default to user ID 1 if not provided or invalid
-                        advancesDTO.setUserId(1);
-                    }
-                } else {
-                    // Default user ID
-                    advancesDTO.setUserId(1);
-                }
-
-                if (requestData.containsKey("auditDate") && requestData.get("auditDate") != null) {
-                    String auditDateStr = requestData.get("auditDate").toString().trim();
-                    if (!auditDateStr.isEmpty()) {
-                        try {
-                            advancesDTO.setAuditDate(java.time.LocalDate.parse(auditDateStr));
-                        } catch (Exception e) {
-                            // Default to today if parsing fails
-                            advancesDTO.setAuditDate(java.time.LocalDate.now());
-                            logger.info("Invalid audit date format, defaulting to today: {}",
-                                    advancesDTO.getAuditDate());
-                        }
-                    } else {
-                        // Default to today if empty string
-                        advancesDTO.setAuditDate(java.time.LocalDate.now());
-                        logger.info("Empty audit date string provided, defaulting to today: {}",
-                                advancesDTO.getAuditDate());
-                    }
-                } else {
-                    // Default audit date to today
-                    advancesDTO.setAuditDate(java.time.LocalDate.now());
-                }
-
-                if (requestData.containsKey("shiftNo") && requestData.get("shiftNo") != null) {
-                    try {
-                        advancesDTO.setShiftNo(Integer.valueOf(requestData.get("shiftNo").toString()));
-                    } catch (NumberFormatException e) {
-                        // Default to shift 1
-                        advancesDTO.setShiftNo(1);
-                    }
-                }
-
-                if (requestData.containsKey("shiftDate") && requestData.get("shiftDate") != null) {
-                    String shiftDateStr = requestData.get("shiftDate").toString().trim();
-                    if (!shiftDateStr.isEmpty()) {
-                        try {
-                            advancesDTO.setShiftDate(java.time.LocalDate.parse(shiftDateStr));
-                        } catch (Exception e) {
-                            // Default to today if parsing fails
-                            advancesDTO.setShiftDate(java.time.LocalDate.now());
-                            logger.info("Invalid shift date format, defaulting to today: {}",
-                                    advancesDTO.getShiftDate());
-                        }
-                    } else {
-                        // Default to today if empty string
-                        advancesDTO.setShiftDate(java.time.LocalDate.now());
-                        logger.info("Empty shift date string provided, defaulting to today: {}",
-                                advancesDTO.getShiftDate());
-                    }
-                } else {
-                    // Default shift date to today
-                    advancesDTO.setShiftDate(java.time.LocalDate.now());
-                }
-
-                if (requestData.containsKey("roomNo") && requestData.get("roomNo") != null) {
-                    advancesDTO.setRoomNo(requestData.get("roomNo").toString());
-                }
-
-                if (requestData.containsKey("billNo") && requestData.get("billNo") != null) {
-                    advancesDTO.setBillNo(requestData.get("billNo").toString());
-                }
-
-                if (requestData.containsKey("creditCardCompany") && requestData.get("creditCardCompany") != null) {
-                    advancesDTO.setCreditCardCompany(requestData.get("creditCardCompany").toString());
-                }
-
-                if (requestData.containsKey("creditCardNo") && requestData.get("creditCardNo") != null) {
-                    advancesDTO.setCreditCardNo(requestData.get("creditCardNo").toString());
-                }
-            } catch (Exception e) {
-                logger.error("Error parsing request data: {}", e.getMessage(), e);
-                return ResponseEntity.badRequest().body("Error parsing request data: " + e.getMessage());
-            }
+        applyCreateDefaults(advancesDTO);
 
+        try {
             Advances createdAdvance = advancesService.createAdvance(advancesDTO);
-            logger.info("Advance created successfully: {}", createdAdvance);
+            logger.info("Advance {} created", createdAdvance.getAdvancesId());
             return new ResponseEntity<>(Map.of(
                     "status", "success",
                     "message", "Advance created successfully",
@@ -219,6 +82,27 @@ public class AdvancesController {
         }
     }
 
+    /**
+     * Create many advances at once, e.g. the split of a group payment. Each
+     * item gets the same defaults as a single create; invalid items are
+     * reported and skipped while the rest are saved.
+     * 
+     * @param advances the advances
+     * @return the id or error of each item, in order
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createAdvances(@RequestBody List<AdvancesDTO> advances) {
+        logger.debug("Received bulk advance request with {} items", advances.size());
+        advances.stream().filter(Objects::nonNull).forEach(AdvancesController::applyCreateDefaults);
+        try {
+            return ResponseEntity.ok(advancesService.createAdvances(advances));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()));
+        }
+    }
+
     /**
      * Get all advances
      * 
@@ -241,6 +125,51 @@ public class AdvancesController {
         }
     }
 
+    /**
+     * Get advances one page at a time, oldest first by default. Pass the
+     * nextCursor of a page to get the next one.
+     * 
+     * @param cursor    the nextCursor of the previous page
+     * @param limit     the page size, at most {@value KeysetPager#MAX_LIMIT}
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return the page
+     */
+    @GetMapping(value = "/page", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getAdvancesPage(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction) {
+        try {
+            return ResponseEntity.ok(advancesService.getAdvancesPage(cursor, limit, sort, direction));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Stream all advances after the cursor as newline delimited JSON
+     * 
+     * @param cursor    where to start, or none for the beginning
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return one Advances per line
+     */
+    @GetMapping(value = "/page", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAdvances(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction) {
+        KeysetPager.Scan<Advances> scan;
+        try {
+            scan = advancesService.scanAdvances(cursor, sort, direction);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return NdjsonResponses.stream(objectMapper, scan::forEach);
+    }
+
     /**
      * Get advance by ID
      * 
@@ -272,157 +201,33 @@ public class AdvancesController {
     }
 
     /**
-     * Update an existing advance
+     * Update an existing advance. Fields left out or null keep their current
+     * value.
      * 
      * @param id          the advance ID
-     * @param requestData the updated advance data as Map
+     * @param advancesDTO the fields to change
      * @return the updated advance
      */
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateAdvance(@PathVariable Long id, @RequestBody Map<String, Object> requestData) {
-        logger.info("Received update advance request for ID: {} with data: {}", id, requestData);
+    public ResponseEntity<?> updateAdvance(@PathVariable Long id, @RequestBody AdvancesDTO advancesDTO) {
+        logger.debug("Received update advance request for ID: {}", id);
+
+        RequestValidator.check()
+                .positive("amount", advancesDTO.getAmount())
+                .validate();
 
         try {
-            // First check if the advance exists
             var existingAdvance = advancesService.getAdvanceById(id);
             if (existingAdvance.isEmpty()) {
                 return ResponseEntity.notFound().build();
             }
 
-            // Convert Map to DTO manually with robust error handling
-            AdvancesDTO advancesDTO = new AdvancesDTO();
-
             // Set the ID so service knows it's an update
             advancesDTO.setAdvancesId(id);
-
-            try {
-                // Pre-populate with existing values for fields that might not be provided
-                Advances advance = existingAdvance.get();
-
-                // Only set fields that are provided in the request, otherwise leave them null
-                // for the service to handle keeping existing values
-
-                if (requestData.containsKey("amount") && requestData.get("amount") != null) {
-                    try {
-                        advancesDTO.setAmount(new java.math.BigDecimal(requestData.get("amount").toString()));
-                    } catch (NumberFormatException e) {
-                        logger.warn("Invalid amount format: {}", requestData.get("amount"));
-                        return ResponseEntity.badRequest().body(Map.of(
-                                "status", "error",
-                                "message", "Invalid amount format: must be a valid number"));
-                    }
-                }
-
-                if (requestData.containsKey("paymentDate") && requestData.get("paymentDate") != null) {
-                    String paymentDateStr = requestData.get("paymentDate").toString().trim();
-                    if (!paymentDateStr.isEmpty()) {
-                        try {
-                            advancesDTO.setPaymentDate(java.time.LocalDate.parse(paymentDateStr));
-                        } catch (Exception e) {
-                            logger.warn("Invalid payment date format: {}", paymentDateStr);
-                            return ResponseEntity.badRequest().body(Map.of(
-                                    "status", "error",
-                                    "message", "Invalid payment date format: must be in YYYY-MM-DD format"));
-                        }
-                    } else {
-                        // Skip setting payment date if empty string is provided (keep existing value)
-                        logger.info("Empty payment date string provided, keeping existing value");
-                    }
-                }
-
-                if (requestData.containsKey("paymentMode") && requestData.get("paymentMode") != null) {
-                    advancesDTO.setPaymentMode(requestData.get("paymentMode").toString());
-                }
-
-                if (requestData.containsKey("remarks") && requestData.get("remarks") != null) {
-                    advancesDTO.setRemarks(requestData.get("remarks").toString());
-                }
-
-                if (requestData.containsKey("referenceNo") && requestData.get("referenceNo") != null) {
-                    advancesDTO.setReferenceNo(requestData.get("referenceNo").toString());
-                }
-
-                if (requestData.containsKey("guestName") && requestData.get("guestName") != null) {
-                    advancesDTO.setGuestName(requestData.get("guestName").toString());
-                }
-
-                if (requestData.containsKey("folioNo") && requestData.get("folioNo") != null) {
-                    advancesDTO.setFolioNo(requestData.get("folioNo").toString());
-                }
-
-                if (requestData.containsKey("reservationNo") && requestData.get("reservationNo") != null) {
-                    advancesDTO.setReservationNo(requestData.get("reservationNo").toString());
-                }
-
-                if (requestData.containsKey("userId") && requestData.get("userId") != null) {
-                    try {
-                        advancesDTO.setUserId(Integer.valueOf(requestData.get("userId").toString()));
-                    } catch (NumberFormatException e) {
-                        // Keep existing userId
-                    }
-                }
-                if (requestData.containsKey("auditDate") && requestData.get("auditDate") != null) {
-                    String auditDateStr = requestData.get("auditDate").toString().trim();
-                    if (!auditDateStr.isEmpty()) {
-                        try {
-                            advancesDTO.setAuditDate(java.time.LocalDate.parse(auditDateStr));
-                        } catch (Exception e) {
-                            // Keep existing auditDate if parsing fails
-                            logger.info("Invalid audit date format, keeping existing value");
-                        }
-                    } else {
-                        // Keep existing auditDate if empty string
-                        logger.info("Empty audit date string provided, keeping existing value");
-                    }
-                }
-
-                if (requestData.containsKey("shiftNo") && requestData.get("shiftNo") != null) {
-                    try {
-                        advancesDTO.setShiftNo(Integer.valueOf(requestData.get("shiftNo").toString()));
-                    } catch (NumberFormatException e) {
-                        // Keep existing shiftNo
-                    }
-                }
-
-                if (requestData.containsKey("shiftDate") && requestData.get("shiftDate") != null) {
-                    String shiftDateStr = requestData.get("shiftDate").toString().trim();
-                    if (!shiftDateStr.isEmpty()) {
-                        try {
-                            advancesDTO.setShiftDate(java.time.LocalDate.parse(shiftDateStr));
-                        } catch (Exception e) {
-                            // Keep existing shiftDate if parsing fails
-                            logger.info("Invalid shift date format, keeping existing value");
-                        }
-                    } else {
-                        // Keep existing shiftDate if empty string
-                        logger.info("Empty shift date string provided, keeping existing value");
-                    }
-                }
-
-                if (requestData.containsKey("roomNo") && requestData.get("roomNo") != null) {
-                    advancesDTO.setRoomNo(requestData.get("roomNo").toString());
-                }
-
-                if (requestData.containsKey("billNo") && requestData.get("billNo") != null) {
-                    advancesDTO.setBillNo(requestData.get("billNo").toString());
-                }
-
-                if (requestData.containsKey("creditCardCompany") && requestData.get("creditCardCompany") != null) {
-                    advancesDTO.setCreditCardCompany(requestData.get("creditCardCompany").toString());
-                }
-
-                if (requestData.containsKey("creditCardNo") && requestData.get("creditCardNo") != null) {
-                    advancesDTO.setCreditCardNo(requestData.get("creditCardNo").toString());
-                }
-            } catch (Exception e) {
-                logger.error("Error parsing request data: {}", e.getMessage(), e);
-                return ResponseEntity.badRequest().body(Map.of(
-                        "status", "error",
-                        "message", "Error parsing request data: " + e.getMessage()));
-            }
+            keepUnsetFields(advancesDTO, existingAdvance.get());
 
             Advances updatedAdvance = advancesService.updateAdvance(id, advancesDTO);
-            logger.info("Advance updated successfully: {}", updatedAdvance);
+            logger.info("Advance {} updated", id);
             return ResponseEntity.ok(Map.of(
                     "status", "success",
                     "message", "Advance updated successfully",
@@ -669,4 +474,83 @@ public class AdvancesController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Default the fields a new advance may leave out: the dates to today,
+     * payment mode to Cash and user to 1
+     */
+    private static void applyCreateDefaults(AdvancesDTO dto) {
+        LocalDate today = LocalDate.now();
+        if (dto.getPaymentDate() == null) {
+            dto.setPaymentDate(today);
+        }
+        if (dto.getPaymentMode() == null) {
+            dto.setPaymentMode("Cash");
+        }
+        if (dto.getUserId() == null) {
+            dto.setUserId(1);
+        }
+        if (dto.getAuditDate() == null) {
+            dto.setAuditDate(today);
+        }
+        if (dto.getShiftDate() == null) {
+            dto.setShiftDate(today);
+        }
+        dto.setAdvancesId(null);
+    }
+
+    /**
+     * Fill the fields an update left out with the advance's current values,
+     * since the service writes every field
+     */
+    private static void keepUnsetFields(AdvancesDTO dto, Advances current) {
+        if (dto.getReservationNo() == null) {
+            dto.setReservationNo(current.getReservationNo());
+        }
+        if (dto.getAuditDate() == null) {
+            dto.setAuditDate(current.getAuditDate());
+        }
+        if (dto.getPaymentDate() == null) {
+            dto.setPaymentDate(current.getPaymentDate());
+        }
+        if (dto.getReferenceNo() == null) {
+            dto.setReferenceNo(current.getReferenceNo());
+        }
+        if (dto.getPaymentMode() == null) {
+            dto.setPaymentMode(current.getPaymentMode());
+        }
+        if (dto.getAmount() == null) {
+            dto.setAmount(current.getAmount());
+        }
+        if (dto.getCreditCardCompany() == null) {
+            dto.setCreditCardCompany(current.getCreditCardCompany());
+        }
+        if (dto.getCreditCardNo() == null) {
+            dto.setCreditCardNo(current.getCreditCardNo());
+        }
+        if (dto.getRemarks() == null) {
+            dto.setRemarks(current.getRemarks());
+        }
+        if (dto.getFolioNo() == null) {
+            dto.setFolioNo(current.getFolioNo());
+        }
+        if (dto.getShiftNo() == null) {
+            dto.setShiftNo(current.getShiftNo());
+        }
+        if (dto.getShiftDate() == null) {
+            dto.setShiftDate(current.getShiftDate());
+        }
+        if (dto.getRoomNo() == null) {
+            dto.setRoomNo(current.getRoomNo());
+        }
+        if (dto.getUserId() == null) {
+            dto.setUserId(current.getUserId());
+        }
+        if (dto.getBillNo() == null) {
+            dto.setBillNo(current.getBillNo());
+        }
+        if (dto.getGuestName() == null) {
+            dto.setGuestName(current.getGuestName());
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package com.hotel.erp.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hotel.erp.dto.BillSettlementDTO;
 import com.hotel.erp.dto.FoBillDTO;
 import com.hotel.erp.entity.BillSettlement;
 import com.hotel.erp.entity.FoBill;
 import com.hotel.erp.service.BillingService;
+import com.hotel.erp.service.KeysetPager;
+import com.hotel.erp.util.NdjsonResponses;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -26,6 +32,9 @@ public class BillingController {
     @Autowired
     private BillingService billingService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Create a new bill
      */
@@ -140,6 +149,92 @@ public class BillingController {
         }
     }
 
+    /**
+     * Get bills one page at a time, oldest first by default. Pass the
+     * nextCursor of a page to get the next one.
+     * 
+     * @param cursor    the nextCursor of the previous page
+     * @param limit     the page size, at most {@value KeysetPager#MAX_LIMIT}
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return the page
+     */
+    @GetMapping(value = "/bills/page", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getBillsPage(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction) {
+        try {
+            return ResponseEntity.ok(billingService.getBillsPage(cursor, limit, sort, direction));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Stream all bills after the cursor as newline delimited JSON
+     * 
+     * @param cursor    where to start, or none for the beginning
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return one FoBill per line
+     */
+    @GetMapping(value = "/bills/page", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBills(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction) {
+        KeysetPager.Scan<FoBill> scan;
+        try {
+            scan = billingService.scanBills(cursor, sort, direction);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return NdjsonResponses.stream(objectMapper, scan::forEach);
+    }
+
+    /**
+     * Get settlements one page at a time, oldest first by default. Pass the
+     * nextCursor of a page to get the next one.
+     * 
+     * @param cursor    the nextCursor of the previous page
+     * @param limit     the page size, at most {@value KeysetPager#MAX_LIMIT}
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return the page
+     */
+    @GetMapping(value = "/settlements/page", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getSettlementsPage(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction) {
+        try {
+            return ResponseEntity.ok(billingService.getSettlementsPage(cursor, limit, sort, direction));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Stream all settlements after the cursor as newline delimited JSON
+     * 
+     * @param cursor    where to start, or none for the beginning
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return one BillSettlement per line
+     */
+    @GetMapping(value = "/settlements/page", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSettlements(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction) {
+        KeysetPager.Scan<BillSettlement> scan;
+        try {
+            scan = billingService.scanSettlements(cursor, sort, direction);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return NdjsonResponses.stream(objectMapper, scan::forEach);
+    }
+
     /**
      * Update a bill
      */
@@ -1,12 +1,19 @@
 package com.hotel.erp.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hotel.erp.entity.Checkin;
 import com.hotel.erp.service.CheckinService;
+import com.hotel.erp.service.KeysetPager;
+import com.hotel.erp.service.OptimisticRetryExecutor;
+import com.hotel.erp.util.NdjsonResponses;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -19,11 +26,60 @@ public class CheckinController {
     @Autowired
     private CheckinService checkinService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OptimisticRetryExecutor optimisticRetryExecutor;
+
     @GetMapping
     public ResponseEntity<List<Checkin>> getAllCheckins() {
         return ResponseEntity.ok(checkinService.getAllCheckins());
     }
 
+    /**
+     * Get checkins one page at a time, oldest first by default. Pass the
+     * nextCursor of a page to get the next one.
+     * 
+     * @param cursor    the nextCursor of the previous page
+     * @param limit     the page size, at most {@value KeysetPager#MAX_LIMIT}
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return the page
+     */
+    @GetMapping(value = "/page", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getCheckinsPage(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction) {
+        try {
+            return ResponseEntity.ok(checkinService.getCheckinsPage(cursor, limit, sort, direction));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Stream all checkins after the cursor as newline delimited JSON
+     * 
+     * @param cursor    where to start, or none for the beginning
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return one Checkin per line
+     */
+    @GetMapping(value = "/page", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCheckins(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction) {
+        KeysetPager.Scan<Checkin> scan;
+        try {
+            scan = checkinService.scanCheckins(cursor, sort, direction);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return NdjsonResponses.stream(objectMapper, scan::forEach);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Checkin> getCheckinById(@PathVariable Long id) {
         return checkinService.getCheckinById(id)
@@ -101,6 +157,8 @@ public class CheckinController {
             return new ResponseEntity<>(checkin, HttpStatus.CREATED);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error: " + e.getMessage());
         }
@@ -124,6 +182,11 @@ public class CheckinController {
         return checkinService.getCheckinById(id)
                 .map(existingCheckin -> {
                     checkin.setId(id);
+                    // Clients that send the version they read get a 409 if the
+                    // folio changed since; others overwrite, as before
+                    optimisticRetryExecutor.checkVersion("updateCheckin", checkin.getVersion(),
+                            existingCheckin.getVersion());
+                    checkin.setVersion(existingCheckin.getVersion());
                     return ResponseEntity.ok(checkinService.saveCheckin(checkin));
                 })
                 .orElseGet(() -> ResponseEntity.notFound().build());
@@ -1,7 +1,9 @@
 package com.hotel.erp.controller;
 
+import com.hotel.erp.dto.FolioBalanceDTO;
 import com.hotel.erp.entity.Checkin;
 import com.hotel.erp.service.CheckoutsService;
+import com.hotel.erp.service.FolioBalanceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +26,9 @@ public class CheckoutsController {
     @Autowired
     private CheckoutsService checkoutsService;
 
+    @Autowired
+    private FolioBalanceService folioBalanceService;
+
     /**
      * Perform checkout for a guest
      */
@@ -58,6 +63,58 @@ public class CheckoutsController {
         }
     }
 
+    /**
+     * Get ledger totals for every in-house folio
+     */
+    @GetMapping("/balances/in-house")
+    public ResponseEntity<List<FolioBalanceDTO>> getInHouseBalances() {
+        try {
+            return ResponseEntity.ok(folioBalanceService.getInHouseBalances());
+        } catch (Exception e) {
+            logger.error("Error calculating in-house balances: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Get ledger totals for a list of folios
+     */
+    @PostMapping("/balances")
+    public ResponseEntity<Map<String, FolioBalanceDTO>> getFolioBalances(@RequestBody List<String> folioNos) {
+        try {
+            return ResponseEntity.ok(folioBalanceService.getFolioBalances(folioNos));
+        } catch (Exception e) {
+            logger.error("Error calculating folio balances: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Compare the folio balance ledger against the ledger tables
+     */
+    @GetMapping("/balances/verify")
+    public ResponseEntity<Map<String, Object>> verifyFolioBalances() {
+        try {
+            return ResponseEntity.ok(folioBalanceService.verifyFolioBalances(false));
+        } catch (Exception e) {
+            logger.error("Error verifying folio balances: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Rebuild drifted or missing folio balance ledger rows
+     */
+    @PostMapping("/balances/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildFolioBalances() {
+        try {
+            return ResponseEntity.ok(folioBalanceService.verifyFolioBalances(true));
+        } catch (Exception e) {
+            logger.error("Error rebuilding folio balances: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * Get checkout history
      */
@@ -1,5 +1,6 @@
 package com.hotel.erp.controller;
 
+import com.hotel.erp.dto.FolioBalanceDTO;
 import com.hotel.erp.entity.Advances;
 import com.hotel.erp.entity.PostTransaction;
 import com.hotel.erp.entity.FoBill;
@@ -8,6 +9,7 @@ import com.hotel.erp.service.AdvancesService;
 import com.hotel.erp.service.PostTransactionService;
 import com.hotel.erp.service.BillingService;
 import com.hotel.erp.service.CheckinService;
+import com.hotel.erp.service.FolioBalanceService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -37,6 +39,9 @@ public class CompleteBillingController {
     @Autowired
     private CheckinService checkinService;
 
+    @Autowired
+    private FolioBalanceService folioBalanceService;
+
     /**
      * Generate Complete Bill Summary with Individual Payment Tracking
      * This includes: Room charges + Service charges - Advance payments = Final
@@ -55,15 +60,14 @@ public class CompleteBillingController {
 
             // 2. Get All Advance Payments (Individual Tracking)
             List<Advances> allAdvances = advancesService.getAdvancesByFolioNo(folioNo);
-            double totalAdvances = allAdvances.stream()
-                    .mapToDouble(advance -> advance.getAmount().doubleValue())
-                    .sum();
 
             // 3. Get All Post Transactions (Room charges, service charges, etc.)
             List<PostTransaction> allTransactions = postTransactionService.getTransactionsByFolioNo(folioNo);
-            double totalCharges = allTransactions.stream()
-                    .mapToDouble(transaction -> transaction.getAmount().doubleValue())
-                    .sum(); // 4. Calculate Final Bill Amount
+
+            // 4. Calculate Final Bill Amount from the folio balance ledger
+            FolioBalanceDTO folioBalance = folioBalanceService.getFolioBalance(folioNo);
+            double totalAdvances = folioBalance.getTotalAdvances().doubleValue();
+            double totalCharges = folioBalance.getTotalPostings().doubleValue();
             double grossAmount = totalCharges;
             double netAmount = grossAmount - totalAdvances;
             double balanceAmount = Math.max(0, netAmount); // Cannot be negative
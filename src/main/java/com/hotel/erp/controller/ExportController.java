@@ -0,0 +1,102 @@
+package com.hotel.erp.controller;
+
+import com.hotel.erp.service.ExportService;
+import com.hotel.erp.util.ExportFormat;
+import com.hotel.erp.util.ExportResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/exports")
+@CrossOrigin(origins = "*", allowedHeaders = "*", exposedHeaders = "Content-Disposition")
+public class ExportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportController.class);
+
+    @Autowired
+    private ExportService exportService;
+
+    /**
+     * Download a ledger as CSV or XLSX, in date order. The file is written
+     * while the rows are read, so a full year does not need to fit in memory.
+     *
+     * @param dataset advances, post-transactions, bills, settlements or checkins
+     * @param format  "csv" (default) or "xlsx"
+     * @param from    the first date (optional)
+     * @param to      the last date (optional)
+     * @return the file
+     */
+    @GetMapping("/{dataset}")
+    public ResponseEntity<StreamingResponseBody> exportLedger(@PathVariable String dataset,
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        logger.info("Exporting {} from {} to {} as {}", dataset, from, to, format);
+        try {
+            ExportFormat exportFormat = ExportFormat.of(format);
+            ExportService.Table table = exportService.exportLedger(dataset, parseDate("from", from),
+                    parseDate("to", to));
+            return ExportResponses.stream(exportFormat, fileName(dataset, from, to), table.getHeader(),
+                    table.getRows());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Download a report as CSV or XLSX. List reports get one row per item;
+     * summary reports get one row per field.
+     *
+     * @param report     the report name, as in the ReportController path
+     * @param format     "csv" (default) or "xlsx"
+     * @param parameters the report's parameters, as for the ReportController
+     *                   endpoint
+     * @return the file
+     */
+    @GetMapping("/reports/{report}")
+    public ResponseEntity<StreamingResponseBody> exportReport(@PathVariable String report,
+            @RequestParam(required = false) String format,
+            @RequestParam Map<String, String> parameters) {
+        logger.info("Exporting report {} with {}", report, parameters);
+        try {
+            ExportFormat exportFormat = ExportFormat.of(format);
+            ExportService.Table table = exportService.exportReport(report, parameters);
+            return ExportResponses.stream(exportFormat, report + "-" + LocalDate.now(), table.getHeader(),
+                    table.getRows());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static LocalDate parseDate(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date for " + name + ": " + value);
+        }
+    }
+
+    private static String fileName(String dataset, String from, String to) {
+        StringBuilder name = new StringBuilder(dataset);
+        if (from != null && !from.isBlank()) {
+            name.append("-from-").append(from.trim());
+        }
+        if (to != null && !to.isBlank()) {
+            name.append("-to-").append(to.trim());
+        }
+        return name.toString();
+    }
+}
@@ -1,7 +1,10 @@
 package com.hotel.erp.controller;
 
 import com.hotel.erp.dto.HousekeepingDTO;
+import com.hotel.erp.dto.HousekeepingPlanDTO;
+import com.hotel.erp.dto.HousekeepingPlanRequestDTO;
 import com.hotel.erp.entity.Housekeeping;
+import com.hotel.erp.service.HousekeepingAssignmentService;
 import com.hotel.erp.service.HousekeepingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +26,9 @@ public class HousekeepingController {
     @Autowired
     private HousekeepingService housekeepingService;
 
+    @Autowired
+    private HousekeepingAssignmentService housekeepingAssignmentService;
+
     /**
      * Create a new housekeeping task
      */
@@ -250,4 +256,23 @@ public class HousekeepingController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Plan and assign the day's rooms across the attendants on duty. With
+     * incremental=true only new or orphaned rooms are placed, e.g. after late
+     * checkouts; dryRun=true previews the plan without saving it.
+     */
+    @PostMapping("/assignments/plan")
+    public ResponseEntity<?> planAssignments(@RequestBody HousekeepingPlanRequestDTO request) {
+        try {
+            HousekeepingPlanDTO plan = housekeepingAssignmentService.plan(request);
+            return ResponseEntity.ok(plan);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error planning assignments: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error planning housekeeping assignments: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error planning assignments: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.hotel.erp.controller;
+
+import com.hotel.erp.dto.StockMovementDTO;
+import com.hotel.erp.exception.ResourceNotFoundException;
+import com.hotel.erp.dto.ReorderSuggestionDTO;
+import com.hotel.erp.service.KeysetPager;
+import com.hotel.erp.service.ReorderMonitor;
+import com.hotel.erp.service.StockLedgerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/inventory")
+@CrossOrigin(origins = "*")
+public class InventoryController {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryController.class);
+
+    private final StockLedgerService stockLedgerService;
+    private final ReorderMonitor reorderMonitor;
+
+    @Autowired
+    public InventoryController(StockLedgerService stockLedgerService, ReorderMonitor reorderMonitor) {
+        this.stockLedgerService = stockLedgerService;
+        this.reorderMonitor = reorderMonitor;
+    }
+
+    /**
+     * Post one stock movement: a receipt, issue, reservation, release, issue
+     * of reserved stock or stock count
+     * 
+     * @param movement the movement
+     * @return the ledger row, with the stock left after it
+     */
+    @PostMapping("/movements")
+    public ResponseEntity<?> postMovement(@RequestBody StockMovementDTO movement) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(stockLedgerService.post(movement));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
+    }
+
+    /**
+     * Post several stock movements; either all are applied or none is
+     * 
+     * @param movements the movements
+     * @return the ledger rows, in the order given
+     */
+    @PostMapping("/movements/bulk")
+    public ResponseEntity<?> postMovements(@RequestBody List<StockMovementDTO> movements) {
+        logger.debug("Received bulk stock movement request with {} items", movements.size());
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(stockLedgerService.postAll(movements));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
+    }
+
+    /**
+     * Get an item's stock movements one page at a time, oldest first by
+     * default. Pass the nextCursor of a page to get the next one.
+     * 
+     * @param itemCode  the item code
+     * @param cursor    the nextCursor of the previous page
+     * @param limit     the page size, at most {@value KeysetPager#MAX_LIMIT}
+     * @param fromDate  the first movement date
+     * @param toDate    the last movement date
+     * @param direction "asc" or "desc"
+     * @return the page
+     */
+    @GetMapping("/{itemCode}/movements")
+    public ResponseEntity<?> getMovements(@PathVariable String itemCode,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(required = false) String direction) {
+        try {
+            return ResponseEntity.ok(stockLedgerService.getMovements(itemCode, cursor, limit, fromDate, toDate,
+                    direction));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
+    }
+
+    /**
+     * Roll the daily issues up to a date into the average consumption of
+     * every item, as the nightly job does
+     * 
+     * @param through the last day to fold in, yesterday by default
+     * @return items updated
+     */
+    @PostMapping("/consumption/roll")
+    public ResponseEntity<Map<String, Object>> rollConsumption(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate through) {
+        return ResponseEntity.ok(stockLedgerService.rollConsumption(
+                through != null ? through : LocalDate.now().minusDays(1)));
+    }
+
+    /**
+     * Get the active items at or below their reorder level with the quantity
+     * to order, most urgent first
+     * 
+     * @param limit the most items to return
+     * @return the suggestions
+     */
+    @GetMapping("/reorder")
+    public ResponseEntity<List<ReorderSuggestionDTO>> getReorderSuggestions(
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(reorderMonitor.getSuggestions(Math.max(1, limit)));
+    }
+
+    /**
+     * Get the alerts raised as movements took items to their reorder level.
+     * Pass the sequence of the last response to get only newer alerts.
+     * 
+     * @param after the last sequence seen
+     * @return the current sequence and the newer alerts
+     */
+    @GetMapping("/reorder/alerts")
+    public ResponseEntity<Map<String, Object>> getReorderAlerts(@RequestParam(defaultValue = "0") long after) {
+        return ResponseEntity.ok(reorderMonitor.getAlerts(after));
+    }
+
+    /**
+     * Reload the reorder monitor, e.g. after reorder levels were changed
+     * 
+     * @return nothing
+     */
+    @PostMapping("/reorder/rebuild")
+    public ResponseEntity<Void> rebuildReorderMonitor() {
+        reorderMonitor.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+
+    private static ResponseEntity<?> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of(
+                "status", "error",
+                "message", e.getMessage()));
+    }
+}
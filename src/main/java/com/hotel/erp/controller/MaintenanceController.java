@@ -2,7 +2,9 @@ package com.hotel.erp.controller;
 
 import com.hotel.erp.entity.Maintenance;
 import com.hotel.erp.repository.MaintenanceRepository;
+import com.hotel.erp.service.GuestSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,6 +25,12 @@ public class MaintenanceController {
     @Autowired
     private MaintenanceRepository maintenanceRepository;
 
+    @Autowired
+    private GuestSearchIndex guestSearchIndex;
+
+    @Value("${hotel.search.max-results:200}")
+    private int maxSearchResults;
+
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllRequests() {
         try {
@@ -72,6 +80,7 @@ public class MaintenanceController {
             }
             
             Maintenance savedRequest = maintenanceRepository.save(maintenance);
+            guestSearchIndex.maintenanceSaved(savedRequest);
             
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
@@ -112,6 +121,7 @@ public class MaintenanceController {
                 request.setUserId(maintenance.getUserId());
                 
                 Maintenance updatedRequest = maintenanceRepository.save(request);
+                guestSearchIndex.maintenanceSaved(updatedRequest);
                 
                 response.put("status", "success");
                 response.put("message", "Maintenance request updated successfully");
@@ -138,6 +148,7 @@ public class MaintenanceController {
             
             if (request.isPresent()) {
                 maintenanceRepository.deleteById(id);
+                guestSearchIndex.removed(GuestSearchIndex.Kind.MAINTENANCE, id);
                 response.put("status", "success");
                 response.put("message", "Maintenance request deleted successfully");
                 return ResponseEntity.ok(response);
@@ -242,7 +253,10 @@ public class MaintenanceController {
     @GetMapping("/search")
     public ResponseEntity<Map<String, Object>> searchRequests(@RequestParam String query) {
         try {
-            List<Maintenance> requests = maintenanceRepository.searchMaintenance(query);
+            List<Long> ids = guestSearchIndex.searchIds(query, GuestSearchIndex.Kind.MAINTENANCE, null,
+                    maxSearchResults);
+            List<Maintenance> requests = GuestSearchIndex.inOrder(ids, maintenanceRepository.findAllById(ids),
+                    Maintenance::getId);
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
             response.put("count", requests.size());
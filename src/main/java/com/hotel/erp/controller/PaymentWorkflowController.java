@@ -1,9 +1,11 @@
 package com.hotel.erp.controller;
 
+import com.hotel.erp.dto.AdvancePaymentDTO;
 import com.hotel.erp.entity.Advances;
 import com.hotel.erp.service.AdvancesService;
 import com.hotel.erp.service.ReservationService;
 import com.hotel.erp.service.CheckinService;
+import com.hotel.erp.util.RequestValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -33,24 +35,28 @@ public class PaymentWorkflowController {
      * yet)
      */
     @PostMapping("/pre-checkin-advance")
-    public ResponseEntity<Map<String, Object>> createPreCheckinAdvance(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Map<String, Object>> createPreCheckinAdvance(@RequestBody AdvancePaymentDTO request) {
+        RequestValidator.check()
+                .required("reservationNo", request.getReservationNo())
+                .required("guestName", request.getGuestName())
+                .required("paymentMode", request.getPaymentMode())
+                .required("amount", request.getAmount())
+                .positive("amount", request.getAmount())
+                .required("userId", request.getUserId())
+                .validate();
         try {
-            // Extract request data
-            String reservationNo = (String) request.get("reservationNo");
-            String guestName = (String) request.get("guestName");
-            String paymentMode = (String) request.get("paymentMode");
-            Double amount = Double.parseDouble(request.get("amount").toString());
-            String remarks = (String) request.get("remarks");
-            Integer userId = Integer.parseInt(request.get("userId").toString());
+            String reservationNo = request.getReservationNo();
+            String paymentMode = request.getPaymentMode();
+            BigDecimal amount = request.getAmount();
 
             // Create advance entity
             Advances advance = new Advances();
             advance.setReservationNo(reservationNo);
-            advance.setGuestName(guestName);
+            advance.setGuestName(request.getGuestName());
             advance.setPaymentMode(paymentMode);
-            advance.setAmount(BigDecimal.valueOf(amount));
-            advance.setRemarks(remarks);
-            advance.setUserId(userId);
+            advance.setAmount(amount);
+            advance.setRemarks(request.getRemarks());
+            advance.setUserId(request.getUserId());
             advance.setPaymentDate(LocalDateTime.now().toLocalDate());
 
             // Save advance
@@ -87,22 +93,26 @@ public class PaymentWorkflowController {
      * checked in)
      */
     @PostMapping("/post-checkin-advance")
-    public ResponseEntity<Map<String, Object>> createPostCheckinAdvance(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Map<String, Object>> createPostCheckinAdvance(@RequestBody AdvancePaymentDTO request) {
+        RequestValidator.check()
+                .required("folioNo", request.getFolioNo())
+                .required("paymentMode", request.getPaymentMode())
+                .required("amount", request.getAmount())
+                .positive("amount", request.getAmount())
+                .required("userId", request.getUserId())
+                .validate();
         try {
-            // Extract request data
-            String folioNo = (String) request.get("folioNo");
-            String paymentMode = (String) request.get("paymentMode");
-            Double amount = Double.parseDouble(request.get("amount").toString());
-            String remarks = (String) request.get("remarks");
-            Integer userId = Integer.parseInt(request.get("userId").toString());
+            String folioNo = request.getFolioNo();
+            String paymentMode = request.getPaymentMode();
+            BigDecimal amount = request.getAmount();
 
             // Create advance entity
             Advances advance = new Advances();
             advance.setFolioNo(folioNo);
             advance.setPaymentMode(paymentMode);
-            advance.setAmount(BigDecimal.valueOf(amount));
-            advance.setRemarks(remarks);
-            advance.setUserId(userId);
+            advance.setAmount(amount);
+            advance.setRemarks(request.getRemarks());
+            advance.setUserId(request.getUserId());
             advance.setPaymentDate(LocalDateTime.now().toLocalDate());
 
             // Try to get guest name from checkin data
@@ -148,15 +158,19 @@ public class PaymentWorkflowController {
      * walk-in)
      */
     @PostMapping("/walk-in-advance")
-    public ResponseEntity<Map<String, Object>> createWalkInAdvance(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Map<String, Object>> createWalkInAdvance(@RequestBody AdvancePaymentDTO request) {
+        RequestValidator.check()
+                .required("guestName", request.getGuestName())
+                .required("paymentMode", request.getPaymentMode())
+                .required("amount", request.getAmount())
+                .positive("amount", request.getAmount())
+                .required("userId", request.getUserId())
+                .validate();
         try {
-            // Extract request data
-            String guestName = (String) request.get("guestName");
-            String paymentMode = (String) request.get("paymentMode");
-            Double amount = Double.parseDouble(request.get("amount").toString());
-            String remarks = (String) request.get("remarks");
-            Integer userId = Integer.parseInt(request.get("userId").toString());
-            String folioNo = (String) request.get("folioNo");
+            String guestName = request.getGuestName();
+            String paymentMode = request.getPaymentMode();
+            BigDecimal amount = request.getAmount();
+            String folioNo = request.getFolioNo();
 
             // Generate folio number if not provided
             if (folioNo == null || folioNo.isEmpty()) {
@@ -168,9 +182,9 @@ public class PaymentWorkflowController {
             advance.setFolioNo(folioNo);
             advance.setGuestName(guestName);
             advance.setPaymentMode(paymentMode);
-            advance.setAmount(BigDecimal.valueOf(amount));
-            advance.setRemarks(remarks);
-            advance.setUserId(userId);
+            advance.setAmount(amount);
+            advance.setRemarks(request.getRemarks());
+            advance.setUserId(request.getUserId());
             advance.setPaymentDate(LocalDateTime.now().toLocalDate());
 
             // Save advance
@@ -1,20 +1,29 @@
 package com.hotel.erp.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hotel.erp.dto.PostTransactionDTO;
 import com.hotel.erp.entity.PostTransaction;
+import com.hotel.erp.service.KeysetPager;
 import com.hotel.erp.service.PostTransactionService;
+import com.hotel.erp.util.NdjsonResponses;
+import com.hotel.erp.util.RequestValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/post-transactions")
@@ -26,11 +35,57 @@ public class PostTransactionController {
     @Autowired
     private PostTransactionService postTransactionService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
     public ResponseEntity<List<PostTransaction>> getAllTransactions() {
         return ResponseEntity.ok(postTransactionService.getAllTransactions());
     }
 
+    /**
+     * Get post transactions one page at a time, oldest first by default. Pass the
+     * nextCursor of a page to get the next one.
+     * 
+     * @param cursor    the nextCursor of the previous page
+     * @param limit     the page size, at most {@value KeysetPager#MAX_LIMIT}
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return the page
+     */
+    @GetMapping(value = "/page", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getTransactionsPage(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction) {
+        try {
+            return ResponseEntity.ok(postTransactionService.getTransactionsPage(cursor, limit, sort, direction));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Stream all post transactions after the cursor as newline delimited JSON
+     * 
+     * @param cursor    where to start, or none for the beginning
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return one PostTransaction per line
+     */
+    @GetMapping(value = "/page", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTransactions(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction) {
+        KeysetPager.Scan<PostTransaction> scan;
+        try {
+            scan = postTransactionService.scanTransactions(cursor, sort, direction);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return NdjsonResponses.stream(objectMapper, scan::forEach);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<PostTransaction> getTransactionById(@PathVariable Long id) {
         return postTransactionService.getTransactionById(id)
@@ -38,176 +93,37 @@ public class PostTransactionController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
-    // Helper method to safely convert map values to string
-    private String safeGetString(Map<String, Object> map, String key) {
-        Object value = map.get(key);
-        return value != null ? value.toString() : null;
-    }
-
-    // Helper method to safely convert map values to Integer
-    private Integer safeGetInteger(Map<String, Object> map, String key) {
-        Object value = map.get(key);
-        return value != null ? Integer.valueOf(value.toString()) : null;
-    }
-
-    // Helper method to safely convert map values to LocalDate
-    private LocalDate safeGetLocalDate(Map<String, Object> map, String key) {
-        Object value = map.get(key);
-        return value != null ? LocalDate.parse(value.toString()) : null;
-    }
-
-    // Helper method to safely convert map values to BigDecimal
-    private BigDecimal safeGetBigDecimal(Map<String, Object> map, String key) {
-        Object value = map.get(key);
-        return value != null ? new BigDecimal(value.toString()) : null;
-    }
-
+    /**
+     * Post a charge to a folio
+     * 
+     * @param transactionDTO the transaction
+     * @return the saved transaction
+     */
     @PostMapping
-    public ResponseEntity<?> createTransaction(@RequestBody Map<String, Object> requestData) {
-        logger.info("Received create post transaction request with data: {}", requestData);
+    public ResponseEntity<?> createTransaction(@RequestBody PostTransactionDTO transactionDTO) {
+        logger.debug("Received create post transaction request for folio {}", transactionDTO.getFolioNo());
+
+        RequestValidator.check()
+                .required("amount", transactionDTO.getAmount())
+                .positive("amount", transactionDTO.getAmount())
+                .required("transDate", transactionDTO.getTransDate())
+                .required("accHead", transactionDTO.getAccHead())
+                .oneOf("transactionStatus", transactionDTO.getTransactionStatus(), PostTransaction.TransactionStatus.class)
+                .validate();
+        if (transactionDTO.getFolioNo() != null && transactionDTO.getFolioNo().isBlank()) {
+            logger.warn("FolioNo is empty, this may cause issues in financial tracking");
+        }
+        transactionDTO.setId(null);
 
         try {
-            // Convert Map to DTO manually with null safety
-            PostTransactionDTO transactionDTO = new PostTransactionDTO();
-
-            if (requestData.containsKey("amount")) {
-                BigDecimal amount = safeGetBigDecimal(requestData, "amount");
-                if (amount != null) {
-                    transactionDTO.setAmount(amount);
-                }
-            }
-
-            if (requestData.containsKey("transDate")) {
-                LocalDate transDate = safeGetLocalDate(requestData, "transDate");
-                if (transDate != null) {
-                    transactionDTO.setTransDate(transDate);
-                }
-            }
-
-            if (requestData.containsKey("accHead")) {
-                String accHead = safeGetString(requestData, "accHead");
-                if (accHead != null) {
-                    transactionDTO.setAccHead(accHead);
-                }
-            }
-
-            if (requestData.containsKey("narration")) {
-                String narration = safeGetString(requestData, "narration");
-                if (narration != null) {
-                    transactionDTO.setNarration(narration);
-                }
-            }
-
-            if (requestData.containsKey("guestName")) {
-                String guestName = safeGetString(requestData, "guestName");
-                if (guestName != null) {
-                    transactionDTO.setGuestName(guestName);
-                }
-            }
-
-            if (requestData.containsKey("folioNo")) {
-                String folioNo = safeGetString(requestData, "folioNo");
-                if (folioNo != null && !folioNo.trim().isEmpty()) {
-                    transactionDTO.setFolioNo(folioNo);
-                } else {
-                    logger.warn("FolioNo is null or empty, this may cause issues in financial tracking");
-                }
-            }
-
-            if (requestData.containsKey("userId")) {
-                Integer userId = safeGetInteger(requestData, "userId");
-                if (userId != null) {
-                    transactionDTO.setUserId(userId);
-                }
-            }
-
-            if (requestData.containsKey("roomNo")) {
-                String roomNo = safeGetString(requestData, "roomNo");
-                if (roomNo != null) {
-                    transactionDTO.setRoomNo(roomNo);
-                }
-            }
-
-            if (requestData.containsKey("auditDate")) {
-                LocalDate auditDate = safeGetLocalDate(requestData, "auditDate");
-                if (auditDate != null) {
-                    transactionDTO.setAuditDate(auditDate);
-                }
-            }
-
-            if (requestData.containsKey("voucherNo")) {
-                String voucherNo = safeGetString(requestData, "voucherNo");
-                if (voucherNo != null) {
-                    transactionDTO.setVoucherNo(voucherNo);
-                }
-            }
-
-            if (requestData.containsKey("billNo")) {
-                String billNo = safeGetString(requestData, "billNo");
-                if (billNo != null) {
-                    transactionDTO.setBillNo(billNo);
-                }
-            }
-
-            if (requestData.containsKey("reservationNo")) {
-                String reservationNo = safeGetString(requestData, "reservationNo");
-                if (reservationNo != null) {
-                    transactionDTO.setReservationNo(reservationNo);
-                }
-            }
-
-            if (requestData.containsKey("transactionStatus")) {
-                String transactionStatus = safeGetString(requestData, "transactionStatus");
-                if (transactionStatus != null) {
-                    transactionDTO.setTransactionStatus(transactionStatus);
-                }
-            }
-
-            if (requestData.containsKey("transactionType")) {
-                String transactionType = safeGetString(requestData, "transactionType");
-                if (transactionType != null) {
-                    transactionDTO.setTransactionType(transactionType);
-                }
-            }
-
-            if (requestData.containsKey("customerType")) {
-                String customerType = safeGetString(requestData, "customerType");
-                if (customerType != null) {
-                    transactionDTO.setCustomerType(customerType);
-                }
-            }
-
-            if (requestData.containsKey("shiftNo")) {
-                Integer shiftNo = safeGetInteger(requestData, "shiftNo");
-                if (shiftNo != null) {
-                    transactionDTO.setShiftNo(shiftNo);
-                }
-            }
-
-            if (requestData.containsKey("shiftDate")) {
-                LocalDate shiftDate = safeGetLocalDate(requestData, "shiftDate");
-                if (shiftDate != null) {
-                    transactionDTO.setShiftDate(shiftDate);
-                }
-            }
-
-            logger.info("Converted DTO: {}", transactionDTO);
-
-            // Create the transaction
             PostTransaction savedTransaction = postTransactionService.createTransaction(transactionDTO);
-
             logger.info("Successfully created post transaction with ID: {}", savedTransaction.getId());
-
             return new ResponseEntity<>(savedTransaction, HttpStatus.CREATED);
-
-        } catch (NumberFormatException e) {
-            logger.error("Number format error: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body("Invalid number format: " + e.getMessage());
-        } catch (java.time.format.DateTimeParseException e) {
-            logger.error("Date format error: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body("Invalid date format: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            logger.error("Validation error: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()));
         } catch (Exception e) {
             logger.error("Unexpected error: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -215,87 +131,62 @@ public class PostTransactionController {
         }
     }
 
+    /**
+     * Post many charges at once, e.g. an export from a POS outlet. Invalid
+     * items are reported and skipped while the rest are saved.
+     * 
+     * @param transactions the transactions
+     * @return the id or error of each item, in order
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createTransactions(@RequestBody List<PostTransactionDTO> transactions) {
+        logger.debug("Received bulk post transaction request with {} items", transactions.size());
+        transactions.stream().filter(Objects::nonNull).forEach(transaction -> transaction.setId(null));
+        try {
+            return ResponseEntity.ok(postTransactionService.createTransactions(transactions));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Update a transaction. Fields left out or null keep their current value.
+     * 
+     * @param id             the transaction ID
+     * @param transactionDTO the fields to change
+     * @return the updated transaction
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateTransaction(@PathVariable Long id, @RequestBody Map<String, Object> requestData) {
-        logger.info("Received update post transaction request for ID: {} with data: {}", id, requestData);
+    public ResponseEntity<?> updateTransaction(@PathVariable Long id, @RequestBody PostTransactionDTO transactionDTO) {
+        logger.debug("Received update post transaction request for ID: {}", id);
 
-        try {
-            return postTransactionService.getTransactionById(id)
-                    .map(existingTransaction -> {
-                        try {
-                            // Convert Map to DTO manually with null safety
-                            PostTransactionDTO transactionDTO = new PostTransactionDTO();
-                            transactionDTO.setId(id);
-
-                            // Copy existing values first
-                            transactionDTO.setAmount(existingTransaction.getAmount());
-                            transactionDTO.setTransDate(existingTransaction.getTransDate());
-                            transactionDTO.setAccHead(existingTransaction.getAccHead());
-                            transactionDTO.setNarration(existingTransaction.getNarration());
-                            transactionDTO.setGuestName(existingTransaction.getGuestName());
-                            transactionDTO.setFolioNo(existingTransaction.getFolioNo());
-                            transactionDTO.setUserId(existingTransaction.getUserId());
-                            transactionDTO.setRoomNo(existingTransaction.getRoomNo());
-                            transactionDTO.setAuditDate(existingTransaction.getAuditDate());
-                            transactionDTO.setVoucherNo(existingTransaction.getVoucherNo());
-                            transactionDTO.setBillNo(existingTransaction.getBillNo());
-                            transactionDTO.setReservationNo(existingTransaction.getReservationNo());
-                            transactionDTO.setTransactionStatus(existingTransaction.getTransactionStatus().toString());
-                            transactionDTO.setTransactionType(existingTransaction.getTransactionType());
-                            transactionDTO.setCustomerType(existingTransaction.getCustomerType());
-                            transactionDTO.setShiftNo(existingTransaction.getShiftNo());
-                            transactionDTO.setShiftDate(existingTransaction.getShiftDate());
-
-                            // Update with new values
-                            if (requestData.containsKey("amount")) {
-                                BigDecimal amount = safeGetBigDecimal(requestData, "amount");
-                                if (amount != null) {
-                                    transactionDTO.setAmount(amount);
-                                }
-                            }
-
-                            if (requestData.containsKey("transDate")) {
-                                LocalDate transDate = safeGetLocalDate(requestData, "transDate");
-                                if (transDate != null) {
-                                    transactionDTO.setTransDate(transDate);
-                                }
-                            }
-
-                            if (requestData.containsKey("accHead")) {
-                                String accHead = safeGetString(requestData, "accHead");
-                                if (accHead != null) {
-                                    transactionDTO.setAccHead(accHead);
-                                }
-                            }
-
-                            if (requestData.containsKey("folioNo")) {
-                                String folioNo = safeGetString(requestData, "folioNo");
-                                if (folioNo != null) {
-                                    transactionDTO.setFolioNo(folioNo);
-                                }
-                            }
-
-                            // Continue with other fields as needed...
-
-                            PostTransaction updatedTransaction = postTransactionService
-                                    .createTransaction(transactionDTO);
-
-                            logger.info("Successfully updated post transaction with ID: {}", id);
-
-                            return ResponseEntity.ok(updatedTransaction);
-
-                        } catch (Exception e) {
-                            logger.error("Error updating transaction: {}", e.getMessage());
-                            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                                    .body("Error updating transaction: " + e.getMessage());
-                        }
-                    })
-                    .orElseGet(() -> ResponseEntity.notFound().build());
+        RequestValidator.check()
+                .positive("amount", transactionDTO.getAmount())
+                .oneOf("transactionStatus", transactionDTO.getTransactionStatus(), PostTransaction.TransactionStatus.class)
+                .validate();
 
+        try {
+            Optional<PostTransaction> existingTransaction = postTransactionService.getTransactionById(id);
+            if (existingTransaction.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            transactionDTO.setId(id);
+            keepUnsetFields(transactionDTO, existingTransaction.get());
+
+            PostTransaction updatedTransaction = postTransactionService.updateTransaction(id, transactionDTO);
+            logger.info("Successfully updated post transaction with ID: {}", id);
+            return ResponseEntity.ok(updatedTransaction);
+        } catch (IllegalArgumentException e) {
+            logger.error("Validation error: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()));
         } catch (Exception e) {
             logger.error("Unexpected error in updateTransaction: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Internal server error: " + e.getMessage());
+                    .body("Error updating transaction: " + e.getMessage());
         }
     }
 
@@ -391,4 +282,62 @@ public class PostTransactionController {
     public ResponseEntity<String> testEndpoint() {
         return ResponseEntity.ok("PostTransaction Controller test successful - no service dependency");
     }
+
+    /**
+     * Fill the fields an update left out with the transaction's current
+     * values, since the service writes every field
+     */
+    private static void keepUnsetFields(PostTransactionDTO dto, PostTransaction current) {
+        if (dto.getAmount() == null) {
+            dto.setAmount(current.getAmount());
+        }
+        if (dto.getTransDate() == null) {
+            dto.setTransDate(current.getTransDate());
+        }
+        if (dto.getAccHead() == null) {
+            dto.setAccHead(current.getAccHead());
+        }
+        if (dto.getNarration() == null) {
+            dto.setNarration(current.getNarration());
+        }
+        if (dto.getGuestName() == null) {
+            dto.setGuestName(current.getGuestName());
+        }
+        if (dto.getFolioNo() == null) {
+            dto.setFolioNo(current.getFolioNo());
+        }
+        if (dto.getUserId() == null) {
+            dto.setUserId(current.getUserId());
+        }
+        if (dto.getRoomNo() == null) {
+            dto.setRoomNo(current.getRoomNo());
+        }
+        if (dto.getAuditDate() == null) {
+            dto.setAuditDate(current.getAuditDate());
+        }
+        if (dto.getVoucherNo() == null) {
+            dto.setVoucherNo(current.getVoucherNo());
+        }
+        if (dto.getBillNo() == null) {
+            dto.setBillNo(current.getBillNo());
+        }
+        if (dto.getReservationNo() == null) {
+            dto.setReservationNo(current.getReservationNo());
+        }
+        if (dto.getTransactionStatus() == null && current.getTransactionStatus() != null) {
+            dto.setTransactionStatus(current.getTransactionStatus().toString());
+        }
+        if (dto.getTransactionType() == null) {
+            dto.setTransactionType(current.getTransactionType());
+        }
+        if (dto.getCustomerType() == null) {
+            dto.setCustomerType(current.getCustomerType());
+        }
+        if (dto.getShiftNo() == null) {
+            dto.setShiftNo(current.getShiftNo());
+        }
+        if (dto.getShiftDate() == null) {
+            dto.setShiftDate(current.getShiftDate());
+        }
+    }
 }
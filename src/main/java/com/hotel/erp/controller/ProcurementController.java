@@ -1,156 +1,166 @@
 package com.hotel.erp.controller;
 
+import com.hotel.erp.dto.GoodsReceiptDTO;
+import com.hotel.erp.dto.PurchaseOrderRequestDTO;
+import com.hotel.erp.dto.PurchaseRequisitionDTO;
+import com.hotel.erp.entity.PurchaseOrder;
+import com.hotel.erp.entity.PurchaseRequisition;
+import com.hotel.erp.entity.SupplierPerformance;
+import com.hotel.erp.entity.Vendor;
+import com.hotel.erp.exception.ResourceNotFoundException;
+import com.hotel.erp.service.ProcurementReportService;
+import com.hotel.erp.service.PurchasingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.*;
+import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.math.BigDecimal;
+import java.util.function.Supplier;
 
 /**
  * Procurement Management Controller
- * Handles supplier management, purchase orders, inventory procurement, and
- * vendor contracts
+ * Handles supplier management, requisitions, purchase orders, goods receipts
+ * and vendor contracts. Every response is wrapped as {status, message, data};
+ * bad input answers 400 and an unknown id 404.
  */
 @RestController
 @RequestMapping("/api/procurement")
 @CrossOrigin(origins = "*")
 public class ProcurementController {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProcurementController.class);
+
+    @Autowired
+    private PurchasingService purchasingService;
+
+    @Autowired
+    private ProcurementReportService procurementReportService;
+
     /**
-     * Get all suppliers
+     * Get one keyset page of the suppliers
      */
     @GetMapping("/suppliers")
-    public ResponseEntity<Map<String, Object>> getAllSuppliers() {
-        try {
-            List<Map<String, Object>> suppliers = Arrays.asList(
-                    createSupplier(1L, "Fresh Food Supplies Co.", "FOOD", "ACTIVE"),
-                    createSupplier(2L, "Luxury Linens Ltd.", "LINENS", "ACTIVE"),
-                    createSupplier(3L, "Tech Solutions Inc.", "TECHNOLOGY", "ACTIVE"),
-                    createSupplier(4L, "Cleaning Supplies Direct", "CLEANING", "ACTIVE"),
-                    createSupplier(5L, "Hotel Furniture Pro", "FURNITURE", "PENDING"));
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Suppliers retrieved successfully");
-            response.put("data", suppliers);
-            response.put("total", suppliers.size());
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "error");
-            response.put("message", "Failed to fetch suppliers: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+    public ResponseEntity<Map<String, Object>> getAllSuppliers(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit, @RequestParam(required = false) String status,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "asc") String direction) {
+        return respond(HttpStatus.OK, "Suppliers retrieved successfully", "Failed to fetch suppliers",
+                () -> purchasingService.getSuppliers(cursor, limit, status, category, direction));
     }
 
     /**
      * Create new supplier
      */
     @PostMapping("/suppliers")
-    public ResponseEntity<Map<String, Object>> createSupplier(@RequestBody Map<String, Object> supplierData) {
-        try {
-            Long newId = System.currentTimeMillis();
-            Map<String, Object> supplier = new HashMap<>(supplierData);
-            supplier.put("id", newId);
-            supplier.put("supplierCode", "SUP_" + newId);
-            supplier.put("status", "PENDING");
-            supplier.put("registrationDate", LocalDateTime.now().toString());
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Supplier created successfully");
-            response.put("data", supplier);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "error");
-            response.put("message", "Failed to create supplier: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+    public ResponseEntity<Map<String, Object>> createSupplier(@RequestBody Vendor supplier) {
+        return respond(HttpStatus.CREATED, "Supplier created successfully", "Failed to create supplier",
+                () -> purchasingService.createSupplier(supplier));
     }
 
     /**
-     * Get purchase orders
+     * Get one keyset page of the purchase orders
      */
     @GetMapping("/purchase-orders")
-    public ResponseEntity<Map<String, Object>> getPurchaseOrders(@RequestParam(required = false) String status,
-            @RequestParam(required = false) String supplierId) {
-        try {
-            List<Map<String, Object>> orders = Arrays.asList(
-                    createPurchaseOrder(1L, "Fresh Food Supplies Co.", "DELIVERED", new BigDecimal("2500.00")),
-                    createPurchaseOrder(2L, "Luxury Linens Ltd.", "PENDING", new BigDecimal("1800.50")),
-                    createPurchaseOrder(3L, "Tech Solutions Inc.", "APPROVED", new BigDecimal("5200.00")),
-                    createPurchaseOrder(4L, "Cleaning Supplies Direct", "DRAFT", new BigDecimal("890.75")),
-                    createPurchaseOrder(5L, "Hotel Furniture Pro", "ORDERED", new BigDecimal("12500.00")));
+    public ResponseEntity<Map<String, Object>> getPurchaseOrders(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit, @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long supplierId, @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "desc") String direction) {
+        return respond(HttpStatus.OK, "Purchase orders retrieved successfully", "Failed to fetch purchase orders",
+                () -> purchasingService.getPurchaseOrders(cursor, limit, orderStatus(status), supplierId, sort,
+                        direction));
+    }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Purchase orders retrieved successfully");
-            response.put("data", orders);
-            response.put("filters", Map.of("status", status, "supplierId", supplierId));
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "error");
-            response.put("message", "Failed to fetch purchase orders: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+    /**
+     * Get a purchase order with its lines and receipts
+     */
+    @GetMapping("/purchase-orders/{id}")
+    public ResponseEntity<Map<String, Object>> getPurchaseOrder(@PathVariable Long id) {
+        return respond(HttpStatus.OK, "Purchase order retrieved successfully", "Failed to fetch purchase order",
+                () -> purchasingService.getPurchaseOrder(id));
     }
 
     /**
-     * Create purchase order
+     * Raise a draft purchase order from explicit lines and approved
+     * requisitions
      */
     @PostMapping("/purchase-orders")
-    public ResponseEntity<Map<String, Object>> createPurchaseOrder(@RequestBody Map<String, Object> orderData) {
-        try {
-            Long newId = System.currentTimeMillis();
-            Map<String, Object> order = new HashMap<>(orderData);
-            order.put("id", newId);
-            order.put("orderNumber", "PO_" + newId);
-            order.put("status", "DRAFT");
-            order.put("orderDate", LocalDateTime.now().toString());
-            order.put("expectedDelivery", LocalDate.now().plusDays(7).toString());
+    public ResponseEntity<Map<String, Object>> createPurchaseOrder(@RequestBody PurchaseOrderRequestDTO request) {
+        return respond(HttpStatus.CREATED, "Purchase order created successfully", "Failed to create purchase order",
+                () -> purchasingService.createPurchaseOrder(request));
+    }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Purchase order created successfully");
-            response.put("data", order);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    /**
+     * Raise draft purchase orders from the items at or below their reorder
+     * level, one per supplier. The body may name "itemCodes" to order only
+     * those items, a "supplierName" to order only that supplier's items and
+     * the "userId" raising them. Items already on an open order are skipped.
+     */
+    @PostMapping("/purchase-orders/from-reorder")
+    public ResponseEntity<Map<String, Object>> createFromReorder(@RequestBody Map<String, Object> orderData) {
+        Collection<String> itemCodes = null;
+        if (orderData.get("itemCodes") instanceof Collection<?> codes) {
+            itemCodes = codes.stream().map(String::valueOf).toList();
+        }
+        Object supplierName = orderData.get("supplierName");
+        Integer userId = orderData.get("userId") instanceof Number number ? number.intValue() : null;
+        try {
+            Map<String, Object> result = purchasingService.createFromReorder(itemCodes,
+                    supplierName != null ? supplierName.toString() : null, userId);
+            boolean raised = !((Collection<?>) result.get("orders")).isEmpty();
+            return ResponseEntity.status(raised ? HttpStatus.CREATED : HttpStatus.OK)
+                    .body(success(raised ? "Purchase orders raised from reorder suggestions"
+                            : "No items need reordering", result));
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, "Failed to create purchase order: " + e.getMessage());
         } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "error");
-            response.put("message", "Failed to create purchase order: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            logger.error("Error raising purchase orders from reorder suggestions: {}", e.getMessage(), e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to create purchase order: " + e.getMessage());
         }
     }
 
     /**
-     * Update purchase order status
+     * Move a purchase order through its workflow: approve, place, cancel or
+     * close short
      */
     @PutMapping("/purchase-orders/{id}/status")
     public ResponseEntity<Map<String, Object>> updateOrderStatus(@PathVariable Long id,
-            @RequestBody Map<String, String> statusUpdate) {
-        try {
-            Map<String, Object> updatedOrder = new HashMap<>();
-            updatedOrder.put("id", id);
-            updatedOrder.put("status", statusUpdate.get("status"));
-            updatedOrder.put("updatedDate", LocalDateTime.now().toString());
-            updatedOrder.put("updatedBy", statusUpdate.get("updatedBy"));
+            @RequestBody Map<String, Object> statusUpdate) {
+        Object status = statusUpdate.get("status");
+        Integer userId = statusUpdate.get("userId") instanceof Number number ? number.intValue() : null;
+        return respond(HttpStatus.OK, "Purchase order status updated successfully",
+                "Failed to update purchase order status",
+                () -> purchasingService.updateStatus(id, orderStatus(status != null ? status.toString() : null),
+                        userId));
+    }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Purchase order status updated successfully");
-            response.put("data", updatedOrder);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "error");
-            response.put("message", "Failed to update purchase order status: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+    /**
+     * Receive goods against a purchase order. Without lines everything
+     * outstanding is received.
+     */
+    @PostMapping("/purchase-orders/{id}/receipts")
+    public ResponseEntity<Map<String, Object>> receiveGoods(@PathVariable Long id,
+            @RequestBody GoodsReceiptDTO receipt) {
+        return respond(HttpStatus.CREATED, "Goods received successfully", "Failed to receive goods",
+                () -> purchasingService.receive(id, receipt));
+    }
+
+    /**
+     * Get one keyset page of the goods receipts
+     */
+    @GetMapping("/receipts")
+    public ResponseEntity<Map<String, Object>> getReceipts(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit, @RequestParam(required = false) Long supplierId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(defaultValue = "desc") String direction) {
+        return respond(HttpStatus.OK, "Goods receipts retrieved successfully", "Failed to fetch goods receipts",
+                () -> purchasingService.getReceipts(cursor, limit, supplierId, fromDate, toDate, direction));
     }
 
     /**
@@ -158,105 +168,67 @@ public class ProcurementController {
      */
     @GetMapping("/contracts")
     public ResponseEntity<Map<String, Object>> getContracts() {
-        try {
-            List<Map<String, Object>> contracts = Arrays.asList(
-                    createContract(1L, "Fresh Food Supplies Co.", "Annual Food Supply", "ACTIVE"),
-                    createContract(2L, "Luxury Linens Ltd.", "Quarterly Linen Supply", "ACTIVE"),
-                    createContract(3L, "Tech Solutions Inc.", "IT Equipment Maintenance", "PENDING"),
-                    createContract(4L, "Security Services Pro", "24/7 Security Services", "EXPIRED"));
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Vendor contracts retrieved successfully");
-            response.put("data", contracts);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "error");
-            response.put("message", "Failed to fetch contracts: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+        return respond(HttpStatus.OK, "Vendor contracts retrieved successfully", "Failed to fetch contracts",
+                () -> purchasingService.getContracts().stream().map(ProcurementController::contract).toList());
     }
 
     /**
-     * Create vendor contract
+     * Record a vendor contract: "vendorId", "startDate", "endDate" and an
+     * optional "description"
      */
     @PostMapping("/contracts")
     public ResponseEntity<Map<String, Object>> createContract(@RequestBody Map<String, Object> contractData) {
-        try {
-            Long newId = System.currentTimeMillis();
-            Map<String, Object> contract = new HashMap<>(contractData);
-            contract.put("id", newId);
-            contract.put("contractNumber", "CON_" + newId);
-            contract.put("status", "DRAFT");
-            contract.put("createdDate", LocalDateTime.now().toString());
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Vendor contract created successfully");
-            response.put("data", contract);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "error");
-            response.put("message", "Failed to create contract: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+        return respond(HttpStatus.CREATED, "Vendor contract created successfully", "Failed to create contract",
+                () -> {
+                    if (!(contractData.get("vendorId") instanceof Number vendorId)) {
+                        throw new IllegalArgumentException("vendorId is required");
+                    }
+                    Object description = contractData.get("description");
+                    return contract(purchasingService.saveContract(vendorId.longValue(),
+                            date(contractData.get("startDate")), date(contractData.get("endDate")),
+                            description != null ? description.toString() : null));
+                });
     }
 
     /**
-     * Get procurement requests
+     * Get one keyset page of the procurement requests
      */
     @GetMapping("/requests")
-    public ResponseEntity<Map<String, Object>> getProcurementRequests(@RequestParam(required = false) String department,
-            @RequestParam(required = false) String priority) {
-        try {
-            List<Map<String, Object>> requests = Arrays.asList(
-                    createProcurementRequest(1L, "Kitchen Equipment", "KITCHEN", "HIGH", "APPROVED"),
-                    createProcurementRequest(2L, "Room Amenities", "HOUSEKEEPING", "MEDIUM", "PENDING"),
-                    createProcurementRequest(3L, "Office Supplies", "ADMIN", "LOW", "DRAFT"),
-                    createProcurementRequest(4L, "Spa Equipment", "SPA", "HIGH", "IN_REVIEW"),
-                    createProcurementRequest(5L, "IT Hardware", "IT", "MEDIUM", "ORDERED"));
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Procurement requests retrieved successfully");
-            response.put("data", requests);
-            response.put("filters", Map.of("department", department, "priority", priority));
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "error");
-            response.put("message", "Failed to fetch procurement requests: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+    public ResponseEntity<Map<String, Object>> getProcurementRequests(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit, @RequestParam(required = false) String status,
+            @RequestParam(required = false) String department, @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "desc") String direction) {
+        return respond(HttpStatus.OK, "Procurement requests retrieved successfully",
+                "Failed to fetch procurement requests", () -> purchasingService.getRequisitions(cursor, limit,
+                        status != null ? PurchaseRequisition.Status.valueOf(status.toUpperCase()) : null,
+                        department, sort, direction));
     }
 
     /**
      * Create procurement request
      */
     @PostMapping("/requests")
-    public ResponseEntity<Map<String, Object>> createProcurementRequest(@RequestBody Map<String, Object> requestData) {
-        try {
-            Long newId = System.currentTimeMillis();
-            Map<String, Object> request = new HashMap<>(requestData);
-            request.put("id", newId);
-            request.put("requestNumber", "PR_" + newId);
-            request.put("status", "DRAFT");
-            request.put("requestDate", LocalDateTime.now().toString());
-            request.put("requiredBy", LocalDate.now().plusDays(14).toString());
+    public ResponseEntity<Map<String, Object>> createProcurementRequest(
+            @RequestBody PurchaseRequisitionDTO requestData) {
+        return respond(HttpStatus.CREATED, "Procurement request created successfully",
+                "Failed to create procurement request", () -> purchasingService.createRequisition(requestData));
+    }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Procurement request created successfully");
-            response.put("data", request);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "error");
-            response.put("message", "Failed to create procurement request: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+    /**
+     * Approve or reject a pending procurement request
+     */
+    @PutMapping("/requests/{id}/status")
+    public ResponseEntity<Map<String, Object>> updateRequestStatus(@PathVariable Long id,
+            @RequestBody Map<String, String> statusUpdate) {
+        return respond(HttpStatus.OK, "Procurement request status updated successfully",
+                "Failed to update procurement request status", () -> {
+                    String status = statusUpdate.get("status");
+                    if (status == null) {
+                        throw new IllegalArgumentException("status is required");
+                    }
+                    return purchasingService.setRequisitionStatus(id,
+                            PurchaseRequisition.Status.valueOf(status.toUpperCase()));
+                });
     }
 
     /**
@@ -265,25 +237,17 @@ public class ProcurementController {
     @GetMapping("/inventory-levels")
     public ResponseEntity<Map<String, Object>> getInventoryLevels(@RequestParam(required = false) String category) {
         try {
-            List<Map<String, Object>> inventory = Arrays.asList(
-                    createInventoryLevel("Bed Sheets", "LINENS", 150, 50, 200),
-                    createInventoryLevel("Towels", "LINENS", 89, 30, 150),
-                    createInventoryLevel("Cleaning Chemicals", "CLEANING", 25, 20, 100),
-                    createInventoryLevel("Room Service Items", "FOOD", 45, 25, 80),
-                    createInventoryLevel("Office Paper", "OFFICE", 200, 50, 300));
+            List<Map<String, Object>> inventory = procurementReportService.getInventoryLevels(category);
+            long lowStockItems = inventory.stream().filter(level -> Boolean.TRUE.equals(level.get("lowStock")))
+                    .count();
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Inventory levels retrieved successfully");
-            response.put("data", inventory);
-            response.put("lowStockItems", 2);
+            Map<String, Object> response = success("Inventory levels retrieved successfully", inventory);
+            response.put("lowStockItems", lowStockItems);
             response.put("category", category);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "error");
-            response.put("message", "Failed to fetch inventory levels: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            logger.error("Error fetching inventory levels: {}", e.getMessage(), e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to fetch inventory levels: " + e.getMessage());
         }
     }
 
@@ -292,71 +256,34 @@ public class ProcurementController {
      */
     @GetMapping("/supplier-performance")
     public ResponseEntity<Map<String, Object>> getSupplierPerformance(
-            @RequestParam(required = false) String supplierId) {
+            @RequestParam(required = false) Long supplierId) {
         try {
-            List<Map<String, Object>> performance = Arrays.asList(
-                    createSupplierPerformance("Fresh Food Supplies Co.", 95.5, 98.2, 92.0, "EXCELLENT"),
-                    createSupplierPerformance("Luxury Linens Ltd.", 88.7, 94.5, 89.1, "GOOD"),
-                    createSupplierPerformance("Tech Solutions Inc.", 92.3, 96.8, 88.7, "GOOD"),
-                    createSupplierPerformance("Cleaning Supplies Direct", 78.5, 85.2, 82.3, "AVERAGE"));
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Supplier performance retrieved successfully");
-            response.put("data", performance);
-            response.put("averagePerformance", 88.8);
+            List<SupplierPerformance> performance = purchasingService.getSupplierPerformance(supplierId);
+            Map<String, Object> response = success("Supplier performance retrieved successfully", performance);
+            response.put("averagePerformance", performance.stream().map(SupplierPerformance::getOnTimeRate)
+                    .filter(Objects::nonNull).mapToDouble(Number::doubleValue).average().orElse(0));
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "error");
-            response.put("message", "Failed to fetch supplier performance: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            logger.error("Error fetching supplier performance: {}", e.getMessage(), e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to fetch supplier performance: " + e.getMessage());
         }
     }
 
     /**
-     * Generate procurement reports
+     * Generate procurement reports over the current MONTH, QUARTER or YEAR
      */
     @GetMapping("/reports")
     public ResponseEntity<Map<String, Object>> generateProcurementReport(@RequestParam(required = false) String type,
             @RequestParam(required = false) String period) {
-        try {
-            Map<String, Object> report = new HashMap<>();
-            report.put("reportType", type);
-            report.put("period", period);
-
-            report.put("summary", Map.of(
-                    "totalSpend", new BigDecimal("125000.00"),
-                    "totalOrders", 347,
-                    "activeSuppliers", 15,
-                    "avgDeliveryTime", "5.2 days"));
-
-            report.put("topSuppliers", Arrays.asList(
-                    Map.of("supplier", "Fresh Food Supplies Co.", "totalSpend", new BigDecimal("45000.00"), "orders",
-                            89),
-                    Map.of("supplier", "Luxury Linens Ltd.", "totalSpend", new BigDecimal("28500.00"), "orders", 67),
-                    Map.of("supplier", "Tech Solutions Inc.", "totalSpend", new BigDecimal("22000.00"), "orders", 23)));
-
-            report.put("categorySpend", Arrays.asList(
-                    Map.of("category", "FOOD", "amount", new BigDecimal("45000.00"), "percentage", 36.0),
-                    Map.of("category", "LINENS", "amount", new BigDecimal("28500.00"), "percentage", 22.8),
-                    Map.of("category", "TECHNOLOGY", "amount", new BigDecimal("22000.00"), "percentage", 17.6),
-                    Map.of("category", "CLEANING", "amount", new BigDecimal("15500.00"), "percentage", 12.4),
-                    Map.of("category", "FURNITURE", "amount", new BigDecimal("14000.00"), "percentage", 11.2)));
-
-            report.put("generatedAt", LocalDateTime.now().toString());
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Procurement report generated successfully");
-            response.put("data", report);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "error");
-            response.put("message", "Failed to generate procurement report: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+        return respond(HttpStatus.OK, "Procurement report generated successfully",
+                "Failed to generate procurement report", () -> {
+                    Map<String, Object> report = new LinkedHashMap<>();
+                    report.put("reportType", type);
+                    report.put("period", period);
+                    report.putAll(procurementReportService.getReport(period));
+                    report.put("generatedAt", LocalDateTime.now().toString());
+                    return report;
+                });
     }
 
     /**
@@ -364,128 +291,63 @@ public class ProcurementController {
      */
     @GetMapping("/budget")
     public ResponseEntity<Map<String, Object>> getBudgetTracking(@RequestParam(required = false) String department) {
-        try {
-            Map<String, Object> budget = new HashMap<>();
-            budget.put("totalBudget", new BigDecimal("500000.00"));
-            budget.put("spentAmount", new BigDecimal("285000.00"));
-            budget.put("remainingBudget", new BigDecimal("215000.00"));
-            budget.put("utilizationPercentage", 57.0);
-
-            budget.put("departmentBudgets", Arrays.asList(
-                    Map.of("department", "KITCHEN", "allocated", 150000.00, "spent", 89500.00, "remaining", 60500.00),
-                    Map.of("department", "HOUSEKEEPING", "allocated", 120000.00, "spent", 76200.00, "remaining",
-                            43800.00),
-                    Map.of("department", "MAINTENANCE", "allocated", 100000.00, "spent", 58300.00, "remaining",
-                            41700.00),
-                    Map.of("department", "ADMIN", "allocated", 80000.00, "spent", 45000.00, "remaining", 35000.00),
-                    Map.of("department", "IT", "allocated", 50000.00, "spent", 16000.00, "remaining", 34000.00)));
+        return respond(HttpStatus.OK, "Budget tracking retrieved successfully", "Failed to fetch budget tracking",
+                () -> procurementReportService.getBudget(department));
+    }
 
-            budget.put("monthlySpend", Arrays.asList(
-                    Map.of("month", "January", "amount", 45000.00),
-                    Map.of("month", "February", "amount", 52000.00),
-                    Map.of("month", "March", "amount", 48000.00),
-                    Map.of("month", "April", "amount", 58000.00),
-                    Map.of("month", "May", "amount", 82000.00)));
+    // Helper methods
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Budget tracking retrieved successfully");
-            response.put("data", budget);
-            return ResponseEntity.ok(response);
+    private ResponseEntity<Map<String, Object>> respond(HttpStatus status, String message, String failure,
+            Supplier<Object> action) {
+        try {
+            return ResponseEntity.status(status).body(success(message, action.get()));
+        } catch (ResourceNotFoundException e) {
+            return error(HttpStatus.NOT_FOUND, failure + ": " + e.getMessage());
+        } catch (IllegalArgumentException | DateTimeException e) {
+            return error(HttpStatus.BAD_REQUEST, failure + ": " + e.getMessage());
         } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "error");
-            response.put("message", "Failed to fetch budget tracking: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            logger.error("{}: {}", failure, e.getMessage(), e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, failure + ": " + e.getMessage());
         }
     }
 
-    // Helper methods
-    private Map<String, Object> createSupplier(Long id, String name, String category, String status) {
-        Map<String, Object> supplier = new HashMap<>();
-        supplier.put("id", id);
-        supplier.put("supplierCode", "SUP_" + String.format("%06d", id));
-        supplier.put("name", name);
-        supplier.put("category", category);
-        supplier.put("status", status);
-        supplier.put("contactPerson", "John Manager");
-        supplier.put("email", name.toLowerCase().replace(" ", ".") + "@supplier.com");
-        supplier.put("phone", "+1-555-" + String.format("%04d", 1000 + id));
-        supplier.put("rating", 4.0 + (id % 2) * 0.5);
-        supplier.put("registrationDate", LocalDate.now().minusMonths(id).toString());
-        return supplier;
-    }
-
-    private Map<String, Object> createPurchaseOrder(Long id, String supplier, String status, BigDecimal amount) {
-        Map<String, Object> order = new HashMap<>();
-        order.put("id", id);
-        order.put("orderNumber", "PO_" + String.format("%08d", id));
-        order.put("supplier", supplier);
-        order.put("status", status);
-        order.put("totalAmount", amount);
-        order.put("orderDate", LocalDate.now().minusDays(id * 2).toString());
-        order.put("expectedDelivery", LocalDate.now().plusDays(7 - id).toString());
-        order.put("items", (int) (5 + id % 10));
-        order.put("createdBy", "Procurement Manager");
-        return order;
+    private Map<String, Object> success(String message, Object data) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("message", message);
+        response.put("data", data);
+        return response;
     }
 
-    private Map<String, Object> createContract(Long id, String vendor, String description, String status) {
-        Map<String, Object> contract = new HashMap<>();
-        contract.put("id", id);
-        contract.put("contractNumber", "CON_" + String.format("%06d", id));
-        contract.put("vendor", vendor);
-        contract.put("description", description);
-        contract.put("status", status);
-        contract.put("startDate", LocalDate.now().minusMonths(id * 6).toString());
-        contract.put("endDate", LocalDate.now().plusMonths(12 - id).toString());
-        contract.put("value", new BigDecimal((50000 + id * 10000) + ".00"));
-        contract.put("renewalDate", LocalDate.now().plusMonths(10 - id).toString());
-        return contract;
+    private ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "error");
+        response.put("message", message);
+        return ResponseEntity.status(status).body(response);
     }
 
-    private Map<String, Object> createProcurementRequest(Long id, String description, String department,
-            String priority, String status) {
-        Map<String, Object> request = new HashMap<>();
-        request.put("id", id);
-        request.put("requestNumber", "PR_" + String.format("%06d", id));
-        request.put("description", description);
-        request.put("department", department);
-        request.put("priority", priority);
-        request.put("status", status);
-        request.put("requestedBy", "Department Manager");
-        request.put("requestDate", LocalDate.now().minusDays(id * 3).toString());
-        request.put("requiredBy", LocalDate.now().plusDays(14 - id).toString());
-        request.put("estimatedCost", new BigDecimal((2000 + id * 500) + ".00"));
-        return request;
+    private static PurchaseOrder.Status orderStatus(String status) {
+        return status != null ? PurchaseOrder.Status.valueOf(status.toUpperCase()) : null;
     }
 
-    private Map<String, Object> createInventoryLevel(String item, String category, int current, int minimum,
-            int maximum) {
-        Map<String, Object> inventory = new HashMap<>();
-        inventory.put("item", item);
-        inventory.put("category", category);
-        inventory.put("currentStock", current);
-        inventory.put("minimumLevel", minimum);
-        inventory.put("maximumLevel", maximum);
-        inventory.put("reorderPoint", minimum + 10);
-        inventory.put("status", current < minimum ? "LOW_STOCK" : "NORMAL");
-        inventory.put("unit", "pieces");
-        inventory.put("lastUpdated", LocalDateTime.now().toString());
-        return inventory;
+    private static LocalDate date(Object value) {
+        return value != null ? LocalDate.parse(value.toString()) : null;
     }
 
-    private Map<String, Object> createSupplierPerformance(String supplier, Double onTime, Double quality, Double cost,
-            String rating) {
-        Map<String, Object> performance = new HashMap<>();
-        performance.put("supplier", supplier);
-        performance.put("onTimeDelivery", onTime);
-        performance.put("qualityRating", quality);
-        performance.put("costEffectiveness", cost);
-        performance.put("overallRating", rating);
-        performance.put("totalOrders", 25 + (int) (Math.random() * 75));
-        performance.put("lastEvaluation", LocalDate.now().minusDays(30).toString());
-        performance.put("improvementAreas", Arrays.asList("Delivery speed", "Communication"));
-        return performance;
+    private static Map<String, Object> contract(Vendor vendor) {
+        LocalDate today = LocalDate.now();
+        String status = vendor.getContractStartDate() != null && today.isBefore(vendor.getContractStartDate())
+                ? "PENDING"
+                : vendor.getContractEndDate() != null && today.isAfter(vendor.getContractEndDate()) ? "EXPIRED"
+                        : "ACTIVE";
+        Map<String, Object> contract = new LinkedHashMap<>();
+        contract.put("vendorId", vendor.getId());
+        contract.put("vendorCode", vendor.getVendorCode());
+        contract.put("vendor", vendor.getVendorName());
+        contract.put("description", vendor.getRemarks());
+        contract.put("startDate", vendor.getContractStartDate());
+        contract.put("endDate", vendor.getContractEndDate());
+        contract.put("status", status);
+        return contract;
     }
 }
@@ -2,16 +2,25 @@ package com.hotel.erp.controller;
 
 import com.hotel.erp.dto.PaymentReportDTO;
 import com.hotel.erp.dto.FoBillDTO;
+import com.hotel.erp.dto.ReportJobDTO;
+import com.hotel.erp.service.ReportJobService;
 import com.hotel.erp.service.ReportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.URI;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -23,6 +32,9 @@ public class ReportController {
     @Autowired
     private ReportService reportService;
 
+    @Autowired
+    private ReportJobService reportJobService;
+
     /**
      * Get payment summaries
      * 
@@ -49,8 +61,10 @@ public class ReportController {
             LocalDate startDate = LocalDate.parse(dateFrom);
             LocalDate endDate = LocalDate.parse(dateTo);
 
-            List<PaymentReportDTO> summaries = reportService.getPaymentSummaries(
-                    startDate, endDate, paymentMode, folioNo, reservationNo, guestName);
+            List<PaymentReportDTO> summaries = orEmpty("payment summaries",
+                    () -> reportService.getPaymentSummaries(startDate, endDate, paymentMode, folioNo,
+                            reservationNo, guestName),
+                    ArrayList::new);
 
             return ResponseEntity.ok(summaries);
 
@@ -80,7 +94,8 @@ public class ReportController {
             LocalDate startDate = LocalDate.parse(dateFrom);
             LocalDate endDate = LocalDate.parse(dateTo);
 
-            List<FoBillDTO> summaries = reportService.getBillSummaries(startDate, endDate, folioNo);
+            List<FoBillDTO> summaries = orEmpty("bill summaries",
+                    () -> reportService.getBillSummaries(startDate, endDate, folioNo), ArrayList::new);
 
             return ResponseEntity.ok(summaries);
 
@@ -110,8 +125,8 @@ public class ReportController {
             LocalDate startDate = LocalDate.parse(dateFrom);
             LocalDate endDate = LocalDate.parse(dateTo);
 
-            List<Map<String, Object>> summaries = reportService.getChargeSummaries(
-                    startDate, endDate, chargeType);
+            List<Map<String, Object>> summaries = orEmpty("charge summaries",
+                    () -> reportService.getChargeSummaries(startDate, endDate, chargeType), ArrayList::new);
 
             return ResponseEntity.ok(summaries);
 
@@ -139,7 +154,8 @@ public class ReportController {
             LocalDate startDate = LocalDate.parse(dateFrom);
             LocalDate endDate = LocalDate.parse(dateTo);
 
-            Map<String, Object> summary = reportService.getFinancialSummary(startDate, endDate);
+            Map<String, Object> summary = orEmpty("financial summary",
+                    () -> reportService.getFinancialSummary(startDate, endDate), HashMap::new);
 
             return ResponseEntity.ok(summary);
 
@@ -167,6 +183,9 @@ public class ReportController {
 
             return ResponseEntity.ok(report);
 
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            logger.warn("Invalid room occupancy report request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Error getting room occupancy report: {}", e.getMessage(), e);
             return ResponseEntity.status(500).build();
@@ -187,7 +206,8 @@ public class ReportController {
             LocalDate start = LocalDate.parse(startDate);
             LocalDate end = LocalDate.parse(endDate);
 
-            Map<String, Object> report = reportService.getPaymentSummaryReport(start, end);
+            Map<String, Object> report = orEmpty("payment summary report",
+                    () -> reportService.getPaymentSummaryReport(start, end), HashMap::new);
 
             return ResponseEntity.ok(report);
 
@@ -211,7 +231,8 @@ public class ReportController {
             LocalDate start = LocalDate.parse(startDate);
             LocalDate end = LocalDate.parse(endDate);
 
-            Map<String, Object> report = reportService.getFinancialSummaryReport(start, end);
+            Map<String, Object> report = orEmpty("financial summary report",
+                    () -> reportService.getFinancialSummaryReport(start, end), HashMap::new);
 
             return ResponseEntity.ok(report);
 
@@ -233,7 +254,8 @@ public class ReportController {
         try {
             LocalDate reportDate = LocalDate.parse(date);
 
-            Map<String, Object> report = reportService.getDailySummaryReport(reportDate);
+            Map<String, Object> report = orEmpty("daily summary report",
+                    () -> reportService.getDailySummaryReport(reportDate), HashMap::new);
 
             return ResponseEntity.ok(report);
 
@@ -242,4 +264,114 @@ public class ReportController {
             return ResponseEntity.status(500).build();
         }
     }
+
+    /**
+     * Rebuild the daily revenue cube the reports read from, for a date range
+     */
+    @PostMapping("/daily-revenue/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildDailyRevenue(
+            @RequestParam String startDate,
+            @RequestParam String endDate) {
+
+        logger.info("Rebuilding daily revenue from {} to {}", startDate, endDate);
+
+        try {
+            LocalDate start = LocalDate.parse(startDate);
+            LocalDate end = LocalDate.parse(endDate);
+
+            return ResponseEntity.ok(reportService.rebuildDailyRevenue(start, end));
+
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            logger.warn("Invalid daily revenue rebuild request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Error rebuilding daily revenue: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+
+    /**
+     * Submit a report to run in the background. Takes the same request
+     * parameters as the report's synchronous endpoint; an identical report
+     * already running or finished within the cache TTL is returned instead of
+     * being run again.
+     * 
+     * @param report     the report name, e.g. "financial" or "daily-summary"
+     * @param parameters the report's request parameters
+     * @return the job status, with its URL in the Location header
+     */
+    @PostMapping("/jobs/{report}")
+    public ResponseEntity<?> submitReportJob(
+            @PathVariable String report,
+            @RequestParam Map<String, String> parameters) {
+
+        logger.info("Submitting report job {} with {}", report, parameters);
+
+        try {
+            ReportJobDTO job = reportJobService.submit(report, parameters);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/reports/jobs/" + job.getJobId()))
+                    .body(job);
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid report job request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(errorBody(e.getMessage()));
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(errorBody("Too many reports queued, try again shortly"));
+        }
+    }
+
+    /**
+     * Get the status of a report job
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ReportJobDTO> getReportJob(@PathVariable String jobId) {
+        return reportJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Get the result of a report job: 200 with the report once it has
+     * completed, 202 with the status while it is queued or running, 500 with
+     * the status if it failed, and 404 once it has expired
+     */
+    @GetMapping("/jobs/{jobId}/result")
+    public ResponseEntity<?> getReportJobResult(@PathVariable String jobId) {
+        ReportJobDTO job = reportJobService.getJob(jobId).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        switch (ReportJobService.Status.valueOf(job.getStatus())) {
+            case COMPLETED:
+                return reportJobService.getResult(jobId)
+                        .<ResponseEntity<?>>map(ResponseEntity::ok)
+                        .orElse(ResponseEntity.notFound().build());
+            case FAILED:
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(job);
+            default:
+                return ResponseEntity.accepted().body(job);
+        }
+    }
+
+    /**
+     * Run a report for its synchronous endpoint, which answers a failed report
+     * with an empty result as it always has. Report jobs call ReportService
+     * directly, so there the failure marks the job FAILED instead.
+     */
+    private static <T> T orEmpty(String report, Supplier<T> computation, Supplier<T> empty) {
+        try {
+            return computation.get();
+        } catch (RuntimeException e) {
+            logger.error("Error generating {}: {}", report, e.getMessage(), e);
+            return empty.get();
+        }
+    }
+
+    private static Map<String, Object> errorBody(String message) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", message);
+        return body;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.hotel.erp.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.hotel.erp.exception.RequestValidationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Turns request body binding and validation failures of the cashier
+ * endpoints into a 400 that names each bad field:
+ *
+ * <pre>
+ * {"status": "error", "message": "Invalid request",
+ *  "errors": [{"field": "amount", "message": "must be a number"}]}
+ * </pre>
+ */
+@RestControllerAdvice(assignableTypes = { AdvancesController.class, PaymentWorkflowController.class,
+        PostTransactionController.class })
+public class RequestBindingAdvice {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestBindingAdvice.class);
+
+    @ExceptionHandler(RequestValidationException.class)
+    public ResponseEntity<Map<String, Object>> handleValidation(RequestValidationException e) {
+        logger.debug("Rejected request: {}", e.getFieldErrors());
+        return badRequest(e.getFieldErrors());
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<Map<String, Object>> handleUnreadable(HttpMessageNotReadableException e) {
+        Throwable cause = e.getCause();
+        while (cause != null && !(cause instanceof JsonProcessingException)) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof MismatchedInputException mismatch && !mismatch.getPath().isEmpty()) {
+            String field = mismatch.getPath().stream()
+                    .map(ref -> ref.getFieldName() != null ? ref.getFieldName() : "[" + ref.getIndex() + "]")
+                    .collect(Collectors.joining("."))
+                    .replace(".[", "[");
+            logger.debug("Rejected request: {} {}", field, mismatch.getOriginalMessage());
+            return badRequest(Map.of(field, expected(mismatch.getTargetType())));
+        }
+        String message = cause instanceof JsonProcessingException json && !(json instanceof JsonMappingException)
+                ? "Malformed JSON: " + json.getOriginalMessage()
+                : "Request body is missing or unreadable";
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", "error");
+        body.put("message", message);
+        return ResponseEntity.badRequest().body(body);
+    }
+
+    private static ResponseEntity<Map<String, Object>> badRequest(Map<String, String> fieldErrors) {
+        List<Map<String, String>> errors = fieldErrors.entrySet().stream()
+                .map(error -> {
+                    Map<String, String> item = new LinkedHashMap<>();
+                    item.put("field", error.getKey());
+                    item.put("message", error.getValue());
+                    return item;
+                })
+                .toList();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", "error");
+        body.put("message", "Invalid request");
+        body.put("errors", errors);
+        return ResponseEntity.badRequest().body(body);
+    }
+
+    private static String expected(Class<?> type) {
+        if (type == null) {
+            return "has an invalid value";
+        }
+        if (type == BigDecimal.class || type == Double.class || type == double.class) {
+            return "must be a number";
+        }
+        if (type == Integer.class || type == int.class || type == Long.class || type == long.class
+                || type == BigInteger.class) {
+            return "must be a whole number";
+        }
+        if (type == LocalDate.class) {
+            return "must be a date in YYYY-MM-DD format";
+        }
+        if (type == LocalDateTime.class) {
+            return "must be a date and time in YYYY-MM-DDTHH:MM:SS format";
+        }
+        if (type == String.class) {
+            return "must be text";
+        }
+        return "has an invalid value";
+    }
+}
@@ -1,13 +1,21 @@
 package com.hotel.erp.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hotel.erp.dto.ReservationDTO;
+import com.hotel.erp.dto.StayQuoteDTO;
 import com.hotel.erp.entity.Reservation;
 import com.hotel.erp.exception.ResourceNotFoundException;
+import com.hotel.erp.service.KeysetPager;
+import com.hotel.erp.service.PricingService;
 import com.hotel.erp.service.ReservationService;
+import com.hotel.erp.util.NdjsonResponses;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,6 +28,12 @@ public class ReservationController {
     @Autowired
     private ReservationService reservationService;
 
+    @Autowired
+    private PricingService pricingService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // Create a new reservation
     @PostMapping("/reservations")
     public ResponseEntity<?> createReservation(@RequestBody ReservationDTO reservationDTO) {
@@ -33,12 +47,65 @@ public class ReservationController {
         }
     }
 
+    // Price one or more stays without creating reservations
+    @PostMapping("/reservations/quotes")
+    public ResponseEntity<?> quoteStays(@RequestBody List<StayQuoteDTO> stays) {
+        try {
+            return new ResponseEntity<>(pricingService.quoteStays(stays), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     // Get all reservations
     @GetMapping("/reservations")
     public ResponseEntity<List<Reservation>> getAllReservations() {
         return new ResponseEntity<>(reservationService.getAllReservations(), HttpStatus.OK);
     }
 
+    /**
+     * Get reservations one page at a time, oldest first by default. Pass the
+     * nextCursor of a page to get the next one.
+     * 
+     * @param cursor    the nextCursor of the previous page
+     * @param limit     the page size, at most {@value KeysetPager#MAX_LIMIT}
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return the page
+     */
+    @GetMapping(value = "/reservations/page", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getReservationsPage(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction) {
+        try {
+            return ResponseEntity.ok(reservationService.getReservationsPage(cursor, limit, sort, direction));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Stream all reservations after the cursor as newline delimited JSON
+     * 
+     * @param cursor    where to start, or none for the beginning
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return one Reservation per line
+     */
+    @GetMapping(value = "/reservations/page", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamReservations(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction) {
+        KeysetPager.Scan<Reservation> scan;
+        try {
+            scan = reservationService.scanReservations(cursor, sort, direction);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return NdjsonResponses.stream(objectMapper, scan::forEach);
+    }
+
     // Get reservation by ID
     @GetMapping("/reservations/{id}")
     public ResponseEntity<?> getReservationById(@PathVariable Integer id) {
@@ -58,6 +125,8 @@ public class ReservationController {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (ResponseStatusException e) {
+            return new ResponseEntity<>(e.getReason(), e.getStatusCode());
         } catch (Exception e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -3,12 +3,18 @@ package com.hotel.erp.controller;
 import com.hotel.erp.dto.RoomDTO;
 import com.hotel.erp.entity.Room.RoomStatus;
 import com.hotel.erp.service.RoomService;
+import com.hotel.erp.service.RoomStatusBoard;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin/rooms")
@@ -16,10 +22,12 @@ import java.util.List;
 public class RoomController {
 
     private final RoomService roomService;
+    private final RoomStatusBoard roomStatusBoard;
 
     @Autowired
-    public RoomController(RoomService roomService) {
+    public RoomController(RoomService roomService, RoomStatusBoard roomStatusBoard) {
         this.roomService = roomService;
+        this.roomStatusBoard = roomStatusBoard;
     }
 
     @GetMapping
@@ -27,6 +35,24 @@ public class RoomController {
         return ResponseEntity.ok(roomService.getAllRooms());
     }
 
+    /**
+     * The room grid: every room's status, guest in house and latest
+     * housekeeping task, served from the in-memory status board
+     */
+    @GetMapping("/board")
+    public ResponseEntity<Map<String, Object>> getRoomBoard() {
+        return ResponseEntity.ok(roomStatusBoard.getSnapshot());
+    }
+
+    /**
+     * Server-Sent Events stream of the room grid: a "snapshot" event, then a
+     * "room" or "room-removed" event for each change
+     */
+    @GetMapping(value = "/board/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRoomBoard() {
+        return roomStatusBoard.subscribe();
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<RoomDTO> getRoomById(@PathVariable Integer id) {
         return ResponseEntity.ok(roomService.getRoomById(id));
@@ -52,6 +78,18 @@ public class RoomController {
         return ResponseEntity.ok(roomService.getRoomsByRoomType(roomTypeId));
     }
 
+    /**
+     * Rooms free for every night in [fromDate, toDate), answered from the
+     * in-memory availability index
+     */
+    @GetMapping("/available")
+    public ResponseEntity<List<RoomDTO>> getAvailableRooms(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(required = false) Integer roomTypeId) {
+        return ResponseEntity.ok(roomService.getAvailableRooms(fromDate, toDate, roomTypeId));
+    }
+
     @PostMapping
     public ResponseEntity<RoomDTO> createRoom(@RequestBody RoomDTO roomDTO) {
         return new ResponseEntity<>(roomService.createRoom(roomDTO), HttpStatus.CREATED);
@@ -0,0 +1,160 @@
+package com.hotel.erp.controller;
+
+import com.hotel.erp.dto.SearchHitDTO;
+import com.hotel.erp.repository.AdvancesRepository;
+import com.hotel.erp.repository.CheckinRepository;
+import com.hotel.erp.repository.MaintenanceRepository;
+import com.hotel.erp.repository.PostTransactionRepository;
+import com.hotel.erp.repository.ReservationRepository;
+import com.hotel.erp.service.GuestSearchIndex;
+import com.hotel.erp.service.GuestSearchIndex.Kind;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One search box over reservations, check-ins, advances, post transactions
+ * and maintenance requests, by guest name, contact, folio, reservation,
+ * bill, receipt, ticket or room number
+ */
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "*")
+public class SearchController {
+
+    @Autowired
+    private GuestSearchIndex guestSearchIndex;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private CheckinRepository checkinRepository;
+
+    @Autowired
+    private AdvancesRepository advancesRepository;
+
+    @Autowired
+    private PostTransactionRepository postTransactionRepository;
+
+    @Autowired
+    private MaintenanceRepository maintenanceRepository;
+
+    @Value("${hotel.search.max-results:200}")
+    private int maxSearchResults;
+
+    /**
+     * Search, best match first
+     *
+     * @param q           the words to find; every word must match a field by
+     *                    prefix, infix or with a typo
+     * @param kinds       comma separated kinds to search, e.g.
+     *                    "RESERVATION,CHECKIN"; all when omitted
+     * @param limit       the most hits
+     * @param withRecords whether to load the matching rows with the hits
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> search(@RequestParam String q,
+            @RequestParam(required = false) String kinds,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "true") boolean withRecords) {
+        Map<String, Object> response = new HashMap<>();
+        Set<Kind> searched;
+        try {
+            searched = parseKinds(kinds);
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", "Unknown kind in: " + kinds);
+            return ResponseEntity.badRequest().body(response);
+        }
+        try {
+            List<SearchHitDTO> hits = guestSearchIndex.search(q, searched,
+                    Math.max(1, Math.min(limit, maxSearchResults)));
+            if (withRecords) {
+                attachRecords(hits);
+            }
+            response.put("status", "success");
+            response.put("count", hits.size());
+            response.put("data", hits);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("status", "error");
+            response.put("message", "Failed to search: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Get the size of the search index
+     */
+    @GetMapping("/statistics")
+    public ResponseEntity<Map<String, Object>> getStatistics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("data", guestSearchIndex.getStatistics());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Rebuild the search index from the database, e.g. after rows were
+     * changed outside the application
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Void> rebuild() {
+        guestSearchIndex.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+
+    private static Set<Kind> parseKinds(String kinds) {
+        Set<Kind> parsed = EnumSet.noneOf(Kind.class);
+        if (kinds != null) {
+            for (String kind : kinds.split(",")) {
+                if (!kind.isBlank()) {
+                    parsed.add(Kind.valueOf(kind.trim().toUpperCase(Locale.ROOT)));
+                }
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Load the rows of the hits, one query per kind. A row deleted since it
+     * was indexed is dropped from the hits.
+     */
+    private void attachRecords(List<SearchHitDTO> hits) {
+        Map<Kind, List<Long>> idsByKind = new EnumMap<>(Kind.class);
+        for (SearchHitDTO hit : hits) {
+            idsByKind.computeIfAbsent(hit.getKind(), kind -> new ArrayList<>()).add(hit.getId());
+        }
+        Map<Kind, Map<Long, Object>> records = new EnumMap<>(Kind.class);
+        idsByKind.forEach((kind, ids) -> {
+            Map<Long, Object> byId = new HashMap<>();
+            switch (kind) {
+                case RESERVATION -> reservationRepository.findAllById(ids.stream().map(Long::intValue).toList())
+                        .forEach(row -> byId.put(row.getId().longValue(), row));
+                case CHECKIN -> checkinRepository.findAllById(ids).forEach(row -> byId.put(row.getId(), row));
+                case ADVANCE -> advancesRepository.findAllById(ids).forEach(row -> byId.put(row.getAdvancesId(), row));
+                case TRANSACTION -> postTransactionRepository.findAllById(ids)
+                        .forEach(row -> byId.put(row.getId(), row));
+                case MAINTENANCE -> maintenanceRepository.findAllById(ids).forEach(row -> byId.put(row.getId(), row));
+            }
+            records.put(kind, byId);
+        });
+        hits.removeIf(hit -> {
+            Object record = records.get(hit.getKind()).get(hit.getId());
+            hit.setRecord(record);
+            return record == null;
+        });
+    }
+}
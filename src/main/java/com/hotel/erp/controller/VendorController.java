@@ -1,7 +1,10 @@
 package com.hotel.erp.controller;
 
+import com.hotel.erp.dto.VendorScorecardDTO;
 import com.hotel.erp.entity.Vendor;
+import com.hotel.erp.exception.ResourceNotFoundException;
 import com.hotel.erp.repository.VendorRepository;
+import com.hotel.erp.service.VendorScorecardService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -23,6 +26,9 @@ public class VendorController {
     @Autowired
     private VendorRepository vendorRepository;
 
+    @Autowired
+    private VendorScorecardService vendorScorecardService;
+
     /**
      * Get all vendors
      */
@@ -82,6 +88,7 @@ public class VendorController {
             }
 
             Vendor savedVendor = vendorRepository.save(vendor);
+            vendorScorecardService.vendorChanged(savedVendor.getId());
 
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
@@ -136,6 +143,7 @@ public class VendorController {
                 vendorToUpdate.setUserId(vendor.getUserId());
 
                 Vendor updatedVendor = vendorRepository.save(vendorToUpdate);
+                vendorScorecardService.vendorChanged(id);
 
                 response.put("status", "success");
                 response.put("message", "Vendor updated successfully");
@@ -165,6 +173,7 @@ public class VendorController {
 
             if (vendor.isPresent()) {
                 vendorRepository.deleteById(id);
+                vendorScorecardService.vendorChanged(id);
                 response.put("status", "success");
                 response.put("message", "Vendor deleted successfully");
                 return ResponseEntity.ok(response);
@@ -264,12 +273,12 @@ public class VendorController {
     }
 
     /**
-     * Get top rated vendors
+     * Get the active vendors rated at least minRating, highest rated first
      */
     @GetMapping("/top-rated")
     public ResponseEntity<Map<String, Object>> getTopRatedVendors(@RequestParam(defaultValue = "4") int minRating) {
         try {
-            List<Vendor> vendors = vendorRepository.findByMinimumRating(minRating);
+            List<Vendor> vendors = vendorScorecardService.getTopRated(minRating);
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
             response.put("count", vendors.size());
@@ -310,12 +319,7 @@ public class VendorController {
     @GetMapping("/statistics")
     public ResponseEntity<Map<String, Object>> getVendorStatistics() {
         try {
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("total", vendorRepository.count());
-            stats.put("active", vendorRepository.countByStatus("ACTIVE"));
-            stats.put("inactive", vendorRepository.countByStatus("INACTIVE"));
-            stats.put("blacklisted", vendorRepository.countByStatus("BLACKLISTED"));
-            stats.put("suspended", vendorRepository.countByStatus("SUSPENDED"));
+            Map<String, Object> stats = vendorScorecardService.getStatistics();
 
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
@@ -328,4 +332,60 @@ public class VendorController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
+
+    /**
+     * Get the best scoring vendors for comparison, e.g. during tendering
+     */
+    @GetMapping("/scorecards/top")
+    public ResponseEntity<Map<String, Object>> getTopScorecards(@RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "ACTIVE") String status) {
+        try {
+            List<VendorScorecardDTO> scorecards = vendorScorecardService.getTop(Math.max(1, limit), category,
+                    "ALL".equalsIgnoreCase(status) ? null : status);
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("count", scorecards.size());
+            response.put("data", scorecards);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", "Failed to fetch vendor scorecards: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Get a vendor's scorecard
+     */
+    @GetMapping("/{id}/scorecard")
+    public ResponseEntity<Map<String, Object>> getScorecard(@PathVariable Long id) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("data", vendorScorecardService.getScorecard(id));
+            return ResponseEntity.ok(response);
+        } catch (ResourceNotFoundException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", "Vendor not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", "Failed to fetch vendor scorecard: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Rebuild the vendor scorecards from the database, e.g. after vendors were
+     * changed outside the application
+     */
+    @PostMapping("/scorecards/rebuild")
+    public ResponseEntity<Void> rebuildScorecards() {
+        vendorScorecardService.rebuild();
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,20 @@
+package com.hotel.erp.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Request body of the payment workflow advance endpoints. Which identifiers
+ * are required depends on the scenario.
+ */
+@Data
+public class AdvancePaymentDTO {
+    private String reservationNo;
+    private String folioNo;
+    private String guestName;
+    private String paymentMode;
+    private BigDecimal amount;
+    private String remarks;
+    private Integer userId;
+}
@@ -0,0 +1,48 @@
+package com.hotel.erp.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk create: one item per submitted row, in submission
+ * order, with the new id or the reason the row was rejected
+ */
+@Data
+public class BulkResultDTO {
+    private int received;
+    private int created;
+    private int failed;
+    private List<Item> items = new ArrayList<>();
+
+    @Data
+    public static class Item {
+        private int index;
+        private String status;
+        private Long id;
+        private String error;
+    }
+
+    public BulkResultDTO(int received) {
+        this.received = received;
+    }
+
+    public Item created(int index) {
+        Item item = new Item();
+        item.setIndex(index);
+        item.setStatus("CREATED");
+        items.add(item);
+        created++;
+        return item;
+    }
+
+    public void failed(int index, String error) {
+        Item item = new Item();
+        item.setIndex(index);
+        item.setStatus("FAILED");
+        item.setError(error);
+        items.add(item);
+        failed++;
+    }
+}
@@ -0,0 +1,26 @@
+package com.hotel.erp.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One keyset page of a list. Pass nextCursor back as the cursor parameter to
+ * get the following page; it is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private int size;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.size = items.size();
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+}
@@ -14,6 +14,15 @@ public class FoBillDTO {
     public FoBillDTO() {
     }
 
+    // Constructor for bill summary queries
+    public FoBillDTO(Long billId, String folioNo, BigDecimal totalAmount, LocalDate billDate, Integer userId) {
+        this.billId = billId;
+        this.folioNo = folioNo;
+        this.totalAmount = totalAmount;
+        this.billDate = billDate;
+        this.userId = userId;
+    }
+
     // Getters and Setters
     public Long getBillId() {
         return billId;
@@ -0,0 +1,65 @@
+package com.hotel.erp.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Ledger totals for one folio, as read by {@code FolioBalanceService}.
+ *
+ * Debits are postings plus additional charges; credits are advances plus
+ * settlements against the folio's bills. Billed amounts are reported but do
+ * not enter the balance, since a bill restates charges already posted.
+ */
+@Data
+@NoArgsConstructor
+public class FolioBalanceDTO {
+    private String folioNo;
+    private BigDecimal totalAdvances = BigDecimal.ZERO;
+    private BigDecimal totalPostings = BigDecimal.ZERO;
+    private BigDecimal totalCharges = BigDecimal.ZERO;
+    private BigDecimal totalBilled = BigDecimal.ZERO;
+    private BigDecimal totalSettlements = BigDecimal.ZERO;
+
+    public FolioBalanceDTO(String folioNo) {
+        this.folioNo = folioNo;
+    }
+
+    // Used by JPQL constructor expressions; SUM results may come back as any
+    // numeric type depending on the column
+    public FolioBalanceDTO(String folioNo, Number totalAdvances, Number totalPostings, Number totalCharges,
+            Number totalBilled, Number totalSettlements) {
+        this.folioNo = folioNo;
+        this.totalAdvances = toBigDecimal(totalAdvances);
+        this.totalPostings = toBigDecimal(totalPostings);
+        this.totalCharges = toBigDecimal(totalCharges);
+        this.totalBilled = toBigDecimal(totalBilled);
+        this.totalSettlements = toBigDecimal(totalSettlements);
+    }
+
+    public BigDecimal getTotalDebits() {
+        return totalPostings.add(totalCharges);
+    }
+
+    public BigDecimal getTotalCredits() {
+        return totalAdvances.add(totalSettlements);
+    }
+
+    /**
+     * Amount the guest still owes; negative when the folio is in credit
+     */
+    public BigDecimal getBalance() {
+        return getTotalDebits().subtract(getTotalCredits());
+    }
+
+    private static BigDecimal toBigDecimal(Number value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        return new BigDecimal(value.toString());
+    }
+}
@@ -0,0 +1,28 @@
+package com.hotel.erp.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A delivery against a purchase order. Without lines, everything still
+ * outstanding on the order is received.
+ */
+@Data
+public class GoodsReceiptDTO {
+    /** Defaults to today */
+    private LocalDate receiptDate;
+    private String receivedBy;
+    private String remarks;
+    private Integer userId;
+    private List<Line> lines = new ArrayList<>();
+
+    @Data
+    public static class Line {
+        private Long purchaseOrderLineId;
+        private BigDecimal quantity;
+    }
+}
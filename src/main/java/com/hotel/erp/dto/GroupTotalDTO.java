@@ -0,0 +1,25 @@
+package com.hotel.erp.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * The total amount and row count of one group of an aggregate query, such as
+ * one charge type or one payment mode
+ */
+@Data
+@NoArgsConstructor
+public class GroupTotalDTO {
+    private String group;
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+    private long count;
+
+    // Used by JPQL constructor expressions
+    public GroupTotalDTO(String group, BigDecimal totalAmount, Long count) {
+        this.group = group;
+        this.totalAmount = totalAmount != null ? totalAmount : BigDecimal.ZERO;
+        this.count = count != null ? count : 0;
+    }
+}
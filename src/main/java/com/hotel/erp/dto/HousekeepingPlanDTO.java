@@ -0,0 +1,45 @@
+package com.hotel.erp.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A day's housekeeping plan: the rooms each attendant cleans, in route
+ * order, and the workload in credits (a departure clean counts more than a
+ * stayover service)
+ */
+@Data
+public class HousekeepingPlanDTO {
+    private LocalDate date;
+    private boolean incremental;
+    private boolean dryRun;
+    private int rooms;
+    private int tasksCreated;
+    private int tasksReassigned;
+    private double totalCredits;
+    private List<StaffPlan> staff = new ArrayList<>();
+
+    @Data
+    public static class StaffPlan {
+        private String staff;
+        private double credits;
+        private List<Integer> floors = new ArrayList<>();
+        private List<RoomPlan> rooms = new ArrayList<>();
+    }
+
+    @Data
+    public static class RoomPlan {
+        private String roomNo;
+        private Integer floor;
+        /** DEPARTURE, STAYOVER or TASK (an open task on a room without a guest) */
+        private String kind;
+        private double credits;
+        private List<Long> taskIds = new ArrayList<>();
+        private String previousStaff;
+        /** Whether the room was in progress and so kept its attendant */
+        private boolean started;
+    }
+}
@@ -0,0 +1,30 @@
+package com.hotel.erp.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Request to plan the housekeeping assignments of a day
+ */
+@Data
+public class HousekeepingPlanRequestDTO {
+    /** Room attendants on duty; defaults to whoever already holds open tasks */
+    private List<String> staff;
+
+    /** The day to plan; defaults to today */
+    private LocalDate date;
+
+    /**
+     * Keep the attendant of every room already assigned and only place new
+     * or orphaned rooms (true), or re-plan all rooms not yet started (false)
+     */
+    private boolean incremental;
+
+    /** Work out the plan without creating or assigning any task */
+    private boolean dryRun;
+
+    /** Id of the supervisor; recorded on the tasks the plan creates */
+    private Integer userId;
+}
@@ -17,6 +17,24 @@ public class PaymentReportDTO {
     public PaymentReportDTO() {
     }
 
+    // Constructor for the grouped payment summary query
+    public PaymentReportDTO(LocalDate reportDate, String paymentMode, BigDecimal totalAmount,
+            Long transactionCount, String folioNo, String reservationNo, String guestName) {
+        this.reportDate = reportDate;
+        this.paymentMode = paymentMode;
+        this.totalAmount = totalAmount;
+        this.transactionCount = transactionCount != null ? transactionCount.intValue() : 0;
+        this.folioNo = folioNo;
+        this.reservationNo = reservationNo;
+        this.guestName = guestName;
+    }
+
+    // Constructor for the payment totals read from the daily revenue cube
+    public PaymentReportDTO(LocalDate reportDate, String paymentMode, BigDecimal totalAmount,
+            Long transactionCount) {
+        this(reportDate, paymentMode, totalAmount, transactionCount, null, null, null);
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -0,0 +1,21 @@
+package com.hotel.erp.dto;
+
+import com.hotel.erp.entity.GoodsReceipt;
+import com.hotel.erp.entity.GoodsReceiptLine;
+import com.hotel.erp.entity.PurchaseOrder;
+import com.hotel.erp.entity.PurchaseOrderLine;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A purchase order with its lines and the goods received against it
+ */
+@Data
+public class PurchaseOrderDetailDTO {
+    private PurchaseOrder order;
+    private List<PurchaseOrderLine> lines = new ArrayList<>();
+    private List<GoodsReceipt> receipts = new ArrayList<>();
+    private List<GoodsReceiptLine> receiptLines = new ArrayList<>();
+}
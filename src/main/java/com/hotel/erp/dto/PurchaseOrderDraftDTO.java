@@ -0,0 +1,21 @@
+package com.hotel.erp.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A purchase order proposed from the reorder suggestions of one supplier
+ */
+@Data
+public class PurchaseOrderDraftDTO {
+    private String supplierName;
+    private String status = "DRAFT";
+    private LocalDate orderDate;
+    private LocalDate expectedDelivery;
+    private List<ReorderSuggestionDTO> lines = new ArrayList<>();
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+}
@@ -0,0 +1,32 @@
+package com.hotel.erp.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request to raise a purchase order. Lines come from the given lines, the
+ * given approved requisitions, or both.
+ */
+@Data
+public class PurchaseOrderRequestDTO {
+    private Long vendorId;
+    private String department;
+    /** Defaults to the longest lead time of the items ordered */
+    private LocalDate expectedDelivery;
+    private String remarks;
+    private Integer userId;
+    private List<Line> lines = new ArrayList<>();
+    private List<Long> requisitionIds = new ArrayList<>();
+
+    @Data
+    public static class Line {
+        private String itemCode;
+        private BigDecimal quantity;
+        /** Defaults to the item's current unit cost */
+        private BigDecimal unitPrice;
+    }
+}
@@ -0,0 +1,21 @@
+package com.hotel.erp.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A department's request to buy an inventory item
+ */
+@Data
+public class PurchaseRequisitionDTO {
+    private String department;
+    private String priority;
+    private String itemCode;
+    private String description;
+    private BigDecimal quantity;
+    private LocalDate requiredBy;
+    private String remarks;
+    private Integer userId;
+}
@@ -0,0 +1,42 @@
+package com.hotel.erp.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * An item at or below its reorder level and how much of it to order.
+ * suggestedQuantity covers the reorder quantity, or more if the expected use
+ * during the supplier's lead time would otherwise leave the item short again.
+ */
+@Data
+public class ReorderSuggestionDTO {
+    private Long itemId;
+    private String itemCode;
+    private String itemName;
+    private String category;
+    private String supplierName;
+    private BigDecimal currentStock;
+    private BigDecimal reorderLevel;
+    private BigDecimal reorderQuantity;
+    private BigDecimal maximumStock;
+    private Integer leadTimeDays;
+    private BigDecimal averageConsumption;
+
+    /** currentStock - reorderLevel: the lower, the more urgent */
+    private BigDecimal distance;
+    private BigDecimal suggestedQuantity;
+    private BigDecimal unitCost;
+    private BigDecimal estimatedCost;
+
+    /** The day the stock runs out at the average consumption, if there is any */
+    private LocalDate stockOutDate;
+
+    /** The last day to order and still receive the goods before stockOutDate */
+    private LocalDate orderBy;
+
+    /** When an alert: the ledger movement that crossed the reorder level */
+    private Long movementId;
+    private long sequence;
+}
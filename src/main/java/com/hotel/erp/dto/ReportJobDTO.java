@@ -0,0 +1,23 @@
+package com.hotel.erp.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Status of an asynchronous report job. The result itself is fetched
+ * separately once the status is COMPLETED.
+ */
+@Data
+public class ReportJobDTO {
+    private String jobId;
+    private String report;
+    private Map<String, String> parameters;
+    private String status;
+    private LocalDateTime submittedOn;
+    private LocalDateTime startedOn;
+    private LocalDateTime completedOn;
+    private LocalDateTime expiresOn;
+    private String error;
+}
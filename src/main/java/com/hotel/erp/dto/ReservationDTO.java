@@ -26,6 +26,7 @@ public class ReservationDTO {
     private Integer nationality;
     private String externalRefNo;
     private Integer userId;
+    private Long version; // version read by the client; null skips the check
 
     // Getters and Setters
     public Integer getId() {
@@ -211,4 +212,12 @@ public class ReservationDTO {
     public void setUserId(Integer userId) {
         this.userId = userId;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
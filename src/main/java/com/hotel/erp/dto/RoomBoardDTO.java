@@ -0,0 +1,69 @@
+package com.hotel.erp.dto;
+
+import com.hotel.erp.entity.Room.RoomStatus;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * One tile of the room status board: what the room grid shows for a room.
+ * Tiles are replaced, never changed, once published.
+ */
+@Data
+public class RoomBoardDTO {
+    private Integer roomId;
+    private String roomNo;
+    private Integer floor;
+    private Integer roomTypeId;
+    private String roomTypeName;
+    private RoomStatus status;
+    private String currentFolio;
+    private Long version;
+
+    // The in-house stay, if any
+    private Long checkinId;
+    private String folioNo;
+    private String guestName;
+    private LocalDate checkInDate;
+    private LocalDate checkOutDate;
+
+    // The room's latest housekeeping task, if any
+    private Long housekeepingTaskId;
+    private String housekeepingStatus;
+    private String housekeepingAssignedTo;
+
+    /** Board change number of the last change to this tile */
+    private long sequence;
+
+    /**
+     * @return true if a guest is checked in to the room today
+     */
+    public boolean isOccupied() {
+        return checkinId != null;
+    }
+
+    /**
+     * @return a copy to modify and publish in place of this tile
+     */
+    public RoomBoardDTO copy() {
+        RoomBoardDTO copy = new RoomBoardDTO();
+        copy.roomId = roomId;
+        copy.roomNo = roomNo;
+        copy.floor = floor;
+        copy.roomTypeId = roomTypeId;
+        copy.roomTypeName = roomTypeName;
+        copy.status = status;
+        copy.currentFolio = currentFolio;
+        copy.version = version;
+        copy.checkinId = checkinId;
+        copy.folioNo = folioNo;
+        copy.guestName = guestName;
+        copy.checkInDate = checkInDate;
+        copy.checkOutDate = checkOutDate;
+        copy.housekeepingTaskId = housekeepingTaskId;
+        copy.housekeepingStatus = housekeepingStatus;
+        copy.housekeepingAssignedTo = housekeepingAssignedTo;
+        copy.sequence = sequence;
+        return copy;
+    }
+}
@@ -16,6 +16,7 @@ public class RoomDTO {
     private String currentFolio;
     private Integer roomTypeId;
     private String roomTypeName; // Added for convenience
+    private Long version; // version read by the client; null skips the check
 
     // Manual getters and setters for fields that are causing compilation errors
     public Integer getId() {
@@ -105,4 +106,12 @@ public class RoomDTO {
     public void setRoomTypeName(String roomTypeName) {
         this.roomTypeName = roomTypeName;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
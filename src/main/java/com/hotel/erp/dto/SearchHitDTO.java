@@ -0,0 +1,26 @@
+package com.hotel.erp.dto;
+
+import com.hotel.erp.service.GuestSearchIndex;
+import lombok.Data;
+
+/**
+ * One match of a guest search: the kind and id of the row, how well it
+ * matched, and the row itself when the caller asked for it
+ */
+@Data
+public class SearchHitDTO {
+    private GuestSearchIndex.Kind kind;
+    private Long id;
+    /** Higher is a better match; exact matches of every word score highest */
+    private float score;
+    private Object record;
+
+    public SearchHitDTO() {
+    }
+
+    public SearchHitDTO(GuestSearchIndex.Kind kind, Long id, float score) {
+        this.kind = kind;
+        this.id = id;
+        this.score = score;
+    }
+}
@@ -0,0 +1,27 @@
+package com.hotel.erp.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Price quote for a stay. The caller fills in the stay; the pricing service
+ * fills in the amounts.
+ */
+@Data
+public class StayQuoteDTO {
+    private String reference;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private Integer noOfRooms;
+    private Double rate;
+    private String withTax;
+    private Boolean isTaxInclusive;
+
+    private Long nights;
+    private BigDecimal baseAmount;
+    private BigDecimal taxAmount;
+    private BigDecimal totalAmount;
+    private Long taxVersion;
+}
@@ -0,0 +1,24 @@
+package com.hotel.erp.dto;
+
+import com.hotel.erp.entity.StockMovement;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * A stock movement to post: which item, what kind and how much. For a COUNT
+ * the quantity is the counted stock; for a RECEIVE unitCost is the purchase
+ * price, folded into the item's average cost.
+ */
+@Data
+public class StockMovementDTO {
+    private String itemCode;
+    private StockMovement.Type movementType;
+    private BigDecimal quantity;
+    private BigDecimal unitCost;
+    private String referenceType;
+    private String referenceNo;
+    private String roomNo;
+    private String remarks;
+    private Integer userId;
+}
@@ -0,0 +1,24 @@
+package com.hotel.erp.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Housekeeping task counts for the dashboard, read in one query
+ */
+@Data
+@NoArgsConstructor
+public class TaskCountsDTO {
+    private long totalTasks;
+    private long pendingTasks;
+    private long completedTasks;
+    private long todayTasks;
+
+    // Used by JPQL constructor expressions; SUM over no rows is null
+    public TaskCountsDTO(Long totalTasks, Long pendingTasks, Long completedTasks, Long todayTasks) {
+        this.totalTasks = totalTasks != null ? totalTasks : 0;
+        this.pendingTasks = pendingTasks != null ? pendingTasks : 0;
+        this.completedTasks = completedTasks != null ? completedTasks : 0;
+        this.todayTasks = todayTasks != null ? todayTasks : 0;
+    }
+}
@@ -0,0 +1,34 @@
+package com.hotel.erp.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A vendor's delivery record and the score it is ranked by. The rates are
+ * percentages and are null until the vendor has the deliveries to measure.
+ */
+@Data
+public class VendorScorecardDTO {
+    private Long vendorId;
+    private String vendorCode;
+    private String vendorName;
+    private String category;
+    private String status;
+    /** The buyer's 1-5 rating of the vendor */
+    private Integer rating;
+
+    private Long ordersPlaced;
+    private Long receipts;
+    private BigDecimal totalSpend;
+    private LocalDate lastReceiptDate;
+    private BigDecimal onTimeRate;
+    private BigDecimal fillRate;
+    /** Paid above (positive) or below (negative) the items' standard cost */
+    private BigDecimal priceVarianceRate;
+    private BigDecimal averageLeadDays;
+
+    /** 0-100, weighted over the measures the vendor has; null with none */
+    private BigDecimal score;
+}
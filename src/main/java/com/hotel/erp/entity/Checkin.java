@@ -91,6 +91,10 @@ public class Checkin {
     @Column(name = "purpose")
     private String purpose;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     // Default constructor
     public Checkin() {
     }
@@ -311,4 +315,12 @@ public class Checkin {
     public void setPurpose(String purpose) {
         this.purpose = purpose;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,49 @@
+package com.hotel.erp.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One cell of the daily revenue cube: the total and entry count of one ledger
+ * for one report date, account head, payment mode and shift. Dimensions a
+ * ledger does not have are stored as '' or 0 so that every cell has exactly
+ * one row.
+ */
+@Entity
+@Table(name = "daily_revenue", uniqueConstraints = @UniqueConstraint(name = "uk_daily_revenue_cell", columnNames = {
+        "report_date", "ledger", "account_head", "payment_mode", "shift_no" }))
+@Data
+public class DailyRevenue {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "report_date", nullable = false)
+    private LocalDate reportDate;
+
+    // name of a FolioBalanceService.Ledger
+    @Column(name = "ledger", nullable = false, length = 20)
+    private String ledger;
+
+    @Column(name = "account_head", nullable = false)
+    private String accountHead = "";
+
+    @Column(name = "payment_mode", nullable = false)
+    private String paymentMode = "";
+
+    @Column(name = "shift_no", nullable = false)
+    private Integer shiftNo = 0;
+
+    @Column(name = "amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal amount = BigDecimal.ZERO;
+
+    @Column(name = "entry_count", nullable = false)
+    private Long entryCount = 0L;
+
+    @Column(name = "updated_on")
+    private LocalDateTime updatedOn;
+}
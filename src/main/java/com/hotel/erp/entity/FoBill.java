@@ -31,6 +31,10 @@ public class FoBill {
     @Column(name = "user_id")
     private Integer userId;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     // Default constructor
     public FoBill() {
     }
@@ -102,4 +106,12 @@ public class FoBill {
     protected void onUpdate() {
         updatedOn = LocalDateTime.now();
     }
-} 
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
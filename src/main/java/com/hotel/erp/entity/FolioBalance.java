@@ -0,0 +1,37 @@
+package com.hotel.erp.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Running ledger totals per folio, maintained in the same transaction as each
+ * advance, posting, charge, bill and settlement written through the services.
+ */
+@Entity
+@Table(name = "folio_balance")
+@Data
+public class FolioBalance {
+    @Id
+    @Column(name = "folio_no")
+    private String folioNo;
+
+    @Column(name = "total_advances", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalAdvances = BigDecimal.ZERO;
+
+    @Column(name = "total_postings", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalPostings = BigDecimal.ZERO;
+
+    @Column(name = "total_charges", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalCharges = BigDecimal.ZERO;
+
+    @Column(name = "total_billed", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalBilled = BigDecimal.ZERO;
+
+    @Column(name = "total_settlements", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalSettlements = BigDecimal.ZERO;
+
+    @Column(name = "updated_on")
+    private LocalDateTime updatedOn;
+}
@@ -0,0 +1,59 @@
+package com.hotel.erp.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A goods receipt note: one delivery against a purchase order. Its lines
+ * are GoodsReceiptLine rows, each posted to the stock ledger.
+ */
+@Entity
+@Table(name = "goods_receipt")
+@Data
+public class GoodsReceipt {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "receipt_no", nullable = false, unique = true, length = 30)
+    private String receiptNo;
+
+    @Column(name = "purchase_order_id", nullable = false)
+    private Long purchaseOrderId;
+
+    @Column(name = "order_no", nullable = false, length = 30)
+    private String orderNo;
+
+    @Column(name = "vendor_id", nullable = false)
+    private Long vendorId;
+
+    @Column(name = "vendor_name", length = 255)
+    private String vendorName;
+
+    @Column(name = "receipt_date", nullable = false)
+    private LocalDate receiptDate;
+
+    @Column(name = "total_amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    // delivered on or before the order's expected delivery date
+    @Column(name = "on_time", nullable = false)
+    private Boolean onTime;
+
+    @Column(name = "received_by", length = 100)
+    private String receivedBy;
+
+    @Column(name = "remarks", length = 300)
+    private String remarks;
+
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Column(name = "created_on", nullable = false)
+    private LocalDateTime createdOn;
+}
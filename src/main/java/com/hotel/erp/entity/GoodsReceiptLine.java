@@ -0,0 +1,44 @@
+package com.hotel.erp.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+
+/**
+ * The quantity of one purchase order line delivered by a goods receipt
+ */
+@Entity
+@Table(name = "goods_receipt_line")
+@Data
+public class GoodsReceiptLine {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "goods_receipt_id", nullable = false)
+    private Long goodsReceiptId;
+
+    @Column(name = "purchase_order_line_id", nullable = false)
+    private Long purchaseOrderLineId;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "item_code", nullable = false, length = 50)
+    private String itemCode;
+
+    @Column(name = "quantity", nullable = false, precision = 10, scale = 2)
+    private BigDecimal quantity;
+
+    @Column(name = "unit_price", nullable = false, precision = 10, scale = 2)
+    private BigDecimal unitPrice;
+
+    @Column(name = "line_total", nullable = false, precision = 12, scale = 2)
+    private BigDecimal lineTotal;
+
+    // the RECEIVE row this line posted to the stock ledger
+    @Column(name = "stock_movement_id")
+    private Long stockMovementId;
+}
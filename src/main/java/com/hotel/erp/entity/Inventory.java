@@ -118,6 +118,10 @@ public class Inventory {
     @Column(name = "average_consumption", precision = 10, scale = 2)
     private BigDecimal averageConsumption = BigDecimal.ZERO;
 
+    // last day folded into averageConsumption by the nightly consumption roll
+    @Column(name = "consumption_averaged_through")
+    private LocalDate consumptionAveragedThrough;
+
     @Column(name = "lead_time_days")
     private Integer leadTimeDays = 0;
 
@@ -0,0 +1,55 @@
+package com.hotel.erp.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One night audit per audit date. lastCheckinId is the checkpoint: every
+ * in-house checkin up to it has had its room charges posted, so an interrupted
+ * audit resumes after it.
+ */
+@Entity
+@Table(name = "night_audit_run")
+@Data
+public class NightAuditRun {
+    public enum Status {
+        RUNNING,
+        COMPLETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "audit_date", nullable = false, unique = true)
+    private LocalDate auditDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+
+    @Column(name = "last_checkin_id", nullable = false)
+    private Long lastCheckinId = 0L;
+
+    @Column(name = "folios_posted", nullable = false)
+    private Integer foliosPosted = 0;
+
+    @Column(name = "room_rent_total", nullable = false, precision = 14, scale = 2)
+    private BigDecimal roomRentTotal = BigDecimal.ZERO;
+
+    @Column(name = "tax_total", nullable = false, precision = 14, scale = 2)
+    private BigDecimal taxTotal = BigDecimal.ZERO;
+
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Column(name = "started_on")
+    private LocalDateTime startedOn;
+
+    @Column(name = "completed_on")
+    private LocalDateTime completedOn;
+}
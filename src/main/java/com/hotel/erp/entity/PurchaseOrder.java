@@ -0,0 +1,75 @@
+package com.hotel.erp.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A purchase order to one vendor. Its lines are PurchaseOrderLine rows and
+ * its deliveries GoodsReceipt rows.
+ */
+@Entity
+@Table(name = "purchase_order")
+@Data
+public class PurchaseOrder {
+    public enum Status {
+        DRAFT, APPROVED, ORDERED, PARTIALLY_RECEIVED, RECEIVED,
+        /** Partly received and no more is expected */
+        CLOSED,
+        CANCELLED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "order_no", nullable = false, unique = true, length = 30)
+    private String orderNo;
+
+    @Column(name = "vendor_id", nullable = false)
+    private Long vendorId;
+
+    @Column(name = "vendor_name", length = 255)
+    private String vendorName;
+
+    @Column(name = "department", length = 50)
+    private String department;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Status status = Status.DRAFT;
+
+    @Column(name = "order_date", nullable = false)
+    private LocalDate orderDate;
+
+    // the day the order was sent to the vendor
+    @Column(name = "ordered_date")
+    private LocalDate orderedDate;
+
+    @Column(name = "expected_delivery")
+    private LocalDate expectedDelivery;
+
+    @Column(name = "total_amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Column(name = "received_amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal receivedAmount = BigDecimal.ZERO;
+
+    @Column(name = "line_count", nullable = false)
+    private Integer lineCount = 0;
+
+    @Column(name = "remarks", length = 300)
+    private String remarks;
+
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Column(name = "created_on", nullable = false)
+    private LocalDateTime createdOn;
+
+    @Column(name = "updated_on")
+    private LocalDateTime updatedOn;
+}
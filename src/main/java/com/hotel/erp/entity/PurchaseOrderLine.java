@@ -0,0 +1,60 @@
+package com.hotel.erp.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+
+/**
+ * One inventory item on a purchase order and how much of it has arrived
+ */
+@Entity
+@Table(name = "purchase_order_line")
+@Data
+public class PurchaseOrderLine {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "purchase_order_id", nullable = false)
+    private Long purchaseOrderId;
+
+    @Column(name = "line_no", nullable = false)
+    private Integer lineNo;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "item_code", nullable = false, length = 50)
+    private String itemCode;
+
+    @Column(name = "item_name", length = 100)
+    private String itemName;
+
+    @Column(name = "quantity", nullable = false, precision = 10, scale = 2)
+    private BigDecimal quantity;
+
+    @Column(name = "received_quantity", nullable = false, precision = 10, scale = 2)
+    private BigDecimal receivedQuantity = BigDecimal.ZERO;
+
+    @Column(name = "unit_price", nullable = false, precision = 10, scale = 2)
+    private BigDecimal unitPrice;
+
+    @Column(name = "line_total", nullable = false, precision = 12, scale = 2)
+    private BigDecimal lineTotal;
+
+    // the item's unit cost when the order was raised, the price variance baseline
+    @Column(name = "standard_cost", precision = 10, scale = 2)
+    private BigDecimal standardCost;
+
+    @Column(name = "requisition_id")
+    private Long requisitionId;
+
+    /**
+     * @return the quantity still to arrive
+     */
+    public BigDecimal getOutstandingQuantity() {
+        return quantity.subtract(receivedQuantity);
+    }
+}
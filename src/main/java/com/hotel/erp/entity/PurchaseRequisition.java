@@ -0,0 +1,74 @@
+package com.hotel.erp.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A department's request to buy an inventory item. An approved requisition
+ * becomes a line of a purchase order.
+ */
+@Entity
+@Table(name = "purchase_requisition")
+@Data
+public class PurchaseRequisition {
+    public enum Status {
+        PENDING, APPROVED, REJECTED, ORDERED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "requisition_no", nullable = false, unique = true, length = 30)
+    private String requisitionNo;
+
+    @Column(name = "department", nullable = false, length = 50)
+    private String department;
+
+    @Column(name = "priority", length = 10)
+    private String priority; // LOW, MEDIUM, HIGH
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "item_code", nullable = false, length = 50)
+    private String itemCode;
+
+    @Column(name = "description", length = 300)
+    private String description;
+
+    @Column(name = "quantity", nullable = false, precision = 10, scale = 2)
+    private BigDecimal quantity;
+
+    @Column(name = "estimated_cost", precision = 12, scale = 2)
+    private BigDecimal estimatedCost;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    @Column(name = "request_date", nullable = false)
+    private LocalDate requestDate;
+
+    @Column(name = "required_by")
+    private LocalDate requiredBy;
+
+    @Column(name = "purchase_order_id")
+    private Long purchaseOrderId;
+
+    @Column(name = "remarks", length = 300)
+    private String remarks;
+
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Column(name = "created_on", nullable = false)
+    private LocalDateTime createdOn;
+
+    @Column(name = "updated_on")
+    private LocalDateTime updatedOn;
+}
@@ -92,6 +92,10 @@ public class Reservation {
     @Column(name = "user_id")
     private Integer userId;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     // Getters and Setters
     public Integer getId() {
         return id;
@@ -316,4 +320,12 @@ public class Reservation {
     public void setUserId(Integer userId) {
         this.userId = userId;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -39,6 +39,10 @@ public class Room {
     @Column(name = "roomtype_id")
     private Integer roomTypeId;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     public enum RoomStatus {
         VR, // Vacant and Ready
         OD, // Occupied Dirty
@@ -125,4 +129,12 @@ public class Room {
     public void setRoomTypeId(Integer roomTypeId) {
         this.roomTypeId = roomTypeId;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,25 @@
+package com.hotel.erp.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Durable high-water mark for a document number sequence (folio, reservation,
+ * ...). Each row records the highest number already handed out to an
+ * in-memory block for its key.
+ */
+@Entity
+@Table(name = "sequence_counter")
+@Data
+public class SequenceCounter {
+    @Id
+    @Column(name = "sequence_key", length = 64)
+    private String sequenceKey;
+
+    @Column(name = "high_water_mark", nullable = false)
+    private Long highWaterMark;
+
+    @Column(name = "updated_on")
+    private LocalDateTime updatedOn;
+}
@@ -38,4 +38,8 @@ public class Shift {
 
     @Column(name = "shiftName")
     private String shiftName;
+
+    @Version
+    @Column(name = "version")
+    private Long version;
 }
@@ -0,0 +1,85 @@
+package com.hotel.erp.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One line of the append-only stock ledger. Rows are only ever inserted; a
+ * mistake is corrected by a further movement, such as a count. The deltas
+ * are what the movement did to the item's stock and reservations, and
+ * stockAfter is the item's stock right after it.
+ */
+@Entity
+@Table(name = "stock_movement")
+@Data
+public class StockMovement {
+    public enum Type {
+        /** Goods in, e.g. a purchase receipt */
+        RECEIVE,
+        /** Goods out of free stock, e.g. amenities put in a room */
+        ISSUE,
+        /** Set stock aside for a later issue */
+        RESERVE,
+        /** Give reserved stock back to free stock */
+        RELEASE,
+        /** Goods out of stock reserved earlier */
+        ISSUE_RESERVED,
+        /** Stock take: the quantity is the counted stock */
+        COUNT
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "item_code", nullable = false, length = 50)
+    private String itemCode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "movement_type", nullable = false, length = 16)
+    private Type movementType;
+
+    @Column(name = "quantity", nullable = false, precision = 10, scale = 2)
+    private BigDecimal quantity;
+
+    @Column(name = "stock_delta", nullable = false, precision = 10, scale = 2)
+    private BigDecimal stockDelta = BigDecimal.ZERO;
+
+    @Column(name = "reserved_delta", nullable = false, precision = 10, scale = 2)
+    private BigDecimal reservedDelta = BigDecimal.ZERO;
+
+    @Column(name = "stock_after", precision = 10, scale = 2)
+    private BigDecimal stockAfter;
+
+    @Column(name = "unit_cost", precision = 10, scale = 2)
+    private BigDecimal unitCost;
+
+    // what the movement was for, e.g. HOUSEKEEPING / task id or GRN / receipt number
+    @Column(name = "reference_type", length = 30)
+    private String referenceType;
+
+    @Column(name = "reference_no", length = 50)
+    private String referenceNo;
+
+    @Column(name = "room_no", length = 20)
+    private String roomNo;
+
+    @Column(name = "remarks", length = 300)
+    private String remarks;
+
+    @Column(name = "movement_date", nullable = false)
+    private LocalDate movementDate;
+
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Column(name = "created_on", nullable = false)
+    private LocalDateTime createdOn;
+}
@@ -0,0 +1,105 @@
+package com.hotel.erp.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Running delivery totals of one vendor, added to as orders are placed,
+ * received and closed, so the performance figures never need the receipt
+ * history to be read again.
+ */
+@Entity
+@Table(name = "supplier_performance")
+@Data
+public class SupplierPerformance {
+
+    @Id
+    @Column(name = "vendor_id")
+    private Long vendorId;
+
+    @Column(name = "vendor_name", length = 255)
+    private String vendorName;
+
+    @Column(name = "orders_placed", nullable = false)
+    private Long ordersPlaced = 0L;
+
+    @Column(name = "receipts", nullable = false)
+    private Long receipts = 0L;
+
+    @Column(name = "on_time_receipts", nullable = false)
+    private Long onTimeReceipts = 0L;
+
+    // days from order to delivery, summed over receipts
+    @Column(name = "lead_days", nullable = false)
+    private Long leadDays = 0L;
+
+    @Column(name = "total_spend", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalSpend = BigDecimal.ZERO;
+
+    // quantities of the orders that are complete: fully received or closed short
+    @Column(name = "closed_orders", nullable = false)
+    private Long closedOrders = 0L;
+
+    @Column(name = "closed_ordered_quantity", nullable = false, precision = 14, scale = 2)
+    private BigDecimal closedOrderedQuantity = BigDecimal.ZERO;
+
+    @Column(name = "closed_received_quantity", nullable = false, precision = 14, scale = 2)
+    private BigDecimal closedReceivedQuantity = BigDecimal.ZERO;
+
+    // received quantity at the items' standard cost, and what was paid above it
+    @Column(name = "standard_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal standardAmount = BigDecimal.ZERO;
+
+    @Column(name = "price_variance", nullable = false, precision = 14, scale = 2)
+    private BigDecimal priceVariance = BigDecimal.ZERO;
+
+    @Column(name = "last_receipt_date")
+    private LocalDate lastReceiptDate;
+
+    @Column(name = "updated_on")
+    private LocalDateTime updatedOn;
+
+    /**
+     * @return percentage of receipts delivered by the expected date, or null
+     *         before the first receipt
+     */
+    public BigDecimal getOnTimeRate() {
+        return percentage(BigDecimal.valueOf(onTimeReceipts), BigDecimal.valueOf(receipts));
+    }
+
+    /**
+     * @return percentage of the ordered quantity delivered on complete
+     *         orders, or null before the first order is complete
+     */
+    public BigDecimal getFillRate() {
+        return percentage(closedReceivedQuantity, closedOrderedQuantity);
+    }
+
+    /**
+     * @return percentage paid above (positive) or below (negative) the items'
+     *         standard cost, or null before the first priced receipt
+     */
+    public BigDecimal getPriceVarianceRate() {
+        return percentage(priceVariance, standardAmount);
+    }
+
+    /**
+     * @return average days from order to delivery, or null before the first
+     *         receipt
+     */
+    public BigDecimal getAverageLeadDays() {
+        return receipts == 0 ? null
+                : BigDecimal.valueOf(leadDays).divide(BigDecimal.valueOf(receipts), 1, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal percentage(BigDecimal part, BigDecimal whole) {
+        if (whole.signum() == 0) {
+            return null;
+        }
+        return part.multiply(BigDecimal.valueOf(100)).divide(whole, 1, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,28 @@
+package com.hotel.erp.exception;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exception thrown when a request body is well formed but some of its fields
+ * are missing or out of range. Carries every failed field, not just the first.
+ */
+public class RequestValidationException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, String> fieldErrors;
+
+    public RequestValidationException(Map<String, String> fieldErrors) {
+        super("Invalid request: " + String.join(", ", fieldErrors.keySet()));
+        this.fieldErrors = Collections.unmodifiableMap(new LinkedHashMap<>(fieldErrors));
+    }
+
+    /**
+     * @return the message for each failed field, in the order checked
+     */
+    public Map<String, String> getFieldErrors() {
+        return fieldErrors;
+    }
+}
@@ -1,5 +1,6 @@
 package com.hotel.erp.repository;
 
+import com.hotel.erp.dto.GroupTotalDTO;
 import com.hotel.erp.entity.AdditionalCharges;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -112,4 +113,30 @@ public interface AdditionalChargesRepository extends JpaRepository<AdditionalCha
      */
     @Query("SELECT COALESCE(SUM(c.amount), 0) FROM AdditionalCharges c WHERE c.chargeDate = :date")
     java.math.BigDecimal getTotalAmountByDate(@Param("date") LocalDate date);
-}
\ No newline at end of file
+
+    /**
+     * Get the total and count of charges per charge type between dates
+     * 
+     * @param startDate  the start date
+     * @param endDate    the end date
+     * @param chargeType the charge type, or null for all types
+     * @return one total per charge type, in charge type order
+     */
+    @Query("SELECT new com.hotel.erp.dto.GroupTotalDTO(c.chargeType, COALESCE(SUM(c.amount), 0), COUNT(c)) "
+            + "FROM AdditionalCharges c WHERE c.chargeDate BETWEEN :startDate AND :endDate "
+            + "AND (:chargeType IS NULL OR c.chargeType = :chargeType) "
+            + "GROUP BY c.chargeType ORDER BY c.chargeType")
+    List<GroupTotalDTO> sumByChargeType(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate, @Param("chargeType") String chargeType);
+
+    /**
+     * Get the total and count of a folio's charges per charge type
+     * 
+     * @param folioNo the folio number
+     * @return one total per charge type, in charge type order
+     */
+    @Query("SELECT new com.hotel.erp.dto.GroupTotalDTO(c.chargeType, COALESCE(SUM(c.amount), 0), COUNT(c)) "
+            + "FROM AdditionalCharges c WHERE c.folioNo = :folioNo "
+            + "GROUP BY c.chargeType ORDER BY c.chargeType")
+    List<GroupTotalDTO> sumByChargeTypeForFolio(@Param("folioNo") String folioNo);
+}
@@ -1,5 +1,6 @@
 package com.hotel.erp.repository;
 
+import com.hotel.erp.dto.GroupTotalDTO;
 import com.hotel.erp.entity.Advances;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -12,7 +13,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AdvancesRepository extends JpaRepository<Advances, Long> {
+public interface AdvancesRepository extends JpaRepository<Advances, Long>, AdvancesRepositoryCustom {
 
     /**
      * Find advances by folio number
@@ -79,16 +80,6 @@ public interface AdvancesRepository extends JpaRepository<Advances, Long> {
      */
     List<Advances> findByPaymentDateBetween(LocalDate startDate, LocalDate endDate);
 
-    /**
-     * Search advances by query (partial match on folio_no, reservation_no,
-     * reference_no, guest_name)
-     * 
-     * @param query the search query
-     * @return List of advances matching the query
-     */
-    @Query("SELECT a FROM Advances a WHERE a.folioNo LIKE %:query% OR a.reservationNo LIKE %:query% OR a.referenceNo LIKE %:query% OR a.guestName LIKE %:query%")
-    List<Advances> searchAdvances(@Param("query") String query);
-
     /**
      * Get total amount by folio number
      * 
@@ -142,4 +133,16 @@ public interface AdvancesRepository extends JpaRepository<Advances, Long> {
      * @return count of advances for the date
      */
     int countByPaymentDate(LocalDate paymentDate);
-}
\ No newline at end of file
+
+    /**
+     * Get the total and count of advances per payment mode between dates
+     * 
+     * @param startDate the start date
+     * @param endDate   the end date
+     * @return one total per payment mode
+     */
+    @Query("SELECT new com.hotel.erp.dto.GroupTotalDTO(a.paymentMode, COALESCE(SUM(a.amount), 0), COUNT(a)) "
+            + "FROM Advances a WHERE a.paymentDate BETWEEN :startDate AND :endDate GROUP BY a.paymentMode")
+    List<GroupTotalDTO> sumByPaymentMode(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+}
@@ -0,0 +1,27 @@
+package com.hotel.erp.repository;
+
+import com.hotel.erp.dto.PaymentReportDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Queries on advances that are built at run time
+ */
+public interface AdvancesRepositoryCustom {
+
+    /**
+     * Sum advances per payment date and payment mode in the database. Only the
+     * filters that are given are added to the query.
+     * 
+     * @param startDate     the start date
+     * @param endDate       the end date
+     * @param paymentMode   the payment mode (optional)
+     * @param folioNo       the folio number (optional)
+     * @param reservationNo the reservation number (optional)
+     * @param guestName     the guest name (optional)
+     * @return one summary per date and payment mode, in date and mode order
+     */
+    List<PaymentReportDTO> summarizePayments(LocalDate startDate, LocalDate endDate, String paymentMode,
+            String folioNo, String reservationNo, String guestName);
+}
@@ -0,0 +1,65 @@
+package com.hotel.erp.repository;
+
+import com.hotel.erp.dto.PaymentReportDTO;
+import com.hotel.erp.entity.Advances;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria implementation of {@link AdvancesRepositoryCustom}, picked up by
+ * Spring Data through the Impl suffix
+ */
+public class AdvancesRepositoryImpl implements AdvancesRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<PaymentReportDTO> summarizePayments(LocalDate startDate, LocalDate endDate, String paymentMode,
+            String folioNo, String reservationNo, String guestName) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PaymentReportDTO> query = cb.createQuery(PaymentReportDTO.class);
+        Root<Advances> advance = query.from(Advances.class);
+        Path<LocalDate> paymentDate = advance.get("paymentDate");
+        Path<String> mode = advance.get("paymentMode");
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.between(paymentDate, startDate, endDate));
+        addEqual(cb, where, mode, paymentMode);
+        addEqual(cb, where, advance.get("folioNo"), folioNo);
+        addEqual(cb, where, advance.get("reservationNo"), reservationNo);
+        addEqual(cb, where, advance.get("guestName"), guestName);
+
+        // the guest columns are only meaningful when the report is filtered down to one guest;
+        // otherwise they show the lowest value in the group
+        query.select(cb.construct(PaymentReportDTO.class,
+                paymentDate,
+                mode,
+                cb.coalesce(cb.sum(advance.<BigDecimal>get("amount")), BigDecimal.ZERO),
+                cb.count(advance),
+                cb.least(advance.<String>get("folioNo")),
+                cb.least(advance.<String>get("reservationNo")),
+                cb.least(advance.<String>get("guestName"))))
+                .where(where.toArray(new Predicate[0]))
+                .groupBy(paymentDate, mode)
+                .orderBy(cb.asc(paymentDate), cb.asc(mode));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private static void addEqual(CriteriaBuilder cb, List<Predicate> where, Path<String> column, String value) {
+        if (value != null && !value.trim().isEmpty()) {
+            where.add(cb.equal(column, value));
+        }
+    }
+}
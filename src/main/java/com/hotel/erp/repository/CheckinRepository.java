@@ -1,18 +1,34 @@
 package com.hotel.erp.repository;
 
+import com.hotel.erp.dto.FolioBalanceDTO;
 import com.hotel.erp.entity.Checkin;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CheckinRepository extends JpaRepository<Checkin, Long> {
 
+    String FOLIO_BALANCE_SELECT = "SELECT new com.hotel.erp.dto.FolioBalanceDTO(c.folioNo, "
+            + "(SELECT COALESCE(SUM(a.amount), 0) FROM Advances a WHERE a.folioNo = c.folioNo), "
+            + "(SELECT COALESCE(SUM(pt.amount), 0) FROM PostTransaction pt WHERE pt.folioNo = c.folioNo), "
+            + "(SELECT COALESCE(SUM(ac.amount), 0) FROM AdditionalCharges ac WHERE ac.folioNo = c.folioNo), "
+            + "(SELECT COALESCE(SUM(b.totalAmount), 0) FROM FoBill b WHERE b.folioNo = c.folioNo), "
+            + "(SELECT COALESCE(SUM(s.amount), 0) FROM BillSettlement s, FoBill sb "
+            + "WHERE s.billId = sb.billId AND sb.folioNo = c.folioNo)) "
+            + "FROM Checkin c ";
+
     /**
      * Find a checkin by its folio number
      * 
@@ -29,6 +45,14 @@ public interface CheckinRepository extends JpaRepository<Checkin, Long> {
      */
     Optional<Checkin> findFirstByFolioNo(String folioNo);
 
+    /**
+     * Find the checkins of several folio numbers at once, for bulk validation
+     * 
+     * @param folioNos the folio numbers
+     * @return the checkins, oldest first
+     */
+    List<Checkin> findByFolioNoInOrderByIdAsc(Collection<String> folioNos);
+
     /**
      * Find all active checkins (where status is 'CHECKED_IN')
      * 
@@ -73,6 +97,18 @@ public interface CheckinRepository extends JpaRepository<Checkin, Long> {
     @Query("SELECT COUNT(c) FROM Checkin c WHERE c.status = 'CHECKED_IN'")
     Long countActiveCheckins();
 
+    /**
+     * The folio numbers with the given prefix, highest number first (longer
+     * numbers first, as 10000 sorts before 9999 as text)
+     * 
+     * @param prefix the folio number prefix, e.g. FOL/202501/
+     * @param page   how many to read; the first is the highest
+     * @return the folio numbers
+     */
+    @Query("SELECT c.folioNo FROM Checkin c WHERE c.folioNo LIKE CONCAT(:prefix, '%') "
+            + "ORDER BY LENGTH(c.folioNo) DESC, c.folioNo DESC")
+    List<String> findHighestFolioNos(@Param("prefix") String prefix, Pageable page);
+
     /**
      * Find all checkins that are due to check out today
      * 
@@ -107,6 +143,83 @@ public interface CheckinRepository extends JpaRepository<Checkin, Long> {
     @Query("SELECT c FROM Checkin c WHERE c.checkOutDate < :currentDate AND c.status = 'CHECKED_IN'")
     List<Checkin> findOverdueCheckins(@Param("currentDate") LocalDate currentDate);
 
+    /**
+     * Get ledger totals for the given folios in a single query, one row per
+     * folio
+     * 
+     * @param folioNos the folio numbers
+     * @return List of folio balances for folios that have a checkin
+     */
+    @Query(FOLIO_BALANCE_SELECT + "WHERE c.folioNo IN :folioNos")
+    List<FolioBalanceDTO> findFolioBalances(@Param("folioNos") Collection<String> folioNos);
+
+    /**
+     * Get ledger totals for a page of folios, ordered by checkin id
+     * 
+     * @param pageable the page to read
+     * @return List of folio balances
+     */
+    @Query(FOLIO_BALANCE_SELECT + "WHERE c.folioNo IS NOT NULL ORDER BY c.id")
+    List<FolioBalanceDTO> findFolioBalancesPage(Pageable pageable);
+
+    /**
+     * Find the folio numbers of all active checkins
+     * 
+     * @return List of in-house folio numbers
+     */
+    @Query("SELECT c.folioNo FROM Checkin c WHERE c.status = 'CHECKED_IN' AND c.folioNo IS NOT NULL")
+    List<String> findActiveFolioNos();
+
+    /**
+     * Find stays that are still open or end on or after a date
+     * 
+     * @param date the earliest departure date to include
+     * @return List of checkins holding a room on or after the date
+     */
+    @Query("SELECT c FROM Checkin c WHERE c.checkOutDate IS NULL OR c.checkOutDate >= :date")
+    List<Checkin> findStaysEndingOnOrAfter(@Param("date") LocalDate date);
+
+    /**
+     * Find the checked-in stays that hold a room on a date: arrived on or
+     * before it and departing on or after it
+     * 
+     * @param date the date
+     * @return List of stays departing on the date or staying over
+     */
+    @Query("SELECT c FROM Checkin c WHERE c.status = 'CHECKED_IN' AND c.checkInDate <= :date "
+            + "AND (c.checkOutDate IS NULL OR c.checkOutDate >= :date)")
+    List<Checkin> findStaysOccupyingOn(@Param("date") LocalDate date);
+
+    /**
+     * Find the next chunk of checked-in stays that are in house on the audit
+     * date, in checkin id order after a checkpoint
+     * 
+     * @param afterId   the last checkin id already processed
+     * @param auditDate the audit date
+     * @param pageable  the chunk size
+     * @return List of in-house checkins
+     */
+    @Query("SELECT c FROM Checkin c WHERE c.status = 'CHECKED_IN' AND c.id > :afterId "
+            + "AND c.checkInDate <= :auditDate AND (c.checkOutDate IS NULL OR c.checkOutDate > :auditDate) "
+            + "ORDER BY c.id")
+    List<Checkin> findInHouseForAudit(@Param("afterId") Long afterId, @Param("auditDate") LocalDate auditDate,
+            Pageable pageable);
+
+    /**
+     * Stream the room and dates of every stay that has a night in
+     * [startDate, endDate], reading forward only
+     * 
+     * @param startDate the first night
+     * @param endDate   the last night
+     * @return Stream of [roomNo, checkInDate, checkOutDate] rows
+     */
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    @Query("SELECT c.roomNo, c.checkInDate, c.checkOutDate FROM Checkin c "
+            + "WHERE c.checkInDate <= :endDate AND (c.checkOutDate IS NULL OR c.checkOutDate > :startDate)")
+    Stream<Object[]> streamStaysBetween(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
     /**
      * Find all checkins that have been checked out (checkOutDate is not null)
      * 
@@ -0,0 +1,64 @@
+package com.hotel.erp.repository;
+
+import com.hotel.erp.dto.GroupTotalDTO;
+import com.hotel.erp.dto.PaymentReportDTO;
+import com.hotel.erp.entity.DailyRevenue;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Reads of the daily revenue cube. Writes go through DailyRevenueService.
+ * Cells whose entries were all removed again are left at zero and skipped
+ * here.
+ */
+@Repository
+public interface DailyRevenueRepository extends JpaRepository<DailyRevenue, Long> {
+
+    /**
+     * Get the total and entry count of every ledger between two dates
+     */
+    @Query("SELECT new com.hotel.erp.dto.GroupTotalDTO(d.ledger, SUM(d.amount), SUM(d.entryCount)) "
+            + "FROM DailyRevenue d WHERE d.reportDate BETWEEN :startDate AND :endDate "
+            + "GROUP BY d.ledger HAVING SUM(d.entryCount) > 0")
+    List<GroupTotalDTO> sumByLedger(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * Get one ledger's totals per payment mode between two dates; entries
+     * without a mode are grouped under null
+     */
+    @Query("SELECT new com.hotel.erp.dto.GroupTotalDTO(NULLIF(d.paymentMode, ''), SUM(d.amount), SUM(d.entryCount)) "
+            + "FROM DailyRevenue d WHERE d.ledger = :ledger AND d.reportDate BETWEEN :startDate AND :endDate "
+            + "GROUP BY d.paymentMode HAVING SUM(d.entryCount) > 0 ORDER BY d.paymentMode")
+    List<GroupTotalDTO> sumByPaymentMode(@Param("ledger") String ledger, @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    /**
+     * Get one ledger's totals per account head between two dates, optionally
+     * for a single head
+     */
+    @Query("SELECT new com.hotel.erp.dto.GroupTotalDTO(NULLIF(d.accountHead, ''), SUM(d.amount), SUM(d.entryCount)) "
+            + "FROM DailyRevenue d WHERE d.ledger = :ledger AND d.reportDate BETWEEN :startDate AND :endDate "
+            + "AND (:accountHead IS NULL OR d.accountHead = :accountHead) "
+            + "GROUP BY d.accountHead HAVING SUM(d.entryCount) > 0 ORDER BY d.accountHead")
+    List<GroupTotalDTO> sumByAccountHead(@Param("ledger") String ledger, @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate, @Param("accountHead") String accountHead);
+
+    /**
+     * Get one ledger's totals per date and payment mode between two dates,
+     * optionally for a single mode
+     */
+    @Query("SELECT new com.hotel.erp.dto.PaymentReportDTO(d.reportDate, NULLIF(d.paymentMode, ''), "
+            + "SUM(d.amount), SUM(d.entryCount)) "
+            + "FROM DailyRevenue d WHERE d.ledger = :ledger AND d.reportDate BETWEEN :startDate AND :endDate "
+            + "AND (:paymentMode IS NULL OR d.paymentMode = :paymentMode) "
+            + "GROUP BY d.reportDate, d.paymentMode HAVING SUM(d.entryCount) > 0 "
+            + "ORDER BY d.reportDate, d.paymentMode")
+    List<PaymentReportDTO> sumByDateAndPaymentMode(@Param("ledger") String ledger,
+            @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate,
+            @Param("paymentMode") String paymentMode);
+}
@@ -1,13 +1,17 @@
 package com.hotel.erp.repository;
 
+import com.hotel.erp.dto.FoBillDTO;
 import com.hotel.erp.entity.FoBill;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface FoBillRepository extends JpaRepository<FoBill, Long> {
@@ -20,6 +24,18 @@ public interface FoBillRepository extends JpaRepository<FoBill, Long> {
      */
     List<FoBill> findByFolioNo(String folioNo);
 
+    /**
+     * Load a bill that is about to be settled. Its version is bumped on
+     * commit, so two settlements of the same bill cannot both commit against
+     * the same state; the loser conflicts and is retried.
+     * 
+     * @param billId the bill ID
+     * @return Optional containing the bill if found
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT b FROM FoBill b WHERE b.billId = :billId")
+    Optional<FoBill> findForSettlement(@Param("billId") Long billId);
+
     /**
      * Find bills by bill date
      * 
@@ -83,4 +99,18 @@ public interface FoBillRepository extends JpaRepository<FoBill, Long> {
      * @return count of bills for the date
      */
     int countByBillDate(LocalDate billDate);
-}
\ No newline at end of file
+
+    /**
+     * Get bills between dates as DTOs, optionally for one folio
+     * 
+     * @param startDate the start date
+     * @param endDate   the end date
+     * @param folioNo   the folio number, or null for all folios
+     * @return List of bills in bill date order
+     */
+    @Query("SELECT new com.hotel.erp.dto.FoBillDTO(b.billId, b.folioNo, b.totalAmount, b.billDate, b.userId) "
+            + "FROM FoBill b WHERE b.billDate BETWEEN :startDate AND :endDate "
+            + "AND (:folioNo IS NULL OR b.folioNo = :folioNo) ORDER BY b.billDate, b.billId")
+    List<FoBillDTO> findBillSummaries(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate, @Param("folioNo") String folioNo);
+}
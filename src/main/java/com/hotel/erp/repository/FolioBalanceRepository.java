@@ -0,0 +1,57 @@
+package com.hotel.erp.repository;
+
+import com.hotel.erp.entity.FolioBalance;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface FolioBalanceRepository extends JpaRepository<FolioBalance, String> {
+
+    /**
+     * Add deltas to a folio's running totals in place, without reading the row
+     * first
+     * 
+     * @return number of rows updated; 0 if the folio has no balance row yet
+     */
+    @Modifying
+    @Query("UPDATE FolioBalance f SET "
+            + "f.totalAdvances = f.totalAdvances + :advances, "
+            + "f.totalPostings = f.totalPostings + :postings, "
+            + "f.totalCharges = f.totalCharges + :charges, "
+            + "f.totalBilled = f.totalBilled + :billed, "
+            + "f.totalSettlements = f.totalSettlements + :settlements, "
+            + "f.updatedOn = :updatedOn "
+            + "WHERE f.folioNo = :folioNo")
+    int applyDelta(@Param("folioNo") String folioNo,
+            @Param("advances") BigDecimal advances,
+            @Param("postings") BigDecimal postings,
+            @Param("charges") BigDecimal charges,
+            @Param("billed") BigDecimal billed,
+            @Param("settlements") BigDecimal settlements,
+            @Param("updatedOn") LocalDateTime updatedOn);
+
+    /**
+     * Read a folio's balance row and lock it until the transaction ends, so
+     * ledger writes to the folio wait for a repair of its totals
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM FolioBalance f WHERE f.folioNo = :folioNo")
+    Optional<FolioBalance> findForUpdate(@Param("folioNo") String folioNo);
+
+    /**
+     * Find which of the given folios already have a balance row
+     */
+    @Query("SELECT f.folioNo FROM FolioBalance f WHERE f.folioNo IN :folioNos")
+    List<String> findExistingFolioNos(@Param("folioNos") Collection<String> folioNos);
+}
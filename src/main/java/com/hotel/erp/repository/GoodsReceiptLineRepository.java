@@ -0,0 +1,14 @@
+package com.hotel.erp.repository;
+
+import com.hotel.erp.entity.GoodsReceiptLine;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface GoodsReceiptLineRepository extends JpaRepository<GoodsReceiptLine, Long> {
+
+    List<GoodsReceiptLine> findByGoodsReceiptIdInOrderById(Collection<Long> goodsReceiptIds);
+}
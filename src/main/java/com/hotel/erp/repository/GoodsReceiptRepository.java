@@ -0,0 +1,53 @@
+package com.hotel.erp.repository;
+
+import com.hotel.erp.entity.GoodsReceipt;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface GoodsReceiptRepository extends JpaRepository<GoodsReceipt, Long> {
+
+    List<GoodsReceipt> findByPurchaseOrderIdOrderById(Long purchaseOrderId);
+
+    /**
+     * The highest receipt number with a prefix, to seed its sequence
+     */
+    @Query("SELECT MAX(g.receiptNo) FROM GoodsReceipt g WHERE g.receiptNo LIKE CONCAT(:prefix, '%')")
+    String findHighestNumber(@Param("prefix") String prefix);
+
+    /**
+     * Sum receipts per vendor over a date range, biggest spend first
+     * 
+     * @return rows of vendor id, vendor name, amount received and receipt count
+     */
+    @Query("SELECT g.vendorId, MAX(g.vendorName), SUM(g.totalAmount), COUNT(g) FROM GoodsReceipt g "
+            + "WHERE g.receiptDate BETWEEN :fromDate AND :toDate "
+            + "GROUP BY g.vendorId ORDER BY SUM(g.totalAmount) DESC")
+    List<Object[]> sumPerVendorBetween(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+
+    /**
+     * Sum receipts per ordering department and day over a date range
+     * 
+     * @return rows of department, receipt date and amount received
+     */
+    @Query("SELECT p.department, g.receiptDate, SUM(g.totalAmount) FROM GoodsReceipt g, PurchaseOrder p "
+            + "WHERE p.id = g.purchaseOrderId AND g.receiptDate BETWEEN :fromDate AND :toDate "
+            + "GROUP BY p.department, g.receiptDate")
+    List<Object[]> sumPerDepartmentAndDayBetween(@Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate);
+
+    /**
+     * Sum received lines per inventory category over a date range
+     * 
+     * @return rows of category and amount received
+     */
+    @Query("SELECT i.category, SUM(l.lineTotal) FROM GoodsReceiptLine l, GoodsReceipt g, Inventory i "
+            + "WHERE g.id = l.goodsReceiptId AND i.id = l.itemId AND g.receiptDate BETWEEN :fromDate AND :toDate "
+            + "GROUP BY i.category ORDER BY SUM(l.lineTotal) DESC")
+    List<Object[]> sumPerCategoryBetween(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+}
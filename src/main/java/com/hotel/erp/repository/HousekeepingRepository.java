@@ -1,5 +1,6 @@
 package com.hotel.erp.repository;
 
+import com.hotel.erp.dto.TaskCountsDTO;
 import com.hotel.erp.entity.Housekeeping;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -7,7 +8,9 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface HousekeepingRepository extends JpaRepository<Housekeeping, Long> {
@@ -20,6 +23,22 @@ public interface HousekeepingRepository extends JpaRepository<Housekeeping, Long
      */
     List<Housekeeping> findByRoomNo(String roomNo);
 
+    /**
+     * Find the latest task of a room
+     * 
+     * @param roomNo the room number
+     * @return Optional containing the task with the highest id
+     */
+    Optional<Housekeeping> findTopByRoomNoOrderByIdDesc(String roomNo);
+
+    /**
+     * Find the latest task of every room in a single query
+     * 
+     * @return List with the task with the highest id per room number
+     */
+    @Query("SELECT h FROM Housekeeping h WHERE h.id IN (SELECT MAX(h2.id) FROM Housekeeping h2 GROUP BY h2.roomNo)")
+    List<Housekeeping> findLatestPerRoom();
+
     /**
      * Find tasks by status
      * 
@@ -75,6 +94,15 @@ public interface HousekeepingRepository extends JpaRepository<Housekeeping, Long
      */
     List<Housekeeping> findByRoomNoAndStatus(String roomNo, String status);
 
+    /**
+     * Find the open tasks due on or before a date
+     * 
+     * @param statuses the open statuses
+     * @param taskDate the latest task date to include
+     * @return List of tasks in one of the statuses dated on or before the date
+     */
+    List<Housekeeping> findByStatusInAndTaskDateLessThanEqual(Collection<String> statuses, LocalDate taskDate);
+
     /**
      * Find tasks by assigned to and status
      * 
@@ -83,4 +111,16 @@ public interface HousekeepingRepository extends JpaRepository<Housekeeping, Long
      * @return List of tasks for the given assigned to and status
      */
     List<Housekeeping> findByAssignedToAndStatus(String assignedTo, String status);
-} 
\ No newline at end of file
+
+    /**
+     * Count all, pending, completed and today's tasks in one query
+     * 
+     * @param today today's date
+     * @return the task counts
+     */
+    @Query("SELECT new com.hotel.erp.dto.TaskCountsDTO(COUNT(h), "
+            + "SUM(CASE WHEN h.status = 'Pending' THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN h.status = 'Completed' THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN h.taskDate = :today THEN 1 ELSE 0 END)) FROM Housekeeping h")
+    TaskCountsDTO getTaskCounts(@Param("today") LocalDate today);
+}
@@ -2,12 +2,15 @@ package com.hotel.erp.repository;
 
 import com.hotel.erp.entity.Inventory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -144,4 +147,134 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     @Query("SELECT i FROM Inventory i WHERE i.isAsset = true AND i.warrantyDate BETWEEN :currentDate AND :expiryDate")
     List<Inventory> findItemsWithWarrantyExpiring(@Param("currentDate") LocalDate currentDate,
             @Param("expiryDate") LocalDate expiryDate);
+
+    // Stock movements. Each update below changes an item in place in one
+    // statement, so concurrent movements of the same item queue on its row
+    // lock instead of overwriting each other. The derived columns are set
+    // first and only from the old values: MySQL applies SET assignments left
+    // to right and lets later ones see earlier results, standard SQL does not.
+    // The stock status rule is Inventory.updateStockStatus.
+
+    /**
+     * Find the ids of items by item code
+     * 
+     * @param itemCodes the item codes
+     * @return rows of id and item code
+     */
+    @Query("SELECT i.id, i.itemCode FROM Inventory i WHERE i.itemCode IN :itemCodes")
+    List<Object[]> findIdsByItemCodeIn(@Param("itemCodes") Collection<String> itemCodes);
+
+    // Find by item codes
+    List<Inventory> findByItemCodeIn(Collection<String> itemCodes);
+
+    /**
+     * Receive stock, folding the price into the item's moving average cost
+     * 
+     * @return number of rows updated; 0 if the item does not exist
+     */
+    @Modifying
+    @Query("UPDATE Inventory i SET "
+            + "i.stockStatus = CASE WHEN i.currentStock + :quantity <= 0 THEN 'OUT_OF_STOCK' "
+            + "WHEN i.currentStock + :quantity <= i.reorderLevel THEN 'LOW_STOCK' "
+            + "WHEN i.maximumStock IS NOT NULL AND i.currentStock + :quantity > i.maximumStock THEN 'OVERSTOCK' "
+            + "ELSE 'IN_STOCK' END, "
+            + "i.availableQuantity = CASE "
+            + "WHEN i.currentStock + :quantity - COALESCE(i.allocatedQuantity, 0) - COALESCE(i.reservedQuantity, 0) "
+            + "< 0 THEN 0 "
+            + "ELSE i.currentStock + :quantity - COALESCE(i.allocatedQuantity, 0) - COALESCE(i.reservedQuantity, 0) "
+            + "END, "
+            + "i.totalValue = i.currentStock * i.unitCost + :quantity * :unitCost, "
+            + "i.unitCost = CASE WHEN i.currentStock + :quantity > 0 "
+            + "THEN (i.currentStock * i.unitCost + :quantity * :unitCost) / (i.currentStock + :quantity) "
+            + "ELSE :unitCost END, "
+            + "i.lastPurchasePrice = :unitCost, "
+            + "i.lastPurchaseDate = :today, "
+            + "i.totalReceived = COALESCE(i.totalReceived, 0) + :quantity, "
+            + "i.modifiedDate = :now, "
+            + "i.currentStock = i.currentStock + :quantity "
+            + "WHERE i.id = :id")
+    int receiveStock(@Param("id") Long id,
+            @Param("quantity") BigDecimal quantity,
+            @Param("unitCost") BigDecimal unitCost,
+            @Param("today") LocalDate today,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Move stock out of or between free and reserved stock. Stock and
+     * reservations never go below zero, and when checkAvailable is 1 the free
+     * stock (stock less allocated and reserved) must not either. Allocated and
+     * reserved quantities left null by older rows count as zero.
+     * 
+     * @return number of rows updated; 0 if the item does not exist or has too
+     *         little stock
+     */
+    @Modifying
+    @Query("UPDATE Inventory i SET "
+            + "i.stockStatus = CASE WHEN i.currentStock + :stock <= 0 THEN 'OUT_OF_STOCK' "
+            + "WHEN i.currentStock + :stock <= i.reorderLevel THEN 'LOW_STOCK' "
+            + "WHEN i.maximumStock IS NOT NULL AND i.currentStock + :stock > i.maximumStock THEN 'OVERSTOCK' "
+            + "ELSE 'IN_STOCK' END, "
+            + "i.availableQuantity = CASE "
+            + "WHEN i.currentStock + :stock - COALESCE(i.allocatedQuantity, 0) - COALESCE(i.reservedQuantity, 0) "
+            + "- :reserved < 0 THEN 0 "
+            + "ELSE i.currentStock + :stock - COALESCE(i.allocatedQuantity, 0) - COALESCE(i.reservedQuantity, 0) "
+            + "- :reserved END, "
+            + "i.totalValue = (i.currentStock + :stock) * i.unitCost, "
+            + "i.totalConsumed = COALESCE(i.totalConsumed, 0) + :consumed, "
+            + "i.modifiedDate = :now, "
+            + "i.reservedQuantity = COALESCE(i.reservedQuantity, 0) + :reserved, "
+            + "i.currentStock = i.currentStock + :stock "
+            + "WHERE i.id = :id AND i.currentStock + :stock >= 0 AND COALESCE(i.reservedQuantity, 0) + :reserved >= 0 "
+            + "AND (:checkAvailable = 0 "
+            + "OR i.currentStock + :stock - COALESCE(i.allocatedQuantity, 0) - COALESCE(i.reservedQuantity, 0) "
+            + "- :reserved >= 0)")
+    int moveStock(@Param("id") Long id,
+            @Param("stock") BigDecimal stock,
+            @Param("reserved") BigDecimal reserved,
+            @Param("consumed") BigDecimal consumed,
+            @Param("checkAvailable") int checkAvailable,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Set the stock to a counted quantity, recording the difference as the
+     * variance
+     * 
+     * @return number of rows updated; 0 if the item does not exist
+     */
+    @Modifying
+    @Query("UPDATE Inventory i SET "
+            + "i.stockStatus = CASE WHEN :counted <= 0 THEN 'OUT_OF_STOCK' "
+            + "WHEN :counted <= i.reorderLevel THEN 'LOW_STOCK' "
+            + "WHEN i.maximumStock IS NOT NULL AND :counted > i.maximumStock THEN 'OVERSTOCK' "
+            + "ELSE 'IN_STOCK' END, "
+            + "i.availableQuantity = CASE "
+            + "WHEN :counted - COALESCE(i.allocatedQuantity, 0) - COALESCE(i.reservedQuantity, 0) < 0 THEN 0 "
+            + "ELSE :counted - COALESCE(i.allocatedQuantity, 0) - COALESCE(i.reservedQuantity, 0) END, "
+            + "i.totalValue = :counted * i.unitCost, "
+            + "i.varianceQuantity = :counted - i.currentStock, "
+            + "i.lastCountQuantity = :counted, "
+            + "i.lastCountDate = :today, "
+            + "i.modifiedDate = :now, "
+            + "i.currentStock = :counted "
+            + "WHERE i.id = :id")
+    int countStock(@Param("id") Long id,
+            @Param("counted") BigDecimal counted,
+            @Param("today") LocalDate today,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Read an item's stock and last count variance without loading the entity
+     * 
+     * @return one row of current stock and variance quantity
+     */
+    @Query("SELECT i.currentStock, i.varianceQuantity FROM Inventory i WHERE i.id = :id")
+    List<Object[]> findStockLevel(@Param("id") Long id);
+
+    /**
+     * Read every item's consumption average for the nightly roll
+     * 
+     * @return rows of id, average consumption and the last day averaged
+     */
+    @Query("SELECT i.id, i.averageConsumption, i.consumptionAveragedThrough FROM Inventory i")
+    List<Object[]> findConsumptionAverages();
 }
@@ -25,10 +25,6 @@ public interface MaintenanceRepository extends JpaRepository<Maintenance, Long>
         @Query("SELECT m FROM Maintenance m WHERE m.guestImpact = true AND m.status IN ('PENDING','ASSIGNED','IN_PROGRESS')")
         List<Maintenance> findActiveGuestImpactRequests();
 
-        // Search maintenance by query
-        @Query("SELECT m FROM Maintenance m WHERE m.roomNo LIKE %:query% OR m.area LIKE %:query% OR m.issueType LIKE %:query% OR m.description LIKE %:query% OR m.vendorName LIKE %:query%")
-        List<Maintenance> searchMaintenance(@Param("query") String query);
-
         // Find by maintenance ID
         Optional<Maintenance> findByMaintenanceId(String maintenanceId);
 
@@ -0,0 +1,26 @@
+package com.hotel.erp.repository;
+
+import com.hotel.erp.entity.NightAuditRun;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface NightAuditRunRepository extends JpaRepository<NightAuditRun, Long> {
+    Optional<NightAuditRun> findByAuditDate(LocalDate auditDate);
+
+    Optional<NightAuditRun> findTopByStatusOrderByAuditDateDesc(NightAuditRun.Status status);
+
+    /**
+     * Lock an audit run so only one worker advances its checkpoint at a time
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM NightAuditRun r WHERE r.id = :id")
+    Optional<NightAuditRun> findForUpdate(@Param("id") Long id);
+}
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -68,16 +69,6 @@ public interface PostTransactionRepository extends JpaRepository<PostTransaction
      */
     List<PostTransaction> findByBillNo(String billNo);
 
-    /**
-     * Search transactions by query (folio, guest name, or narration)
-     */
-    @Query("SELECT pt FROM PostTransaction pt WHERE " +
-            "pt.folioNo LIKE %:query% OR " +
-            "pt.guestName LIKE %:query% OR " +
-            "pt.narration LIKE %:query% OR " +
-            "pt.accHead LIKE %:query%")
-    List<PostTransaction> searchTransactions(@Param("query") String query);
-
     /**
      * Get total amount by folio number
      */
@@ -123,4 +114,14 @@ public interface PostTransactionRepository extends JpaRepository<PostTransaction
      */
     @Query("SELECT pt FROM PostTransaction pt WHERE pt.folioNo = :folioNo AND pt.transactionStatus = 'Completed'")
     List<PostTransaction> findCompletedTransactionsByFolioNo(@Param("folioNo") String folioNo);
-}
\ No newline at end of file
+
+    /**
+     * Sum postings on the given account heads per transaction date and room type
+     */
+    @Query("SELECT pt.transDate, r.roomTypeId, COALESCE(SUM(pt.amount), 0) FROM PostTransaction pt "
+            + "LEFT JOIN Room r ON r.roomNo = pt.roomNo "
+            + "WHERE pt.transDate BETWEEN :startDate AND :endDate AND pt.accHead IN :accHeads "
+            + "GROUP BY pt.transDate, r.roomTypeId")
+    List<Object[]> sumByDateAndRoomType(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate, @Param("accHeads") Collection<String> accHeads);
+}
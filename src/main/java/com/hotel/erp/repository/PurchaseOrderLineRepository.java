@@ -0,0 +1,27 @@
+package com.hotel.erp.repository;
+
+import com.hotel.erp.entity.PurchaseOrder;
+import com.hotel.erp.entity.PurchaseOrderLine;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PurchaseOrderLineRepository extends JpaRepository<PurchaseOrderLine, Long> {
+
+    List<PurchaseOrderLine> findByPurchaseOrderIdOrderByLineNo(Long purchaseOrderId);
+
+    /**
+     * Find which of the given items are still to arrive on orders in the given
+     * statuses
+     */
+    @Query("SELECT DISTINCT l.itemId FROM PurchaseOrderLine l, PurchaseOrder p "
+            + "WHERE p.id = l.purchaseOrderId AND p.status IN :statuses AND l.itemId IN :itemIds "
+            + "AND l.receivedQuantity < l.quantity")
+    List<Long> findItemIdsOnOrder(@Param("itemIds") Collection<Long> itemIds,
+            @Param("statuses") Collection<PurchaseOrder.Status> statuses);
+}
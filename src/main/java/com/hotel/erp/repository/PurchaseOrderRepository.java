@@ -0,0 +1,37 @@
+package com.hotel.erp.repository;
+
+import com.hotel.erp.entity.PurchaseOrder;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, Long> {
+
+    /**
+     * Read a purchase order and lock it until the transaction ends, so two
+     * receipts or status changes of one order run one after the other
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM PurchaseOrder p WHERE p.id = :id")
+    Optional<PurchaseOrder> findForUpdate(@Param("id") Long id);
+
+    /**
+     * The highest order number with a prefix, to seed its sequence
+     */
+    @Query("SELECT MAX(p.orderNo) FROM PurchaseOrder p WHERE p.orderNo LIKE CONCAT(:prefix, '%')")
+    String findHighestNumber(@Param("prefix") String prefix);
+
+    /**
+     * Count the orders raised over a date range, cancelled ones excepted
+     */
+    @Query("SELECT COUNT(p) FROM PurchaseOrder p WHERE p.orderDate BETWEEN :fromDate AND :toDate "
+            + "AND p.status <> com.hotel.erp.entity.PurchaseOrder.Status.CANCELLED")
+    long countOrdersBetween(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+}
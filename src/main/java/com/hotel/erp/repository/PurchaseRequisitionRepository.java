@@ -0,0 +1,24 @@
+package com.hotel.erp.repository;
+
+import com.hotel.erp.entity.PurchaseRequisition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PurchaseRequisitionRepository extends JpaRepository<PurchaseRequisition, Long> {
+
+    List<PurchaseRequisition> findByPurchaseOrderId(Long purchaseOrderId);
+
+    List<PurchaseRequisition> findByIdIn(Collection<Long> ids);
+
+    /**
+     * The highest requisition number with a prefix, to seed its sequence
+     */
+    @Query("SELECT MAX(r.requisitionNo) FROM PurchaseRequisition r WHERE r.requisitionNo LIKE CONCAT(:prefix, '%')")
+    String findHighestNumber(@Param("prefix") String prefix);
+}
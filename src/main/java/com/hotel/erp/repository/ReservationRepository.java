@@ -1,19 +1,43 @@
 package com.hotel.erp.repository;
 
 import com.hotel.erp.entity.Reservation;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ReservationRepository extends JpaRepository<Reservation, Integer> {
-    List<Reservation> findByGuestNameContainingIgnoreCase(String guestName);
+    Optional<Reservation> findByReservationNo(String reservationNo);
 
-    List<Reservation> findByContactNoContaining(String contactNo);
+    /**
+     * Load a reservation that is being checked in. Its version is bumped on
+     * commit, so two check-ins of the same reservation cannot both commit;
+     * the loser conflicts and, on retry, finds the guest already checked in.
+     * 
+     * @param reservationNo the reservation number
+     * @return Optional containing the reservation if found
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT r FROM Reservation r WHERE r.reservationNo = :reservationNo")
+    Optional<Reservation> findForCheckin(@Param("reservationNo") String reservationNo);
 
-    Optional<Reservation> findByReservationNo(String reservationNo);
+    List<Reservation> findByReservationNoIn(Collection<String> reservationNos);
 
     List<Reservation> findByStatus(String status);
+
+    @Query("SELECT r.reservationNo FROM Reservation r WHERE r.reservationNo LIKE CONCAT('%', :suffix)")
+    List<String> findReservationNosEndingWith(@Param("suffix") String suffix);
+
+    @Query("SELECT r FROM Reservation r WHERE r.toDate >= :date AND r.selectedRoom IS NOT NULL "
+            + "AND (r.status IS NULL OR r.status <> '1') "
+            + "AND NOT EXISTS (SELECT c.id FROM Checkin c WHERE c.reservationNo = r.reservationNo)")
+    List<Reservation> findBookedStaysEndingOnOrAfter(@Param("date") LocalDate date);
 }
@@ -0,0 +1,26 @@
+package com.hotel.erp.repository;
+
+import com.hotel.erp.entity.SequenceCounter;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface SequenceCounterRepository extends JpaRepository<SequenceCounter, String> {
+
+    /**
+     * Load a sequence row with a row-level write lock so that only one
+     * allocator at a time can move its high-water mark
+     * 
+     * @param sequenceKey the sequence key
+     * @return Optional containing the locked counter if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SequenceCounter s WHERE s.sequenceKey = :sequenceKey")
+    Optional<SequenceCounter> findForUpdate(@Param("sequenceKey") String sequenceKey);
+}
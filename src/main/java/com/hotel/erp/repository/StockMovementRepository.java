@@ -0,0 +1,31 @@
+package com.hotel.erp.repository;
+
+import com.hotel.erp.entity.StockMovement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Reads of the stock ledger. Rows are written only by StockLedgerService.
+ */
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    /**
+     * Sum the quantity issued per item and day over a date range
+     * 
+     * @param fromDate the first day
+     * @param toDate   the last day
+     * @return rows of item id, movement date and quantity issued
+     */
+    @Query("SELECT m.itemId, m.movementDate, SUM(m.quantity) FROM StockMovement m "
+            + "WHERE m.movementDate BETWEEN :fromDate AND :toDate "
+            + "AND m.movementType IN (com.hotel.erp.entity.StockMovement.Type.ISSUE, "
+            + "com.hotel.erp.entity.StockMovement.Type.ISSUE_RESERVED) "
+            + "GROUP BY m.itemId, m.movementDate")
+    List<Object[]> sumIssuedPerItemAndDay(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+}
@@ -0,0 +1,62 @@
+package com.hotel.erp.repository;
+
+import com.hotel.erp.entity.SupplierPerformance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SupplierPerformanceRepository extends JpaRepository<SupplierPerformance, Long> {
+
+    /**
+     * Add deltas to a vendor's running totals in place, without reading the
+     * row first. The last receipt date only moves forward; pass null to
+     * leave it.
+     * 
+     * @return number of rows updated; 0 if the vendor has no row yet
+     */
+    @Modifying
+    @Query("UPDATE SupplierPerformance s SET "
+            + "s.ordersPlaced = s.ordersPlaced + :ordersPlaced, "
+            + "s.receipts = s.receipts + :receipts, "
+            + "s.onTimeReceipts = s.onTimeReceipts + :onTimeReceipts, "
+            + "s.leadDays = s.leadDays + :leadDays, "
+            + "s.totalSpend = s.totalSpend + :spend, "
+            + "s.closedOrders = s.closedOrders + :closedOrders, "
+            + "s.closedOrderedQuantity = s.closedOrderedQuantity + :orderedQuantity, "
+            + "s.closedReceivedQuantity = s.closedReceivedQuantity + :receivedQuantity, "
+            + "s.standardAmount = s.standardAmount + :standardAmount, "
+            + "s.priceVariance = s.priceVariance + :priceVariance, "
+            + "s.lastReceiptDate = CASE WHEN s.lastReceiptDate IS NULL OR s.lastReceiptDate < :receiptDate "
+            + "THEN :receiptDate ELSE s.lastReceiptDate END, "
+            + "s.updatedOn = :updatedOn "
+            + "WHERE s.vendorId = :vendorId")
+    int applyDelta(@Param("vendorId") Long vendorId,
+            @Param("ordersPlaced") long ordersPlaced,
+            @Param("receipts") long receipts,
+            @Param("onTimeReceipts") long onTimeReceipts,
+            @Param("leadDays") long leadDays,
+            @Param("spend") BigDecimal spend,
+            @Param("closedOrders") long closedOrders,
+            @Param("orderedQuantity") BigDecimal orderedQuantity,
+            @Param("receivedQuantity") BigDecimal receivedQuantity,
+            @Param("standardAmount") BigDecimal standardAmount,
+            @Param("priceVariance") BigDecimal priceVariance,
+            @Param("receiptDate") LocalDate receiptDate,
+            @Param("updatedOn") LocalDateTime updatedOn);
+
+    /**
+     * Total the lead days and receipts of every vendor
+     * 
+     * @return one row of lead days and receipts, null before the first receipt
+     */
+    @Query("SELECT SUM(s.leadDays), SUM(s.receipts) FROM SupplierPerformance s")
+    List<Object[]> sumLeadDaysAndReceipts();
+}
@@ -52,6 +52,14 @@ public interface VendorRepository extends JpaRepository<Vendor, Long> {
     @Query("SELECT COUNT(v) FROM Vendor v WHERE v.status = :status")
     Long countByStatus(@Param("status") String status);
 
+    /**
+     * Count the vendors of every status in one grouped query
+     * 
+     * @return rows of status and count
+     */
+    @Query("SELECT v.status, COUNT(v) FROM Vendor v GROUP BY v.status")
+    List<Object[]> countPerStatus();
+
     @Query("SELECT COUNT(v) FROM Vendor v WHERE v.category = :category AND v.status = 'ACTIVE'")
     Long countByCategoryAndActiveStatus(@Param("category") String category);
 
@@ -1,14 +1,18 @@
 package com.hotel.erp.service;
 
 import com.hotel.erp.dto.AdditionalChargesDTO;
+import com.hotel.erp.dto.GroupTotalDTO;
 import com.hotel.erp.entity.AdditionalCharges;
 import com.hotel.erp.repository.AdditionalChargesRepository;
 import com.hotel.erp.repository.CheckinRepository;
+import com.hotel.erp.service.DailyRevenueService.Entry;
+import com.hotel.erp.service.FolioBalanceService.Ledger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
@@ -32,9 +36,16 @@ public class AdditionalChargesService {
     @Autowired
     private CheckinRepository checkinRepository;
 
+    @Autowired
+    private FolioBalanceService folioBalanceService;
+
+    @Autowired
+    private DailyRevenueService dailyRevenueService;
+
     /**
      * Create a new additional charge
      */
+    @Transactional
     public AdditionalCharges createCharge(AdditionalChargesDTO chargeDTO) {
         logger.info("Creating additional charge for folio: {}", chargeDTO.getFolioNo());
         
@@ -68,6 +79,8 @@ public class AdditionalChargesService {
             charge.setUserId(chargeDTO.getUserId());
             
             AdditionalCharges savedCharge = additionalChargesRepository.save(charge);
+            folioBalanceService.record(Ledger.CHARGES, savedCharge.getFolioNo(), savedCharge.getAmount());
+            dailyRevenueService.record(Entry.of(savedCharge));
             
             logger.info("Additional charge created successfully with ID: {}", savedCharge.getId());
             return savedCharge;
@@ -137,28 +150,34 @@ public class AdditionalChargesService {
     }
 
     /**
-     * Get charge summary for a folio
+     * Get charge summary for a folio: the total, the count and a breakdown by
+     * charge type, read in one grouped query
      */
     public Map<String, Object> getChargeSummary(String folioNo) {
         try {
             Map<String, Object> summary = new HashMap<>();
-            
-            List<AdditionalCharges> charges = getChargesByFolio(folioNo);
-            BigDecimal total = calculateTotalCharges(folioNo);
-            
-            summary.put("charges", charges);
+
+            List<GroupTotalDTO> byChargeType = additionalChargesRepository.sumByChargeTypeForFolio(folioNo);
+            BigDecimal total = BigDecimal.ZERO;
+            long count = 0;
+            for (GroupTotalDTO chargeType : byChargeType) {
+                total = total.add(chargeType.getTotalAmount());
+                count += chargeType.getCount();
+            }
+
             summary.put("totalAmount", total);
-            summary.put("chargeCount", charges.size());
-            
+            summary.put("chargeCount", count);
+            summary.put("byChargeType", byChargeType);
+
             logger.info("Retrieved charge summary for folio: {}", folioNo);
             return summary;
             
         } catch (Exception e) {
             logger.error("Error getting charge summary: {}", e.getMessage(), e);
             Map<String, Object> summary = new HashMap<>();
-            summary.put("charges", new ArrayList<>());
             summary.put("totalAmount", BigDecimal.ZERO);
             summary.put("chargeCount", 0);
+            summary.put("byChargeType", new ArrayList<>());
             return summary;
         }
     }
@@ -180,6 +199,7 @@ public class AdditionalChargesService {
     /**
      * Update a charge
      */
+    @Transactional
     public AdditionalCharges updateCharge(Long chargeId, AdditionalChargesDTO chargeDTO) {
         logger.info("Updating charge with ID: {}", chargeId);
         
@@ -190,6 +210,9 @@ public class AdditionalChargesService {
             }
             
             AdditionalCharges charge = chargeOpt.get();
+            String previousFolioNo = charge.getFolioNo();
+            BigDecimal previousAmount = charge.getAmount();
+            Entry previousEntry = Entry.of(charge);
             
             // Update fields
             if (chargeDTO.getFolioNo() != null) {
@@ -215,6 +238,9 @@ public class AdditionalChargesService {
             }
             
             AdditionalCharges updatedCharge = additionalChargesRepository.save(charge);
+            folioBalanceService.recordChange(Ledger.CHARGES, previousFolioNo, previousAmount,
+                    updatedCharge.getFolioNo(), updatedCharge.getAmount());
+            dailyRevenueService.recordChange(previousEntry, Entry.of(updatedCharge));
             
             logger.info("Charge updated successfully with ID: {}", updatedCharge.getId());
             return updatedCharge;
@@ -230,15 +256,17 @@ public class AdditionalChargesService {
     /**
      * Delete a charge
      */
+    @Transactional
     public void deleteCharge(Long chargeId) {
         logger.info("Deleting charge with ID: {}", chargeId);
         
         try {
-            if (!additionalChargesRepository.existsById(chargeId)) {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Charge not found");
-            }
+            AdditionalCharges charge = additionalChargesRepository.findById(chargeId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Charge not found"));
             
-            additionalChargesRepository.deleteById(chargeId);
+            additionalChargesRepository.delete(charge);
+            folioBalanceService.record(Ledger.CHARGES, charge.getFolioNo(), charge.getAmount().negate());
+            dailyRevenueService.remove(Entry.of(charge));
             logger.info("Charge deleted successfully with ID: {}", chargeId);
             
         } catch (ResponseStatusException e) {
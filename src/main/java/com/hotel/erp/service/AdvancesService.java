@@ -1,36 +1,78 @@
 package com.hotel.erp.service;
 
+import com.hotel.erp.dto.CursorPage;
 import com.hotel.erp.dto.AdvancesDTO;
+import com.hotel.erp.dto.BulkResultDTO;
 import com.hotel.erp.entity.Advances;
 import com.hotel.erp.entity.Checkin;
 import com.hotel.erp.entity.Reservation;
 import com.hotel.erp.repository.AdvancesRepository;
 import com.hotel.erp.repository.CheckinRepository;
 import com.hotel.erp.repository.ReservationRepository;
+import com.hotel.erp.service.DailyRevenueService.Entry;
+import com.hotel.erp.service.FolioBalanceService.Ledger;
+import com.hotel.erp.service.KeysetPager.Keyset;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 @Service
 public class AdvancesService {
 
     private static final Logger logger = LoggerFactory.getLogger(AdvancesService.class);
 
+    private static final String INSERT_ADVANCE = "INSERT INTO advances "
+            + "(reservation_no, audit_date, adv_date, receipt_no, settlement_mode, amount, credit_card_company, "
+            + "credit_card_no, narration, folio_no, shift_no, shift_date, room_no, user_id, bill_no, guest_name, "
+            + "created_on, updated_on) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final Keyset<Advances> ADVANCES_KEYSET = Keyset.of(Advances.class, "advancesId", "paymentDate");
+
     @Autowired
     private AdvancesRepository advancesRepository;
 
+    @Autowired
+    private KeysetPager keysetPager;
+
     @Autowired
     private CheckinRepository checkinRepository;
 
     @Autowired
     private ReservationRepository reservationRepository;
 
+    @Autowired
+    private FolioBalanceService folioBalanceService;
+
+    @Autowired
+    private DailyRevenueService dailyRevenueService;
+
+    @Autowired
+    private BatchInserter batchInserter;
+
+    @Autowired
+    private GuestSearchIndex guestSearchIndex;
+
+    @Value("${hotel.search.max-results:200}")
+    private int maxSearchResults;
+
     private static final List<String> VALID_PAYMENT_MODES = List.of(
             "Cash", "Credit Card", "Debit Card", "UPI", "Bank Transfer", "Cheque");
 
@@ -75,6 +117,26 @@ public class AdvancesService {
         return advancesRepository.findAll();
     }
 
+    /**
+     * Get one keyset page of advances
+     * 
+     * @param cursor    the nextCursor of the previous page, or null for the first page
+     * @param limit     the page size
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return the page
+     */
+    public CursorPage<Advances> getAdvancesPage(String cursor, Integer limit, String sort, String direction) {
+        return keysetPager.page(ADVANCES_KEYSET.sortedBy(sort, direction), cursor, limit);
+    }
+
+    /**
+     * Prepare a pass over all advances after a cursor in page order, read a batch at a time
+     */
+    public KeysetPager.Scan<Advances> scanAdvances(String cursor, String sort, String direction) {
+        return keysetPager.scan(ADVANCES_KEYSET.sortedBy(sort, direction), cursor);
+    }
+
     /**
      * Get advance by ID
      * 
@@ -92,6 +154,7 @@ public class AdvancesService {
      * @return the created advance
      * @throws IllegalArgumentException if validation fails
      */
+    @Transactional
     public Advances createAdvance(AdvancesDTO advancesDTO) {
         logger.info("Creating advance with data: {}", advancesDTO);
 
@@ -99,25 +162,10 @@ public class AdvancesService {
             validateAdvanceData(advancesDTO);
             logger.info("Validation passed for advance creation");
 
-            Advances advance = new Advances();
-            advance.setReservationNo(advancesDTO.getReservationNo());
-            advance.setAuditDate(advancesDTO.getAuditDate());
-            advance.setPaymentDate(advancesDTO.getPaymentDate());
-            advance.setReferenceNo(advancesDTO.getReferenceNo());
-            advance.setPaymentMode(advancesDTO.getPaymentMode());
-            advance.setAmount(advancesDTO.getAmount());
-            advance.setCreditCardCompany(advancesDTO.getCreditCardCompany());
-            advance.setCreditCardNo(advancesDTO.getCreditCardNo());
-            advance.setRemarks(advancesDTO.getRemarks());
-            advance.setFolioNo(advancesDTO.getFolioNo());
-            advance.setShiftNo(advancesDTO.getShiftNo());
-            advance.setShiftDate(advancesDTO.getShiftDate());
-            advance.setRoomNo(advancesDTO.getRoomNo());
-            advance.setUserId(advancesDTO.getUserId());
-            advance.setBillNo(advancesDTO.getBillNo());
-            advance.setGuestName(advancesDTO.getGuestName());
-
-            Advances savedAdvance = advancesRepository.save(advance);
+            Advances savedAdvance = advancesRepository.save(toEntity(advancesDTO));
+            folioBalanceService.record(Ledger.ADVANCES, savedAdvance.getFolioNo(), savedAdvance.getAmount());
+            dailyRevenueService.record(Entry.of(savedAdvance));
+            guestSearchIndex.advanceSaved(savedAdvance);
             logger.info("Advance created successfully with ID: {}", savedAdvance.getAdvancesId());
             return savedAdvance;
 
@@ -127,6 +175,99 @@ public class AdvancesService {
         }
     }
 
+    /**
+     * Create many advances in one go, for imports such as group payment
+     * splits. Every row is validated as by {@link #createAdvance}, with the
+     * folios and reservations they refer to read in one query each; the valid
+     * rows are inserted as JDBC batches and the folio balances and daily
+     * revenue updated once for the lot. Invalid rows are reported and
+     * skipped.
+     * 
+     * @param advances the advances, with the same defaults applied as for a
+     *                 single create
+     * @return the id or error of each row
+     * @throws IllegalArgumentException if there are no rows or too many
+     */
+    @Transactional
+    public BulkResultDTO createAdvances(List<AdvancesDTO> advances) {
+        batchInserter.checkSize(advances.size());
+        long started = System.currentTimeMillis();
+
+        Set<String> folioNos = new HashSet<>();
+        Set<String> reservationNos = new HashSet<>();
+        for (AdvancesDTO dto : advances) {
+            if (dto != null && dto.getFolioNo() != null) {
+                folioNos.add(dto.getFolioNo());
+            }
+            if (dto != null && dto.getReservationNo() != null) {
+                reservationNos.add(dto.getReservationNo());
+            }
+        }
+        Map<String, Checkin> checkins = new HashMap<>();
+        if (!folioNos.isEmpty()) {
+            checkinRepository.findByFolioNoInOrderByIdAsc(folioNos)
+                    .forEach(checkin -> checkins.putIfAbsent(checkin.getFolioNo(), checkin));
+        }
+        Map<String, Reservation> reservations = new HashMap<>();
+        if (!reservationNos.isEmpty()) {
+            reservationRepository.findByReservationNoIn(reservationNos)
+                    .forEach(reservation -> reservations.putIfAbsent(reservation.getReservationNo(), reservation));
+        }
+
+        BulkResultDTO result = new BulkResultDTO(advances.size());
+        List<BulkResultDTO.Item> createdItems = new ArrayList<>();
+        List<Advances> rows = new ArrayList<>();
+        for (int index = 0; index < advances.size(); index++) {
+            AdvancesDTO dto = advances.get(index);
+            try {
+                if (dto == null) {
+                    throw new IllegalArgumentException("Advance is empty");
+                }
+                validateAdvanceData(dto, folioNo -> Optional.ofNullable(checkins.get(folioNo)),
+                        reservationNo -> Optional.ofNullable(reservations.get(reservationNo)));
+                rows.add(toEntity(dto));
+                createdItems.add(result.created(index));
+            } catch (IllegalArgumentException e) {
+                result.failed(index, e.getMessage());
+            }
+        }
+        if (rows.isEmpty()) {
+            return result;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> values = new ArrayList<>(rows.size());
+        for (Advances advance : rows) {
+            values.add(new Object[] {
+                    advance.getReservationNo(), toDate(advance.getAuditDate()), toDate(advance.getPaymentDate()),
+                    advance.getReferenceNo(), advance.getPaymentMode(), advance.getAmount(),
+                    advance.getCreditCardCompany(), advance.getCreditCardNo(), advance.getRemarks(),
+                    advance.getFolioNo(), advance.getShiftNo(), toDate(advance.getShiftDate()), advance.getRoomNo(),
+                    advance.getUserId(), advance.getBillNo(), advance.getGuestName(), now, now
+            });
+        }
+        List<Long> ids = batchInserter.insert(INSERT_ADVANCE, "id", values);
+
+        Map<String, BigDecimal> folioTotals = new LinkedHashMap<>();
+        List<Entry> entries = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Advances advance = rows.get(i);
+            createdItems.get(i).setId(ids.get(i));
+            advance.setAdvancesId(ids.get(i));
+            guestSearchIndex.advanceSaved(advance);
+            if (advance.getFolioNo() != null && !advance.getFolioNo().trim().isEmpty()) {
+                folioTotals.merge(advance.getFolioNo(), advance.getAmount(), BigDecimal::add);
+            }
+            entries.add(Entry.of(advance));
+        }
+        folioBalanceService.recordAll(Ledger.ADVANCES, folioTotals);
+        dailyRevenueService.recordAll(entries);
+
+        logger.info("Bulk created {} of {} advances in {} ms", result.getCreated(), result.getReceived(),
+                System.currentTimeMillis() - started);
+        return result;
+    }
+
     /**
      * Update an existing advance
      * 
@@ -135,6 +276,7 @@ public class AdvancesService {
      * @return the updated advance
      * @throws IllegalArgumentException if validation fails or advance not found
      */
+    @Transactional
     public Advances updateAdvance(Long id, AdvancesDTO advancesDTO) {
         logger.info("Updating advance with ID: {} and data: {}", id, advancesDTO);
 
@@ -148,6 +290,9 @@ public class AdvancesService {
             logger.info("Validation passed for advance update");
 
             Advances advance = existingAdvance.get();
+            String previousFolioNo = advance.getFolioNo();
+            BigDecimal previousAmount = advance.getAmount();
+            Entry previousEntry = Entry.of(advance);
             advance.setReservationNo(advancesDTO.getReservationNo());
             advance.setAuditDate(advancesDTO.getAuditDate());
             advance.setPaymentDate(advancesDTO.getPaymentDate());
@@ -166,6 +311,10 @@ public class AdvancesService {
             advance.setGuestName(advancesDTO.getGuestName());
 
             Advances savedAdvance = advancesRepository.save(advance);
+            folioBalanceService.recordChange(Ledger.ADVANCES, previousFolioNo, previousAmount,
+                    savedAdvance.getFolioNo(), savedAdvance.getAmount());
+            dailyRevenueService.recordChange(previousEntry, Entry.of(savedAdvance));
+            guestSearchIndex.advanceSaved(savedAdvance);
             logger.info("Advance updated successfully with ID: {}", savedAdvance.getAdvancesId());
             return savedAdvance;
 
@@ -181,21 +330,26 @@ public class AdvancesService {
      * @param id the advance ID
      * @throws IllegalArgumentException if advance not found
      */
+    @Transactional
     public void deleteAdvance(Long id) {
-        if (!advancesRepository.existsById(id)) {
-            throw new IllegalArgumentException("Advance not found with ID: " + id);
-        }
-        advancesRepository.deleteById(id);
+        Advances advance = advancesRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Advance not found with ID: " + id));
+        advancesRepository.delete(advance);
+        folioBalanceService.record(Ledger.ADVANCES, advance.getFolioNo(), advance.getAmount().negate());
+        dailyRevenueService.remove(Entry.of(advance));
+        guestSearchIndex.removed(GuestSearchIndex.Kind.ADVANCE, id);
     }
 
     /**
-     * Search advances by query
+     * Search advances by guest name, folio, reservation, receipt, bill or
+     * room number through the search index
      * 
      * @param query the search query
-     * @return List of advances matching the query
+     * @return List of advances matching the query, best match first
      */
     public List<Advances> searchAdvances(String query) {
-        return advancesRepository.searchAdvances(query);
+        List<Long> ids = guestSearchIndex.searchIds(query, GuestSearchIndex.Kind.ADVANCE, null, maxSearchResults);
+        return GuestSearchIndex.inOrder(ids, advancesRepository.findAllById(ids), Advances::getAdvancesId);
     }
 
     /**
@@ -297,7 +451,17 @@ public class AdvancesService {
      * @throws IllegalArgumentException if validation fails
      */
     private void validateAdvanceData(AdvancesDTO advancesDTO) {
-        logger.info("Validating advance data: {}", advancesDTO);
+        validateAdvanceData(advancesDTO, checkinRepository::findFirstByFolioNo,
+                reservationRepository::findByReservationNo);
+    }
+
+    /**
+     * Validate advance data, looking up the folio and reservation it refers to
+     * with the given functions
+     */
+    private void validateAdvanceData(AdvancesDTO advancesDTO, Function<String, Optional<Checkin>> checkins,
+            Function<String, Optional<Reservation>> reservations) {
+        logger.debug("Validating advance data: {}", advancesDTO);
 
         // Validate mandatory fields
         if (advancesDTO.getAmount() == null || advancesDTO.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
@@ -345,7 +509,7 @@ public class AdvancesService {
 
         // Validate folio number if provided
         if (hasFolio) {
-            Optional<Checkin> checkin = checkinRepository.findFirstByFolioNo(advancesDTO.getFolioNo());
+            Optional<Checkin> checkin = checkins.apply(advancesDTO.getFolioNo());
             if (checkin.isEmpty()) {
                 logger.error("Validation failed: Folio number does not exist: {}", advancesDTO.getFolioNo());
                 throw new IllegalArgumentException("Folio number does not exist in checkin table");
@@ -383,8 +547,7 @@ public class AdvancesService {
 
         // Validate reservation number if provided
         if (hasReservation) {
-            Optional<Reservation> reservation = reservationRepository
-                    .findByReservationNo(advancesDTO.getReservationNo());
+            Optional<Reservation> reservation = reservations.apply(advancesDTO.getReservationNo());
             if (reservation.isEmpty()) {
                 logger.error("Validation failed: Reservation number does not exist: {}",
                         advancesDTO.getReservationNo());
@@ -426,7 +589,14 @@ public class AdvancesService {
      * Save advance directly (for simple entity save)
      */
     public Advances saveAdvance(Advances advance) {
-        return advancesRepository.save(advance);
+        boolean isNew = advance.getAdvancesId() == null;
+        Advances savedAdvance = advancesRepository.save(advance);
+        if (isNew) {
+            folioBalanceService.record(Ledger.ADVANCES, savedAdvance.getFolioNo(), savedAdvance.getAmount());
+            dailyRevenueService.record(Entry.of(savedAdvance));
+        }
+        guestSearchIndex.advanceSaved(savedAdvance);
+        return savedAdvance;
     }
 
     /**
@@ -435,4 +605,29 @@ public class AdvancesService {
     public List<Advances> getAdvancesByGuestName(String guestName) {
         return advancesRepository.findByGuestName(guestName);
     }
-}
\ No newline at end of file
+
+    private static Advances toEntity(AdvancesDTO advancesDTO) {
+        Advances advance = new Advances();
+        advance.setReservationNo(advancesDTO.getReservationNo());
+        advance.setAuditDate(advancesDTO.getAuditDate());
+        advance.setPaymentDate(advancesDTO.getPaymentDate());
+        advance.setReferenceNo(advancesDTO.getReferenceNo());
+        advance.setPaymentMode(advancesDTO.getPaymentMode());
+        advance.setAmount(advancesDTO.getAmount());
+        advance.setCreditCardCompany(advancesDTO.getCreditCardCompany());
+        advance.setCreditCardNo(advancesDTO.getCreditCardNo());
+        advance.setRemarks(advancesDTO.getRemarks());
+        advance.setFolioNo(advancesDTO.getFolioNo());
+        advance.setShiftNo(advancesDTO.getShiftNo());
+        advance.setShiftDate(advancesDTO.getShiftDate());
+        advance.setRoomNo(advancesDTO.getRoomNo());
+        advance.setUserId(advancesDTO.getUserId());
+        advance.setBillNo(advancesDTO.getBillNo());
+        advance.setGuestName(advancesDTO.getGuestName());
+        return advance;
+    }
+
+    private static Date toDate(LocalDate date) {
+        return date != null ? Date.valueOf(date) : null;
+    }
+}
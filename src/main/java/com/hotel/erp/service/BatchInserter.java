@@ -0,0 +1,91 @@
+package com.hotel.erp.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts many rows of an IDENTITY keyed table as JDBC batches and hands back
+ * the generated ids.
+ *
+ * Hibernate cannot batch inserts into IDENTITY tables, because it needs each
+ * id before it can flush the next row. The bulk endpoints insert through
+ * here instead. With rewriteBatchedStatements on the MySQL URL, each batch
+ * goes to the server as one multi-row INSERT.
+ */
+@Service
+public class BatchInserter {
+
+    /** Rows sent per JDBC batch */
+    static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxRows;
+
+    @Autowired
+    public BatchInserter(JdbcTemplate jdbcTemplate, @Value("${hotel.bulk.max-items:5000}") int maxRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Check the size of a bulk request before any work is done
+     *
+     * @param rows the number of rows submitted
+     * @throws IllegalArgumentException if there are none or too many
+     */
+    public void checkSize(int rows) {
+        if (rows < 1 || rows > maxRows) {
+            throw new IllegalArgumentException("A bulk request must have between 1 and " + maxRows + " items");
+        }
+    }
+
+    /**
+     * Insert rows in batches of {@value #BATCH_SIZE}
+     *
+     * @param sql      the INSERT, with one placeholder per value
+     * @param idColumn the generated key column
+     * @param rows     the values of each row
+     * @return the generated id of each row, in row order
+     */
+    public List<Long> insert(String sql, String idColumn, List<Object[]> rows) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            List<Object[]> batch = rows.subList(from, Math.min(from + BATCH_SIZE, rows.size()));
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(con -> con.prepareStatement(sql, new String[] { idColumn }),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Object[] values = batch.get(i);
+                            for (int column = 0; column < values.length; column++) {
+                                StatementCreatorUtils.setParameterValue(ps, column + 1, SqlTypeValue.TYPE_UNKNOWN,
+                                        values[column]);
+                            }
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return batch.size();
+                        }
+                    }, keys);
+            for (Map<String, Object> key : keys.getKeyList()) {
+                // MySQL reports the key as GENERATED_KEY, other drivers by column name
+                ids.add(((Number) key.values().iterator().next()).longValue());
+            }
+        }
+        return ids;
+    }
+}
@@ -1,22 +1,25 @@
 package com.hotel.erp.service;
 
 import com.hotel.erp.dto.BillSettlementDTO;
+import com.hotel.erp.dto.CursorPage;
 import com.hotel.erp.dto.FoBillDTO;
 import com.hotel.erp.entity.AdditionalCharges;
 import com.hotel.erp.entity.Advances;
 import com.hotel.erp.entity.BillSettlement;
 import com.hotel.erp.entity.Checkin;
 import com.hotel.erp.entity.FoBill;
-import com.hotel.erp.repository.AdditionalChargesRepository;
-import com.hotel.erp.repository.AdvancesRepository;
 import com.hotel.erp.repository.BillSettlementRepository;
 import com.hotel.erp.repository.CheckinRepository;
 import com.hotel.erp.repository.FoBillRepository;
+import com.hotel.erp.service.DailyRevenueService.Entry;
+import com.hotel.erp.service.FolioBalanceService.Ledger;
+import com.hotel.erp.service.KeysetPager.Keyset;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
@@ -33,6 +36,10 @@ public class BillingService {
 
     private static final Logger logger = LoggerFactory.getLogger(BillingService.class);
 
+    private static final Keyset<FoBill> BILL_KEYSET = Keyset.of(FoBill.class, "billId", "billDate");
+    private static final Keyset<BillSettlement> SETTLEMENT_KEYSET = Keyset.of(BillSettlement.class, "settlementId",
+            "paymentDate");
+
     @Autowired
     private FoBillRepository foBillRepository;
 
@@ -40,13 +47,19 @@ public class BillingService {
     private BillSettlementRepository billSettlementRepository;
 
     @Autowired
-    private AdvancesRepository advancesRepository;
+    private CheckinRepository checkinRepository;
 
     @Autowired
-    private AdditionalChargesRepository additionalChargesRepository;
+    private FolioBalanceService folioBalanceService;
 
     @Autowired
-    private CheckinRepository checkinRepository;
+    private DailyRevenueService dailyRevenueService;
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private OptimisticRetryExecutor optimisticRetryExecutor;
 
     /**
      * Create a new bill
@@ -54,6 +67,7 @@ public class BillingService {
      * @param billDTO the bill data
      * @return the created bill
      */
+    @Transactional
     public FoBill createBill(FoBillDTO billDTO) {
         logger.info("Creating bill for folio: {}", billDTO.getFolioNo());
 
@@ -77,6 +91,8 @@ public class BillingService {
             bill.setUserId(billDTO.getUserId());
 
             FoBill savedBill = foBillRepository.save(bill);
+            folioBalanceService.record(Ledger.BILLED, savedBill.getFolioNo(), savedBill.getTotalAmount());
+            dailyRevenueService.record(Entry.of(savedBill));
 
             logger.info("Bill created successfully with ID: {}", savedBill.getBillId());
             return savedBill;
@@ -99,40 +115,7 @@ public class BillingService {
         logger.info("Creating settlement for bill: {}", settlementDTO.getBillId());
 
         try {
-            // Validate bill exists
-            Optional<FoBill> billOpt = foBillRepository.findById(settlementDTO.getBillId());
-            if (billOpt.isEmpty()) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bill not found");
-            }
-
-            FoBill bill = billOpt.get();
-
-            // Validate amount is positive
-            if (settlementDTO.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Amount must be positive");
-            }
-
-            // Validate payment mode
-            if (settlementDTO.getPaymentMode() == null || settlementDTO.getPaymentMode().trim().isEmpty()) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Payment mode is required");
-            }
-
-            // Create settlement
-            BillSettlement settlement = new BillSettlement();
-            settlement.setBillId(settlementDTO.getBillId());
-            settlement.setAmount(settlementDTO.getAmount());
-            settlement.setPaymentDate(
-                    settlementDTO.getPaymentDate() != null ? settlementDTO.getPaymentDate() : LocalDate.now());
-            settlement.setPaymentMode(settlementDTO.getPaymentMode());
-            settlement.setReferenceNo(settlementDTO.getReferenceNo());
-            settlement.setRemarks(settlementDTO.getRemarks());
-            settlement.setUserId(settlementDTO.getUserId());
-
-            BillSettlement savedSettlement = billSettlementRepository.save(settlement);
-
-            logger.info("Settlement created successfully with ID: {}", savedSettlement.getSettlementId());
-            return savedSettlement;
-
+            return optimisticRetryExecutor.execute("createSettlement", () -> settle(settlementDTO));
         } catch (ResponseStatusException e) {
             throw e;
         } catch (Exception e) {
@@ -141,6 +124,49 @@ public class BillingService {
         }
     }
 
+    /**
+     * One attempt at a settlement. The bill is loaded with a forced version
+     * increment, so concurrent settlements of one bill are applied one after
+     * the other.
+     */
+    private BillSettlement settle(BillSettlementDTO settlementDTO) {
+        // Validate bill exists
+        Optional<FoBill> billOpt = foBillRepository.findForSettlement(settlementDTO.getBillId());
+        if (billOpt.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bill not found");
+        }
+
+        FoBill bill = billOpt.get();
+
+        // Validate amount is positive
+        if (settlementDTO.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Amount must be positive");
+        }
+
+        // Validate payment mode
+        if (settlementDTO.getPaymentMode() == null || settlementDTO.getPaymentMode().trim().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Payment mode is required");
+        }
+
+        // Create settlement
+        BillSettlement settlement = new BillSettlement();
+        settlement.setBillId(settlementDTO.getBillId());
+        settlement.setAmount(settlementDTO.getAmount());
+        settlement.setPaymentDate(
+                settlementDTO.getPaymentDate() != null ? settlementDTO.getPaymentDate() : LocalDate.now());
+        settlement.setPaymentMode(settlementDTO.getPaymentMode());
+        settlement.setReferenceNo(settlementDTO.getReferenceNo());
+        settlement.setRemarks(settlementDTO.getRemarks());
+        settlement.setUserId(settlementDTO.getUserId());
+
+        BillSettlement savedSettlement = billSettlementRepository.save(settlement);
+        folioBalanceService.record(Ledger.SETTLEMENTS, bill.getFolioNo(), savedSettlement.getAmount());
+        dailyRevenueService.record(Entry.of(savedSettlement));
+
+        logger.info("Settlement created successfully with ID: {}", savedSettlement.getSettlementId());
+        return savedSettlement;
+    }
+
     /**
      * Get bills by folio number
      * 
@@ -183,14 +209,8 @@ public class BillingService {
      */
     public BigDecimal calculateBillTotal(String folioNo) {
         try {
-            // Get total advances
-            BigDecimal totalAdvances = advancesRepository.getTotalAmountByFolioNo(folioNo);
-
-            // Get total charges
-            BigDecimal totalCharges = additionalChargesRepository.getTotalAmountByFolioNo(folioNo);
-
-            // Calculate total
-            BigDecimal total = totalAdvances.add(totalCharges);
+            // Postings plus additional charges
+            BigDecimal total = folioBalanceService.getFolioBalance(folioNo).getTotalDebits();
 
             logger.info("Bill total for folio {}: {}", folioNo, total);
             return total;
@@ -263,6 +283,26 @@ public class BillingService {
         }
     }
 
+    /**
+     * Get one keyset page of bills
+     * 
+     * @param cursor    the nextCursor of the previous page, or null for the first page
+     * @param limit     the page size
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return the page
+     */
+    public CursorPage<FoBill> getBillsPage(String cursor, Integer limit, String sort, String direction) {
+        return keysetPager.page(BILL_KEYSET.sortedBy(sort, direction), cursor, limit);
+    }
+
+    /**
+     * Prepare a pass over all bills after a cursor in page order, read a batch at a time
+     */
+    public KeysetPager.Scan<FoBill> scanBills(String cursor, String sort, String direction) {
+        return keysetPager.scan(BILL_KEYSET.sortedBy(sort, direction), cursor);
+    }
+
     /**
      * Get all settlements
      * 
@@ -279,6 +319,27 @@ public class BillingService {
         }
     }
 
+    /**
+     * Get one keyset page of settlements
+     * 
+     * @param cursor    the nextCursor of the previous page, or null for the first page
+     * @param limit     the page size
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return the page
+     */
+    public CursorPage<BillSettlement> getSettlementsPage(String cursor, Integer limit, String sort,
+            String direction) {
+        return keysetPager.page(SETTLEMENT_KEYSET.sortedBy(sort, direction), cursor, limit);
+    }
+
+    /**
+     * Prepare a pass over all settlements after a cursor in page order, read a batch at a time
+     */
+    public KeysetPager.Scan<BillSettlement> scanSettlements(String cursor, String sort, String direction) {
+        return keysetPager.scan(SETTLEMENT_KEYSET.sortedBy(sort, direction), cursor);
+    }
+
     /**
      * Update a bill
      * 
@@ -286,16 +347,22 @@ public class BillingService {
      * @param billDTO the updated bill data
      * @return the updated bill
      */
+    @Transactional
     public FoBill updateBill(Long billId, FoBillDTO billDTO) {
         try {
             FoBill existingBill = foBillRepository.findById(billId)
                     .orElseThrow(() -> new ResourceNotFoundException("Bill not found with id: " + billId));
+            BigDecimal previousAmount = existingBill.getTotalAmount();
+            Entry previousEntry = Entry.of(existingBill);
 
             existingBill.setTotalAmount(billDTO.getTotalAmount());
             existingBill.setBillDate(billDTO.getBillDate());
             existingBill.setUserId(billDTO.getUserId());
 
             FoBill updatedBill = foBillRepository.save(existingBill);
+            folioBalanceService.recordChange(Ledger.BILLED, updatedBill.getFolioNo(), previousAmount,
+                    updatedBill.getFolioNo(), updatedBill.getTotalAmount());
+            dailyRevenueService.recordChange(previousEntry, Entry.of(updatedBill));
             logger.info("Bill updated successfully with ID: {}", billId);
             return updatedBill;
 
@@ -335,13 +402,19 @@ public class BillingService {
      * 
      * @param billId the bill ID
      */
+    @Transactional
     public void deleteBill(Long billId) {
         try {
-            if (!foBillRepository.existsById(billId)) {
-                throw new ResourceNotFoundException("Bill not found with id: " + billId);
-            }
+            FoBill bill = foBillRepository.findById(billId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Bill not found with id: " + billId));
 
-            foBillRepository.deleteById(billId);
+            // Settlements against the bill stop counting towards the folio with it
+            BigDecimal settled = billSettlementRepository.getTotalAmountByBillId(billId);
+            foBillRepository.delete(bill);
+            folioBalanceService.record(Ledger.BILLED, bill.getFolioNo(), bill.getTotalAmount().negate());
+            folioBalanceService.record(Ledger.SETTLEMENTS, bill.getFolioNo(), settled.negate());
+            // The settlement rows themselves stay, and are still reported on their payment date
+            dailyRevenueService.remove(Entry.of(bill));
             logger.info("Bill deleted successfully with ID: {}", billId);
 
         } catch (Exception e) {
@@ -355,13 +428,16 @@ public class BillingService {
      * 
      * @param settlementId the settlement ID
      */
+    @Transactional
     public void deleteSettlement(Long settlementId) {
         try {
-            if (!billSettlementRepository.existsById(settlementId)) {
-                throw new ResourceNotFoundException("Settlement not found with id: " + settlementId);
-            }
+            BillSettlement settlement = billSettlementRepository.findById(settlementId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Settlement not found with id: " + settlementId));
 
-            billSettlementRepository.deleteById(settlementId);
+            billSettlementRepository.delete(settlement);
+            dailyRevenueService.remove(Entry.of(settlement));
+            foBillRepository.findById(settlement.getBillId()).ifPresent(bill -> folioBalanceService
+                    .record(Ledger.SETTLEMENTS, bill.getFolioNo(), settlement.getAmount().negate()));
             logger.info("Settlement deleted successfully with ID: {}", settlementId);
 
         } catch (Exception e) {
@@ -373,7 +449,14 @@ public class BillingService {
     /**
      * Save bill directly (for simple entity save)
      */
+    @Transactional
     public FoBill saveBill(FoBill bill) {
-        return foBillRepository.save(bill);
+        boolean isNew = bill.getBillId() == null;
+        FoBill savedBill = foBillRepository.save(bill);
+        if (isNew) {
+            folioBalanceService.record(Ledger.BILLED, savedBill.getFolioNo(), savedBill.getTotalAmount());
+            dailyRevenueService.record(Entry.of(savedBill));
+        }
+        return savedBill;
     }
 }
\ No newline at end of file
@@ -43,6 +43,9 @@ public class BillingServiceImpl extends BillingService {
     @Autowired
     private CheckinRepository checkinRepository;
 
+    @Autowired
+    private FolioBalanceService folioBalanceService;
+
     @Transactional
     public FoBill createBill(FoBillDTO billDTO) {
         FoBill bill = new FoBill();
@@ -121,15 +124,8 @@ public class BillingServiceImpl extends BillingService {
             throw new ResourceNotFoundException("No bills found for folio: " + folioNo);
         }
 
-        FoBill bill = bills.get(0); // Get the first bill for this folio
-
-        List<AdditionalCharges> additionalCharges = additionalChargesRepository.findByFolioNo(folioNo);
-
-        BigDecimal totalAdditionalCharges = additionalCharges.stream()
-                .map(ac -> new BigDecimal("0")) // Use getter method for amount when available
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        return bill.getTotalAmount().add(totalAdditionalCharges);
+        // Postings plus additional charges
+        return folioBalanceService.getFolioBalance(folioNo).getTotalDebits();
     }
 
     public List<FoBill> getBillsByFolio(String folioNo) {
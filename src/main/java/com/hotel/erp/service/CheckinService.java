@@ -1,10 +1,13 @@
 package com.hotel.erp.service;
 
+import com.hotel.erp.dto.CursorPage;
 import com.hotel.erp.entity.Checkin;
 import com.hotel.erp.entity.Reservation;
 import com.hotel.erp.repository.CheckinRepository;
 import com.hotel.erp.repository.ReservationRepository;
+import com.hotel.erp.service.KeysetPager.Keyset;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -16,16 +19,61 @@ import java.util.Optional;
 @Service
 public class CheckinService {
 
+    private static final Keyset<Checkin> CHECKIN_KEYSET = Keyset.of(Checkin.class, "id", "checkInDate");
+
+    private static final int SEED_PAGE_SIZE = 20;
+
     @Autowired
     private CheckinRepository checkinRepository;
 
+    @Autowired
+    private KeysetPager keysetPager;
+
     @Autowired
     private ReservationRepository reservationRepository;
 
+    @Autowired
+    private SequenceAllocator sequenceAllocator;
+
+    @Autowired
+    private FolioBalanceService folioBalanceService;
+
+    @Autowired
+    private RoomAvailabilityIndex roomAvailabilityIndex;
+
+    @Autowired
+    private OptimisticRetryExecutor optimisticRetryExecutor;
+
+    @Autowired
+    private RoomStatusBoard roomStatusBoard;
+
+    @Autowired
+    private GuestSearchIndex guestSearchIndex;
+
     public List<Checkin> getAllCheckins() {
         return checkinRepository.findAll();
     }
 
+    /**
+     * Get one keyset page of checkins
+     * 
+     * @param cursor    the nextCursor of the previous page, or null for the first page
+     * @param limit     the page size
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return the page
+     */
+    public CursorPage<Checkin> getCheckinsPage(String cursor, Integer limit, String sort, String direction) {
+        return keysetPager.page(CHECKIN_KEYSET.sortedBy(sort, direction), cursor, limit);
+    }
+
+    /**
+     * Prepare a pass over all checkins after a cursor in page order, read a batch at a time
+     */
+    public KeysetPager.Scan<Checkin> scanCheckins(String cursor, String sort, String direction) {
+        return keysetPager.scan(CHECKIN_KEYSET.sortedBy(sort, direction), cursor);
+    }
+
     public Optional<Checkin> getCheckinById(Long id) {
         return checkinRepository.findById(id);
     }
@@ -87,7 +135,15 @@ public class CheckinService {
             checkin.setStatus("CHECKED_IN");
         }
 
-        return checkinRepository.save(checkin);
+        boolean isNew = checkin.getId() == null;
+        Checkin savedCheckin = checkinRepository.save(checkin);
+        if (isNew) {
+            folioBalanceService.openFolio(savedCheckin.getFolioNo());
+        }
+        roomAvailabilityIndex.indexCheckin(savedCheckin);
+        roomStatusBoard.checkinSaved(savedCheckin);
+        guestSearchIndex.checkinSaved(savedCheckin);
+        return savedCheckin;
     }
 
     /**
@@ -97,22 +153,51 @@ public class CheckinService {
         LocalDate today = LocalDate.now();
         String prefix = "FOL/" + today.format(DateTimeFormatter.ofPattern("yyyyMM")) + "/";
 
-        // Find the highest sequence number for current month
-        List<Checkin> currentMonthCheckins = checkinRepository.findAll().stream()
-                .filter(c -> c.getFolioNo() != null && c.getFolioNo().startsWith(prefix))
-                .toList();
-
-        int nextSequence = currentMonthCheckins.size() + 1;
+        // Seed the month's counter from the highest existing folio the first time it is used,
+        // so a gap or a deleted folio does not hand out a number again
+        long nextSequence = sequenceAllocator.next(prefix, () -> highestExistingFolioSequence(prefix));
 
         // Format sequence with leading zeros (4 digits)
         return prefix + String.format("%04d", nextSequence);
     }
 
+    /**
+     * Folio numbers can also be entered by hand, so the month's prefix may be
+     * followed by something that is not a number. Those sort ahead of ours and
+     * are skipped; the first number found is the highest.
+     */
+    private long highestExistingFolioSequence(String prefix) {
+        for (int page = 0;; page++) {
+            List<String> folioNos = checkinRepository.findHighestFolioNos(prefix,
+                    PageRequest.of(page, SEED_PAGE_SIZE));
+            for (String folioNo : folioNos) {
+                try {
+                    return Long.parseLong(folioNo.substring(prefix.length()));
+                } catch (NumberFormatException e) {
+                    // Not one of ours, e.g. a hand-entered FOL/202510/ABC
+                }
+            }
+            if (folioNos.size() < SEED_PAGE_SIZE) {
+                return 0;
+            }
+        }
+    }
+
     /**
      * Create check-in from existing reservation
      */
     public Checkin checkInFromReservation(String reservationNo, Integer userId) {
-        Optional<Reservation> reservationOpt = reservationRepository.findByReservationNo(reservationNo);
+        return optimisticRetryExecutor.execute("checkInFromReservation",
+                () -> checkIn(reservationNo, userId));
+    }
+
+    /**
+     * One attempt at a check-in from a reservation. The reservation's version
+     * is bumped, so of two clerks checking in the same reservation one
+     * conflicts and, on retry, finds the guest already checked in.
+     */
+    private Checkin checkIn(String reservationNo, Integer userId) {
+        Optional<Reservation> reservationOpt = reservationRepository.findForCheckin(reservationNo);
         if (reservationOpt.isEmpty()) {
             throw new IllegalArgumentException("Reservation not found: " + reservationNo);
         }
@@ -144,10 +229,18 @@ public class CheckinService {
         checkin.setStatus("CHECKED_IN");
         checkin.setFolioNo(generateFolioNumber());
 
-        return checkinRepository.save(checkin);
+        Checkin savedCheckin = checkinRepository.save(checkin);
+        folioBalanceService.openFolio(savedCheckin.getFolioNo());
+        roomAvailabilityIndex.indexCheckin(savedCheckin);
+        roomStatusBoard.checkinSaved(savedCheckin);
+        guestSearchIndex.checkinSaved(savedCheckin);
+        return savedCheckin;
     }
 
     public void deleteCheckin(Long id) {
         checkinRepository.deleteById(id);
+        roomAvailabilityIndex.removeCheckin(id);
+        roomStatusBoard.checkinRemoved(id);
+        guestSearchIndex.removed(GuestSearchIndex.Kind.CHECKIN, id);
     }
 }
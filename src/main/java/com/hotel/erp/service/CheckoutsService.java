@@ -42,6 +42,24 @@ public class CheckoutsService {
     @Autowired
     private AdditionalChargesRepository additionalChargesRepository;
 
+    @Autowired
+    private FolioBalanceService folioBalanceService;
+
+    @Autowired
+    private DailyRevenueService dailyRevenueService;
+
+    @Autowired
+    private RoomAvailabilityIndex roomAvailabilityIndex;
+
+    @Autowired
+    private OptimisticRetryExecutor optimisticRetryExecutor;
+
+    @Autowired
+    private RoomStatusBoard roomStatusBoard;
+
+    @Autowired
+    private GuestSearchIndex guestSearchIndex;
+
     /**
      * Perform check-out for a guest
      * 
@@ -55,38 +73,8 @@ public class CheckoutsService {
         logger.info("Performing check-out for folio: {}", folioNo);
         
         try {
-            // Find the check-in record
-            Optional<Checkin> checkinOpt = checkinRepository.findByFolioNo(folioNo);
-            if (checkinOpt.isEmpty()) {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Check-in not found for folio: " + folioNo);
-            }
-            
-            Checkin checkin = checkinOpt.get();
-            
-            // Validate departure date
-            if (departureDate.isBefore(checkin.getCheckInDate())) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Departure date cannot be before check-in date");
-            }
-            
-            // Check if already checked out
-            if (checkin.getCheckOutDate() != null) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Guest already checked out");
-            }
-            
-            // Calculate outstanding amount
-            BigDecimal outstandingAmount = calculateOutstandingAmount(folioNo);
-            
-            // Update check-in record
-            checkin.setCheckOutDate(departureDate);
-            checkin.setRemarks(remarks);
-            checkin.setUpdatedOn(LocalDateTime.now());
-            checkin.setUserId(userId);
-            
-            Checkin savedCheckin = checkinRepository.save(checkin);
-            
-            logger.info("Check-out completed for folio: {} with outstanding amount: {}", folioNo, outstandingAmount);
-            return savedCheckin;
-            
+            return optimisticRetryExecutor.execute("checkout",
+                    () -> checkout(folioNo, departureDate, remarks, userId));
         } catch (ResponseStatusException e) {
             throw e;
         } catch (Exception e) {
@@ -95,6 +83,47 @@ public class CheckoutsService {
         }
     }
 
+    /**
+     * One attempt at a check-out; a retry after a conflict re-reads the
+     * folio, so a guest checked out meanwhile is reported as such
+     */
+    private Checkin checkout(String folioNo, LocalDate departureDate, String remarks, Integer userId) {
+        // Find the check-in record
+        Optional<Checkin> checkinOpt = checkinRepository.findByFolioNo(folioNo);
+        if (checkinOpt.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Check-in not found for folio: " + folioNo);
+        }
+        
+        Checkin checkin = checkinOpt.get();
+        
+        // Validate departure date
+        if (departureDate.isBefore(checkin.getCheckInDate())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Departure date cannot be before check-in date");
+        }
+        
+        // Check if already checked out
+        if (checkin.getCheckOutDate() != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Guest already checked out");
+        }
+        
+        // Calculate outstanding amount
+        BigDecimal outstandingAmount = calculateOutstandingAmount(folioNo);
+        
+        // Update check-in record
+        checkin.setCheckOutDate(departureDate);
+        checkin.setRemarks(remarks);
+        checkin.setUpdatedOn(LocalDateTime.now());
+        checkin.setUserId(userId);
+        
+        // Flushing bumps the version returned to the client
+        Checkin savedCheckin = checkinRepository.saveAndFlush(checkin);
+        roomAvailabilityIndex.indexCheckin(savedCheckin);
+        roomStatusBoard.checkinSaved(savedCheckin);
+        
+        logger.info("Check-out completed for folio: {} with outstanding amount: {}", folioNo, outstandingAmount);
+        return savedCheckin;
+    }
+
     /**
      * Calculate outstanding amount for a folio
      * 
@@ -103,18 +132,7 @@ public class CheckoutsService {
      */
     public BigDecimal calculateOutstandingAmount(String folioNo) {
         try {
-            // Get total advances
-            BigDecimal totalAdvances = advancesRepository.getTotalAmountByFolioNo(folioNo);
-            
-            // Get total bills
-            BigDecimal totalBills = foBillRepository.getTotalAmountByFolioNo(folioNo);
-            
-            // Get total charges
-            BigDecimal totalCharges = additionalChargesRepository.getTotalAmountByFolioNo(folioNo);
-            
-            // Calculate outstanding
-            BigDecimal totalOwed = totalBills.add(totalCharges);
-            BigDecimal outstanding = totalOwed.subtract(totalAdvances);
+            BigDecimal outstanding = folioBalanceService.getFolioBalance(folioNo).getBalance();
             
             logger.info("Outstanding amount for folio {}: {}", folioNo, outstanding);
             return outstanding;
@@ -373,6 +391,9 @@ public class CheckoutsService {
             payment.setUpdatedOn(LocalDateTime.now());
             
             Advances savedPayment = advancesRepository.save(payment);
+            folioBalanceService.record(FolioBalanceService.Ledger.ADVANCES, savedPayment.getFolioNo(), savedPayment.getAmount());
+            dailyRevenueService.record(DailyRevenueService.Entry.of(savedPayment));
+            guestSearchIndex.advanceSaved(savedPayment);
             
             result.put("success", true);
             result.put("message", "Payment processed successfully");
@@ -452,7 +473,9 @@ public class CheckoutsService {
             // Cancel checkout by setting checkout date to null
             checkin.setCheckOutDate(null);
             checkin.setUpdatedOn(LocalDateTime.now());
-            checkinRepository.save(checkin);
+            Checkin savedCheckin = checkinRepository.save(checkin);
+            roomAvailabilityIndex.indexCheckin(savedCheckin);
+            roomStatusBoard.checkinSaved(savedCheckin);
             
             result.put("success", true);
             result.put("message", "Checkout cancelled successfully");
@@ -0,0 +1,267 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.entity.AdditionalCharges;
+import com.hotel.erp.entity.Advances;
+import com.hotel.erp.entity.BillSettlement;
+import com.hotel.erp.entity.FoBill;
+import com.hotel.erp.entity.PostTransaction;
+import com.hotel.erp.service.FolioBalanceService.Ledger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Maintains the daily revenue cube that the reports read instead of the
+ * ledger tables.
+ *
+ * Each advance, posting, charge, bill and settlement counts towards one cell,
+ * keyed by its report date (the date the reports have always filtered that
+ * ledger on), ledger, account head, payment mode and shift. The services call
+ * the record methods in the same transaction as each ledger write, so a cell
+ * update is one indexed UPDATE. {@link #rebuild(LocalDate, LocalDate)}
+ * recomputes any date range from the ledger tables, for writes made outside
+ * the services.
+ */
+@Service
+public class DailyRevenueService {
+
+    /**
+     * One ledger entry as the cube sees it: the cell it counts towards and its
+     * amount
+     */
+    public static final class Entry {
+        private final Ledger ledger;
+        private final LocalDate date;
+        private final String accountHead;
+        private final String paymentMode;
+        private final int shiftNo;
+        private final BigDecimal amount;
+
+        public Entry(Ledger ledger, LocalDate date, String accountHead, String paymentMode, Integer shiftNo,
+                BigDecimal amount) {
+            this.ledger = ledger;
+            this.date = date;
+            this.accountHead = accountHead != null ? accountHead : "";
+            this.paymentMode = paymentMode != null ? paymentMode : "";
+            this.shiftNo = shiftNo != null ? shiftNo : 0;
+            this.amount = amount;
+        }
+
+        public static Entry of(Advances advance) {
+            return new Entry(Ledger.ADVANCES, advance.getPaymentDate(), null, advance.getPaymentMode(),
+                    advance.getShiftNo(), advance.getAmount());
+        }
+
+        public static Entry of(PostTransaction transaction) {
+            return new Entry(Ledger.POSTINGS, transaction.getTransDate(), transaction.getAccHead(), null,
+                    transaction.getShiftNo(), transaction.getAmount());
+        }
+
+        public static Entry of(AdditionalCharges charge) {
+            return new Entry(Ledger.CHARGES, charge.getChargeDate(), charge.getChargeType(), null, null,
+                    charge.getAmount());
+        }
+
+        public static Entry of(FoBill bill) {
+            return new Entry(Ledger.BILLED, bill.getBillDate(), null, null, null, bill.getTotalAmount());
+        }
+
+        public static Entry of(BillSettlement settlement) {
+            return new Entry(Ledger.SETTLEMENTS, settlement.getPaymentDate(), null, settlement.getPaymentMode(),
+                    null, settlement.getAmount());
+        }
+
+        private boolean sameCell(Entry other) {
+            return ledger == other.ledger && Objects.equals(date, other.date)
+                    && accountHead.equals(other.accountHead) && paymentMode.equals(other.paymentMode)
+                    && shiftNo == other.shiftNo;
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyRevenueService.class);
+
+    private static final String ADD_TO_CELL = "UPDATE daily_revenue SET amount = amount + ?, "
+            + "entry_count = entry_count + ?, updated_on = ? WHERE report_date = ? AND ledger = ? "
+            + "AND account_head = ? AND payment_mode = ? AND shift_no = ?";
+
+    private static final String INSERT_CELL = "INSERT INTO daily_revenue "
+            + "(amount, entry_count, updated_on, report_date, ledger, account_head, payment_mode, shift_no) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final Map<Ledger, String> REBUILD_CELLS = new EnumMap<>(Ledger.class);
+
+    static {
+        REBUILD_CELLS.put(Ledger.ADVANCES,
+                cellsOf(Ledger.ADVANCES, "advances", "adv_date", "''", "settlement_mode", "shift_no", "amount"));
+        REBUILD_CELLS.put(Ledger.POSTINGS,
+                cellsOf(Ledger.POSTINGS, "post_transaction", "trans_date", "acc_head", "''", "shift_no", "amount"));
+        REBUILD_CELLS.put(Ledger.CHARGES,
+                cellsOf(Ledger.CHARGES, "additional_charges", "charge_date", "charge_type", "''", "0", "amount"));
+        REBUILD_CELLS.put(Ledger.BILLED,
+                cellsOf(Ledger.BILLED, "fo_bill", "bill_date", "''", "''", "0", "total_amount"));
+        REBUILD_CELLS.put(Ledger.SETTLEMENTS,
+                cellsOf(Ledger.SETTLEMENTS, "bill_settlement", "payment_date", "''", "payment_mode", "0", "amount"));
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public DailyRevenueService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Record a new ledger entry
+     *
+     * @param entry the entry; ignored if it has no date or amount
+     */
+    @Transactional
+    public void record(Entry entry) {
+        add(entry, entry.amount, 1);
+    }
+
+    /**
+     * Record the removal of a ledger entry
+     *
+     * @param entry the entry as it was stored
+     */
+    @Transactional
+    public void remove(Entry entry) {
+        add(entry, entry.amount != null ? entry.amount.negate() : null, -1);
+    }
+
+    /**
+     * Record an edited ledger entry, which may have moved to another cell
+     *
+     * @param previous the entry before the edit
+     * @param current  the entry after the edit
+     */
+    @Transactional
+    public void recordChange(Entry previous, Entry current) {
+        if (previous.sameCell(current) && previous.amount != null && current.amount != null) {
+            add(current, current.amount.subtract(previous.amount), 0);
+        } else {
+            remove(previous);
+            record(current);
+        }
+    }
+
+    /**
+     * Record several entries of the same cell at once, for bulk postings such
+     * as the night audit
+     *
+     * @param total the cell, with the sum of the entries' amounts
+     * @param count the number of entries
+     */
+    @Transactional
+    public void recordTotal(Entry total, long count) {
+        if (count > 0) {
+            add(total, total.amount, count);
+        }
+    }
+
+    /**
+     * Record many new ledger entries, with one write per cell they fall in
+     * rather than one per entry, for bulk imports
+     *
+     * @param entries the entries; those without a date or amount are ignored
+     */
+    @Transactional
+    public void recordAll(Collection<Entry> entries) {
+        Map<List<Object>, Entry> totals = new LinkedHashMap<>();
+        Map<List<Object>, Long> counts = new HashMap<>();
+        for (Entry entry : entries) {
+            if (entry.date == null || entry.amount == null) {
+                continue;
+            }
+            List<Object> cell = List.of(entry.ledger, entry.date, entry.accountHead, entry.paymentMode, entry.shiftNo);
+            totals.merge(cell, entry, (total, next) -> new Entry(total.ledger, total.date, total.accountHead,
+                    total.paymentMode, total.shiftNo, total.amount.add(next.amount)));
+            counts.merge(cell, 1L, Long::sum);
+        }
+        totals.forEach((cell, total) -> add(total, total.amount, counts.get(cell)));
+    }
+
+    /**
+     * Recompute every cell between two dates from the ledger tables
+     *
+     * @param startDate the first report date
+     * @param endDate   the last report date
+     * @return summary with the date range and the number of cells written
+     */
+    @Transactional
+    public Map<String, Object> rebuild(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+        long started = System.currentTimeMillis();
+        Date start = Date.valueOf(startDate);
+        Date end = Date.valueOf(endDate);
+
+        jdbcTemplate.update("DELETE FROM daily_revenue WHERE report_date BETWEEN ? AND ?", start, end);
+        int cells = 0;
+        for (String sql : REBUILD_CELLS.values()) {
+            cells += jdbcTemplate.update(sql, start, end);
+        }
+        logger.info("Rebuilt {} daily revenue cells from {} to {} in {} ms", cells, startDate, endDate,
+                System.currentTimeMillis() - started);
+
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("startDate", startDate.toString());
+        summary.put("endDate", endDate.toString());
+        summary.put("cells", cells);
+        return summary;
+    }
+
+    private void add(Entry entry, BigDecimal amount, long count) {
+        if (entry.date == null || amount == null) {
+            return;
+        }
+        // the amount, count and timestamp come first in both statements, then the cell key
+        Object[] values = { amount, count, Timestamp.valueOf(LocalDateTime.now()), Date.valueOf(entry.date),
+                entry.ledger.name(), entry.accountHead, entry.paymentMode, entry.shiftNo };
+        if (jdbcTemplate.update(ADD_TO_CELL, values) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT_CELL, values);
+        } catch (DuplicateKeyException e) {
+            // another transaction created the cell in the meantime
+            jdbcTemplate.update(ADD_TO_CELL, values);
+        }
+    }
+
+    /**
+     * Build the INSERT ... SELECT that recomputes one ledger's cells for a date
+     * range, taking the range as its two parameters
+     */
+    private static String cellsOf(Ledger ledger, String table, String dateColumn, String accountHead,
+            String paymentMode, String shiftNo, String amountColumn) {
+        String key = dateColumn + ", COALESCE(" + accountHead + ", ''), COALESCE(" + paymentMode + ", ''), "
+                + "COALESCE(" + shiftNo + ", 0)";
+        return "INSERT INTO daily_revenue "
+                + "(report_date, ledger, account_head, payment_mode, shift_no, amount, entry_count, updated_on) "
+                + "SELECT " + dateColumn + ", '" + ledger.name() + "', COALESCE(" + accountHead + ", ''), "
+                + "COALESCE(" + paymentMode + ", ''), COALESCE(" + shiftNo + ", 0), SUM(" + amountColumn + "), "
+                + "COUNT(*), CURRENT_TIMESTAMP FROM " + table
+                + " WHERE " + dateColumn + " BETWEEN ? AND ? AND " + amountColumn + " IS NOT NULL"
+                + " GROUP BY " + key;
+    }
+}
@@ -0,0 +1,177 @@
+package com.hotel.erp.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.hotel.erp.entity.Advances;
+import com.hotel.erp.entity.BillSettlement;
+import com.hotel.erp.entity.Checkin;
+import com.hotel.erp.entity.FoBill;
+import com.hotel.erp.entity.PostTransaction;
+import com.hotel.erp.service.KeysetPager.Keyset;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Prepares tables for the CSV and XLSX exports.
+ *
+ * Ledger exports page through the table with the {@link KeysetPager} scan, so
+ * a full year is read in fixed size batches and written out as it goes; the
+ * columns are the entity's JSON properties, as in the list endpoints. Report
+ * exports run the report through {@link ReportJobService#prepare} and flatten
+ * its JSON: a list becomes one row per item, anything else a two column table
+ * of field paths and values.
+ */
+@Service
+public class ExportService {
+
+    private static final Map<String, Keyset<?>> DATASETS = new LinkedHashMap<>();
+
+    static {
+        DATASETS.put("advances", Keyset.of(Advances.class, "advancesId", "paymentDate"));
+        DATASETS.put("post-transactions", Keyset.of(PostTransaction.class, "id", "transDate"));
+        DATASETS.put("bills", Keyset.of(FoBill.class, "billId", "billDate"));
+        DATASETS.put("settlements", Keyset.of(BillSettlement.class, "settlementId", "paymentDate"));
+        DATASETS.put("checkins", Keyset.of(Checkin.class, "id", "checkInDate"));
+    }
+
+    /**
+     * A table ready to be written: its header, and a pass that hands every
+     * row to a sink
+     */
+    public static final class Table {
+        private final List<String> header;
+        private final Consumer<Consumer<List<?>>> rows;
+
+        private Table(List<String> header, Consumer<Consumer<List<?>>> rows) {
+            this.header = header;
+            this.rows = rows;
+        }
+
+        public List<String> getHeader() {
+            return header;
+        }
+
+        public Consumer<Consumer<List<?>>> getRows() {
+            return rows;
+        }
+    }
+
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Prepare a ledger export, in date order. Nothing is read until the rows
+     * are passed on, which should happen outside a transaction so each batch
+     * is released once written.
+     *
+     * @param dataset the ledger: advances, post-transactions, bills,
+     *                settlements or checkins
+     * @param from    the first date, or null for no lower bound
+     * @param to      the last date, or null for no upper bound
+     * @return the table
+     * @throws IllegalArgumentException if the dataset is unknown or the range
+     *                                  is empty
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public Table exportLedger(String dataset, LocalDate from, LocalDate to) {
+        Keyset<?> keyset = DATASETS.get(dataset);
+        if (keyset == null) {
+            throw new IllegalArgumentException("Unknown export: " + dataset + "; expected one of " + DATASETS.keySet());
+        }
+        KeysetPager.Scan<?> scan = keysetPager.scan((Keyset) keyset.sortedBy("date", "asc").between(from, to), null);
+        List<BeanPropertyDefinition> properties = objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(keyset.getEntityClass()))
+                .findProperties().stream()
+                .filter(property -> property.getAccessor() != null)
+                .toList();
+
+        List<String> header = properties.stream().map(BeanPropertyDefinition::getName).toList();
+        return new Table(header, sink -> scan.forEach(row -> {
+            List<Object> cells = new ArrayList<>(properties.size());
+            for (BeanPropertyDefinition property : properties) {
+                cells.add(cell(property.getAccessor(), row));
+            }
+            sink.accept(cells);
+        }));
+    }
+
+    /**
+     * Run a report and prepare it for export
+     *
+     * @param report     the report name, as in the ReportController path
+     * @param parameters the report's request parameters; others are ignored
+     * @return the table
+     * @throws IllegalArgumentException if the report is unknown or a
+     *                                  parameter is missing or invalid
+     */
+    public Table exportReport(String report, Map<String, String> parameters) {
+        Object result = reportJobService.prepare(report, parameters).get();
+        JsonNode tree = objectMapper.copy()
+                .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                .valueToTree(result);
+
+        if (tree.isArray()) {
+            List<Map<String, Object>> flatRows = new ArrayList<>();
+            Set<String> columns = new LinkedHashSet<>();
+            for (JsonNode item : tree) {
+                Map<String, Object> flat = new LinkedHashMap<>();
+                flatten(item.isObject() ? "" : "value", item, flat);
+                columns.addAll(flat.keySet());
+                flatRows.add(flat);
+            }
+            List<String> header = List.copyOf(columns);
+            return new Table(header, sink -> flatRows.forEach(flat -> sink.accept(
+                    header.stream().map(flat::get).toList())));
+        }
+
+        Map<String, Object> flat = new LinkedHashMap<>();
+        flatten(tree.isObject() ? "" : "value", tree, flat);
+        return new Table(List.of("field", "value"), sink -> flat.forEach(
+                (field, value) -> sink.accept(Arrays.asList(field, value))));
+    }
+
+    private static Object cell(AnnotatedMember accessor, Object row) {
+        Object value = accessor.getValue(row);
+        if (value == null || value instanceof Number || value instanceof String) {
+            return value;
+        }
+        return value.toString();
+    }
+
+    private static void flatten(String path, JsonNode node, Map<String, Object> flat) {
+        if (node.isObject()) {
+            for (Map.Entry<String, JsonNode> field : node.properties()) {
+                flatten(path.isEmpty() ? field.getKey() : path + "." + field.getKey(), field.getValue(), flat);
+            }
+        } else if (node.isArray()) {
+            for (int i = 0; i < node.size(); i++) {
+                flatten(path + "[" + i + "]", node.get(i), flat);
+            }
+        } else if (node.isNumber()) {
+            flat.put(path, node.numberValue());
+        } else if (!node.isNull() && !node.isMissingNode()) {
+            flat.put(path, node.asText());
+        } else {
+            flat.put(path, null);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.FolioBalanceDTO;
+import com.hotel.erp.entity.FolioBalance;
+import com.hotel.erp.repository.CheckinRepository;
+import com.hotel.erp.repository.FolioBalanceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Single source of folio balances.
+ *
+ * Balances are read from the folio_balance ledger, which the services keep
+ * current by calling the record methods in the same transaction as each
+ * ledger write, so a lookup is one primary key read regardless of how long
+ * the folio is. Folios opened before the ledger existed fall back to a single
+ * query over the ledger tables until {@link #verifyFolioBalances(boolean)}
+ * rebuilds them.
+ */
+@Service
+public class FolioBalanceService {
+
+    /**
+     * The folio ledgers tracked in folio_balance
+     */
+    public enum Ledger {
+        ADVANCES("total_advances"),
+        POSTINGS("total_postings"),
+        CHARGES("total_charges"),
+        BILLED("total_billed"),
+        SETTLEMENTS("total_settlements");
+
+        private final String column;
+
+        Ledger(String column) {
+            this.column = column;
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(FolioBalanceService.class);
+
+    private static final int VERIFY_PAGE_SIZE = 500;
+
+    private static final String INSERT_BALANCE = "INSERT INTO folio_balance (folio_no, total_advances, "
+            + "total_postings, total_charges, total_billed, total_settlements, updated_on) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final CheckinRepository checkinRepository;
+    private final FolioBalanceRepository folioBalanceRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate repairTransaction;
+
+    @Autowired
+    public FolioBalanceService(CheckinRepository checkinRepository, FolioBalanceRepository folioBalanceRepository,
+            JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.checkinRepository = checkinRepository;
+        this.folioBalanceRepository = folioBalanceRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.repairTransaction = new TransactionTemplate(transactionManager);
+        this.repairTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Get the ledger totals for one folio
+     * 
+     * @param folioNo the folio number
+     * @return the folio balance; all zero if the folio is unknown
+     */
+    public FolioBalanceDTO getFolioBalance(String folioNo) {
+        return folioBalanceRepository.findById(folioNo)
+                .map(this::toDTO)
+                .orElseGet(() -> computeFolioBalance(folioNo));
+    }
+
+    /**
+     * Get the ledger totals for several folios
+     * 
+     * @param folioNos the folio numbers
+     * @return balances keyed by folio number, in the order requested; unknown
+     *         folios map to an all-zero balance
+     */
+    public Map<String, FolioBalanceDTO> getFolioBalances(Collection<String> folioNos) {
+        Map<String, FolioBalanceDTO> result = new LinkedHashMap<>();
+        if (folioNos.isEmpty()) {
+            return result;
+        }
+
+        LinkedHashSet<String> distinct = new LinkedHashSet<>(folioNos);
+        for (String folioNo : distinct) {
+            result.put(folioNo, null);
+        }
+        for (FolioBalance balance : folioBalanceRepository.findAllById(distinct)) {
+            result.put(balance.getFolioNo(), toDTO(balance));
+        }
+
+        // Folios without a ledger row yet are computed together in one query
+        List<String> missing = result.entrySet().stream()
+                .filter(entry -> entry.getValue() == null)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            for (FolioBalanceDTO balance : checkinRepository.findFolioBalances(missing)) {
+                result.put(balance.getFolioNo(), balance);
+            }
+            result.replaceAll((folioNo, balance) -> balance != null ? balance : new FolioBalanceDTO(folioNo));
+        }
+        return result;
+    }
+
+    /**
+     * Get the ledger totals for every in-house folio
+     * 
+     * @return balances of all CHECKED_IN folios
+     */
+    public List<FolioBalanceDTO> getInHouseBalances() {
+        return new ArrayList<>(getFolioBalances(checkinRepository.findActiveFolioNos()).values());
+    }
+
+    /**
+     * Compute a folio's totals directly from the ledger tables, bypassing
+     * folio_balance
+     * 
+     * @param folioNo the folio number
+     * @return the computed balance; all zero if the folio is unknown
+     */
+    public FolioBalanceDTO computeFolioBalance(String folioNo) {
+        List<FolioBalanceDTO> balances = checkinRepository.findFolioBalances(List.of(folioNo));
+        return balances.isEmpty() ? new FolioBalanceDTO(folioNo) : balances.get(0);
+    }
+
+    /**
+     * Create the ledger row for a newly opened folio, so that later writes only
+     * ever update it in place
+     * 
+     * @param folioNo the folio number
+     */
+    @Transactional
+    public void openFolio(String folioNo) {
+        if (folioNo != null && !folioBalanceRepository.existsById(folioNo)) {
+            // Normally all zero, but a folio number entered by hand may already have entries
+            insertIfAbsent(computeFolioBalance(folioNo));
+        }
+    }
+
+    /**
+     * Record a new ledger entry against a folio; pass a negated amount to
+     * record its removal
+     * 
+     * @param ledger  which ledger the entry belongs to
+     * @param folioNo the folio number; ignored if blank
+     * @param amount  the entry amount
+     */
+    @Transactional
+    public void record(Ledger ledger, String folioNo, BigDecimal amount) {
+        if (amount == null || folioNo == null || folioNo.trim().isEmpty()) {
+            return;
+        }
+        BigDecimal[] deltas = new BigDecimal[Ledger.values().length];
+        deltas[ledger.ordinal()] = amount;
+        apply(folioNo, deltas);
+    }
+
+    /**
+     * Record one entry per folio in a single JDBC batch, for bulk postings such
+     * as the night audit
+     * 
+     * @param ledger  which ledger the entries belong to
+     * @param amounts entry amount per folio number
+     */
+    @Transactional
+    public void recordAll(Ledger ledger, Map<String, BigDecimal> amounts) {
+        if (amounts.isEmpty()) {
+            return;
+        }
+        // Seed missing rows one by one first, so the batch only updates existing rows
+        Set<String> existing = new HashSet<>(folioBalanceRepository.findExistingFolioNos(amounts.keySet()));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(amounts.size());
+        amounts.forEach((folioNo, amount) -> {
+            if (existing.contains(folioNo)) {
+                rows.add(new Object[] { amount, now, folioNo });
+            } else {
+                record(ledger, folioNo, amount);
+            }
+        });
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE folio_balance SET " + ledger.column + " = " + ledger.column
+                    + " + ?, updated_on = ? WHERE folio_no = ?", rows);
+        }
+    }
+
+    /**
+     * Record an edited ledger entry, which may have moved to another folio
+     */
+    @Transactional
+    public void recordChange(Ledger ledger, String previousFolioNo, BigDecimal previousAmount,
+            String folioNo, BigDecimal amount) {
+        if (Objects.equals(previousFolioNo, folioNo)) {
+            record(ledger, folioNo, orZero(amount).subtract(orZero(previousAmount)));
+        } else {
+            record(ledger, previousFolioNo, orZero(previousAmount).negate());
+            record(ledger, folioNo, amount);
+        }
+    }
+
+    /**
+     * Compare folio_balance against the ledger tables for every folio. Each
+     * drifted folio is repaired in its own transaction that locks its row and
+     * recomputes the totals under the lock, so ledger writes made meanwhile
+     * are neither lost nor counted twice.
+     * 
+     * @param repair whether to overwrite drifted or missing rows with the
+     *               computed totals
+     * @return summary with the number of folios checked and the drifted folios
+     */
+    public Map<String, Object> verifyFolioBalances(boolean repair) {
+        int checked = 0;
+        List<Map<String, Object>> drifted = new ArrayList<>();
+
+        for (int page = 0;; page++) {
+            List<FolioBalanceDTO> computed = checkinRepository
+                    .findFolioBalancesPage(PageRequest.of(page, VERIFY_PAGE_SIZE));
+            if (computed.isEmpty()) {
+                break;
+            }
+
+            Map<String, FolioBalance> stored = folioBalanceRepository
+                    .findAllById(computed.stream().map(FolioBalanceDTO::getFolioNo).collect(Collectors.toList()))
+                    .stream()
+                    .collect(Collectors.toMap(FolioBalance::getFolioNo, Function.identity()));
+
+            for (FolioBalanceDTO expected : computed) {
+                checked++;
+                FolioBalance actual = stored.get(expected.getFolioNo());
+                if (actual != null && matches(actual, expected)) {
+                    continue;
+                }
+
+                Map<String, Object> drift = new HashMap<>();
+                drift.put("folioNo", expected.getFolioNo());
+                drift.put("storedBalance", actual != null ? toDTO(actual).getBalance() : null);
+                drift.put("computedBalance", expected.getBalance());
+                drifted.add(drift);
+
+                if (repair) {
+                    repairTransaction.executeWithoutResult(status -> repair(expected.getFolioNo()));
+                }
+            }
+        }
+
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("checked", checked);
+        summary.put("drifted", drifted.size());
+        summary.put("repaired", repair);
+        summary.put("folios", drifted);
+        return summary;
+    }
+
+    /**
+     * Nightly drift check. Only reports; use the rebuild endpoint to repair.
+     */
+    @Scheduled(cron = "${hotel.folio-balance.verify-cron:0 30 3 * * *}")
+    public void scheduledVerify() {
+        Map<String, Object> summary = verifyFolioBalances(false);
+        if ((Integer) summary.get("drifted") > 0) {
+            logger.warn("Folio balance drift detected on {} of {} folios: {}", summary.get("drifted"),
+                    summary.get("checked"), summary.get("folios"));
+        } else {
+            logger.info("Folio balances verified for {} folios", summary.get("checked"));
+        }
+    }
+
+    private void apply(String folioNo, BigDecimal[] deltas) {
+        BigDecimal advances = orZero(deltas[Ledger.ADVANCES.ordinal()]);
+        BigDecimal postings = orZero(deltas[Ledger.POSTINGS.ordinal()]);
+        BigDecimal charges = orZero(deltas[Ledger.CHARGES.ordinal()]);
+        BigDecimal billed = orZero(deltas[Ledger.BILLED.ordinal()]);
+        BigDecimal settlements = orZero(deltas[Ledger.SETTLEMENTS.ordinal()]);
+
+        int updated = folioBalanceRepository.applyDelta(folioNo, advances, postings, charges, billed,
+                settlements, LocalDateTime.now());
+        if (updated > 0) {
+            return;
+        }
+
+        // No row yet, e.g. a folio opened before the ledger existed. Seed it from
+        // the ledger tables without the write being recorded, then add that write,
+        // so two first writes to the folio both count whichever of them seeds it.
+        List<FolioBalanceDTO> computed = checkinRepository.findFolioBalances(List.of(folioNo));
+        FolioBalanceDTO seed = new FolioBalanceDTO(folioNo);
+        if (!computed.isEmpty()) {
+            FolioBalanceDTO totals = computed.get(0);
+            seed.setTotalAdvances(totals.getTotalAdvances().subtract(advances));
+            seed.setTotalPostings(totals.getTotalPostings().subtract(postings));
+            seed.setTotalCharges(totals.getTotalCharges().subtract(charges));
+            seed.setTotalBilled(totals.getTotalBilled().subtract(billed));
+            seed.setTotalSettlements(totals.getTotalSettlements().subtract(settlements));
+        }
+        insertIfAbsent(seed);
+        folioBalanceRepository.applyDelta(folioNo, advances, postings, charges, billed, settlements,
+                LocalDateTime.now());
+    }
+
+    /**
+     * Overwrite one folio's totals with the ledger tables' totals, holding
+     * the row lock while they are read
+     */
+    private void repair(String folioNo) {
+        insertIfAbsent(new FolioBalanceDTO(folioNo));
+        FolioBalance balance = folioBalanceRepository.findForUpdate(folioNo)
+                .orElseThrow(() -> new IllegalStateException("Folio balance " + folioNo + " disappeared"));
+        FolioBalanceDTO expected = computeFolioBalance(folioNo);
+        balance.setTotalAdvances(expected.getTotalAdvances());
+        balance.setTotalPostings(expected.getTotalPostings());
+        balance.setTotalCharges(expected.getTotalCharges());
+        balance.setTotalBilled(expected.getTotalBilled());
+        balance.setTotalSettlements(expected.getTotalSettlements());
+        balance.setUpdatedOn(LocalDateTime.now());
+        folioBalanceRepository.save(balance);
+    }
+
+    /**
+     * Insert a balance row unless the folio already has one, e.g. because
+     * another transaction seeded it first
+     */
+    private void insertIfAbsent(FolioBalanceDTO balance) {
+        try {
+            jdbcTemplate.update(INSERT_BALANCE, balance.getFolioNo(), balance.getTotalAdvances(),
+                    balance.getTotalPostings(), balance.getTotalCharges(), balance.getTotalBilled(),
+                    balance.getTotalSettlements(), Timestamp.valueOf(LocalDateTime.now()));
+        } catch (DuplicateKeyException e) {
+            // already there; the caller adds to it
+        }
+    }
+
+    private static boolean matches(FolioBalance actual, FolioBalanceDTO expected) {
+        return actual.getTotalAdvances().compareTo(expected.getTotalAdvances()) == 0
+                && actual.getTotalPostings().compareTo(expected.getTotalPostings()) == 0
+                && actual.getTotalCharges().compareTo(expected.getTotalCharges()) == 0
+                && actual.getTotalBilled().compareTo(expected.getTotalBilled()) == 0
+                && actual.getTotalSettlements().compareTo(expected.getTotalSettlements()) == 0;
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private FolioBalanceDTO toDTO(FolioBalance balance) {
+        FolioBalanceDTO dto = new FolioBalanceDTO(balance.getFolioNo());
+        dto.setTotalAdvances(balance.getTotalAdvances());
+        dto.setTotalPostings(balance.getTotalPostings());
+        dto.setTotalCharges(balance.getTotalCharges());
+        dto.setTotalBilled(balance.getTotalBilled());
+        dto.setTotalSettlements(balance.getTotalSettlements());
+        return dto;
+    }
+}
@@ -0,0 +1,513 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.SearchHitDTO;
+import com.hotel.erp.entity.Advances;
+import com.hotel.erp.entity.Checkin;
+import com.hotel.erp.entity.Maintenance;
+import com.hotel.erp.entity.PostTransaction;
+import com.hotel.erp.entity.Reservation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * In-memory search over guest names, contact numbers, folio, reservation and
+ * reference numbers of reservations, check-ins, advances and post
+ * transactions, and over maintenance requests.
+ *
+ * The index (see TermIndex) matches every word of a query by exact, prefix,
+ * infix or fuzzy match and ranks the documents by how well they match, so a
+ * partial phone number or a misspelt name finds the stay without a LIKE scan.
+ * The services report each saved or deleted row and the change is applied
+ * once their transaction commits. The index is built from the tables with
+ * keyset-paged JDBC reads, in the background at startup or on first use.
+ * Searches keep using the current index while a new one is built; changes
+ * that commit during the build are buffered and replayed onto the new index
+ * when it is swapped in.
+ */
+@Service
+public class GuestSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(GuestSearchIndex.class);
+
+    /** What a document is */
+    public enum Kind {
+        RESERVATION, CHECKIN, ADVANCE, TRANSACTION, MAINTENANCE
+    }
+
+    /** The fields a document is searched by */
+    public enum Field {
+        NAME(1.0f), PHONE(1.0f), FOLIO(1.0f), RESERVATION(1.0f), REFERENCE(0.9f), ROOM(0.6f), TEXT(0.5f);
+
+        private final float weight;
+
+        Field(float weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final Set<Field> ALL_FIELDS = EnumSet.allOf(Field.class);
+    private static final int LOAD_PAGE = 5000;
+
+    private static final String RESERVATION_COLUMNS = "SELECT id, guest_name, contact_no, reservation_no, "
+            + "external_ref_no FROM reservation";
+    private static final String CHECKIN_COLUMNS = "SELECT checkin_id, guest_name, contact_no, folio_no, "
+            + "reservation_no, bill_no, selected_room FROM checkin";
+    private static final String ADVANCE_COLUMNS = "SELECT id, guest_name, folio_no, reservation_no, receipt_no, "
+            + "bill_no, room_no FROM advances";
+    private static final String TRANSACTION_COLUMNS = "SELECT id, guest_name, folio_no, reservation_no, bill_no, "
+            + "room_no, acc_head, narration FROM post_transaction";
+    private static final String MAINTENANCE_COLUMNS = "SELECT id, ticket_no, room_no, area, issue_type, "
+            + "description, vendor_name FROM maintenance";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean warmOnStartup;
+
+    /** Guards index and pending; held only to search, apply one update or swap */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /** Held for a whole build, so builds run one at a time */
+    private final Object buildLock = new Object();
+    private volatile TermIndex index;
+    /** Updates committed while a build runs, or null when none is running */
+    private List<Consumer<TermIndex>> pending;
+
+    @Autowired
+    public GuestSearchIndex(JdbcTemplate jdbcTemplate,
+            @Value("${hotel.search.warm-on-startup:true}") boolean warmOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.warmOnStartup = warmOnStartup;
+    }
+
+    /**
+     * Build the index in the background once the application is up, so the
+     * first search does not wait for it
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!warmOnStartup) {
+            return;
+        }
+        Thread warmer = new Thread(() -> {
+            try {
+                ensureLoaded();
+            } catch (Exception e) {
+                logger.error("Could not build the search index: {}", e.getMessage(), e);
+            }
+        }, "search-index-warmup");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+
+    /**
+     * Search every kind of document by every field
+     *
+     * @param query the words to find; each must match
+     * @param kinds the kinds to search, or null or empty for all
+     * @param limit the most hits
+     * @return the hits, best first
+     */
+    public List<SearchHitDTO> search(String query, Collection<Kind> kinds, int limit) {
+        Set<Kind> searched = kinds == null || kinds.isEmpty() ? EnumSet.allOf(Kind.class) : EnumSet.copyOf(kinds);
+        List<SearchHitDTO> hits = new ArrayList<>();
+        for (TermIndex.Hit hit : find(query, searched, ALL_FIELDS, limit)) {
+            hits.add(new SearchHitDTO(Kind.values()[hit.kind()], hit.id(), hit.score()));
+        }
+        return hits;
+    }
+
+    /**
+     * Search one kind of document
+     *
+     * @param query  the words to find; each must match
+     * @param kind   the kind
+     * @param fields the fields to match, or null for all
+     * @param limit  the most hits
+     * @return the ids of the matching rows, best first
+     */
+    public List<Long> searchIds(String query, Kind kind, Set<Field> fields, int limit) {
+        List<Long> ids = new ArrayList<>();
+        for (TermIndex.Hit hit : find(query, EnumSet.of(kind), fields != null ? fields : ALL_FIELDS, limit)) {
+            ids.add(hit.id());
+        }
+        return ids;
+    }
+
+    /**
+     * Put rows loaded by id back into the order of the ids
+     *
+     * @param ids  the ids, best first
+     * @param rows the rows, in any order
+     * @param idOf the id of a row
+     * @return the rows, best first
+     */
+    public static <T> List<T> inOrder(List<Long> ids, Iterable<T> rows, Function<T, ? extends Number> idOf) {
+        Map<Long, T> byId = new HashMap<>();
+        rows.forEach(row -> byId.put(idOf.apply(row).longValue(), row));
+        List<T> ordered = new ArrayList<>(byId.size());
+        for (Long id : ids) {
+            T row = byId.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Index a saved reservation once the surrounding transaction commits
+     */
+    public void reservationSaved(Reservation reservation) {
+        if (reservation != null && reservation.getId() != null) {
+            put(Kind.RESERVATION, reservation.getId(), reservationValues(reservation.getGuestName(),
+                    reservation.getContactNo(), reservation.getReservationNo(), reservation.getExternalRefNo()));
+        }
+    }
+
+    /**
+     * Index a saved check-in once the surrounding transaction commits
+     */
+    public void checkinSaved(Checkin checkin) {
+        if (checkin != null && checkin.getId() != null) {
+            put(Kind.CHECKIN, checkin.getId(), checkinValues(checkin.getGuestName(), checkin.getContactNo(),
+                    checkin.getFolioNo(), checkin.getReservationNo(), checkin.getBillNo(), checkin.getRoomNo()));
+        }
+    }
+
+    /**
+     * Index a saved advance once the surrounding transaction commits
+     */
+    public void advanceSaved(Advances advance) {
+        if (advance != null && advance.getAdvancesId() != null) {
+            put(Kind.ADVANCE, advance.getAdvancesId(), advanceValues(advance.getGuestName(), advance.getFolioNo(),
+                    advance.getReservationNo(), advance.getReferenceNo(), advance.getBillNo(), advance.getRoomNo()));
+        }
+    }
+
+    /**
+     * Index a saved post transaction once the surrounding transaction commits
+     */
+    public void transactionSaved(PostTransaction transaction) {
+        if (transaction != null && transaction.getId() != null) {
+            put(Kind.TRANSACTION, transaction.getId(), transactionValues(transaction.getGuestName(),
+                    transaction.getFolioNo(), transaction.getReservationNo(), transaction.getBillNo(),
+                    transaction.getRoomNo(), transaction.getAccHead(), transaction.getNarration()));
+        }
+    }
+
+    /**
+     * Index the post transactions written straight to the table for some
+     * folios on one date, once the surrounding transaction commits
+     *
+     * @param folioNos  the folios posted to
+     * @param transDate the transaction date of the postings
+     */
+    public void transactionsPosted(Collection<String> folioNos, LocalDate transDate) {
+        if (folioNos.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>(folioNos);
+        args.add(Date.valueOf(transDate));
+        String sql = TRANSACTION_COLUMNS + " WHERE folio_no IN ("
+                + String.join(",", Collections.nCopies(folioNos.size(), "?")) + ") AND trans_date = ?";
+        afterCommit(() -> {
+            List<Object[]> rows = jdbcTemplate.query(sql, (rs, rowNum) -> new Object[] {
+                    rs.getLong(1), transactionValues(rs.getString(2), rs.getString(3), rs.getString(4),
+                            rs.getString(5), rs.getString(6), rs.getString(7), rs.getString(8)) },
+                    args.toArray());
+            apply(target -> {
+                for (Object[] row : rows) {
+                    target.put(Kind.TRANSACTION.ordinal(), (Long) row[0], (String[]) row[1]);
+                }
+            });
+        });
+    }
+
+    /**
+     * Index a saved maintenance request once the surrounding transaction commits
+     */
+    public void maintenanceSaved(Maintenance maintenance) {
+        if (maintenance != null && maintenance.getId() != null) {
+            put(Kind.MAINTENANCE, maintenance.getId(), maintenanceValues(maintenance.getTicketNo(),
+                    maintenance.getRoomNo(), maintenance.getArea(), maintenance.getIssueType(),
+                    maintenance.getDescription(), maintenance.getVendorName()));
+        }
+    }
+
+    /**
+     * Drop a deleted row once the surrounding transaction commits
+     *
+     * @param kind the kind of row
+     * @param id   its id
+     */
+    public void removed(Kind kind, Number id) {
+        if (id == null) {
+            return;
+        }
+        afterCommit(() -> apply(target -> target.remove(kind.ordinal(), id.longValue())));
+    }
+
+    /**
+     * Build the index again from the database. Searches keep using the
+     * current index until the new one is ready.
+     */
+    public void rebuild() {
+        synchronized (buildLock) {
+            build();
+        }
+    }
+
+    /**
+     * @return the documents and distinct terms indexed, building the index if needed
+     */
+    public Map<String, Object> getStatistics() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return Map.of("documents", index.size(), "terms", index.termCount());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<TermIndex.Hit> find(String query, Set<Kind> kinds, Set<Field> fields, int limit) {
+        ensureLoaded();
+        int kindMask = 0;
+        for (Kind kind : kinds) {
+            kindMask |= 1 << kind.ordinal();
+        }
+        int fieldMask = 0;
+        for (Field field : fields) {
+            fieldMask |= 1 << field.ordinal();
+        }
+        lock.readLock().lock();
+        try {
+            return index.search(query, kindMask, fieldMask, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Kind kind, Number id, String[] values) {
+        afterCommit(() -> apply(target -> target.put(kind.ordinal(), id.longValue(), values)));
+    }
+
+    /**
+     * Apply a committed change to the index being searched, and keep it for
+     * the index being built, if any. With neither, the change is dropped: the
+     * first build reads the row.
+     */
+    private void apply(Consumer<TermIndex> update) {
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                update.accept(index);
+            }
+            if (pending != null) {
+                pending.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Build the index unless it is built; only a search before the first
+     * build has finished waits for it
+     */
+    private void ensureLoaded() {
+        if (index != null) {
+            return;
+        }
+        synchronized (buildLock) {
+            if (index == null) {
+                build();
+            }
+        }
+    }
+
+    /**
+     * Read the tables into a new index and swap it in. Changes committed
+     * during the read are replayed onto it first; a put or remove by id gives
+     * the same result whether or not the read already saw the change.
+     * Called holding buildLock.
+     */
+    private void build() {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        TermIndex built = null;
+        try {
+            built = load();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (built != null) {
+                    for (Consumer<TermIndex> update : pending) {
+                        update.accept(built);
+                    }
+                    index = built;
+                }
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private TermIndex load() {
+        long started = System.currentTimeMillis();
+        float[] weights = new float[Field.values().length];
+        for (Field field : Field.values()) {
+            weights[field.ordinal()] = field.weight;
+        }
+        BitSet digitFields = new BitSet();
+        digitFields.set(Field.PHONE.ordinal());
+        TermIndex built = new TermIndex(Kind.values().length, weights, digitFields);
+
+        loadTable(built, Kind.RESERVATION, RESERVATION_COLUMNS, "id", rs -> reservationValues(rs.getString(2),
+                rs.getString(3), rs.getString(4), rs.getString(5)));
+        loadTable(built, Kind.CHECKIN, CHECKIN_COLUMNS, "checkin_id", rs -> checkinValues(rs.getString(2),
+                rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6), rs.getString(7)));
+        loadTable(built, Kind.ADVANCE, ADVANCE_COLUMNS, "id", rs -> advanceValues(rs.getString(2),
+                rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6), rs.getString(7)));
+        loadTable(built, Kind.TRANSACTION, TRANSACTION_COLUMNS, "id", rs -> transactionValues(rs.getString(2),
+                rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6), rs.getString(7),
+                rs.getString(8)));
+        loadTable(built, Kind.MAINTENANCE, MAINTENANCE_COLUMNS, "id", rs -> maintenanceValues(rs.getString(2),
+                rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6), rs.getString(7)));
+
+        logger.info("Built search index: {} documents, {} terms in {} ms", built.size(), built.termCount(),
+                System.currentTimeMillis() - started);
+        return built;
+    }
+
+    /**
+     * Read a table in id order, one page per query
+     */
+    private void loadTable(TermIndex built, Kind kind, String columns, String idColumn, RowValues values) {
+        String sql = columns + " WHERE " + idColumn + " > ? ORDER BY " + idColumn + " LIMIT " + LOAD_PAGE;
+        long after = 0;
+        while (true) {
+            List<Object[]> page = jdbcTemplate.query(sql,
+                    (rs, rowNum) -> new Object[] { rs.getLong(1), values.read(rs) }, after);
+            for (Object[] row : page) {
+                built.put(kind.ordinal(), (Long) row[0], (String[]) row[1]);
+            }
+            if (page.size() < LOAD_PAGE) {
+                return;
+            }
+            after = (Long) page.get(page.size() - 1)[0];
+        }
+    }
+
+    private static String[] reservationValues(String guestName, String contactNo, String reservationNo,
+            String externalRefNo) {
+        String[] values = new String[Field.values().length];
+        values[Field.NAME.ordinal()] = guestName;
+        values[Field.PHONE.ordinal()] = contactNo;
+        values[Field.RESERVATION.ordinal()] = reservationNo;
+        values[Field.REFERENCE.ordinal()] = externalRefNo;
+        return values;
+    }
+
+    private static String[] checkinValues(String guestName, String contactNo, String folioNo, String reservationNo,
+            String billNo, String roomNo) {
+        String[] values = new String[Field.values().length];
+        values[Field.NAME.ordinal()] = guestName;
+        values[Field.PHONE.ordinal()] = contactNo;
+        values[Field.FOLIO.ordinal()] = folioNo;
+        values[Field.RESERVATION.ordinal()] = reservationNo;
+        values[Field.REFERENCE.ordinal()] = billNo;
+        values[Field.ROOM.ordinal()] = roomNo;
+        return values;
+    }
+
+    private static String[] advanceValues(String guestName, String folioNo, String reservationNo, String receiptNo,
+            String billNo, String roomNo) {
+        String[] values = new String[Field.values().length];
+        values[Field.NAME.ordinal()] = guestName;
+        values[Field.FOLIO.ordinal()] = folioNo;
+        values[Field.RESERVATION.ordinal()] = reservationNo;
+        values[Field.REFERENCE.ordinal()] = join(receiptNo, billNo);
+        values[Field.ROOM.ordinal()] = roomNo;
+        return values;
+    }
+
+    private static String[] transactionValues(String guestName, String folioNo, String reservationNo, String billNo,
+            String roomNo, String accHead, String narration) {
+        String[] values = new String[Field.values().length];
+        values[Field.NAME.ordinal()] = guestName;
+        values[Field.FOLIO.ordinal()] = folioNo;
+        values[Field.RESERVATION.ordinal()] = reservationNo;
+        values[Field.REFERENCE.ordinal()] = billNo;
+        values[Field.ROOM.ordinal()] = roomNo;
+        values[Field.TEXT.ordinal()] = join(accHead, narration);
+        return values;
+    }
+
+    private static String[] maintenanceValues(String ticketNo, String roomNo, String area, String issueType,
+            String description, String vendorName) {
+        String[] values = new String[Field.values().length];
+        values[Field.REFERENCE.ordinal()] = ticketNo;
+        values[Field.ROOM.ordinal()] = roomNo;
+        values[Field.TEXT.ordinal()] = join(join(area, issueType), join(description, vendorName));
+        return values;
+    }
+
+    private static String join(String first, String second) {
+        if (first == null) {
+            return second;
+        }
+        return second == null ? first : first + " " + second;
+    }
+
+    /**
+     * Run an index update after the surrounding transaction commits, so a
+     * rolled back write never shows up in searches
+     */
+    private void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowValues {
+        String[] read(ResultSet rs) throws SQLException;
+    }
+}
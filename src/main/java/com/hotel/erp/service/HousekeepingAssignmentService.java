@@ -0,0 +1,388 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.HousekeepingDTO;
+import com.hotel.erp.dto.HousekeepingPlanDTO;
+import com.hotel.erp.dto.HousekeepingPlanDTO.RoomPlan;
+import com.hotel.erp.dto.HousekeepingPlanDTO.StaffPlan;
+import com.hotel.erp.dto.HousekeepingPlanRequestDTO;
+import com.hotel.erp.entity.Checkin;
+import com.hotel.erp.entity.Housekeeping;
+import com.hotel.erp.entity.Room;
+import com.hotel.erp.repository.CheckinRepository;
+import com.hotel.erp.repository.HousekeepingRepository;
+import com.hotel.erp.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Plans which room attendant cleans which room.
+ *
+ * The work of a day is every room with a guest departing (a full clean),
+ * every room with a guest staying over (a service) and every room with an
+ * open task. Each room is weighted in credits and the rooms are split
+ * between the attendants on duty so each gets a similar number of credits
+ * and as few floors as possible.
+ *
+ * A full plan sorts the rooms by floor and room number and cuts the list
+ * into one run per attendant, each cut made where the attendant reaches
+ * their share of the credits still to hand out. An incremental plan keeps
+ * every room with its attendant and places only new rooms, such as a late
+ * checkout turning a stayover into a departure, and the rooms of attendants
+ * no longer on duty, each with whoever ends up least loaded, counting a
+ * move to another floor as extra credits. Both are single greedy passes and
+ * take well under a millisecond for a few hundred rooms.
+ *
+ * Rooms already in progress always stay with their attendant. The plan is
+ * saved through {@link HousekeepingService}: a task is created for each
+ * room without one and assigned with {@link HousekeepingService#assignTask}.
+ */
+@Service
+public class HousekeepingAssignmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HousekeepingAssignmentService.class);
+
+    private static final String PENDING = "Pending";
+    private static final String IN_PROGRESS = "In Progress";
+    private static final List<String> OPEN_STATUSES = List.of(PENDING, IN_PROGRESS);
+
+    private static final String DEPARTURE = "DEPARTURE";
+    private static final String STAYOVER = "STAYOVER";
+    private static final String TASK = "TASK";
+
+    /** Floor, then room number with shorter numbers first so "90" comes before "100" */
+    private static final Comparator<Unit> ROUTE_ORDER = Comparator
+            .comparing((Unit unit) -> unit.floor, Comparator.nullsLast(Integer::compare))
+            .thenComparingInt(unit -> unit.roomNo.length())
+            .thenComparing(unit -> unit.roomNo);
+
+    private final HousekeepingRepository housekeepingRepository;
+    private final CheckinRepository checkinRepository;
+    private final RoomRepository roomRepository;
+    private final HousekeepingService housekeepingService;
+    private final double departureCredits;
+    private final double stayoverCredits;
+    private final double taskCredits;
+    private final double floorChangeCredits;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public HousekeepingAssignmentService(HousekeepingRepository housekeepingRepository,
+            CheckinRepository checkinRepository, RoomRepository roomRepository,
+            HousekeepingService housekeepingService, PlatformTransactionManager transactionManager,
+            @Value("${hotel.housekeeping.departure-credits:2}") double departureCredits,
+            @Value("${hotel.housekeeping.stayover-credits:1}") double stayoverCredits,
+            @Value("${hotel.housekeeping.task-credits:1}") double taskCredits,
+            @Value("${hotel.housekeeping.floor-change-credits:1}") double floorChangeCredits) {
+        this.housekeepingRepository = housekeepingRepository;
+        this.checkinRepository = checkinRepository;
+        this.roomRepository = roomRepository;
+        this.housekeepingService = housekeepingService;
+        this.departureCredits = departureCredits;
+        this.stayoverCredits = stayoverCredits;
+        this.taskCredits = taskCredits;
+        this.floorChangeCredits = floorChangeCredits;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Plan a day's assignments and, unless it is a dry run, save them. A
+     * saved plan is read and written in one transaction, committed before the
+     * next plan starts, so a failure part way leaves no half-assigned day.
+     *
+     * @param request the attendants on duty, the day and the planning mode
+     * @return the plan, per attendant in route order
+     * @throws IllegalArgumentException if nobody is on duty, or a later day
+     *                                  is to be saved
+     */
+    public synchronized HousekeepingPlanDTO plan(HousekeepingPlanRequestDTO request) {
+        if (request.isDryRun()) {
+            return buildPlan(request);
+        }
+        return transactionTemplate.execute(status -> buildPlan(request));
+    }
+
+    private HousekeepingPlanDTO buildPlan(HousekeepingPlanRequestDTO request) {
+        LocalDate today = LocalDate.now();
+        LocalDate date = request.getDate() != null ? request.getDate() : today;
+        if (!request.isDryRun() && date.isAfter(today)) {
+            throw new IllegalArgumentException("Only today's plan can be saved; use dryRun to preview " + date);
+        }
+
+        Map<String, Unit> units = loadWork(date);
+        List<String> staff = staffOnDuty(request.getStaff(), units);
+        if (staff.isEmpty()) {
+            throw new IllegalArgumentException("No staff on duty: list the attendants to plan for");
+        }
+
+        long started = System.nanoTime();
+        Map<String, Load> loads = new LinkedHashMap<>();
+        staff.forEach(name -> loads.put(name, new Load()));
+        List<Unit> free = new ArrayList<>();
+        for (Unit unit : units.values()) {
+            Load kept = unit.previousStaff != null ? loads.get(unit.previousStaff) : null;
+            if (kept != null && (unit.started || request.isIncremental())) {
+                kept.add(unit);
+            } else {
+                free.add(unit);
+            }
+        }
+        if (request.isIncremental()) {
+            placeLeastLoaded(free, loads);
+        } else {
+            sweep(free, loads, staff);
+        }
+        logger.debug("Planned {} rooms ({} placed) for {} staff in {} us", units.size(), free.size(), staff.size(),
+                (System.nanoTime() - started) / 1000);
+
+        HousekeepingPlanDTO plan = new HousekeepingPlanDTO();
+        plan.setDate(date);
+        plan.setIncremental(request.isIncremental());
+        plan.setDryRun(request.isDryRun());
+        plan.setRooms(units.size());
+        for (Map.Entry<String, Load> entry : loads.entrySet()) {
+            String name = entry.getKey();
+            Load load = entry.getValue();
+            load.units.sort(ROUTE_ORDER);
+
+            StaffPlan staffPlan = new StaffPlan();
+            staffPlan.setStaff(name);
+            staffPlan.setCredits(load.credits);
+            staffPlan.setFloors(new ArrayList<>(load.floors));
+            for (Unit unit : load.units) {
+                if (unit.tasks.isEmpty()) {
+                    plan.setTasksCreated(plan.getTasksCreated() + 1);
+                    if (!request.isDryRun()) {
+                        unit.tasks.add(createTask(unit, date, request.getUserId()));
+                    }
+                }
+                for (Housekeeping task : unit.tasks) {
+                    if (!name.equals(task.getAssignedTo())) {
+                        plan.setTasksReassigned(plan.getTasksReassigned() + 1);
+                        if (!request.isDryRun()) {
+                            housekeepingService.assignTask(task.getId(), name);
+                        }
+                    }
+                }
+                staffPlan.getRooms().add(toRoomPlan(unit));
+            }
+            plan.setTotalCredits(plan.getTotalCredits() + load.credits);
+            plan.getStaff().add(staffPlan);
+        }
+
+        logger.info("Housekeeping plan for {}: {} rooms over {} staff, {} tasks created, {} assigned{}", date,
+                units.size(), staff.size(), plan.getTasksCreated(), plan.getTasksReassigned(),
+                request.isDryRun() ? " (dry run)" : "");
+        return plan;
+    }
+
+    /**
+     * Collect the rooms to clean on a date, keyed by room number
+     */
+    private Map<String, Unit> loadWork(LocalDate date) {
+        Map<String, Integer> floors = new HashMap<>();
+        for (Room room : roomRepository.findAll()) {
+            floors.put(room.getRoomNo(), room.getFloor());
+        }
+
+        Map<String, Unit> units = new HashMap<>();
+        for (Checkin checkin : checkinRepository.findStaysOccupyingOn(date)) {
+            boolean departure = date.equals(checkin.getCheckOutDate());
+            // a guest arriving today gets a room that was readied for them
+            if (!departure && !checkin.getCheckInDate().isBefore(date)) {
+                continue;
+            }
+            for (String roomNo : splitRooms(checkin.getRoomNo())) {
+                Unit unit = units.computeIfAbsent(roomNo, no -> new Unit(no, floors.get(no)));
+                if (departure || !DEPARTURE.equals(unit.kind)) {
+                    unit.kind = departure ? DEPARTURE : STAYOVER;
+                }
+            }
+        }
+        for (Housekeeping task : housekeepingRepository.findByStatusInAndTaskDateLessThanEqual(OPEN_STATUSES, date)) {
+            Unit unit = units.computeIfAbsent(task.getRoomNo(), no -> new Unit(no, floors.get(no)));
+            unit.tasks.add(task);
+            unit.started |= IN_PROGRESS.equals(task.getStatus());
+            if (unit.previousStaff == null && task.getAssignedTo() != null && !task.getAssignedTo().isBlank()) {
+                unit.previousStaff = task.getAssignedTo().trim();
+            }
+        }
+        for (Unit unit : units.values()) {
+            unit.credits = DEPARTURE.equals(unit.kind) ? departureCredits
+                    : STAYOVER.equals(unit.kind) ? stayoverCredits : taskCredits;
+        }
+        return units;
+    }
+
+    /**
+     * The attendants to plan for: those named, else whoever holds open tasks
+     */
+    private static List<String> staffOnDuty(List<String> requested, Map<String, Unit> units) {
+        Set<String> staff = new LinkedHashSet<>();
+        if (requested != null) {
+            for (String name : requested) {
+                if (name != null && !name.isBlank()) {
+                    staff.add(name.trim());
+                }
+            }
+        }
+        if (staff.isEmpty()) {
+            units.values().stream().sorted(ROUTE_ORDER).forEach(unit -> {
+                if (unit.previousStaff != null) {
+                    staff.add(unit.previousStaff);
+                }
+            });
+        }
+        return new ArrayList<>(staff);
+    }
+
+    /**
+     * Full plan: walk the rooms in floor order, giving each attendant a run
+     * of rooms until they reach their share of the credits left, so each
+     * attendant works one stretch of the building
+     */
+    private static void sweep(List<Unit> free, Map<String, Load> loads, List<String> staff) {
+        free.sort(ROUTE_ORDER);
+        double pool = 0;
+        for (Unit unit : free) {
+            pool += unit.credits;
+        }
+        for (Load load : loads.values()) {
+            pool += load.credits;
+        }
+
+        int current = 0;
+        for (Unit unit : free) {
+            while (current < staff.size() - 1) {
+                Load load = loads.get(staff.get(current));
+                double share = pool / (staff.size() - current);
+                // take the room if that leaves the attendant nearer their share than not
+                if (load.credits + unit.credits / 2 <= share) {
+                    break;
+                }
+                pool -= load.credits;
+                current++;
+            }
+            loads.get(staff.get(current)).add(unit);
+        }
+    }
+
+    /**
+     * Incremental plan: place each room, largest first, with the attendant
+     * whose load plus the room and any floor change comes to least
+     */
+    private void placeLeastLoaded(List<Unit> free, Map<String, Load> loads) {
+        free.sort(Comparator.comparingDouble((Unit unit) -> -unit.credits).thenComparing(ROUTE_ORDER));
+        for (Unit unit : free) {
+            Load best = null;
+            double bestCost = Double.MAX_VALUE;
+            for (Load load : loads.values()) {
+                double cost = load.credits + floorChangeCredits * load.floorDistance(unit.floor);
+                if (cost < bestCost) {
+                    best = load;
+                    bestCost = cost;
+                }
+            }
+            best.add(unit);
+        }
+    }
+
+    private Housekeeping createTask(Unit unit, LocalDate date, Integer userId) {
+        HousekeepingDTO task = new HousekeepingDTO();
+        task.setRoomNo(unit.roomNo);
+        task.setStatus(PENDING);
+        task.setTaskDate(date);
+        task.setRemarks(DEPARTURE.equals(unit.kind) ? "Departure clean" : "Stayover service");
+        task.setUserId(userId);
+        return housekeepingService.createTask(task);
+    }
+
+    private static RoomPlan toRoomPlan(Unit unit) {
+        RoomPlan room = new RoomPlan();
+        room.setRoomNo(unit.roomNo);
+        room.setFloor(unit.floor);
+        room.setKind(unit.kind);
+        room.setCredits(unit.credits);
+        room.setPreviousStaff(unit.previousStaff);
+        room.setStarted(unit.started);
+        for (Housekeeping task : unit.tasks) {
+            room.getTaskIds().add(task.getId());
+        }
+        return room;
+    }
+
+    private static List<String> splitRooms(String roomNo) {
+        List<String> roomNos = new ArrayList<>();
+        if (roomNo != null) {
+            for (String part : roomNo.split(",")) {
+                if (!part.isBlank()) {
+                    roomNos.add(part.trim());
+                }
+            }
+        }
+        return roomNos;
+    }
+
+    /** A room to clean and its open tasks */
+    private static final class Unit {
+        private final String roomNo;
+        private final Integer floor;
+        private final List<Housekeeping> tasks = new ArrayList<>();
+        private String kind = TASK;
+        private double credits;
+        private String previousStaff;
+        private boolean started;
+
+        Unit(String roomNo, Integer floor) {
+            this.roomNo = roomNo;
+            this.floor = floor;
+        }
+    }
+
+    /** An attendant's rooms so far */
+    private static final class Load {
+        private final List<Unit> units = new ArrayList<>();
+        private final TreeSet<Integer> floors = new TreeSet<>();
+        private double credits;
+
+        void add(Unit unit) {
+            units.add(unit);
+            credits += unit.credits;
+            if (unit.floor != null) {
+                floors.add(unit.floor);
+            }
+        }
+
+        /** Floors to the nearest floor the attendant already works, 0 if none yet */
+        int floorDistance(Integer floor) {
+            if (floor == null || floors.isEmpty() || floors.contains(floor)) {
+                return 0;
+            }
+            Integer below = floors.lower(floor);
+            Integer above = floors.higher(floor);
+            int distance = Integer.MAX_VALUE;
+            if (below != null) {
+                distance = floor - below;
+            }
+            if (above != null) {
+                distance = Math.min(distance, above - floor);
+            }
+            return distance;
+        }
+    }
+}
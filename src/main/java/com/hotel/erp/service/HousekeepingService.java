@@ -1,6 +1,7 @@
 package com.hotel.erp.service;
 
 import com.hotel.erp.dto.HousekeepingDTO;
+import com.hotel.erp.dto.TaskCountsDTO;
 import com.hotel.erp.entity.Housekeeping;
 import com.hotel.erp.repository.HousekeepingRepository;
 import org.slf4j.Logger;
@@ -26,6 +27,9 @@ public class HousekeepingService {
     @Autowired
     private HousekeepingRepository housekeepingRepository;
 
+    @Autowired
+    private RoomStatusBoard roomStatusBoard;
+
     /**
      * Create a new housekeeping task
      */
@@ -58,6 +62,7 @@ public class HousekeepingService {
             task.setUserId(taskDTO.getUserId());
 
             Housekeeping savedTask = housekeepingRepository.save(task);
+            roomStatusBoard.housekeepingChanged(savedTask.getRoomNo());
 
             logger.info("Housekeeping task created successfully with ID: {}", savedTask.getId());
             return savedTask;
@@ -119,15 +124,12 @@ public class HousekeepingService {
         try {
             Map<String, Object> summary = new HashMap<>();
 
-            List<Housekeeping> allTasks = getAllTasks();
-            List<Housekeeping> pendingTasks = getTasksByStatus("Pending");
-            List<Housekeeping> completedTasks = getTasksByStatus("Completed");
-            List<Housekeeping> todayTasks = getTodayTasks();
+            TaskCountsDTO counts = housekeepingRepository.getTaskCounts(LocalDate.now());
 
-            summary.put("totalTasks", allTasks.size());
-            summary.put("pendingTasks", pendingTasks.size());
-            summary.put("completedTasks", completedTasks.size());
-            summary.put("todayTasks", todayTasks.size());
+            summary.put("totalTasks", counts.getTotalTasks());
+            summary.put("pendingTasks", counts.getPendingTasks());
+            summary.put("completedTasks", counts.getCompletedTasks());
+            summary.put("todayTasks", counts.getTodayTasks());
 
             logger.info("Retrieved task summary");
             return summary;
@@ -170,6 +172,7 @@ public class HousekeepingService {
             }
 
             Housekeeping task = taskOpt.get();
+            String previousRoomNo = task.getRoomNo();
 
             // Update fields
             if (taskDTO.getRoomNo() != null) {
@@ -192,6 +195,10 @@ public class HousekeepingService {
             }
 
             Housekeeping updatedTask = housekeepingRepository.save(task);
+            roomStatusBoard.housekeepingChanged(updatedTask.getRoomNo());
+            if (!updatedTask.getRoomNo().equals(previousRoomNo)) {
+                roomStatusBoard.housekeepingChanged(previousRoomNo);
+            }
 
             logger.info("Task updated successfully with ID: {}", updatedTask.getId());
             return updatedTask;
@@ -211,11 +218,13 @@ public class HousekeepingService {
         logger.info("Deleting task with ID: {}", taskId);
 
         try {
-            if (!housekeepingRepository.existsById(taskId)) {
+            Optional<Housekeeping> taskOpt = housekeepingRepository.findById(taskId);
+            if (taskOpt.isEmpty()) {
                 throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Task not found");
             }
 
             housekeepingRepository.deleteById(taskId);
+            roomStatusBoard.housekeepingChanged(taskOpt.get().getRoomNo());
             logger.info("Task deleted successfully with ID: {}", taskId);
 
         } catch (ResponseStatusException e) {
@@ -274,6 +283,7 @@ public class HousekeepingService {
             task.setStatus(status);
 
             Housekeeping updatedTask = housekeepingRepository.save(task);
+            roomStatusBoard.housekeepingChanged(updatedTask.getRoomNo());
 
             logger.info("Task status updated successfully for ID: {}", updatedTask.getId());
             return updatedTask;
@@ -302,6 +312,7 @@ public class HousekeepingService {
             task.setAssignedTo(assignedTo);
 
             Housekeeping updatedTask = housekeepingRepository.save(task);
+            roomStatusBoard.housekeepingChanged(updatedTask.getRoomNo());
 
             logger.info("Task assigned successfully for ID: {}", updatedTask.getId());
             return updatedTask;
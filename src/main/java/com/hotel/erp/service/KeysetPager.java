@@ -0,0 +1,326 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.CursorPage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.Attribute;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Keyset (cursor) pagination shared by the list endpoints of the large tables.
+ *
+ * Pages are ordered by the id, or by a date column with the id as tie
+ * breaker, and each page starts after the last row of the previous one
+ * instead of at an offset, so every page costs the same index range read no
+ * matter how deep the client scrolls. The cursor is an opaque string that
+ * records the sort and the last row's key.
+ *
+ * Rows with a null date come first in ascending date order and last in
+ * descending order, which is how MySQL sorts nulls.
+ */
+@Service
+public class KeysetPager {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 1000;
+
+    /** Rows read per query when streaming a whole list */
+    static final int STREAM_BATCH = 500;
+
+    private static final String NULL_VALUE = "~";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Read one page
+     *
+     * @param keyset the entity and sort to page through
+     * @param cursor the nextCursor of the previous page, or null for the first page
+     * @param limit  the page size, default {@value #DEFAULT_LIMIT}
+     * @return the page
+     */
+    public <T> CursorPage<T> page(Keyset<T> keyset, String cursor, Integer limit) {
+        int size = limit != null ? limit : DEFAULT_LIMIT;
+        if (size < 1 || size > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        List<T> rows = fetch(keyset, decode(keyset, cursor), size + 1);
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, size));
+        return new CursorPage<>(items, encode(keyset, positionOf(keyset, items.get(size - 1))));
+    }
+
+    /**
+     * Prepare a scan of every row after the cursor in page order. The sort and
+     * cursor are checked now; rows are read {@value #STREAM_BATCH} at a time
+     * when the scan runs, which should be outside a transaction so each batch
+     * is detached once read and memory stays flat.
+     *
+     * @param keyset the entity and sort to page through
+     * @param cursor where to start, or null for the beginning
+     * @return the scan
+     */
+    public <T> Scan<T> scan(Keyset<T> keyset, String cursor) {
+        Position start = decode(keyset, cursor);
+        return action -> {
+            Position position = start;
+            while (true) {
+                List<T> rows = fetch(keyset, position, STREAM_BATCH);
+                rows.forEach(action);
+                if (rows.size() < STREAM_BATCH) {
+                    return;
+                }
+                position = positionOf(keyset, rows.get(rows.size() - 1));
+            }
+        };
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private <T> List<T> fetch(Keyset<T> keyset, Position position, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(keyset.entityClass);
+        Root<T> root = query.from(keyset.entityClass);
+        Path<Comparable> id = root.get(keyset.idAttribute);
+        Path<Comparable> sort = keyset.sortAttribute != null ? root.get(keyset.sortAttribute) : null;
+        boolean desc = keyset.descending;
+        List<Predicate> where = new ArrayList<>();
+
+        if (keyset.fromDate != null) {
+            where.add(cb.greaterThanOrEqualTo(root.<LocalDate>get(keyset.dateAttribute), keyset.fromDate));
+        }
+        if (keyset.toDate != null) {
+            where.add(cb.lessThanOrEqualTo(root.<LocalDate>get(keyset.dateAttribute), keyset.toDate));
+        }
+        keyset.filters.forEach((attribute, value) -> where.add(cb.equal(root.get(attribute), value)));
+
+        if (position != null) {
+            Comparable lastId = (Comparable) position.id;
+            Predicate afterId = desc ? cb.lessThan(id, lastId) : cb.greaterThan(id, lastId);
+            Predicate after;
+            if (sort == null) {
+                after = afterId;
+            } else if (position.sortValue == null) {
+                // inside the null group: asc moves on to the dated rows, desc has only nulls left
+                Predicate sameGroup = cb.and(cb.isNull(sort), afterId);
+                after = desc ? sameGroup : cb.or(sameGroup, cb.isNotNull(sort));
+            } else {
+                Comparable lastSort = (Comparable) position.sortValue;
+                Predicate later = cb.or(
+                        desc ? cb.lessThan(sort, lastSort) : cb.greaterThan(sort, lastSort),
+                        cb.and(cb.equal(sort, lastSort), afterId));
+                after = desc ? cb.or(later, cb.isNull(sort)) : later;
+            }
+            where.add(after);
+        }
+        query.where(where.toArray(new Predicate[0]));
+
+        List<Order> order = new ArrayList<>();
+        if (sort != null) {
+            order.add(desc ? cb.desc(sort) : cb.asc(sort));
+        }
+        order.add(desc ? cb.desc(id) : cb.asc(id));
+        query.select(root).orderBy(order);
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private <T> Position positionOf(Keyset<T> keyset, T row) {
+        Object sortValue = keyset.sortAttribute != null ? read(keyset, keyset.sortAttribute, row) : null;
+        return new Position(sortValue, read(keyset, keyset.idAttribute, row));
+    }
+
+    private <T> Object read(Keyset<T> keyset, String attributeName, T row) {
+        Attribute<? super T, ?> attribute = entityManager.getMetamodel().entity(keyset.entityClass)
+                .getAttribute(attributeName);
+        try {
+            Field field = (Field) attribute.getJavaMember();
+            field.setAccessible(true);
+            return field.get(row);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read " + attributeName + " of " + keyset.entityClass, e);
+        }
+    }
+
+    private <T> String encode(Keyset<T> keyset, Position position) {
+        String sortValue = position.sortValue == null ? NULL_VALUE : position.sortValue.toString();
+        String raw = keyset.signature() + "|" + sortValue + "|" + position.id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private <T> Position decode(Keyset<T> keyset, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 4 || !keyset.signature().equals(parts[0] + "|" + parts[1])) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
+            }
+            Object sortValue = null;
+            if (keyset.sortAttribute != null && !NULL_VALUE.equals(parts[2])) {
+                sortValue = parse(keyset, keyset.sortAttribute, parts[2]);
+            }
+            return new Position(sortValue, parse(keyset, keyset.idAttribute, parts[3]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + e.getMessage());
+        }
+    }
+
+    private <T> Object parse(Keyset<T> keyset, String attributeName, String value) {
+        Class<?> type = entityManager.getMetamodel().entity(keyset.entityClass)
+                .getAttribute(attributeName).getJavaType();
+        if (type == Long.class || type == long.class) {
+            return Long.valueOf(value);
+        }
+        if (type == Integer.class || type == int.class) {
+            return Integer.valueOf(value);
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.parse(value);
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(value);
+        }
+        return value;
+    }
+
+    private record Position(Object sortValue, Object id) {
+    }
+
+    /**
+     * A prepared pass over a list, see {@link KeysetPager#scan(Keyset, String)}
+     */
+    @FunctionalInterface
+    public interface Scan<T> {
+        void forEach(Consumer<? super T> action);
+    }
+
+    /**
+     * The entity to page through and its sort: the id column, or a date column
+     * with the id as tie breaker, ascending or descending
+     */
+    public static final class Keyset<T> {
+        private final Class<T> entityClass;
+        private final String idAttribute;
+        private final String dateAttribute;
+        private final String sortAttribute;
+        private final boolean descending;
+        private final LocalDate fromDate;
+        private final LocalDate toDate;
+        private final Map<String, Object> filters;
+
+        private Keyset(Class<T> entityClass, String idAttribute, String dateAttribute, String sortAttribute,
+                boolean descending, LocalDate fromDate, LocalDate toDate, Map<String, Object> filters) {
+            this.entityClass = entityClass;
+            this.idAttribute = idAttribute;
+            this.dateAttribute = dateAttribute;
+            this.sortAttribute = sortAttribute;
+            this.descending = descending;
+            this.fromDate = fromDate;
+            this.toDate = toDate;
+            this.filters = filters;
+        }
+
+        /**
+         * @param entityClass   the entity
+         * @param idAttribute   its id attribute
+         * @param dateAttribute the date attribute used for sort=date
+         */
+        public static <T> Keyset<T> of(Class<T> entityClass, String idAttribute, String dateAttribute) {
+            return new Keyset<>(entityClass, idAttribute, dateAttribute, null, false, null, null, Map.of());
+        }
+
+        /**
+         * Choose the sort from request parameters
+         *
+         * @param sort      "id" (default) or "date"
+         * @param direction "asc" (default) or "desc"
+         * @return the keyset with that sort
+         */
+        public Keyset<T> sortedBy(String sort, String direction) {
+            String sortAttribute;
+            if (sort == null || sort.isBlank() || "id".equalsIgnoreCase(sort)) {
+                sortAttribute = null;
+            } else if ("date".equalsIgnoreCase(sort)) {
+                sortAttribute = dateAttribute;
+            } else {
+                throw new IllegalArgumentException("sort must be 'id' or 'date'");
+            }
+            boolean desc;
+            if (direction == null || direction.isBlank() || "asc".equalsIgnoreCase(direction)) {
+                desc = false;
+            } else if ("desc".equalsIgnoreCase(direction)) {
+                desc = true;
+            } else {
+                throw new IllegalArgumentException("direction must be 'asc' or 'desc'");
+            }
+            return new Keyset<>(entityClass, idAttribute, dateAttribute, sortAttribute, desc, fromDate, toDate,
+                    filters);
+        }
+
+        /**
+         * Restrict the rows to a range of the date attribute
+         *
+         * @param from the first date, or null for no lower bound
+         * @param to   the last date, or null for no upper bound
+         * @return the keyset with that range
+         */
+        public Keyset<T> between(LocalDate from, LocalDate to) {
+            if (from != null && to != null && to.isBefore(from)) {
+                throw new IllegalArgumentException("to must not be before from");
+            }
+            return new Keyset<>(entityClass, idAttribute, dateAttribute, sortAttribute, descending, from, to,
+                    filters);
+        }
+
+        /**
+         * Restrict the rows to those with one attribute equal to a value, e.g.
+         * the movements of one item. Filters add up. The cursor does not record
+         * them, so pass the same filters with every page.
+         *
+         * @param attribute the attribute, which should lead an index with the id
+         * @param value     the value it must equal, or null for no filter
+         * @return the keyset with that filter
+         */
+        public Keyset<T> where(String attribute, Object value) {
+            if (value == null) {
+                return this;
+            }
+            Map<String, Object> added = new LinkedHashMap<>(filters);
+            added.put(attribute, value);
+            return new Keyset<>(entityClass, idAttribute, dateAttribute, sortAttribute, descending, fromDate, toDate,
+                    Collections.unmodifiableMap(added));
+        }
+
+        public Class<T> getEntityClass() {
+            return entityClass;
+        }
+
+        private String signature() {
+            return (sortAttribute != null ? sortAttribute : idAttribute) + "|" + (descending ? "desc" : "asc");
+        }
+    }
+}
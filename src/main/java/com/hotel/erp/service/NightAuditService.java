@@ -0,0 +1,252 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.entity.Checkin;
+import com.hotel.erp.entity.NightAuditRun;
+import com.hotel.erp.entity.PostTransaction;
+import com.hotel.erp.entity.Shift;
+import com.hotel.erp.repository.CheckinRepository;
+import com.hotel.erp.repository.NightAuditRunRepository;
+import com.hotel.erp.repository.ShiftRepository;
+import com.hotel.erp.service.DailyRevenueService.Entry;
+import com.hotel.erp.service.FolioBalanceService.Ledger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Night audit: posts one night of room rent and tax to every folio in house
+ * on the audit date, then moves the audit date on.
+ *
+ * In-house checkins are processed in checkin id order, in chunks. Each chunk
+ * inserts its post_transaction rows as one JDBC batch, updates the folio
+ * ledger and moves the run's checkpoint in a single transaction, so a failed
+ * or interrupted audit is resumed by running it again and no folio is charged
+ * twice for the same audit date.
+ */
+@Service
+public class NightAuditService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NightAuditService.class);
+
+    private static final String INSERT_POSTING = "INSERT INTO post_transaction "
+            + "(room_no, audit_date, guest_name, folio_no, trans_date, acc_head, voucher_no, amount, narration, "
+            + "user_id, transaction_status, created_on, updated_on, reservation_no, transaction_type) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final CheckinRepository checkinRepository;
+    private final NightAuditRunRepository nightAuditRunRepository;
+    private final ShiftRepository shiftRepository;
+    private final FolioBalanceService folioBalanceService;
+    private final DailyRevenueService dailyRevenueService;
+    private final GuestSearchIndex guestSearchIndex;
+    private final TaxRateTable taxRateTable;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final String roomRentHead;
+    private final String roomTaxHead;
+
+    @Autowired
+    public NightAuditService(CheckinRepository checkinRepository, NightAuditRunRepository nightAuditRunRepository,
+            ShiftRepository shiftRepository, FolioBalanceService folioBalanceService,
+            DailyRevenueService dailyRevenueService, GuestSearchIndex guestSearchIndex, TaxRateTable taxRateTable,
+            JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            @Value("${hotel.night-audit.chunk-size:200}") int chunkSize,
+            @Value("${hotel.night-audit.room-rent-head:ROOM RENT}") String roomRentHead,
+            @Value("${hotel.night-audit.room-tax-head:ROOM TAX}") String roomTaxHead) {
+        this.checkinRepository = checkinRepository;
+        this.nightAuditRunRepository = nightAuditRunRepository;
+        this.shiftRepository = shiftRepository;
+        this.folioBalanceService = folioBalanceService;
+        this.dailyRevenueService = dailyRevenueService;
+        this.guestSearchIndex = guestSearchIndex;
+        this.taxRateTable = taxRateTable;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.roomRentHead = roomRentHead;
+        this.roomTaxHead = roomTaxHead;
+    }
+
+    /**
+     * Get the date the next night audit will run for: the latest shift's audit
+     * date, else the day after the last completed audit, else today
+     *
+     * @return the current audit date
+     */
+    public LocalDate getCurrentAuditDate() {
+        return shiftRepository.findTopByOrderByShiftNumberDesc()
+                .map(Shift::getAuditDate)
+                .map(LocalDateTime::toLocalDate)
+                .or(() -> nightAuditRunRepository.findTopByStatusOrderByAuditDateDesc(NightAuditRun.Status.COMPLETED)
+                        .map(run -> run.getAuditDate().plusDays(1)))
+                .orElse(LocalDate.now());
+    }
+
+    /**
+     * Run, or resume, the night audit for the current audit date. Running it
+     * again after it completed returns the completed run without posting.
+     *
+     * @param userId the user running the audit
+     * @return the audit run
+     */
+    public NightAuditRun runNightAudit(Integer userId) {
+        LocalDate auditDate = getCurrentAuditDate();
+        NightAuditRun run = startRun(auditDate, userId);
+        if (run.getStatus() == NightAuditRun.Status.COMPLETED) {
+            logger.info("Night audit for {} already completed", auditDate);
+            return run;
+        }
+
+        long started = System.currentTimeMillis();
+        logger.info("Night audit for {} starting after checkin {}", auditDate, run.getLastCheckinId());
+        Long runId = run.getId();
+        while (Boolean.TRUE.equals(transactionTemplate.execute(status -> postChunk(runId, userId)))) {
+            // keep posting chunks until no in-house checkin is left after the checkpoint
+        }
+
+        NightAuditRun completed = transactionTemplate.execute(status -> completeRun(runId));
+        logger.info("Night audit for {} completed: {} folios, rent {}, tax {} in {} ms", auditDate,
+                completed.getFoliosPosted(), completed.getRoomRentTotal(), completed.getTaxTotal(),
+                System.currentTimeMillis() - started);
+        return completed;
+    }
+
+    /**
+     * Get the audit run for a date
+     *
+     * @param auditDate the audit date
+     * @return the audit run
+     */
+    public NightAuditRun getRun(LocalDate auditDate) {
+        return nightAuditRunRepository.findByAuditDate(auditDate)
+                .orElseThrow(() -> new IllegalArgumentException("No night audit for " + auditDate));
+    }
+
+    private NightAuditRun startRun(LocalDate auditDate, Integer userId) {
+        NightAuditRun existing = nightAuditRunRepository.findByAuditDate(auditDate).orElse(null);
+        if (existing != null) {
+            return existing;
+        }
+        NightAuditRun run = new NightAuditRun();
+        run.setAuditDate(auditDate);
+        run.setStatus(NightAuditRun.Status.RUNNING);
+        run.setUserId(userId);
+        run.setStartedOn(LocalDateTime.now());
+        try {
+            return nightAuditRunRepository.saveAndFlush(run);
+        } catch (DataIntegrityViolationException e) {
+            // another audit for the same date started first; resume that one
+            return getRun(auditDate);
+        }
+    }
+
+    /**
+     * Post one chunk of in-house folios and move the checkpoint past them
+     *
+     * @return true if a chunk was posted, false if nothing was left
+     */
+    private boolean postChunk(Long runId, Integer userId) {
+        NightAuditRun run = nightAuditRunRepository.findForUpdate(runId)
+                .orElseThrow(() -> new IllegalStateException("Night audit run " + runId + " disappeared"));
+        if (run.getStatus() == NightAuditRun.Status.COMPLETED) {
+            return false;
+        }
+        List<Checkin> checkins = checkinRepository.findInHouseForAudit(run.getLastCheckinId(), run.getAuditDate(),
+                PageRequest.of(0, chunkSize));
+        if (checkins.isEmpty()) {
+            return false;
+        }
+
+        LocalDate auditDate = run.getAuditDate();
+        TaxRateTable.Snapshot taxes = taxRateTable.current();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(checkins.size() * 2);
+        Map<String, BigDecimal> folioTotals = new LinkedHashMap<>();
+        BigDecimal rentTotal = BigDecimal.ZERO;
+        BigDecimal taxTotal = BigDecimal.ZERO;
+        int posted = 0;
+        int taxed = 0;
+
+        for (Checkin checkin : checkins) {
+            if (checkin.getRate() == null || checkin.getRate() <= 0 || checkin.getFolioNo() == null) {
+                logger.warn("Night audit {} skipped folio {}: no room rate", auditDate, checkin.getFolioNo());
+                continue;
+            }
+            BigDecimal rent = BigDecimal.valueOf(checkin.getRate()).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal tax = taxes.taxOn(rent);
+            String voucherNo = "NA/" + auditDate + "/" + checkin.getId();
+            rows.add(posting(checkin, auditDate, roomRentHead, voucherNo, rent, "Room rent for " + auditDate, userId, now));
+            if (tax.signum() != 0) {
+                rows.add(posting(checkin, auditDate, roomTaxHead, voucherNo, tax, "Room tax for " + auditDate, userId, now));
+                taxed++;
+            }
+            folioTotals.merge(checkin.getFolioNo(), rent.add(tax), BigDecimal::add);
+            rentTotal = rentTotal.add(rent);
+            taxTotal = taxTotal.add(tax);
+            posted++;
+        }
+
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_POSTING, rows);
+            guestSearchIndex.transactionsPosted(new ArrayList<>(folioTotals.keySet()), auditDate);
+        }
+        folioBalanceService.recordAll(Ledger.POSTINGS, folioTotals);
+        dailyRevenueService.recordTotal(new Entry(Ledger.POSTINGS, auditDate, roomRentHead, null, null, rentTotal), posted);
+        dailyRevenueService.recordTotal(new Entry(Ledger.POSTINGS, auditDate, roomTaxHead, null, null, taxTotal), taxed);
+
+        run.setLastCheckinId(checkins.get(checkins.size() - 1).getId());
+        run.setFoliosPosted(run.getFoliosPosted() + posted);
+        run.setRoomRentTotal(run.getRoomRentTotal().add(rentTotal));
+        run.setTaxTotal(run.getTaxTotal().add(taxTotal));
+        nightAuditRunRepository.save(run);
+        logger.debug("Night audit {} posted {} folios up to checkin {}", auditDate, posted, run.getLastCheckinId());
+        return true;
+    }
+
+    private NightAuditRun completeRun(Long runId) {
+        NightAuditRun run = nightAuditRunRepository.findForUpdate(runId)
+                .orElseThrow(() -> new IllegalStateException("Night audit run " + runId + " disappeared"));
+        if (run.getStatus() == NightAuditRun.Status.COMPLETED) {
+            return run;
+        }
+        run.setStatus(NightAuditRun.Status.COMPLETED);
+        run.setCompletedOn(LocalDateTime.now());
+
+        // move the audit date on for the desk
+        LocalDateTime nextAuditDate = run.getAuditDate().plusDays(1).atStartOfDay();
+        shiftRepository.findTopByOrderByShiftNumberDesc().ifPresent(shift -> {
+            shift.setAuditDate(nextAuditDate);
+            shiftRepository.save(shift);
+        });
+        return nightAuditRunRepository.save(run);
+    }
+
+    private static Object[] posting(Checkin checkin, LocalDate auditDate, String accHead, String voucherNo,
+            BigDecimal amount, String narration, Integer userId, Timestamp now) {
+        return new Object[] {
+                checkin.getRoomNo(), Date.valueOf(auditDate), checkin.getGuestName(), checkin.getFolioNo(),
+                Date.valueOf(auditDate), accHead, voucherNo, amount, narration, userId,
+                PostTransaction.TransactionStatus.Pending.name(), now, now, checkin.getReservationNo(),
+                "NIGHT_AUDIT"
+        };
+    }
+}
@@ -0,0 +1,228 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.entity.Room;
+import com.hotel.erp.entity.RoomType;
+import com.hotel.erp.repository.CheckinRepository;
+import com.hotel.erp.repository.PostTransactionRepository;
+import com.hotel.erp.repository.RoomRepository;
+import com.hotel.erp.repository.RoomTypeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Computes occupancy, room revenue, ADR and RevPAR per night and per room type.
+ *
+ * Stays are read once through a forward-only stream and counted into one
+ * array per room type, and room revenue is summed by the database per date and
+ * room type, so memory depends on the number of nights and room types, not on
+ * the number of stays.
+ */
+@Service
+public class OccupancyCalculator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OccupancyCalculator.class);
+
+    /** Longest range accepted, a little over two years of nights */
+    static final int MAX_NIGHTS = 800;
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final CheckinRepository checkinRepository;
+    private final PostTransactionRepository postTransactionRepository;
+    private final RoomRepository roomRepository;
+    private final RoomTypeRepository roomTypeRepository;
+    private final Set<String> roomChargeHeads;
+
+    @Autowired
+    public OccupancyCalculator(CheckinRepository checkinRepository,
+            PostTransactionRepository postTransactionRepository, RoomRepository roomRepository,
+            RoomTypeRepository roomTypeRepository,
+            @Value("${hotel.report.room-charge-heads:ROOM,ROOM RENT,ROOM CHARGES,ROOM TARIFF}") List<String> roomChargeHeads) {
+        this.checkinRepository = checkinRepository;
+        this.postTransactionRepository = postTransactionRepository;
+        this.roomRepository = roomRepository;
+        this.roomTypeRepository = roomTypeRepository;
+        this.roomChargeHeads = roomChargeHeads.stream()
+                .map(String::trim)
+                .filter(head -> !head.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Calculate occupancy for every night from startDate to endDate inclusive
+     *
+     * @param startDate the first night
+     * @param endDate   the last night
+     * @return report with property totals, a "days" list and a "roomTypes" list
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> calculate(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+        int nights = (int) ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        if (nights > MAX_NIGHTS) {
+            throw new IllegalArgumentException("Occupancy range cannot exceed " + MAX_NIGHTS + " nights");
+        }
+        long started = System.currentTimeMillis();
+
+        // Room inventory: slot 0 collects rooms and postings without a known room type
+        Map<Integer, Integer> typeSlots = new LinkedHashMap<>();
+        Map<String, Integer> roomSlots = new HashMap<>();
+        List<Integer> roomsPerSlot = new ArrayList<>();
+        roomsPerSlot.add(0);
+        for (Room room : roomRepository.findAll()) {
+            int slot = 0;
+            if (room.getRoomTypeId() != null) {
+                slot = typeSlots.computeIfAbsent(room.getRoomTypeId(), id -> {
+                    roomsPerSlot.add(0);
+                    return roomsPerSlot.size() - 1;
+                });
+            }
+            roomsPerSlot.set(slot, roomsPerSlot.get(slot) + 1);
+            roomSlots.put(room.getRoomNo(), slot);
+        }
+        int slots = roomsPerSlot.size();
+
+        int[][] occupied = new int[slots][nights];
+        BigDecimal[][] revenue = new BigDecimal[slots][nights];
+
+        long today = LocalDate.now().toEpochDay();
+        long first = startDate.toEpochDay();
+        long stays = 0;
+        try (Stream<Object[]> rows = checkinRepository.streamStaysBetween(startDate, endDate)) {
+            for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                String roomNo = (String) row[0];
+                long from = ((LocalDate) row[1]).toEpochDay();
+                // an open stay holds the room up to and including tonight
+                long to = row[2] != null ? ((LocalDate) row[2]).toEpochDay() : Math.max(from + 1, today + 1);
+                int fromIndex = (int) Math.max(from - first, 0);
+                int toIndex = (int) Math.min(Math.max(to, from + 1) - first, nights);
+                if (roomNo == null || fromIndex >= toIndex) {
+                    continue;
+                }
+                for (String no : roomNo.split(",")) {
+                    int[] slotNights = occupied[roomSlots.getOrDefault(no.trim(), 0)];
+                    for (int night = fromIndex; night < toIndex; night++) {
+                        slotNights[night]++;
+                    }
+                }
+                stays++;
+            }
+        }
+
+        if (!roomChargeHeads.isEmpty()) {
+            for (Object[] row : postTransactionRepository.sumByDateAndRoomType(startDate, endDate, roomChargeHeads)) {
+                int night = (int) (((LocalDate) row[0]).toEpochDay() - first);
+                Integer slot = row[1] != null ? typeSlots.get((Integer) row[1]) : null;
+                BigDecimal[] slotRevenue = revenue[slot != null ? slot : 0];
+                BigDecimal amount = (BigDecimal) row[2];
+                slotRevenue[night] = slotRevenue[night] == null ? amount : slotRevenue[night].add(amount);
+            }
+        }
+
+        Map<Integer, String> typeNames = roomTypeRepository.findAllById(typeSlots.keySet()).stream()
+                .collect(Collectors.toMap(RoomType::getRoomTypeId, RoomType::getRoomTypeName));
+
+        // Property level per night
+        int totalRooms = roomsPerSlot.stream().mapToInt(Integer::intValue).sum();
+        List<Map<String, Object>> days = new ArrayList<>(nights);
+        long occupiedNights = 0;
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        for (int night = 0; night < nights; night++) {
+            int dayOccupied = 0;
+            BigDecimal dayRevenue = BigDecimal.ZERO;
+            for (int slot = 0; slot < slots; slot++) {
+                dayOccupied += occupied[slot][night];
+                if (revenue[slot][night] != null) {
+                    dayRevenue = dayRevenue.add(revenue[slot][night]);
+                }
+            }
+            occupiedNights += dayOccupied;
+            totalRevenue = totalRevenue.add(dayRevenue);
+            Map<String, Object> day = metrics(totalRooms, dayOccupied, dayRevenue);
+            day.put("date", startDate.plusDays(night));
+            days.add(day);
+        }
+
+        // Per room type, with its own per night breakdown
+        List<Map<String, Object>> roomTypes = new ArrayList<>();
+        List<Integer> typeIds = new ArrayList<>();
+        typeIds.add(null);
+        typeIds.addAll(typeSlots.keySet());
+        for (int slot = 0; slot < slots; slot++) {
+            int rooms = roomsPerSlot.get(slot);
+            long typeOccupied = 0;
+            BigDecimal typeRevenue = BigDecimal.ZERO;
+            List<Map<String, Object>> typeDays = new ArrayList<>(nights);
+            for (int night = 0; night < nights; night++) {
+                BigDecimal nightRevenue = revenue[slot][night] != null ? revenue[slot][night] : BigDecimal.ZERO;
+                typeOccupied += occupied[slot][night];
+                typeRevenue = typeRevenue.add(nightRevenue);
+                Map<String, Object> day = metrics(rooms, occupied[slot][night], nightRevenue);
+                day.put("date", startDate.plusDays(night));
+                typeDays.add(day);
+            }
+            if (slot == 0 && rooms == 0 && typeOccupied == 0 && typeRevenue.signum() == 0) {
+                continue;
+            }
+            Map<String, Object> type = metrics((long) rooms * nights, typeOccupied, typeRevenue);
+            type.put("roomTypeId", typeIds.get(slot));
+            type.put("roomTypeName", slot == 0 ? "Unassigned" : typeNames.get(typeIds.get(slot)));
+            type.put("rooms", rooms);
+            type.put("days", typeDays);
+            roomTypes.add(type);
+        }
+
+        Map<String, Object> report = metrics((long) totalRooms * nights, occupiedNights, totalRevenue);
+        long averageOccupied = Math.round((double) occupiedNights / nights);
+        report.put("totalRooms", totalRooms);
+        report.put("occupiedRooms", averageOccupied);
+        report.put("availableRooms", Math.max(totalRooms - averageOccupied, 0));
+        report.put("nights", nights);
+        report.put("startDate", startDate);
+        report.put("endDate", endDate);
+        report.put("period", startDate.toString() + " to " + endDate.toString());
+        report.put("days", days);
+        report.put("roomTypes", roomTypes);
+
+        logger.info("Calculated occupancy for {} nights from {} stays in {} ms", nights, stays,
+                System.currentTimeMillis() - started);
+        return report;
+    }
+
+    /**
+     * Occupancy, ADR and RevPAR for a number of available and occupied room nights
+     */
+    private static Map<String, Object> metrics(long roomNights, long occupiedNights, BigDecimal roomRevenue) {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("roomNights", roomNights);
+        metrics.put("occupiedRoomNights", occupiedNights);
+        metrics.put("occupancyRate", roomNights == 0 ? BigDecimal.ZERO
+                : BigDecimal.valueOf(occupiedNights).multiply(HUNDRED)
+                        .divide(BigDecimal.valueOf(roomNights), 2, RoundingMode.HALF_UP));
+        metrics.put("roomRevenue", roomRevenue);
+        metrics.put("adr", occupiedNights == 0 ? BigDecimal.ZERO
+                : roomRevenue.divide(BigDecimal.valueOf(occupiedNights), 2, RoundingMode.HALF_UP));
+        metrics.put("revpar", roomNights == 0 ? BigDecimal.ZERO
+                : roomRevenue.divide(BigDecimal.valueOf(roomNights), 2, RoundingMode.HALF_UP));
+        return metrics;
+    }
+}
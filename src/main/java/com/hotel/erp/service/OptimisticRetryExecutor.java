@@ -0,0 +1,178 @@
+package com.hotel.erp.service;
+
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.StaleStateException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs read-modify-write operations on the versioned front desk entities
+ * (checkin, room, reservation, bill and shift), retrying them when a
+ * concurrent update wins the optimistic version check.
+ *
+ * Each attempt runs in its own transaction, so a retry reads the rows again
+ * and the work of a failed attempt, including the folio balance and revenue
+ * ledger updates made alongside it, is rolled back. Attempts back off
+ * exponentially with full jitter. When every attempt conflicts the operation
+ * fails with 409 Conflict. Called inside an existing transaction the
+ * operation runs once: that transaction is already marked for rollback by the
+ * conflict, so only its owner can retry.
+ *
+ * Conflicts are counted per operation and exposed through
+ * {@link #getMetrics()}.
+ */
+@Service
+public class OptimisticRetryExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticRetryExecutor.class);
+
+    private static final class Counters {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder retried = new LongAdder();
+        private final LongAdder exhausted = new LongAdder();
+        private final LongAdder stale = new LongAdder();
+    }
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager,
+            @Value("${hotel.concurrency.max-attempts:5}") int maxAttempts,
+            @Value("${hotel.concurrency.backoff-ms:25}") long backoffMs) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = Math.max(0, backoffMs);
+    }
+
+    /**
+     * Run an operation in a transaction, retrying it on a version conflict
+     *
+     * @param operation the operation name, used for logging and the metrics
+     * @param action    the operation; must be safe to run again from the start
+     * @return the operation's result
+     * @throws ResponseStatusException 409 if every attempt conflicted
+     */
+    public <T> T execute(String operation, Supplier<T> action) {
+        Counters count = counters.computeIfAbsent(operation, name -> new Counters());
+        count.calls.increment();
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                if (isConflict(e)) {
+                    count.conflicts.increment();
+                }
+                throw e;
+            }
+        }
+
+        for (int attempt = 1;; attempt++) {
+            try {
+                T result = transactionTemplate.execute(status -> action.get());
+                if (attempt > 1) {
+                    count.retried.increment();
+                    logger.info("{} succeeded on attempt {}", operation, attempt);
+                }
+                return result;
+            } catch (RuntimeException e) {
+                if (!isConflict(e)) {
+                    throw e;
+                }
+                count.conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    count.exhausted.increment();
+                    logger.warn("{} gave up after {} conflicting attempts: {}", operation, attempt, e.getMessage());
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "The record was changed by another user while saving; please try again", e);
+                }
+                logger.debug("{} conflicted on attempt {}, retrying", operation, attempt);
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    /**
+     * Reject an update made from a stale copy of a record: the client sent
+     * the version it read, and the record has changed since. Retrying cannot
+     * help here, as the client's changes were based on the old values.
+     *
+     * @param operation the operation name, used for the metrics
+     * @param expected  the version the client read, or null if it sent none
+     * @param current   the record's current version
+     * @throws ResponseStatusException 409 if the versions differ
+     */
+    public void checkVersion(String operation, Long expected, Long current) {
+        if (expected != null && !expected.equals(current)) {
+            counters.computeIfAbsent(operation, name -> new Counters()).stale.increment();
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "The record was changed by another user (version " + current + ", yours " + expected
+                            + "); reload it and try again");
+        }
+    }
+
+    /**
+     * Conflict counts per operation since startup
+     *
+     * @return for each operation: calls, conflicts (failed attempts),
+     *         retried (calls that succeeded after a conflict), exhausted
+     *         (calls that failed with 409) and stale (updates rejected by
+     *         {@link #checkVersion})
+     */
+    public Map<String, Map<String, Long>> getMetrics() {
+        Map<String, Map<String, Long>> metrics = new TreeMap<>();
+        counters.forEach((operation, count) -> {
+            Map<String, Long> values = new LinkedHashMap<>();
+            values.put("calls", count.calls.sum());
+            values.put("conflicts", count.conflicts.sum());
+            values.put("retried", count.retried.sum());
+            values.put("exhausted", count.exhausted.sum());
+            values.put("stale", count.stale.sum());
+            metrics.put(operation, values);
+        });
+        return metrics;
+    }
+
+    private void backOff(int attempt, RuntimeException conflict) {
+        // Full jitter: a random wait up to a doubling cap spreads out clerks
+        // who collided, instead of having them collide again in step
+        long delay = ThreadLocalRandom.current().nextLong((backoffMs << attempt) + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    private static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException || cause instanceof OptimisticLockException
+                    || cause instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,31 +1,74 @@
 package com.hotel.erp.service;
 
+import com.hotel.erp.dto.BulkResultDTO;
+import com.hotel.erp.dto.CursorPage;
 import com.hotel.erp.dto.PostTransactionDTO;
 import com.hotel.erp.entity.PostTransaction;
 import com.hotel.erp.entity.Checkin;
 import com.hotel.erp.repository.PostTransactionRepository;
 import com.hotel.erp.repository.CheckinRepository;
+import com.hotel.erp.service.DailyRevenueService.Entry;
+import com.hotel.erp.service.FolioBalanceService.Ledger;
+import com.hotel.erp.service.KeysetPager.Keyset;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 @Service
 public class PostTransactionService {
 
     private static final Logger logger = LoggerFactory.getLogger(PostTransactionService.class);
 
+    private static final String INSERT_TRANSACTION = "INSERT INTO post_transaction "
+            + "(room_no, audit_date, guest_name, folio_no, trans_date, acc_head, voucher_no, amount, narration, "
+            + "bill_no, user_id, transaction_status, created_on, updated_on) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final Keyset<PostTransaction> TRANSACTION_KEYSET = Keyset.of(PostTransaction.class, "id", "transDate");
+
     @Autowired
     private PostTransactionRepository postTransactionRepository;
 
+    @Autowired
+    private KeysetPager keysetPager;
+
     @Autowired
     private CheckinRepository checkinRepository;
 
+    @Autowired
+    private FolioBalanceService folioBalanceService;
+
+    @Autowired
+    private DailyRevenueService dailyRevenueService;
+
+    @Autowired
+    private BatchInserter batchInserter;
+
+    @Autowired
+    private GuestSearchIndex guestSearchIndex;
+
+    @Value("${hotel.search.max-results:200}")
+    private int maxSearchResults;
+
     /**
      * Get all post transactions
      */
@@ -33,6 +76,26 @@ public class PostTransactionService {
         return postTransactionRepository.findAll();
     }
 
+    /**
+     * Get one keyset page of post transactions
+     * 
+     * @param cursor    the nextCursor of the previous page, or null for the first page
+     * @param limit     the page size
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return the page
+     */
+    public CursorPage<PostTransaction> getTransactionsPage(String cursor, Integer limit, String sort, String direction) {
+        return keysetPager.page(TRANSACTION_KEYSET.sortedBy(sort, direction), cursor, limit);
+    }
+
+    /**
+     * Prepare a pass over all post transactions after a cursor in page order, read a batch at a time
+     */
+    public KeysetPager.Scan<PostTransaction> scanTransactions(String cursor, String sort, String direction) {
+        return keysetPager.scan(TRANSACTION_KEYSET.sortedBy(sort, direction), cursor);
+    }
+
     /**
      * Get transaction by ID
      */
@@ -43,6 +106,7 @@ public class PostTransactionService {
     /**
      * Create a new post transaction
      */
+    @Transactional
     public PostTransaction createTransaction(PostTransactionDTO transactionDTO) {
         logger.info("Creating post transaction with data: {}", transactionDTO);
 
@@ -50,25 +114,10 @@ public class PostTransactionService {
             validateTransactionData(transactionDTO);
             logger.info("Validation passed for transaction creation");
 
-            PostTransaction transaction = new PostTransaction();
-            transaction.setRoomNo(transactionDTO.getRoomNo());
-            transaction.setAuditDate(transactionDTO.getAuditDate());
-            transaction.setGuestName(transactionDTO.getGuestName());
-            transaction.setFolioNo(transactionDTO.getFolioNo());
-            transaction.setTransDate(transactionDTO.getTransDate());
-            transaction.setAccHead(transactionDTO.getAccHead());
-            transaction.setVoucherNo(transactionDTO.getVoucherNo());
-            transaction.setAmount(transactionDTO.getAmount());
-            transaction.setNarration(transactionDTO.getNarration());
-            transaction.setBillNo(transactionDTO.getBillNo());
-            transaction.setUserId(transactionDTO.getUserId());
-
-            if (transactionDTO.getTransactionStatus() != null) {
-                transaction.setTransactionStatus(
-                        PostTransaction.TransactionStatus.valueOf(transactionDTO.getTransactionStatus()));
-            }
-
-            PostTransaction savedTransaction = postTransactionRepository.save(transaction);
+            PostTransaction savedTransaction = postTransactionRepository.save(toEntity(transactionDTO));
+            folioBalanceService.record(Ledger.POSTINGS, savedTransaction.getFolioNo(), savedTransaction.getAmount());
+            dailyRevenueService.record(Entry.of(savedTransaction));
+            guestSearchIndex.transactionSaved(savedTransaction);
             logger.info("Post transaction created successfully with ID: {}", savedTransaction.getId());
             return savedTransaction;
 
@@ -78,9 +127,94 @@ public class PostTransactionService {
         }
     }
 
+    /**
+     * Create many post transactions in one go, for imports such as POS
+     * outlet postings. Every row is validated as by
+     * {@link #createTransaction}, with the folios they refer to read in one
+     * query; the valid rows are inserted as JDBC batches and the folio
+     * balances and daily revenue updated once for the lot. Invalid rows are
+     * reported and skipped.
+     * 
+     * @param transactions the transactions
+     * @return the id or error of each row
+     * @throws IllegalArgumentException if there are no rows or too many
+     */
+    @Transactional
+    public BulkResultDTO createTransactions(List<PostTransactionDTO> transactions) {
+        batchInserter.checkSize(transactions.size());
+        long started = System.currentTimeMillis();
+
+        Set<String> folioNos = new HashSet<>();
+        for (PostTransactionDTO dto : transactions) {
+            if (dto != null && dto.getFolioNo() != null) {
+                folioNos.add(dto.getFolioNo());
+            }
+        }
+        Map<String, Checkin> checkins = new HashMap<>();
+        if (!folioNos.isEmpty()) {
+            checkinRepository.findByFolioNoInOrderByIdAsc(folioNos)
+                    .forEach(checkin -> checkins.putIfAbsent(checkin.getFolioNo(), checkin));
+        }
+
+        BulkResultDTO result = new BulkResultDTO(transactions.size());
+        List<BulkResultDTO.Item> createdItems = new ArrayList<>();
+        List<PostTransaction> rows = new ArrayList<>();
+        for (int index = 0; index < transactions.size(); index++) {
+            PostTransactionDTO dto = transactions.get(index);
+            try {
+                if (dto == null) {
+                    throw new IllegalArgumentException("Transaction is empty");
+                }
+                validateTransactionData(dto, folioNo -> Optional.ofNullable(checkins.get(folioNo)));
+                rows.add(toEntity(dto));
+                createdItems.add(result.created(index));
+            } catch (IllegalArgumentException e) {
+                result.failed(index, e.getMessage());
+            }
+        }
+        if (rows.isEmpty()) {
+            return result;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> values = new ArrayList<>(rows.size());
+        for (PostTransaction transaction : rows) {
+            PostTransaction.TransactionStatus status = transaction.getTransactionStatus() != null
+                    ? transaction.getTransactionStatus()
+                    : PostTransaction.TransactionStatus.Pending;
+            values.add(new Object[] {
+                    transaction.getRoomNo(), toDate(transaction.getAuditDate()), transaction.getGuestName(),
+                    transaction.getFolioNo(), toDate(transaction.getTransDate()), transaction.getAccHead(),
+                    transaction.getVoucherNo(), transaction.getAmount(), transaction.getNarration(),
+                    transaction.getBillNo(), transaction.getUserId(), status.name(), now, now
+            });
+        }
+        List<Long> ids = batchInserter.insert(INSERT_TRANSACTION, "id", values);
+
+        Map<String, BigDecimal> folioTotals = new LinkedHashMap<>();
+        List<Entry> entries = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            PostTransaction transaction = rows.get(i);
+            createdItems.get(i).setId(ids.get(i));
+            transaction.setId(ids.get(i));
+            guestSearchIndex.transactionSaved(transaction);
+            if (transaction.getFolioNo() != null && !transaction.getFolioNo().trim().isEmpty()) {
+                folioTotals.merge(transaction.getFolioNo(), transaction.getAmount(), BigDecimal::add);
+            }
+            entries.add(Entry.of(transaction));
+        }
+        folioBalanceService.recordAll(Ledger.POSTINGS, folioTotals);
+        dailyRevenueService.recordAll(entries);
+
+        logger.info("Bulk created {} of {} post transactions in {} ms", result.getCreated(), result.getReceived(),
+                System.currentTimeMillis() - started);
+        return result;
+    }
+
     /**
      * Update an existing transaction
      */
+    @Transactional
     public PostTransaction updateTransaction(Long id, PostTransactionDTO transactionDTO) {
         logger.info("Updating post transaction with ID: {} and data: {}", id, transactionDTO);
 
@@ -94,6 +228,9 @@ public class PostTransactionService {
             logger.info("Validation passed for transaction update");
 
             PostTransaction transaction = existingTransaction.get();
+            String previousFolioNo = transaction.getFolioNo();
+            BigDecimal previousAmount = transaction.getAmount();
+            Entry previousEntry = Entry.of(transaction);
             transaction.setRoomNo(transactionDTO.getRoomNo());
             transaction.setAuditDate(transactionDTO.getAuditDate());
             transaction.setGuestName(transactionDTO.getGuestName());
@@ -112,6 +249,10 @@ public class PostTransactionService {
             }
 
             PostTransaction savedTransaction = postTransactionRepository.save(transaction);
+            folioBalanceService.recordChange(Ledger.POSTINGS, previousFolioNo, previousAmount,
+                    savedTransaction.getFolioNo(), savedTransaction.getAmount());
+            dailyRevenueService.recordChange(previousEntry, Entry.of(savedTransaction));
+            guestSearchIndex.transactionSaved(savedTransaction);
             logger.info("Post transaction updated successfully with ID: {}", savedTransaction.getId());
             return savedTransaction;
 
@@ -124,18 +265,26 @@ public class PostTransactionService {
     /**
      * Delete a transaction
      */
+    @Transactional
     public void deleteTransaction(Long id) {
-        if (!postTransactionRepository.existsById(id)) {
-            throw new IllegalArgumentException("Post transaction not found with ID: " + id);
+        PostTransaction transaction = postTransactionRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Post transaction not found with ID: " + id));
+        postTransactionRepository.delete(transaction);
+        if (transaction.getAmount() != null) {
+            folioBalanceService.record(Ledger.POSTINGS, transaction.getFolioNo(), transaction.getAmount().negate());
         }
-        postTransactionRepository.deleteById(id);
+        dailyRevenueService.remove(Entry.of(transaction));
+        guestSearchIndex.removed(GuestSearchIndex.Kind.TRANSACTION, id);
     }
 
     /**
-     * Search transactions by query
+     * Search transactions by guest name, folio, reservation, bill or room
+     * number through the search index, best match first
      */
     public List<PostTransaction> searchTransactions(String query) {
-        return postTransactionRepository.searchTransactions(query);
+        List<Long> ids = guestSearchIndex.searchIds(query, GuestSearchIndex.Kind.TRANSACTION, null,
+                maxSearchResults);
+        return GuestSearchIndex.inOrder(ids, postTransactionRepository.findAllById(ids), PostTransaction::getId);
     }
 
     /**
@@ -146,10 +295,12 @@ public class PostTransactionService {
     }
 
     /**
-     * Get transactions by guest name
+     * Get transactions by guest name through the search index, best match first
      */
     public List<PostTransaction> getTransactionsByGuestName(String guestName) {
-        return postTransactionRepository.findByGuestNameContainingIgnoreCase(guestName);
+        List<Long> ids = guestSearchIndex.searchIds(guestName, GuestSearchIndex.Kind.TRANSACTION,
+                EnumSet.of(GuestSearchIndex.Field.NAME), maxSearchResults);
+        return GuestSearchIndex.inOrder(ids, postTransactionRepository.findAllById(ids), PostTransaction::getId);
     }
 
     /**
@@ -209,14 +360,10 @@ public class PostTransactionService {
     }
 
     /**
-     * Calculate outstanding amount for a folio (total transactions minus advances)
+     * Calculate outstanding amount for a folio (total charges minus payments)
      */
     public BigDecimal calculateOutstandingAmount(String folioNo) {
-        BigDecimal totalTransactions = getTotalAmountByFolioNo(folioNo);
-        // Note: This would need to be integrated with AdvancesService to get total
-        // advances
-        // For now, returning total transactions
-        return totalTransactions;
+        return folioBalanceService.getFolioBalance(folioNo).getBalance();
     }
 
     /**
@@ -233,7 +380,8 @@ public class PostTransactionService {
      * Get total amount by guest name
      */
     public BigDecimal getTotalAmountByGuestName(String guestName) {
-        List<PostTransaction> transactions = getTransactionsByGuestName(guestName);
+        // every matching row, not the ranked and capped search results
+        List<PostTransaction> transactions = postTransactionRepository.findByGuestNameContainingIgnoreCase(guestName);
         return transactions.stream()
                 .map(PostTransaction::getAmount)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
@@ -247,21 +395,26 @@ public class PostTransactionService {
     }
 
     /**
-     * Get balance by folio number (total advance - total transactions)
+     * Get balance by folio number (total payments - total charges)
      */
     public BigDecimal getBalanceByFolioNo(String folioNo) {
-        BigDecimal totalTransactions = getTotalAmountByFolioNo(folioNo);
-        // Note: This would need to be integrated with AdvancesService to get total
-        // advances
-        // For now, returning negative total transactions as balance
-        return totalTransactions.negate();
+        return folioBalanceService.getFolioBalance(folioNo).getBalance().negate();
     }
 
     /**
      * Validate transaction data
      */
     private void validateTransactionData(PostTransactionDTO transactionDTO) {
-        logger.info("Validating transaction data: {}", transactionDTO);
+        validateTransactionData(transactionDTO, checkinRepository::findByFolioNo);
+    }
+
+    /**
+     * Validate transaction data, looking up the folio it refers to with the
+     * given function
+     */
+    private void validateTransactionData(PostTransactionDTO transactionDTO,
+            Function<String, Optional<Checkin>> checkins) {
+        logger.debug("Validating transaction data: {}", transactionDTO);
 
         // Validate mandatory fields
         if (transactionDTO.getAmount() == null || transactionDTO.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
@@ -286,7 +439,7 @@ public class PostTransactionService {
 
         // Validate folio number if provided
         if (transactionDTO.getFolioNo() != null && !transactionDTO.getFolioNo().trim().isEmpty()) {
-            Optional<Checkin> checkin = checkinRepository.findByFolioNo(transactionDTO.getFolioNo());
+            Optional<Checkin> checkin = checkins.apply(transactionDTO.getFolioNo());
             if (checkin.isEmpty()) {
                 logger.error("Validation failed: Folio number does not exist: {}", transactionDTO.getFolioNo());
                 throw new IllegalArgumentException("Folio number does not exist in checkin table");
@@ -345,4 +498,28 @@ public class PostTransactionService {
         return postTransactionRepository.findByTransactionStatus(transactionStatus);
     }
 
-}
\ No newline at end of file
+    private static PostTransaction toEntity(PostTransactionDTO transactionDTO) {
+        PostTransaction transaction = new PostTransaction();
+        transaction.setRoomNo(transactionDTO.getRoomNo());
+        transaction.setAuditDate(transactionDTO.getAuditDate());
+        transaction.setGuestName(transactionDTO.getGuestName());
+        transaction.setFolioNo(transactionDTO.getFolioNo());
+        transaction.setTransDate(transactionDTO.getTransDate());
+        transaction.setAccHead(transactionDTO.getAccHead());
+        transaction.setVoucherNo(transactionDTO.getVoucherNo());
+        transaction.setAmount(transactionDTO.getAmount());
+        transaction.setNarration(transactionDTO.getNarration());
+        transaction.setBillNo(transactionDTO.getBillNo());
+        transaction.setUserId(transactionDTO.getUserId());
+
+        if (transactionDTO.getTransactionStatus() != null) {
+            transaction.setTransactionStatus(
+                    PostTransaction.TransactionStatus.valueOf(transactionDTO.getTransactionStatus()));
+        }
+        return transaction;
+    }
+
+    private static Date toDate(LocalDate date) {
+        return date != null ? Date.valueOf(date) : null;
+    }
+}
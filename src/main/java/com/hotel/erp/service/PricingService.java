@@ -0,0 +1,84 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.StayQuoteDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Prices stays using the cached {@link TaxRateTable}; quoting does not touch
+ * the database.
+ */
+@Service
+public class PricingService {
+
+    private final TaxRateTable taxRateTable;
+
+    @Autowired
+    public PricingService(TaxRateTable taxRateTable) {
+        this.taxRateTable = taxRateTable;
+    }
+
+    /**
+     * Price a batch of stays against a single tax snapshot
+     * 
+     * @param stays the stays to quote
+     * @return the same stays with nights and amounts filled in
+     * @throws IllegalArgumentException if a stay is missing its dates or rate
+     */
+    public List<StayQuoteDTO> quoteStays(List<StayQuoteDTO> stays) {
+        TaxRateTable.Snapshot taxes = taxRateTable.current();
+        for (StayQuoteDTO stay : stays) {
+            quote(stay, taxes);
+        }
+        return stays;
+    }
+
+    /**
+     * Price one stay against the current tax snapshot; reservations are
+     * priced this way too, so a quote matches the booked total
+     * 
+     * @param stay the stay to quote
+     * @return the same stay with nights and amounts filled in
+     * @throws IllegalArgumentException if the stay is missing its dates or rate
+     */
+    public StayQuoteDTO quoteStay(StayQuoteDTO stay) {
+        quote(stay, taxRateTable.current());
+        return stay;
+    }
+
+    private void quote(StayQuoteDTO stay, TaxRateTable.Snapshot taxes) {
+        if (stay.getFromDate() == null || stay.getToDate() == null) {
+            throw new IllegalArgumentException("From date and to date are required");
+        }
+        if (stay.getToDate().isBefore(stay.getFromDate())) {
+            throw new IllegalArgumentException("To date must be after from date");
+        }
+        if (stay.getRate() == null) {
+            throw new IllegalArgumentException("Rate is required");
+        }
+
+        // Minimum one night, one room
+        long nights = Math.max(1, ChronoUnit.DAYS.between(stay.getFromDate(), stay.getToDate()));
+        int rooms = stay.getNoOfRooms() != null && stay.getNoOfRooms() > 0 ? stay.getNoOfRooms() : 1;
+
+        BigDecimal baseAmount = BigDecimal.valueOf(stay.getRate())
+                .multiply(BigDecimal.valueOf(nights * rooms))
+                .setScale(2, RoundingMode.HALF_UP);
+
+        BigDecimal taxAmount = BigDecimal.ZERO.setScale(2);
+        if (!"Y".equals(stay.getWithTax()) || !Boolean.TRUE.equals(stay.getIsTaxInclusive())) {
+            taxAmount = taxes.taxOn(baseAmount);
+        }
+
+        stay.setNights(nights);
+        stay.setBaseAmount(baseAmount);
+        stay.setTaxAmount(taxAmount);
+        stay.setTotalAmount(baseAmount.add(taxAmount));
+        stay.setTaxVersion(taxes.getVersion());
+    }
+}
@@ -0,0 +1,244 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.entity.Inventory;
+import com.hotel.erp.repository.GoodsReceiptRepository;
+import com.hotel.erp.repository.InventoryRepository;
+import com.hotel.erp.repository.PurchaseOrderRepository;
+import com.hotel.erp.repository.SupplierPerformanceRepository;
+import com.hotel.erp.repository.VendorRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Procurement figures read from the purchasing tables: spend per vendor,
+ * category and department, budget use and inventory levels. Every figure is
+ * one grouped query.
+ */
+@Service
+public class ProcurementReportService {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final GoodsReceiptRepository receiptRepository;
+    private final PurchaseOrderRepository orderRepository;
+    private final SupplierPerformanceRepository performanceRepository;
+    private final VendorRepository vendorRepository;
+    private final InventoryRepository inventoryRepository;
+    private final Map<String, BigDecimal> budgets;
+
+    @Autowired
+    public ProcurementReportService(GoodsReceiptRepository receiptRepository,
+            PurchaseOrderRepository orderRepository, SupplierPerformanceRepository performanceRepository,
+            VendorRepository vendorRepository, InventoryRepository inventoryRepository,
+            @Value("${hotel.procurement.budgets:}") String budgets) {
+        this.receiptRepository = receiptRepository;
+        this.orderRepository = orderRepository;
+        this.performanceRepository = performanceRepository;
+        this.vendorRepository = vendorRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.budgets = parseBudgets(budgets);
+    }
+
+    /**
+     * Summarise purchasing over the current month, quarter or year
+     *
+     * @param period "MONTH" (default), "QUARTER" or "YEAR"
+     * @return spend, orders, suppliers, delivery time, top suppliers and spend per category
+     */
+    public Map<String, Object> getReport(String period) {
+        LocalDate today = LocalDate.now();
+        LocalDate from = periodStart(period, today);
+
+        List<Object[]> vendors = receiptRepository.sumPerVendorBetween(from, today);
+        BigDecimal totalSpend = BigDecimal.ZERO;
+        List<Map<String, Object>> topSuppliers = new ArrayList<>();
+        for (Object[] row : vendors) {
+            totalSpend = totalSpend.add((BigDecimal) row[2]);
+            if (topSuppliers.size() < 5) {
+                Map<String, Object> supplier = new LinkedHashMap<>();
+                supplier.put("vendorId", row[0]);
+                supplier.put("supplier", row[1]);
+                supplier.put("totalSpend", row[2]);
+                supplier.put("receipts", row[3]);
+                topSuppliers.add(supplier);
+            }
+        }
+
+        List<Map<String, Object>> categorySpend = new ArrayList<>();
+        for (Object[] row : receiptRepository.sumPerCategoryBetween(from, today)) {
+            Map<String, Object> category = new LinkedHashMap<>();
+            category.put("category", row[0]);
+            category.put("amount", row[1]);
+            category.put("percentage", percentage((BigDecimal) row[1], totalSpend));
+            categorySpend.add(category);
+        }
+
+        BigDecimal averageDeliveryDays = null;
+        List<Object[]> lead = performanceRepository.sumLeadDaysAndReceipts();
+        if (!lead.isEmpty() && lead.get(0)[1] != null && ((Number) lead.get(0)[1]).longValue() > 0) {
+            averageDeliveryDays = BigDecimal.valueOf(((Number) lead.get(0)[0]).longValue())
+                    .divide(BigDecimal.valueOf(((Number) lead.get(0)[1]).longValue()), 1, RoundingMode.HALF_UP);
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("totalSpend", totalSpend);
+        summary.put("totalOrders", orderRepository.countOrdersBetween(from, today));
+        summary.put("activeSuppliers", vendorRepository.countByStatus("ACTIVE"));
+        summary.put("avgDeliveryDays", averageDeliveryDays);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("fromDate", from);
+        report.put("toDate", today);
+        report.put("summary", summary);
+        report.put("topSuppliers", topSuppliers);
+        report.put("categorySpend", categorySpend);
+        return report;
+    }
+
+    /**
+     * Compare this year's spend per department with its budget
+     *
+     * @param department only this department, or null for all
+     * @return the budgets, spend per department and spend per month
+     */
+    public Map<String, Object> getBudget(String department) {
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.withDayOfYear(1);
+
+        Map<String, BigDecimal> spentPerDepartment = new TreeMap<>();
+        Map<Month, BigDecimal> spentPerMonth = new TreeMap<>();
+        for (Object[] row : receiptRepository.sumPerDepartmentAndDayBetween(from, today)) {
+            String rowDepartment = row[0] != null ? (String) row[0] : "UNASSIGNED";
+            if (department != null && !department.equalsIgnoreCase(rowDepartment)) {
+                continue;
+            }
+            BigDecimal amount = (BigDecimal) row[2];
+            spentPerDepartment.merge(rowDepartment, amount, BigDecimal::add);
+            spentPerMonth.merge(((LocalDate) row[1]).getMonth(), amount, BigDecimal::add);
+        }
+
+        List<Map<String, Object>> departments = new ArrayList<>();
+        BigDecimal allocated = BigDecimal.ZERO;
+        BigDecimal spent = BigDecimal.ZERO;
+        Map<String, BigDecimal> shown = new TreeMap<>();
+        budgets.forEach((name, amount) -> {
+            if (department == null || department.equalsIgnoreCase(name)) {
+                shown.put(name, amount);
+            }
+        });
+        spentPerDepartment.keySet().forEach(name -> shown.putIfAbsent(name, BigDecimal.ZERO));
+        for (Map.Entry<String, BigDecimal> entry : shown.entrySet()) {
+            BigDecimal departmentSpent = spentPerDepartment.getOrDefault(entry.getKey(), BigDecimal.ZERO);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("department", entry.getKey());
+            row.put("allocated", entry.getValue());
+            row.put("spent", departmentSpent);
+            row.put("remaining", entry.getValue().subtract(departmentSpent));
+            departments.add(row);
+            allocated = allocated.add(entry.getValue());
+            spent = spent.add(departmentSpent);
+        }
+
+        List<Map<String, Object>> monthlySpend = new ArrayList<>();
+        for (Month month = Month.JANUARY; ; month = month.plus(1)) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("month", month.getDisplayName(TextStyle.FULL, Locale.ENGLISH));
+            row.put("amount", spentPerMonth.getOrDefault(month, BigDecimal.ZERO));
+            monthlySpend.add(row);
+            if (month == today.getMonth()) {
+                break;
+            }
+        }
+
+        Map<String, Object> budget = new LinkedHashMap<>();
+        budget.put("year", today.getYear());
+        budget.put("totalBudget", allocated);
+        budget.put("spentAmount", spent);
+        budget.put("remainingBudget", allocated.subtract(spent));
+        budget.put("utilizationPercentage", percentage(spent, allocated));
+        budget.put("departmentBudgets", departments);
+        budget.put("monthlySpend", monthlySpend);
+        return budget;
+    }
+
+    /**
+     * Get the stock level of every inventory item
+     *
+     * @param category only items of this category, or null
+     * @return one row per item, flagged lowStock at or below its reorder level
+     */
+    public List<Map<String, Object>> getInventoryLevels(String category) {
+        List<Inventory> items = category != null ? inventoryRepository.findByCategory(category)
+                : inventoryRepository.findAll();
+        List<Map<String, Object>> levels = new ArrayList<>(items.size());
+        for (Inventory item : items) {
+            Map<String, Object> level = new LinkedHashMap<>();
+            level.put("itemCode", item.getItemCode());
+            level.put("item", item.getItemName());
+            level.put("category", item.getCategory());
+            level.put("currentStock", item.getCurrentStock());
+            level.put("availableQuantity", item.getAvailableQuantity());
+            level.put("minimumLevel", item.getMinimumStock());
+            level.put("maximumLevel", item.getMaximumStock());
+            level.put("reorderPoint", item.getReorderLevel());
+            level.put("status", item.getStockStatus());
+            level.put("lowStock", item.getCurrentStock() != null && item.getReorderLevel() != null
+                    && item.getCurrentStock().compareTo(item.getReorderLevel()) <= 0);
+            level.put("unit", item.getUnitOfMeasure());
+            level.put("lastUpdated", item.getModifiedDate() != null ? item.getModifiedDate() : item.getCreatedDate());
+            levels.add(level);
+        }
+        return levels;
+    }
+
+    private static LocalDate periodStart(String period, LocalDate today) {
+        if (period == null || period.isBlank() || "MONTH".equalsIgnoreCase(period)) {
+            return today.withDayOfMonth(1);
+        }
+        if ("QUARTER".equalsIgnoreCase(period)) {
+            return today.withMonth(today.getMonth().firstMonthOfQuarter().getValue()).withDayOfMonth(1);
+        }
+        if ("YEAR".equalsIgnoreCase(period)) {
+            return today.withDayOfYear(1);
+        }
+        throw new IllegalArgumentException("period must be MONTH, QUARTER or YEAR");
+    }
+
+    private static BigDecimal percentage(BigDecimal part, BigDecimal whole) {
+        if (whole.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        return part.multiply(HUNDRED).divide(whole, 1, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Parse "KITCHEN:150000,HOUSEKEEPING:120000" into a budget per department
+     */
+    private static Map<String, BigDecimal> parseBudgets(String budgets) {
+        Map<String, BigDecimal> parsed = new TreeMap<>();
+        for (String entry : budgets.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Budget entries must look like DEPARTMENT:AMOUNT, not " + entry);
+            }
+            parsed.put(parts[0].trim(), new BigDecimal(parts[1].trim()));
+        }
+        return parsed;
+    }
+}
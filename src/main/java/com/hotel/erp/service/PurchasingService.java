@@ -0,0 +1,782 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.CursorPage;
+import com.hotel.erp.dto.GoodsReceiptDTO;
+import com.hotel.erp.dto.PurchaseOrderDetailDTO;
+import com.hotel.erp.dto.PurchaseOrderDraftDTO;
+import com.hotel.erp.dto.PurchaseOrderRequestDTO;
+import com.hotel.erp.dto.PurchaseRequisitionDTO;
+import com.hotel.erp.dto.ReorderSuggestionDTO;
+import com.hotel.erp.dto.StockMovementDTO;
+import com.hotel.erp.entity.GoodsReceipt;
+import com.hotel.erp.entity.GoodsReceiptLine;
+import com.hotel.erp.entity.Inventory;
+import com.hotel.erp.entity.PurchaseOrder;
+import com.hotel.erp.entity.PurchaseOrderLine;
+import com.hotel.erp.entity.PurchaseRequisition;
+import com.hotel.erp.entity.StockMovement;
+import com.hotel.erp.entity.SupplierPerformance;
+import com.hotel.erp.entity.Vendor;
+import com.hotel.erp.exception.ResourceNotFoundException;
+import com.hotel.erp.repository.GoodsReceiptLineRepository;
+import com.hotel.erp.repository.GoodsReceiptRepository;
+import com.hotel.erp.repository.InventoryRepository;
+import com.hotel.erp.repository.PurchaseOrderLineRepository;
+import com.hotel.erp.repository.PurchaseOrderRepository;
+import com.hotel.erp.repository.PurchaseRequisitionRepository;
+import com.hotel.erp.repository.SupplierPerformanceRepository;
+import com.hotel.erp.repository.VendorRepository;
+import com.hotel.erp.service.KeysetPager.Keyset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The purchasing pipeline: requisitions, purchase orders and goods receipts.
+ *
+ * A receipt posts all of its lines to the stock ledger in one batch and adds
+ * the delivery to the vendor's running performance totals in place, so
+ * on-time rate, fill rate and lead time are read from one row per vendor
+ * however many receipts there have been.
+ */
+@Service
+public class PurchasingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PurchasingService.class);
+
+    /** Statuses of orders whose lines may still arrive */
+    static final Set<PurchaseOrder.Status> OPEN_STATUSES = EnumSet.of(PurchaseOrder.Status.DRAFT,
+            PurchaseOrder.Status.APPROVED, PurchaseOrder.Status.ORDERED, PurchaseOrder.Status.PARTIALLY_RECEIVED);
+
+    private static final Map<PurchaseOrder.Status, Set<PurchaseOrder.Status>> TRANSITIONS = Map.of(
+            PurchaseOrder.Status.DRAFT, EnumSet.of(PurchaseOrder.Status.APPROVED, PurchaseOrder.Status.CANCELLED),
+            PurchaseOrder.Status.APPROVED, EnumSet.of(PurchaseOrder.Status.ORDERED, PurchaseOrder.Status.CANCELLED),
+            PurchaseOrder.Status.ORDERED, EnumSet.of(PurchaseOrder.Status.CANCELLED),
+            PurchaseOrder.Status.PARTIALLY_RECEIVED, EnumSet.of(PurchaseOrder.Status.CLOSED));
+
+    private static final Keyset<PurchaseOrder> ORDER_KEYSET = Keyset.of(PurchaseOrder.class, "id", "orderDate");
+    private static final Keyset<PurchaseRequisition> REQUISITION_KEYSET = Keyset.of(PurchaseRequisition.class, "id",
+            "requestDate");
+    private static final Keyset<GoodsReceipt> RECEIPT_KEYSET = Keyset.of(GoodsReceipt.class, "id", "receiptDate");
+    private static final Keyset<Vendor> SUPPLIER_KEYSET = Keyset.of(Vendor.class, "id", "auditDate");
+
+    private static final DateTimeFormatter NUMBER_PERIOD = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String SUPPLIER_TYPE = "SUPPLIER";
+
+    private final PurchaseRequisitionRepository requisitionRepository;
+    private final PurchaseOrderRepository orderRepository;
+    private final PurchaseOrderLineRepository orderLineRepository;
+    private final GoodsReceiptRepository receiptRepository;
+    private final GoodsReceiptLineRepository receiptLineRepository;
+    private final SupplierPerformanceRepository performanceRepository;
+    private final InventoryRepository inventoryRepository;
+    private final VendorRepository vendorRepository;
+    private final StockLedgerService stockLedgerService;
+    private final ReorderMonitor reorderMonitor;
+    private final VendorScorecardService vendorScorecardService;
+    private final SequenceAllocator sequenceAllocator;
+    private final KeysetPager keysetPager;
+
+    @Autowired
+    public PurchasingService(PurchaseRequisitionRepository requisitionRepository,
+            PurchaseOrderRepository orderRepository, PurchaseOrderLineRepository orderLineRepository,
+            GoodsReceiptRepository receiptRepository, GoodsReceiptLineRepository receiptLineRepository,
+            SupplierPerformanceRepository performanceRepository, InventoryRepository inventoryRepository,
+            VendorRepository vendorRepository, StockLedgerService stockLedgerService, ReorderMonitor reorderMonitor,
+            VendorScorecardService vendorScorecardService, SequenceAllocator sequenceAllocator,
+            KeysetPager keysetPager) {
+        this.requisitionRepository = requisitionRepository;
+        this.orderRepository = orderRepository;
+        this.orderLineRepository = orderLineRepository;
+        this.receiptRepository = receiptRepository;
+        this.receiptLineRepository = receiptLineRepository;
+        this.performanceRepository = performanceRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.vendorRepository = vendorRepository;
+        this.stockLedgerService = stockLedgerService;
+        this.reorderMonitor = reorderMonitor;
+        this.vendorScorecardService = vendorScorecardService;
+        this.sequenceAllocator = sequenceAllocator;
+        this.keysetPager = keysetPager;
+    }
+
+    /**
+     * Get one keyset page of the vendors
+     *
+     * @param cursor    the nextCursor of the previous page, or null for the first page
+     * @param limit     the page size
+     * @param status    only vendors with this status, or null
+     * @param category  only vendors of this category, or null
+     * @param direction "asc" or "desc"
+     * @return the page
+     */
+    public CursorPage<Vendor> getSuppliers(String cursor, Integer limit, String status, String category,
+            String direction) {
+        return keysetPager.page(SUPPLIER_KEYSET.where("status", status).where("category", category)
+                .sortedBy("id", direction), cursor, limit);
+    }
+
+    /**
+     * Register a supplier. It starts PENDING unless a status is given.
+     *
+     * @param vendor the supplier
+     * @return the saved vendor
+     */
+    @Transactional
+    public Vendor createSupplier(Vendor vendor) {
+        if (isBlank(vendor.getVendorName())) {
+            throw new IllegalArgumentException("Supplier name is required");
+        }
+        if (isBlank(vendor.getCategory())) {
+            throw new IllegalArgumentException("Supplier category is required");
+        }
+        vendor.setId(null);
+        if (isBlank(vendor.getVendorCode())) {
+            long sequence = sequenceAllocator.next("SUP/", () -> 0L);
+            vendor.setVendorCode(String.format("SUP_%06d", sequence));
+        }
+        if (isBlank(vendor.getVendorType())) {
+            vendor.setVendorType(SUPPLIER_TYPE);
+        }
+        if (isBlank(vendor.getStatus())) {
+            vendor.setStatus("PENDING");
+        }
+        Vendor saved = vendorRepository.save(vendor);
+        vendorScorecardService.vendorChanged(saved.getId());
+        return saved;
+    }
+
+    /**
+     * Get the vendors with a contract, the latest to end first
+     *
+     * @return the vendors
+     */
+    public List<Vendor> getContracts() {
+        return vendorRepository.findAll(Sort.by(Sort.Direction.DESC, "contractEndDate")).stream()
+                .filter(vendor -> vendor.getContractStartDate() != null || vendor.getContractEndDate() != null)
+                .toList();
+    }
+
+    /**
+     * Record a vendor's contract period
+     *
+     * @param vendorId  the vendor
+     * @param startDate the first day of the contract
+     * @param endDate   the last day of the contract
+     * @param remarks   what the contract covers, or null to keep the vendor's remarks
+     * @return the vendor
+     */
+    @Transactional
+    public Vendor saveContract(Long vendorId, LocalDate startDate, LocalDate endDate, String remarks) {
+        Vendor vendor = findVendor(vendorId);
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("Contract start and end dates are required");
+        }
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("Contract end date must not be before its start date");
+        }
+        vendor.setContractStartDate(startDate);
+        vendor.setContractEndDate(endDate);
+        if (remarks != null) {
+            vendor.setRemarks(remarks);
+        }
+        return vendorRepository.save(vendor);
+    }
+
+    /**
+     * Raise a requisition; it waits for approval
+     *
+     * @param dto the requisition
+     * @return the saved requisition
+     */
+    @Transactional
+    public PurchaseRequisition createRequisition(PurchaseRequisitionDTO dto) {
+        if (isBlank(dto.getDepartment())) {
+            throw new IllegalArgumentException("Department is required");
+        }
+        if (dto.getQuantity() == null || dto.getQuantity().signum() <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        Inventory item = findItem(dto.getItemCode());
+
+        PurchaseRequisition requisition = new PurchaseRequisition();
+        requisition.setRequisitionNo(nextNumber("PR", requisitionRepository::findHighestNumber));
+        requisition.setDepartment(dto.getDepartment().trim());
+        requisition.setPriority(dto.getPriority());
+        requisition.setItemId(item.getId());
+        requisition.setItemCode(item.getItemCode());
+        requisition.setDescription(dto.getDescription() != null ? dto.getDescription() : item.getItemName());
+        requisition.setQuantity(dto.getQuantity());
+        requisition.setEstimatedCost(dto.getQuantity().multiply(item.getUnitCost()));
+        requisition.setRequestDate(LocalDate.now());
+        requisition.setRequiredBy(dto.getRequiredBy());
+        requisition.setRemarks(dto.getRemarks());
+        requisition.setUserId(dto.getUserId());
+        requisition.setCreatedOn(LocalDateTime.now());
+        return requisitionRepository.save(requisition);
+    }
+
+    /**
+     * Get one keyset page of the requisitions
+     *
+     * @param cursor     the nextCursor of the previous page, or null for the first page
+     * @param limit      the page size
+     * @param status     only requisitions in this status, or null
+     * @param department only requisitions of this department, or null
+     * @param sort       "id" or "date"
+     * @param direction  "asc" or "desc"
+     * @return the page
+     */
+    public CursorPage<PurchaseRequisition> getRequisitions(String cursor, Integer limit,
+            PurchaseRequisition.Status status, String department, String sort, String direction) {
+        return keysetPager.page(REQUISITION_KEYSET.where("status", status).where("department", department)
+                .sortedBy(sort, direction), cursor, limit);
+    }
+
+    /**
+     * Approve or reject a pending requisition
+     *
+     * @param id     the requisition
+     * @param status APPROVED or REJECTED
+     * @return the requisition
+     */
+    @Transactional
+    public PurchaseRequisition setRequisitionStatus(Long id, PurchaseRequisition.Status status) {
+        PurchaseRequisition requisition = requisitionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Requisition not found: " + id));
+        if (status != PurchaseRequisition.Status.APPROVED && status != PurchaseRequisition.Status.REJECTED) {
+            throw new IllegalArgumentException("A requisition can only be approved or rejected");
+        }
+        if (requisition.getStatus() != PurchaseRequisition.Status.PENDING) {
+            throw new IllegalArgumentException("Requisition " + requisition.getRequisitionNo() + " is "
+                    + requisition.getStatus());
+        }
+        requisition.setStatus(status);
+        requisition.setUpdatedOn(LocalDateTime.now());
+        return requisitionRepository.save(requisition);
+    }
+
+    /**
+     * Raise a draft purchase order from lines and approved requisitions
+     *
+     * @param request the order
+     * @return the order with its lines
+     */
+    @Transactional
+    public PurchaseOrderDetailDTO createPurchaseOrder(PurchaseOrderRequestDTO request) {
+        Vendor vendor = findVendor(request.getVendorId());
+        List<PurchaseOrderRequestDTO.Line> lines = new ArrayList<>(request.getLines());
+
+        List<PurchaseRequisition> requisitions = request.getRequisitionIds().isEmpty() ? List.of()
+                : requisitionRepository.findByIdIn(request.getRequisitionIds());
+        if (requisitions.size() != new HashSet<>(request.getRequisitionIds()).size()) {
+            throw new IllegalArgumentException("Unknown requisition in " + request.getRequisitionIds());
+        }
+        Map<Integer, PurchaseRequisition> requisitionOfLine = new HashMap<>();
+        for (PurchaseRequisition requisition : requisitions) {
+            if (requisition.getStatus() != PurchaseRequisition.Status.APPROVED) {
+                throw new IllegalArgumentException("Requisition " + requisition.getRequisitionNo() + " is "
+                        + requisition.getStatus() + ", not APPROVED");
+            }
+            PurchaseOrderRequestDTO.Line line = new PurchaseOrderRequestDTO.Line();
+            line.setItemCode(requisition.getItemCode());
+            line.setQuantity(requisition.getQuantity());
+            requisitionOfLine.put(lines.size(), requisition);
+            lines.add(line);
+        }
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("A purchase order needs at least one line");
+        }
+
+        String department = request.getDepartment();
+        if (department == null && !requisitions.isEmpty()) {
+            department = requisitions.get(0).getDepartment();
+        }
+        PurchaseOrder order = saveOrder(vendor, department, request.getExpectedDelivery(), request.getRemarks(),
+                request.getUserId(), lines, requisitionOfLine);
+        for (PurchaseRequisition requisition : requisitions) {
+            requisition.setStatus(PurchaseRequisition.Status.ORDERED);
+            requisition.setPurchaseOrderId(order.getId());
+            requisition.setUpdatedOn(LocalDateTime.now());
+        }
+        return getPurchaseOrder(order.getId());
+    }
+
+    /**
+     * Raise draft purchase orders from the reorder monitor's suggestions, one
+     * per vendor. Items already on an open order are left out, as are items
+     * whose supplier name matches no vendor.
+     *
+     * @param itemCodes    only these items, or null or empty for all items needing reorder
+     * @param supplierName only this supplier's items, or null
+     * @param userId       who raised the orders
+     * @return the orders, and the codes of the items left out for want of a vendor
+     */
+    @Transactional
+    public Map<String, Object> createFromReorder(Collection<String> itemCodes, String supplierName,
+            Integer userId) {
+        List<PurchaseOrderDraftDTO> drafts = reorderMonitor.draftPurchaseOrders(itemCodes, supplierName);
+        List<Long> itemIds = drafts.stream().flatMap(draft -> draft.getLines().stream())
+                .map(ReorderSuggestionDTO::getItemId).toList();
+        Set<Long> onOrder = itemIds.isEmpty() ? Set.of()
+                : new HashSet<>(orderLineRepository.findItemIdsOnOrder(itemIds, OPEN_STATUSES));
+
+        List<PurchaseOrderDetailDTO> orders = new ArrayList<>();
+        List<String> unmatched = new ArrayList<>();
+        for (PurchaseOrderDraftDTO draft : drafts) {
+            List<PurchaseOrderRequestDTO.Line> lines = new ArrayList<>();
+            for (ReorderSuggestionDTO suggestion : draft.getLines()) {
+                if (onOrder.contains(suggestion.getItemId())) {
+                    continue;
+                }
+                PurchaseOrderRequestDTO.Line line = new PurchaseOrderRequestDTO.Line();
+                line.setItemCode(suggestion.getItemCode());
+                line.setQuantity(suggestion.getSuggestedQuantity());
+                line.setUnitPrice(suggestion.getUnitCost());
+                lines.add(line);
+            }
+            if (lines.isEmpty()) {
+                continue;
+            }
+            List<Vendor> vendors = draft.getSupplierName() != null
+                    ? vendorRepository.findByVendorName(draft.getSupplierName())
+                    : List.of();
+            if (vendors.isEmpty()) {
+                lines.forEach(line -> unmatched.add(line.getItemCode()));
+                continue;
+            }
+            PurchaseOrder order = saveOrder(vendors.get(0), null, draft.getExpectedDelivery(),
+                    "Raised from reorder suggestions", userId, lines, Map.of());
+            orders.add(getPurchaseOrder(order.getId()));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("orders", orders);
+        result.put("unmatchedItems", unmatched);
+        return result;
+    }
+
+    /**
+     * Get one keyset page of the purchase orders
+     *
+     * @param cursor    the nextCursor of the previous page, or null for the first page
+     * @param limit     the page size
+     * @param status    only orders in this status, or null
+     * @param vendorId  only orders to this vendor, or null
+     * @param sort      "id" or "date"
+     * @param direction "asc" or "desc"
+     * @return the page
+     */
+    public CursorPage<PurchaseOrder> getPurchaseOrders(String cursor, Integer limit, PurchaseOrder.Status status,
+            Long vendorId, String sort, String direction) {
+        return keysetPager.page(ORDER_KEYSET.where("status", status).where("vendorId", vendorId)
+                .sortedBy(sort, direction), cursor, limit);
+    }
+
+    /**
+     * Get a purchase order with its lines and receipts
+     *
+     * @param id the order
+     * @return the order
+     */
+    public PurchaseOrderDetailDTO getPurchaseOrder(Long id) {
+        PurchaseOrder order = orderRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Purchase order not found: " + id));
+        PurchaseOrderDetailDTO detail = new PurchaseOrderDetailDTO();
+        detail.setOrder(order);
+        detail.setLines(orderLineRepository.findByPurchaseOrderIdOrderByLineNo(id));
+        detail.setReceipts(receiptRepository.findByPurchaseOrderIdOrderById(id));
+        if (!detail.getReceipts().isEmpty()) {
+            detail.setReceiptLines(receiptLineRepository.findByGoodsReceiptIdInOrderById(
+                    detail.getReceipts().stream().map(GoodsReceipt::getId).toList()));
+        }
+        return detail;
+    }
+
+    /**
+     * Move a purchase order on: DRAFT to APPROVED, APPROVED to ORDERED, a
+     * partly received order to CLOSED, or an order with nothing received to
+     * CANCELLED. Receipts set PARTIALLY_RECEIVED and RECEIVED.
+     *
+     * @param id     the order
+     * @param status the new status
+     * @param userId who changed it
+     * @return the order
+     */
+    @Transactional
+    public PurchaseOrder updateStatus(Long id, PurchaseOrder.Status status, Integer userId) {
+        PurchaseOrder order = orderRepository.findForUpdate(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Purchase order not found: " + id));
+        if (status == null || !TRANSITIONS.getOrDefault(order.getStatus(), Set.of()).contains(status)) {
+            throw new IllegalArgumentException("Purchase order " + order.getOrderNo() + " cannot go from "
+                    + order.getStatus() + " to " + status);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        switch (status) {
+            case ORDERED:
+                order.setOrderedDate(now.toLocalDate());
+                recordPerformance(order, 1, 0, false, 0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, null, null);
+                break;
+            case CANCELLED:
+                for (PurchaseRequisition requisition : requisitionRepository.findByPurchaseOrderId(id)) {
+                    requisition.setStatus(PurchaseRequisition.Status.APPROVED);
+                    requisition.setPurchaseOrderId(null);
+                    requisition.setUpdatedOn(now);
+                }
+                break;
+            case CLOSED:
+                recordClosed(order, orderLineRepository.findByPurchaseOrderIdOrderByLineNo(id));
+                break;
+            default:
+                break;
+        }
+        order.setStatus(status);
+        order.setUpdatedOn(now);
+        if (userId != null) {
+            order.setUserId(userId);
+        }
+        logger.info("Purchase order {} is now {}", order.getOrderNo(), status);
+        return orderRepository.save(order);
+    }
+
+    /**
+     * Receive goods against an order. The received lines are posted to the
+     * stock ledger in one batch, at the order price, and the delivery is added
+     * to the vendor's performance.
+     *
+     * @param orderId the order
+     * @param dto     the delivery
+     * @return the order after the receipt
+     */
+    @Transactional
+    public PurchaseOrderDetailDTO receive(Long orderId, GoodsReceiptDTO dto) {
+        PurchaseOrder order = orderRepository.findForUpdate(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Purchase order not found: " + orderId));
+        if (order.getStatus() != PurchaseOrder.Status.ORDERED
+                && order.getStatus() != PurchaseOrder.Status.PARTIALLY_RECEIVED) {
+            throw new IllegalArgumentException("Purchase order " + order.getOrderNo() + " is " + order.getStatus()
+                    + "; only ORDERED or PARTIALLY_RECEIVED orders can be received");
+        }
+        List<PurchaseOrderLine> orderLines = orderLineRepository.findByPurchaseOrderIdOrderByLineNo(orderId);
+        Map<Long, PurchaseOrderLine> linesById = new HashMap<>();
+        orderLines.forEach(line -> linesById.put(line.getId(), line));
+        Map<Long, BigDecimal> received = receivedQuantities(order, orderLines, linesById, dto);
+
+        LocalDate receiptDate = dto.getReceiptDate() != null ? dto.getReceiptDate() : LocalDate.now();
+        GoodsReceipt receipt = new GoodsReceipt();
+        receipt.setReceiptNo(nextNumber("GRN", receiptRepository::findHighestNumber));
+        receipt.setPurchaseOrderId(orderId);
+        receipt.setOrderNo(order.getOrderNo());
+        receipt.setVendorId(order.getVendorId());
+        receipt.setVendorName(order.getVendorName());
+        receipt.setReceiptDate(receiptDate);
+        receipt.setOnTime(order.getExpectedDelivery() == null || !receiptDate.isAfter(order.getExpectedDelivery()));
+        receipt.setReceivedBy(dto.getReceivedBy());
+        receipt.setRemarks(dto.getRemarks());
+        receipt.setUserId(dto.getUserId());
+        receipt.setCreatedOn(LocalDateTime.now());
+
+        List<StockMovementDTO> movements = new ArrayList<>(received.size());
+        BigDecimal total = BigDecimal.ZERO;
+        BigDecimal standardAmount = BigDecimal.ZERO;
+        BigDecimal priceVariance = BigDecimal.ZERO;
+        for (Map.Entry<Long, BigDecimal> entry : received.entrySet()) {
+            PurchaseOrderLine line = linesById.get(entry.getKey());
+            StockMovementDTO movement = new StockMovementDTO();
+            movement.setItemCode(line.getItemCode());
+            movement.setMovementType(StockMovement.Type.RECEIVE);
+            movement.setQuantity(entry.getValue());
+            movement.setUnitCost(line.getUnitPrice());
+            movement.setReferenceType("GRN");
+            movement.setReferenceNo(receipt.getReceiptNo());
+            movement.setUserId(dto.getUserId());
+            movements.add(movement);
+            total = total.add(entry.getValue().multiply(line.getUnitPrice()));
+            if (line.getStandardCost() != null) {
+                standardAmount = standardAmount.add(entry.getValue().multiply(line.getStandardCost()));
+                priceVariance = priceVariance
+                        .add(entry.getValue().multiply(line.getUnitPrice().subtract(line.getStandardCost())));
+            }
+        }
+        receipt.setTotalAmount(total);
+        receipt = receiptRepository.save(receipt);
+        List<StockMovement> posted = stockLedgerService.postAll(movements);
+
+        List<GoodsReceiptLine> receiptLines = new ArrayList<>(received.size());
+        int index = 0;
+        boolean complete = true;
+        for (Map.Entry<Long, BigDecimal> entry : received.entrySet()) {
+            PurchaseOrderLine line = linesById.get(entry.getKey());
+            GoodsReceiptLine receiptLine = new GoodsReceiptLine();
+            receiptLine.setGoodsReceiptId(receipt.getId());
+            receiptLine.setPurchaseOrderLineId(line.getId());
+            receiptLine.setItemId(line.getItemId());
+            receiptLine.setItemCode(line.getItemCode());
+            receiptLine.setQuantity(entry.getValue());
+            receiptLine.setUnitPrice(line.getUnitPrice());
+            receiptLine.setLineTotal(entry.getValue().multiply(line.getUnitPrice()));
+            receiptLine.setStockMovementId(posted.get(index++).getId());
+            receiptLines.add(receiptLine);
+            line.setReceivedQuantity(line.getReceivedQuantity().add(entry.getValue()));
+        }
+        receiptLineRepository.saveAll(receiptLines);
+        for (PurchaseOrderLine line : orderLines) {
+            complete &= line.getOutstandingQuantity().signum() <= 0;
+        }
+
+        order.setReceivedAmount(order.getReceivedAmount().add(total));
+        order.setStatus(complete ? PurchaseOrder.Status.RECEIVED : PurchaseOrder.Status.PARTIALLY_RECEIVED);
+        order.setUpdatedOn(LocalDateTime.now());
+        LocalDate orderedDate = order.getOrderedDate() != null ? order.getOrderedDate() : order.getOrderDate();
+        recordPerformance(order, 0, 1, receipt.getOnTime(),
+                Math.max(0, ChronoUnit.DAYS.between(orderedDate, receiptDate)), total, standardAmount,
+                priceVariance, receiptDate, null);
+        if (complete) {
+            recordClosed(order, orderLines);
+        }
+        logger.info("Received {} against purchase order {}: {} lines, {}", receipt.getReceiptNo(),
+                order.getOrderNo(), receiptLines.size(), total);
+        return getPurchaseOrder(orderId);
+    }
+
+    /**
+     * Get one keyset page of the goods receipts
+     *
+     * @param cursor    the nextCursor of the previous page, or null for the first page
+     * @param limit     the page size
+     * @param vendorId  only receipts from this vendor, or null
+     * @param fromDate  the first receipt date, or null
+     * @param toDate    the last receipt date, or null
+     * @param direction "asc" or "desc"
+     * @return the page
+     */
+    public CursorPage<GoodsReceipt> getReceipts(String cursor, Integer limit, Long vendorId, LocalDate fromDate,
+            LocalDate toDate, String direction) {
+        return keysetPager.page(RECEIPT_KEYSET.where("vendorId", vendorId).sortedBy("id", direction)
+                .between(fromDate, toDate), cursor, limit);
+    }
+
+    /**
+     * Get the running performance of one vendor, or of every vendor that has
+     * had an order placed
+     *
+     * @param vendorId the vendor, or null for all
+     * @return the performance rows, by vendor name
+     */
+    public List<SupplierPerformance> getSupplierPerformance(Long vendorId) {
+        if (vendorId != null) {
+            return performanceRepository.findById(vendorId).map(List::of).orElse(List.of());
+        }
+        return performanceRepository.findAll(Sort.by("vendorName"));
+    }
+
+    private void recordClosed(PurchaseOrder order, List<PurchaseOrderLine> lines) {
+        BigDecimal ordered = BigDecimal.ZERO;
+        BigDecimal received = BigDecimal.ZERO;
+        for (PurchaseOrderLine line : lines) {
+            ordered = ordered.add(line.getQuantity());
+            received = received.add(line.getReceivedQuantity());
+        }
+        recordPerformance(order, 0, 0, false, 0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, null,
+                new BigDecimal[] { ordered, received });
+    }
+
+    /**
+     * Add to a vendor's running totals in place; the first time, seed its row.
+     * The vendor's scorecard is refreshed once the transaction commits.
+     */
+    private void recordPerformance(PurchaseOrder order, long ordersPlaced, long receipts, boolean onTime,
+            long leadDays, BigDecimal spend, BigDecimal standardAmount, BigDecimal priceVariance,
+            LocalDate receiptDate, BigDecimal[] closed) {
+        long onTimeReceipts = receipts > 0 && onTime ? 1 : 0;
+        long closedOrders = closed != null ? 1 : 0;
+        BigDecimal orderedQuantity = closed != null ? closed[0] : BigDecimal.ZERO;
+        BigDecimal receivedQuantity = closed != null ? closed[1] : BigDecimal.ZERO;
+        LocalDateTime now = LocalDateTime.now();
+        int updated = performanceRepository.applyDelta(order.getVendorId(), ordersPlaced, receipts, onTimeReceipts,
+                leadDays, spend, closedOrders, orderedQuantity, receivedQuantity, standardAmount, priceVariance,
+                receiptDate, now);
+        vendorScorecardService.vendorChanged(order.getVendorId());
+        if (updated > 0) {
+            return;
+        }
+        SupplierPerformance performance = new SupplierPerformance();
+        performance.setVendorId(order.getVendorId());
+        performance.setVendorName(order.getVendorName());
+        performance.setOrdersPlaced(ordersPlaced);
+        performance.setReceipts(receipts);
+        performance.setOnTimeReceipts(onTimeReceipts);
+        performance.setLeadDays(leadDays);
+        performance.setTotalSpend(spend);
+        performance.setClosedOrders(closedOrders);
+        performance.setClosedOrderedQuantity(orderedQuantity);
+        performance.setClosedReceivedQuantity(receivedQuantity);
+        performance.setStandardAmount(standardAmount);
+        performance.setPriceVariance(priceVariance);
+        performance.setLastReceiptDate(receiptDate);
+        performance.setUpdatedOn(now);
+        performanceRepository.save(performance);
+    }
+
+    private PurchaseOrder saveOrder(Vendor vendor, String department, LocalDate expectedDelivery, String remarks,
+            Integer userId, List<PurchaseOrderRequestDTO.Line> lines,
+            Map<Integer, PurchaseRequisition> requisitionOfLine) {
+        Set<String> itemCodes = new HashSet<>();
+        for (PurchaseOrderRequestDTO.Line line : lines) {
+            if (line == null || isBlank(line.getItemCode())) {
+                throw new IllegalArgumentException("Every line needs an item code");
+            }
+            itemCodes.add(line.getItemCode().trim());
+        }
+        Map<String, Inventory> items = new HashMap<>();
+        inventoryRepository.findByItemCodeIn(itemCodes).forEach(item -> items.put(item.getItemCode(), item));
+
+        LocalDate today = LocalDate.now();
+        PurchaseOrder order = new PurchaseOrder();
+        order.setOrderNo(nextNumber("PO", orderRepository::findHighestNumber));
+        order.setVendorId(vendor.getId());
+        order.setVendorName(vendor.getVendorName());
+        order.setDepartment(department);
+        order.setOrderDate(today);
+        order.setRemarks(remarks);
+        order.setUserId(userId);
+        order.setCreatedOn(LocalDateTime.now());
+
+        List<PurchaseOrderLine> orderLines = new ArrayList<>(lines.size());
+        BigDecimal total = BigDecimal.ZERO;
+        int leadTime = 0;
+        for (int index = 0; index < lines.size(); index++) {
+            PurchaseOrderRequestDTO.Line line = lines.get(index);
+            Inventory item = items.get(line.getItemCode().trim());
+            String prefix = "Line " + (index + 1) + ": ";
+            if (item == null) {
+                throw new IllegalArgumentException(prefix + "Unknown item: " + line.getItemCode());
+            }
+            if (line.getQuantity() == null || line.getQuantity().signum() <= 0) {
+                throw new IllegalArgumentException(prefix + "Quantity must be greater than zero");
+            }
+            BigDecimal unitPrice = line.getUnitPrice() != null ? line.getUnitPrice() : item.getUnitCost();
+            if (unitPrice.signum() < 0) {
+                throw new IllegalArgumentException(prefix + "Unit price must not be negative");
+            }
+            PurchaseOrderLine orderLine = new PurchaseOrderLine();
+            orderLine.setLineNo(index + 1);
+            orderLine.setItemId(item.getId());
+            orderLine.setItemCode(item.getItemCode());
+            orderLine.setItemName(item.getItemName());
+            orderLine.setQuantity(line.getQuantity());
+            orderLine.setUnitPrice(unitPrice);
+            orderLine.setLineTotal(line.getQuantity().multiply(unitPrice));
+            orderLine.setStandardCost(item.getUnitCost());
+            PurchaseRequisition requisition = requisitionOfLine.get(index);
+            orderLine.setRequisitionId(requisition != null ? requisition.getId() : null);
+            orderLines.add(orderLine);
+            total = total.add(orderLine.getLineTotal());
+            if (item.getLeadTimeDays() != null) {
+                leadTime = Math.max(leadTime, item.getLeadTimeDays());
+            }
+        }
+        order.setTotalAmount(total);
+        order.setLineCount(orderLines.size());
+        order.setExpectedDelivery(expectedDelivery != null ? expectedDelivery : today.plusDays(leadTime));
+        order = orderRepository.save(order);
+        for (PurchaseOrderLine orderLine : orderLines) {
+            orderLine.setPurchaseOrderId(order.getId());
+        }
+        orderLineRepository.saveAll(orderLines);
+        logger.info("Raised purchase order {} to {}: {} lines, {}", order.getOrderNo(), vendor.getVendorName(),
+                orderLines.size(), total);
+        return order;
+    }
+
+    /**
+     * Work out what a receipt delivers per order line: the given quantities,
+     * or everything outstanding when no lines are given
+     */
+    private static Map<Long, BigDecimal> receivedQuantities(PurchaseOrder order, List<PurchaseOrderLine> orderLines,
+            Map<Long, PurchaseOrderLine> linesById, GoodsReceiptDTO dto) {
+        Map<Long, BigDecimal> received = new LinkedHashMap<>();
+        if (dto.getLines().isEmpty()) {
+            for (PurchaseOrderLine line : orderLines) {
+                if (line.getOutstandingQuantity().signum() > 0) {
+                    received.put(line.getId(), line.getOutstandingQuantity());
+                }
+            }
+        }
+        for (GoodsReceiptDTO.Line line : dto.getLines()) {
+            PurchaseOrderLine orderLine = line != null ? linesById.get(line.getPurchaseOrderLineId()) : null;
+            if (orderLine == null) {
+                throw new IllegalArgumentException("Purchase order " + order.getOrderNo() + " has no line "
+                        + (line != null ? line.getPurchaseOrderLineId() : null));
+            }
+            if (line.getQuantity() == null || line.getQuantity().signum() <= 0) {
+                throw new IllegalArgumentException("Received quantity of " + orderLine.getItemCode()
+                        + " must be greater than zero");
+            }
+            received.merge(orderLine.getId(), line.getQuantity(), BigDecimal::add);
+        }
+        if (received.isEmpty()) {
+            throw new IllegalArgumentException("Nothing is outstanding on purchase order " + order.getOrderNo());
+        }
+        for (Map.Entry<Long, BigDecimal> entry : received.entrySet()) {
+            PurchaseOrderLine line = linesById.get(entry.getKey());
+            if (entry.getValue().compareTo(line.getOutstandingQuantity()) > 0) {
+                throw new IllegalArgumentException("Only " + line.getOutstandingQuantity().stripTrailingZeros()
+                        .toPlainString() + " of " + line.getItemCode() + " is outstanding");
+            }
+        }
+        return received;
+    }
+
+    private Vendor findVendor(Long vendorId) {
+        if (vendorId == null) {
+            throw new IllegalArgumentException("Vendor is required");
+        }
+        return vendorRepository.findById(vendorId)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown vendor: " + vendorId));
+    }
+
+    private Inventory findItem(String itemCode) {
+        if (isBlank(itemCode)) {
+            throw new IllegalArgumentException("Item code is required");
+        }
+        return inventoryRepository.findByItemCode(itemCode.trim())
+                .orElseThrow(() -> new IllegalArgumentException("Unknown item: " + itemCode));
+    }
+
+    /**
+     * Next document number, e.g. PO/202610/00042, numbered per month
+     */
+    private String nextNumber(String type, Function<String, String> highestNumber) {
+        String prefix = type + "/" + LocalDate.now().format(NUMBER_PERIOD) + "/";
+        long sequence = sequenceAllocator.next(prefix, () -> {
+            String highest = highestNumber.apply(prefix);
+            return highest == null ? 0 : Long.parseLong(highest.substring(prefix.length()));
+        });
+        return prefix + String.format("%05d", sequence);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
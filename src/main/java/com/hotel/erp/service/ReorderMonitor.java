@@ -0,0 +1,394 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.PurchaseOrderDraftDTO;
+import com.hotel.erp.dto.ReorderSuggestionDTO;
+import com.hotel.erp.entity.Inventory;
+import com.hotel.erp.repository.InventoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory reorder monitor.
+ *
+ * Active inventory items are kept ordered by their distance to the reorder
+ * level (current stock minus reorder level), most urgent first. The stock
+ * ledger reports the stock each movement leaves behind once it commits, so
+ * the items needing reorder are read off the front of the order without a
+ * query, and an alert is raised by the movement that takes an item to or
+ * below its reorder level.
+ *
+ * Reorder levels, quantities, lead times and average consumption are read
+ * when the monitor is built. It is rebuilt after the nightly consumption
+ * roll, or on request after the item master changes.
+ */
+@Service
+public class ReorderMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReorderMonitor.class);
+
+    private static final String ACTIVE = "ACTIVE";
+
+    private final InventoryRepository inventoryRepository;
+    private final int alertHistory;
+
+    private final Map<Long, Level> levels = new ConcurrentHashMap<>();
+    private final NavigableSet<Level> byDistance = new ConcurrentSkipListSet<>(Level.URGENCY);
+    private final Deque<ReorderSuggestionDTO> alerts = new ArrayDeque<>();
+    private final AtomicLong missedUpdates = new AtomicLong();
+    private long alertSequence;
+    private volatile boolean loaded;
+
+    @Autowired
+    public ReorderMonitor(InventoryRepository inventoryRepository,
+            @Value("${hotel.inventory.reorder-alert-history:500}") int alertHistory) {
+        this.inventoryRepository = inventoryRepository;
+        this.alertHistory = Math.max(1, alertHistory);
+    }
+
+    /**
+     * Get the active items at or below their reorder level, most urgent first
+     *
+     * @param limit the most suggestions to return
+     * @return the suggestions
+     */
+    public List<ReorderSuggestionDTO> getSuggestions(int limit) {
+        ensureLoaded();
+        LocalDate today = LocalDate.now();
+        List<ReorderSuggestionDTO> suggestions = new ArrayList<>();
+        for (Level level : byDistance) {
+            if (suggestions.size() >= limit || level.distance.signum() > 0) {
+                break;
+            }
+            suggestions.add(level.suggest(today));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Get the reorder alerts raised after a sequence number. Only the latest
+     * alerts are kept; a client that falls further behind should read the
+     * suggestions instead.
+     *
+     * @param after the sequence of the last alert already seen, 0 for all
+     * @return the current sequence and the newer alerts, oldest first
+     */
+    public Map<String, Object> getAlerts(long after) {
+        ensureLoaded();
+        synchronized (this) {
+            List<ReorderSuggestionDTO> newer = new ArrayList<>();
+            for (ReorderSuggestionDTO alert : alerts) {
+                if (alert.getSequence() > after) {
+                    newer.add(alert);
+                }
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("sequence", alertSequence);
+            result.put("alerts", newer);
+            return result;
+        }
+    }
+
+    /**
+     * Draft purchase orders for the items needing reorder, one per supplier.
+     * Prices and suppliers are read fresh for the items drafted.
+     *
+     * @param itemCodes    only draft these items, or null or empty for all
+     *                     items needing reorder
+     * @param supplierName only draft items of this supplier, or null
+     * @return the drafts, the supplier of the most urgent item first
+     */
+    public List<PurchaseOrderDraftDTO> draftPurchaseOrders(Collection<String> itemCodes, String supplierName) {
+        Set<String> wanted = itemCodes != null ? new HashSet<>(itemCodes) : Set.of();
+        List<ReorderSuggestionDTO> lines = new ArrayList<>();
+        for (ReorderSuggestionDTO suggestion : getSuggestions(Integer.MAX_VALUE)) {
+            if (wanted.isEmpty() || wanted.contains(suggestion.getItemCode())) {
+                lines.add(suggestion);
+            }
+        }
+
+        Map<Long, Inventory> items = new HashMap<>();
+        if (!lines.isEmpty()) {
+            inventoryRepository.findAllById(lines.stream().map(ReorderSuggestionDTO::getItemId).toList())
+                    .forEach(item -> items.put(item.getId(), item));
+        }
+
+        LocalDate today = LocalDate.now();
+        Map<String, PurchaseOrderDraftDTO> drafts = new LinkedHashMap<>();
+        for (ReorderSuggestionDTO line : lines) {
+            Inventory item = items.get(line.getItemId());
+            if (item != null) {
+                line.setSupplierName(item.getSupplierName());
+                line.setUnitCost(item.getUnitCost());
+                line.setEstimatedCost(line.getSuggestedQuantity().multiply(item.getUnitCost()));
+            }
+            if (supplierName != null && !supplierName.equalsIgnoreCase(line.getSupplierName())) {
+                continue;
+            }
+            PurchaseOrderDraftDTO draft = drafts.computeIfAbsent(String.valueOf(line.getSupplierName()), key -> {
+                PurchaseOrderDraftDTO created = new PurchaseOrderDraftDTO();
+                created.setSupplierName(line.getSupplierName());
+                created.setOrderDate(today);
+                created.setExpectedDelivery(today);
+                return created;
+            });
+            draft.getLines().add(line);
+            draft.setTotalAmount(draft.getTotalAmount().add(line.getEstimatedCost()));
+            LocalDate delivery = today.plusDays(line.getLeadTimeDays());
+            if (delivery.isAfter(draft.getExpectedDelivery())) {
+                draft.setExpectedDelivery(delivery);
+            }
+        }
+        return new ArrayList<>(drafts.values());
+    }
+
+    /**
+     * Record the stock a committed movement left behind. Called by the stock
+     * ledger inside its transaction; applied once the transaction commits.
+     *
+     * @param itemId     the item
+     * @param movementId the ledger row of the item's last movement
+     * @param stockAfter the item's stock after it
+     */
+    public void stockChanged(Long itemId, Long movementId, BigDecimal stockAfter) {
+        afterCommit(() -> applyStock(itemId, movementId, stockAfter));
+    }
+
+    /**
+     * Drop the monitor; it is rebuilt from the database on next use
+     */
+    public synchronized void rebuild() {
+        loaded = false;
+        levels.clear();
+        byDistance.clear();
+    }
+
+    private synchronized void applyStock(Long itemId, Long movementId, BigDecimal stockAfter) {
+        Level current = levels.get(itemId);
+        if (current == null) {
+            // An item created since the monitor was built
+            Inventory item = inventoryRepository.findById(itemId).orElse(null);
+            if (item == null) {
+                return;
+            }
+            current = new Level(item);
+            put(null, current);
+        }
+        // Movements of one item commit in ledger order, but their callbacks may not run in it
+        if (current.movementId != null && movementId <= current.movementId) {
+            return;
+        }
+        Level next = current.withStock(stockAfter, movementId);
+        put(current, next);
+
+        if (next.active && current.distance.signum() > 0 && next.distance.signum() <= 0) {
+            ReorderSuggestionDTO alert = next.suggest(LocalDate.now());
+            alert.setMovementId(movementId);
+            alert.setSequence(++alertSequence);
+            alerts.addLast(alert);
+            while (alerts.size() > alertHistory) {
+                alerts.removeFirst();
+            }
+            logger.info("Item {} reached its reorder level: stock {}, reorder level {}", next.itemCode,
+                    next.stock, next.reorderLevel);
+        }
+    }
+
+    private void put(Level previous, Level level) {
+        if (previous != null) {
+            byDistance.remove(previous);
+        }
+        levels.put(level.itemId, level);
+        if (level.active) {
+            byDistance.add(level);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            while (!loaded) {
+                long missed = missedUpdates.get();
+                load();
+                // a movement that committed while we were reading may be missing, read again
+                loaded = missedUpdates.get() == missed;
+            }
+        }
+    }
+
+    private void load() {
+        long started = System.currentTimeMillis();
+        levels.clear();
+        byDistance.clear();
+        for (Inventory item : inventoryRepository.findAll()) {
+            put(null, new Level(item));
+        }
+        logger.info("Built reorder monitor: {} items, {} active in {} ms", levels.size(), byDistance.size(),
+                System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Run a monitor update after the surrounding transaction commits, so a
+     * rolled back movement never raises an alert. Before the monitor is
+     * built the update is only counted; the build reads the stock instead.
+     */
+    private void afterCommit(Runnable update) {
+        Runnable apply = () -> {
+            if (loaded) {
+                update.run();
+            } else {
+                missedUpdates.incrementAndGet();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * The reorder settings and stock of one item. Levels are replaced, never
+     * changed, so the ordered set never holds an entry whose key has moved.
+     */
+    private static final class Level {
+        static final Comparator<Level> URGENCY = Comparator.comparing((Level level) -> level.distance)
+                .thenComparing(level -> level.itemId);
+
+        final Long itemId;
+        final String itemCode;
+        final String itemName;
+        final String category;
+        final String supplierName;
+        final BigDecimal unitCost;
+        final BigDecimal reorderLevel;
+        final BigDecimal reorderQuantity;
+        final BigDecimal maximumStock;
+        final int leadTimeDays;
+        final BigDecimal averageConsumption;
+        final boolean active;
+        final BigDecimal stock;
+        final BigDecimal distance;
+        final Long movementId;
+
+        Level(Inventory item) {
+            this.itemId = item.getId();
+            this.itemCode = item.getItemCode();
+            this.itemName = item.getItemName();
+            this.category = item.getCategory();
+            this.supplierName = item.getSupplierName();
+            this.unitCost = orZero(item.getUnitCost());
+            this.reorderLevel = orZero(item.getReorderLevel());
+            this.reorderQuantity = orZero(item.getReorderQuantity());
+            this.maximumStock = orZero(item.getMaximumStock());
+            this.leadTimeDays = item.getLeadTimeDays() != null ? Math.max(0, item.getLeadTimeDays()) : 0;
+            this.averageConsumption = orZero(item.getAverageConsumption());
+            this.active = ACTIVE.equals(item.getItemStatus());
+            this.stock = orZero(item.getCurrentStock());
+            this.distance = stock.subtract(reorderLevel);
+            this.movementId = null;
+        }
+
+        private Level(Level level, BigDecimal stock, Long movementId) {
+            this.itemId = level.itemId;
+            this.itemCode = level.itemCode;
+            this.itemName = level.itemName;
+            this.category = level.category;
+            this.supplierName = level.supplierName;
+            this.unitCost = level.unitCost;
+            this.reorderLevel = level.reorderLevel;
+            this.reorderQuantity = level.reorderQuantity;
+            this.maximumStock = level.maximumStock;
+            this.leadTimeDays = level.leadTimeDays;
+            this.averageConsumption = level.averageConsumption;
+            this.active = level.active;
+            this.stock = stock;
+            this.distance = stock.subtract(reorderLevel);
+            this.movementId = movementId;
+        }
+
+        Level withStock(BigDecimal stock, Long movementId) {
+            return new Level(this, stock, movementId);
+        }
+
+        /**
+         * Order the reorder quantity, or enough to be back at the reorder
+         * level once the lead time's consumption is used up if that is more,
+         * but no more than fills the item to its maximum stock.
+         */
+        ReorderSuggestionDTO suggest(LocalDate today) {
+            BigDecimal leadTimeUse = averageConsumption.multiply(BigDecimal.valueOf(leadTimeDays));
+            BigDecimal needed = reorderLevel.subtract(stock).add(leadTimeUse);
+            BigDecimal quantity = reorderQuantity.max(needed);
+            if (maximumStock.signum() > 0) {
+                BigDecimal room = maximumStock.subtract(stock);
+                if (room.compareTo(needed) > 0 && room.compareTo(quantity) < 0) {
+                    quantity = room;
+                }
+            }
+            quantity = quantity.setScale(0, RoundingMode.CEILING);
+            if (quantity.signum() <= 0) {
+                quantity = BigDecimal.ONE;
+            }
+
+            ReorderSuggestionDTO suggestion = new ReorderSuggestionDTO();
+            suggestion.setItemId(itemId);
+            suggestion.setItemCode(itemCode);
+            suggestion.setItemName(itemName);
+            suggestion.setCategory(category);
+            suggestion.setSupplierName(supplierName);
+            suggestion.setCurrentStock(stock);
+            suggestion.setReorderLevel(reorderLevel);
+            suggestion.setReorderQuantity(reorderQuantity);
+            suggestion.setMaximumStock(maximumStock);
+            suggestion.setLeadTimeDays(leadTimeDays);
+            suggestion.setAverageConsumption(averageConsumption);
+            suggestion.setDistance(distance);
+            suggestion.setSuggestedQuantity(quantity);
+            suggestion.setUnitCost(unitCost);
+            suggestion.setEstimatedCost(quantity.multiply(unitCost));
+            if (averageConsumption.signum() > 0) {
+                long days = stock.signum() > 0
+                        ? stock.divide(averageConsumption, 0, RoundingMode.FLOOR).longValue()
+                        : 0;
+                suggestion.setStockOutDate(today.plusDays(days));
+                suggestion.setOrderBy(today.plusDays(days - leadTimeDays));
+            }
+            return suggestion;
+        }
+
+        private static BigDecimal orZero(BigDecimal value) {
+            return value != null ? value : BigDecimal.ZERO;
+        }
+    }
+}
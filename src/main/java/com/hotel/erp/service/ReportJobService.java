@@ -0,0 +1,305 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.ReportJobDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs the ReportController reports as background jobs.
+ *
+ * A submit validates the parameters straight away, then queues the report on
+ * the bounded report executor and returns a job id to poll. A finished job's
+ * result is kept for the configured TTL and doubles as the cache: submitting
+ * the same report with the same parameters within the TTL, or while the
+ * first job is still running, returns the existing job instead of running
+ * the report again. Failed jobs are kept for the TTL too, so the error can be
+ * read, but are never reused.
+ */
+@Service
+public class ReportJobService {
+
+    /**
+     * Lifecycle of a report job
+     */
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    /**
+     * A report that can be run as a job: the parameters it takes, and how to
+     * turn them into the computation. Preparing the computation parses and
+     * validates the parameters, so bad input fails the submit, not the job.
+     */
+    private static final class ReportDefinition {
+        private final List<String> parameterNames;
+        private final Function<Map<String, String>, Supplier<Object>> prepare;
+
+        private ReportDefinition(List<String> parameterNames, Function<Map<String, String>, Supplier<Object>> prepare) {
+            this.parameterNames = parameterNames;
+            this.prepare = prepare;
+        }
+    }
+
+    private static final class Job {
+        private final String id;
+        private final String report;
+        private final Map<String, String> parameters;
+        private final String cacheKey;
+        private final LocalDateTime submittedOn = LocalDateTime.now();
+        private volatile Status status = Status.QUEUED;
+        private volatile LocalDateTime startedOn;
+        private volatile LocalDateTime completedOn;
+        private volatile LocalDateTime expiresOn;
+        private volatile Object result;
+        private volatile String error;
+
+        private Job(String report, Map<String, String> parameters, String cacheKey) {
+            this.id = UUID.randomUUID().toString();
+            this.report = report;
+            this.parameters = parameters;
+            this.cacheKey = cacheKey;
+        }
+
+        private boolean isExpired(LocalDateTime now) {
+            return expiresOn != null && !now.isBefore(expiresOn);
+        }
+    }
+
+    private final TaskExecutor reportExecutor;
+    private final Duration resultTtl;
+    private final Map<String, ReportDefinition> reports = new LinkedHashMap<>();
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Job> jobsByKey = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReportJobService(ReportService reportService, @Qualifier("reportExecutor") TaskExecutor reportExecutor,
+            @Value("${hotel.report.result-ttl:PT5M}") Duration resultTtl) {
+        this.reportExecutor = reportExecutor;
+        this.resultTtl = resultTtl;
+
+        // Same names and parameters as the synchronous ReportController endpoints
+        reports.put("payments", new ReportDefinition(
+                List.of("dateFrom", "dateTo", "paymentMode", "folioNo", "reservationNo", "guestName"), params -> {
+                    LocalDate startDate = requireDate(params, "dateFrom");
+                    LocalDate endDate = requireDate(params, "dateTo");
+                    return () -> reportService.getPaymentSummaries(startDate, endDate, params.get("paymentMode"),
+                            params.get("folioNo"), params.get("reservationNo"), params.get("guestName"));
+                }));
+        reports.put("bills", new ReportDefinition(List.of("dateFrom", "dateTo", "folioNo"), params -> {
+            LocalDate startDate = requireDate(params, "dateFrom");
+            LocalDate endDate = requireDate(params, "dateTo");
+            return () -> reportService.getBillSummaries(startDate, endDate, params.get("folioNo"));
+        }));
+        reports.put("charges", new ReportDefinition(List.of("dateFrom", "dateTo", "chargeType"), params -> {
+            LocalDate startDate = requireDate(params, "dateFrom");
+            LocalDate endDate = requireDate(params, "dateTo");
+            return () -> reportService.getChargeSummaries(startDate, endDate, params.get("chargeType"));
+        }));
+        reports.put("financial", new ReportDefinition(List.of("dateFrom", "dateTo"), params -> {
+            LocalDate startDate = requireDate(params, "dateFrom");
+            LocalDate endDate = requireDate(params, "dateTo");
+            return () -> reportService.getFinancialSummary(startDate, endDate);
+        }));
+        reports.put("room-occupancy", new ReportDefinition(List.of("startDate", "endDate"), params -> {
+            LocalDate startDate = requireDate(params, "startDate");
+            LocalDate endDate = requireDate(params, "endDate");
+            return () -> reportService.getRoomOccupancyReport(startDate, endDate);
+        }));
+        reports.put("payment-summary", new ReportDefinition(List.of("startDate", "endDate"), params -> {
+            LocalDate startDate = requireDate(params, "startDate");
+            LocalDate endDate = requireDate(params, "endDate");
+            return () -> reportService.getPaymentSummaryReport(startDate, endDate);
+        }));
+        reports.put("financial-summary", new ReportDefinition(List.of("startDate", "endDate"), params -> {
+            LocalDate startDate = requireDate(params, "startDate");
+            LocalDate endDate = requireDate(params, "endDate");
+            return () -> reportService.getFinancialSummaryReport(startDate, endDate);
+        }));
+        reports.put("daily-summary", new ReportDefinition(List.of("date"), params -> {
+            LocalDate reportDate = requireDate(params, "date");
+            return () -> reportService.getDailySummaryReport(reportDate);
+        }));
+    }
+
+    /**
+     * Submit a report, or join the job already running or cached for the same
+     * report and parameters
+     *
+     * @param report     the report name, as in the ReportController path
+     * @param parameters the report's request parameters; others are ignored
+     * @return the job status
+     * @throws IllegalArgumentException if the report is unknown or a
+     *                                  parameter is missing or invalid
+     * @throws TaskRejectedException    if the report queue is full
+     */
+    public ReportJobDTO submit(String report, Map<String, String> parameters) {
+        Map<String, String> normalized = normalize(report, parameters);
+        Supplier<Object> computation = reports.get(report).prepare.apply(normalized);
+        String cacheKey = report + normalized;
+
+        LocalDateTime now = LocalDateTime.now();
+        Job[] created = new Job[1];
+        Job job = jobsByKey.compute(cacheKey, (key, existing) -> {
+            if (existing != null && existing.status != Status.FAILED && !existing.isExpired(now)) {
+                return existing;
+            }
+            created[0] = new Job(report, Collections.unmodifiableMap(normalized), key);
+            return created[0];
+        });
+
+        if (created[0] != null) {
+            jobs.put(job.id, job);
+            try {
+                reportExecutor.execute(() -> run(job, computation));
+            } catch (TaskRejectedException e) {
+                jobs.remove(job.id);
+                jobsByKey.remove(cacheKey, job);
+                logger.warn("Report queue full, rejected {} {}", report, normalized);
+                throw e;
+            }
+            logger.info("Queued report job {} for {} {}", job.id, report, normalized);
+        } else {
+            logger.debug("Report {} {} served by job {}", report, normalized, job.id);
+        }
+        return toDTO(job);
+    }
+
+    /**
+     * Validate a report's parameters and prepare it to run on the caller's
+     * thread, bypassing the job queue and cache
+     *
+     * @param report     the report name, as in the ReportController path
+     * @param parameters the report's request parameters; others are ignored
+     * @return the computation, returning what the synchronous endpoint returns
+     * @throws IllegalArgumentException if the report is unknown or a
+     *                                  parameter is missing or invalid
+     */
+    public Supplier<Object> prepare(String report, Map<String, String> parameters) {
+        return reports.get(report).prepare.apply(normalize(report, parameters));
+    }
+
+    /**
+     * Get the status of a job
+     *
+     * @param jobId the job id
+     * @return the status, or empty if the job is unknown or has expired
+     */
+    public Optional<ReportJobDTO> getJob(String jobId) {
+        return findJob(jobId).map(this::toDTO);
+    }
+
+    /**
+     * Get the result of a completed job
+     *
+     * @param jobId the job id
+     * @return the result, or empty if the job is unknown, expired or not
+     *         completed
+     */
+    public Optional<Object> getResult(String jobId) {
+        return findJob(jobId).filter(job -> job.status == Status.COMPLETED).map(job -> job.result);
+    }
+
+    /**
+     * Drop expired jobs and their results
+     */
+    @Scheduled(fixedDelayString = "${hotel.report.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        jobs.values().removeIf(job -> {
+            if (!job.isExpired(now)) {
+                return false;
+            }
+            jobsByKey.remove(job.cacheKey, job);
+            return true;
+        });
+    }
+
+    private Map<String, String> normalize(String report, Map<String, String> parameters) {
+        ReportDefinition definition = reports.get(report);
+        if (definition == null) {
+            throw new IllegalArgumentException("Unknown report: " + report + "; expected one of " + reports.keySet());
+        }
+        Map<String, String> normalized = new TreeMap<>();
+        for (String name : definition.parameterNames) {
+            String value = parameters.get(name);
+            if (value != null && !value.trim().isEmpty()) {
+                normalized.put(name, value.trim());
+            }
+        }
+        return normalized;
+    }
+
+    private Optional<Job> findJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).filter(job -> !job.isExpired(LocalDateTime.now()));
+    }
+
+    private void run(Job job, Supplier<Object> computation) {
+        job.startedOn = LocalDateTime.now();
+        job.status = Status.RUNNING;
+        Status outcome;
+        try {
+            job.result = computation.get();
+            outcome = Status.COMPLETED;
+        } catch (Exception e) {
+            logger.error("Report job {} for {} failed: {}", job.id, job.report, e.getMessage(), e);
+            job.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            outcome = Status.FAILED;
+        }
+        job.completedOn = LocalDateTime.now();
+        job.expiresOn = job.completedOn.plus(resultTtl);
+        // set last, so a poller that sees the outcome also sees the times
+        job.status = outcome;
+        logger.info("Report job {} for {} {} in {} ms", job.id, job.report, outcome,
+                Duration.between(job.startedOn, job.completedOn).toMillis());
+    }
+
+    private ReportJobDTO toDTO(Job job) {
+        ReportJobDTO dto = new ReportJobDTO();
+        dto.setJobId(job.id);
+        dto.setReport(job.report);
+        dto.setParameters(job.parameters);
+        dto.setStatus(job.status.name());
+        dto.setSubmittedOn(job.submittedOn);
+        dto.setStartedOn(job.startedOn);
+        dto.setCompletedOn(job.completedOn);
+        dto.setExpiresOn(job.expiresOn);
+        dto.setError(job.error);
+        return dto;
+    }
+
+    private static LocalDate requireDate(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date for " + name + ": " + value);
+        }
+    }
+}
@@ -2,14 +2,11 @@ package com.hotel.erp.service;
 
 import com.hotel.erp.dto.PaymentReportDTO;
 import com.hotel.erp.dto.FoBillDTO;
-import com.hotel.erp.entity.Advances;
-import com.hotel.erp.entity.FoBill;
-import com.hotel.erp.entity.BillSettlement;
-import com.hotel.erp.entity.AdditionalCharges;
+import com.hotel.erp.dto.GroupTotalDTO;
 import com.hotel.erp.repository.AdvancesRepository;
+import com.hotel.erp.repository.DailyRevenueRepository;
 import com.hotel.erp.repository.FoBillRepository;
-import com.hotel.erp.repository.BillSettlementRepository;
-import com.hotel.erp.repository.AdditionalChargesRepository;
+import com.hotel.erp.service.FolioBalanceService.Ledger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
@@ -21,8 +18,13 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
-import java.util.stream.Collectors;
+import java.util.LinkedHashMap;
 
+/**
+ * Reports over the ledgers. Totals are read from the daily revenue cube
+ * maintained by DailyRevenueService, so a report costs a few reads of one
+ * small table however often the dashboards poll it.
+ */
 @Service
 public class ReportService {
 
@@ -35,10 +37,13 @@ public class ReportService {
     private FoBillRepository foBillRepository;
 
     @Autowired
-    private BillSettlementRepository billSettlementRepository;
+    private DailyRevenueRepository dailyRevenueRepository;
 
     @Autowired
-    private AdditionalChargesRepository additionalChargesRepository;
+    private DailyRevenueService dailyRevenueService;
+
+    @Autowired
+    private OccupancyCalculator occupancyCalculator;
 
     /**
      * Get payment summaries by date range and payment mode
@@ -56,74 +61,19 @@ public class ReportService {
             String reservationNo, String guestName) {
         logger.info("Generating payment summaries from {} to {}", startDate, endDate);
 
-        try {
-            List<Advances> advances = advancesRepository.findByPaymentDateBetween(startDate, endDate);
-
-            // Filter by additional criteria
-            if (paymentMode != null && !paymentMode.trim().isEmpty()) {
-                advances = advances.stream()
-                        .filter(a -> paymentMode.equals(a.getPaymentMode()))
-                        .collect(Collectors.toList());
-            }
-
-            if (folioNo != null && !folioNo.trim().isEmpty()) {
-                advances = advances.stream()
-                        .filter(a -> folioNo.equals(a.getFolioNo()))
-                        .collect(Collectors.toList());
-            }
-
-            if (reservationNo != null && !reservationNo.trim().isEmpty()) {
-                advances = advances.stream()
-                        .filter(a -> reservationNo.equals(a.getReservationNo()))
-                        .collect(Collectors.toList());
-            }
-
-            if (guestName != null && !guestName.trim().isEmpty()) {
-                advances = advances.stream()
-                        .filter(a -> guestName.equals(a.getGuestName()))
-                        .collect(Collectors.toList());
-            }
-
-            // Group by date and payment mode
-            Map<String, List<Advances>> groupedAdvances = advances.stream()
-                    .collect(Collectors.groupingBy(a -> a.getPaymentDate() + "|" + a.getPaymentMode()));
-
-            List<PaymentReportDTO> summaries = new ArrayList<>();
-
-            for (Map.Entry<String, List<Advances>> entry : groupedAdvances.entrySet()) {
-                String[] parts = entry.getKey().split("\\|");
-                LocalDate reportDate = LocalDate.parse(parts[0]);
-                String mode = parts[1];
-
-                List<Advances> dayAdvances = entry.getValue();
-                BigDecimal totalAmount = dayAdvances.stream()
-                        .map(Advances::getAmount)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                PaymentReportDTO summary = new PaymentReportDTO();
-                summary.setReportDate(reportDate);
-                summary.setTotalAmount(totalAmount);
-                summary.setPaymentMode(mode);
-                summary.setTransactionCount(dayAdvances.size());
-
-                // Set guest info from first advance
-                if (!dayAdvances.isEmpty()) {
-                    Advances firstAdvance = dayAdvances.get(0);
-                    summary.setFolioNo(firstAdvance.getFolioNo());
-                    summary.setReservationNo(firstAdvance.getReservationNo());
-                    summary.setGuestName(firstAdvance.getGuestName());
-                }
-
-                summaries.add(summary);
-            }
-
-            logger.info("Generated {} payment summaries", summaries.size());
-            return summaries;
-
-        } catch (Exception e) {
-            logger.error("Error generating payment summaries: {}", e.getMessage(), e);
-            return new ArrayList<>();
+        List<PaymentReportDTO> summaries;
+        if (blankToNull(folioNo) == null && blankToNull(reservationNo) == null
+                && blankToNull(guestName) == null) {
+            summaries = dailyRevenueRepository.sumByDateAndPaymentMode(Ledger.ADVANCES.name(), startDate,
+                    endDate, blankToNull(paymentMode));
+        } else {
+            // The cube has no folio, reservation or guest dimension; group the advances themselves
+            summaries = advancesRepository.summarizePayments(startDate, endDate,
+                    paymentMode, folioNo, reservationNo, guestName);
         }
+
+        logger.info("Generated {} payment summaries", summaries.size());
+        return summaries;
     }
 
     /**
@@ -137,27 +87,10 @@ public class ReportService {
     public List<FoBillDTO> getBillSummaries(LocalDate startDate, LocalDate endDate, String folioNo) {
         logger.info("Generating bill summaries from {} to {}", startDate, endDate);
 
-        try {
-            List<FoBill> bills = foBillRepository.findByBillDateBetween(startDate, endDate);
-
-            // Filter by folio number if provided
-            if (folioNo != null && !folioNo.trim().isEmpty()) {
-                bills = bills.stream()
-                        .filter(b -> folioNo.equals(b.getFolioNo()))
-                        .collect(Collectors.toList());
-            }
-
-            List<FoBillDTO> summaries = bills.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
-
-            logger.info("Generated {} bill summaries", summaries.size());
-            return summaries;
+        List<FoBillDTO> summaries = foBillRepository.findBillSummaries(startDate, endDate, blankToNull(folioNo));
 
-        } catch (Exception e) {
-            logger.error("Error generating bill summaries: {}", e.getMessage(), e);
-            return new ArrayList<>();
-        }
+        logger.info("Generated {} bill summaries", summaries.size());
+        return summaries;
     }
 
     /**
@@ -171,46 +104,18 @@ public class ReportService {
     public List<Map<String, Object>> getChargeSummaries(LocalDate startDate, LocalDate endDate, String chargeType) {
         logger.info("Generating charge summaries from {} to {}", startDate, endDate);
 
-        try {
-            List<AdditionalCharges> charges = additionalChargesRepository.findByChargeDateBetween(startDate, endDate);
-
-            // Filter by charge type if provided
-            if (chargeType != null && !chargeType.trim().isEmpty()) {
-                charges = charges.stream()
-                        .filter(c -> chargeType.equals(c.getChargeType()))
-                        .collect(Collectors.toList());
-            }
-
-            // Group by charge type
-            Map<String, List<AdditionalCharges>> groupedCharges = charges.stream()
-                    .collect(Collectors.groupingBy(AdditionalCharges::getChargeType));
-
-            List<Map<String, Object>> summaries = new ArrayList<>();
-
-            for (Map.Entry<String, List<AdditionalCharges>> entry : groupedCharges.entrySet()) {
-                String type = entry.getKey();
-                List<AdditionalCharges> typeCharges = entry.getValue();
-
-                BigDecimal totalAmount = typeCharges.stream()
-                        .map(AdditionalCharges::getAmount)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                Map<String, Object> summary = new HashMap<>();
-                summary.put("chargeType", type);
-                summary.put("totalAmount", totalAmount);
-                summary.put("transactionCount", typeCharges.size());
-                summary.put("charges", typeCharges);
-
-                summaries.add(summary);
-            }
-
-            logger.info("Generated {} charge summaries", summaries.size());
-            return summaries;
-
-        } catch (Exception e) {
-            logger.error("Error generating charge summaries: {}", e.getMessage(), e);
-            return new ArrayList<>();
+        List<Map<String, Object>> summaries = new ArrayList<>();
+        for (GroupTotalDTO total : dailyRevenueRepository.sumByAccountHead(Ledger.CHARGES.name(), startDate,
+                endDate, blankToNull(chargeType))) {
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("chargeType", total.getGroup());
+            summary.put("totalAmount", total.getTotalAmount());
+            summary.put("transactionCount", total.getCount());
+            summaries.add(summary);
         }
+
+        logger.info("Generated {} charge summaries", summaries.size());
+        return summaries;
     }
 
     /**
@@ -223,89 +128,89 @@ public class ReportService {
     public Map<String, Object> getFinancialSummary(LocalDate startDate, LocalDate endDate) {
         logger.info("Generating financial summary from {} to {}", startDate, endDate);
 
-        try {
-            Map<String, Object> summary = new HashMap<>();
+        Map<String, Object> summary = new HashMap<>();
 
-            // Total advances
-            BigDecimal totalAdvances = advancesRepository.getTotalAmountByDateRange(startDate, endDate);
-            summary.put("totalAdvances", totalAdvances);
+        Map<String, GroupTotalDTO> totals = totalsByLedger(startDate, endDate);
 
-            // Total bills
-            BigDecimal totalBills = foBillRepository.getTotalAmountByDateRange(startDate, endDate);
-            summary.put("totalBills", totalBills);
+        BigDecimal totalAdvances = amountOf(totals, Ledger.ADVANCES);
+        summary.put("totalAdvances", totalAdvances);
 
-            // Total settlements
-            BigDecimal totalSettlements = billSettlementRepository.getTotalAmountByDateRange(startDate, endDate);
-            summary.put("totalSettlements", totalSettlements);
+        BigDecimal totalBills = amountOf(totals, Ledger.BILLED);
+        summary.put("totalBills", totalBills);
 
-            // Total charges
-            BigDecimal totalCharges = additionalChargesRepository.getTotalAmountByDateRange(startDate, endDate);
-            summary.put("totalCharges", totalCharges);
+        BigDecimal totalSettlements = amountOf(totals, Ledger.SETTLEMENTS);
+        summary.put("totalSettlements", totalSettlements);
 
-            // Outstanding amount
-            BigDecimal outstanding = totalBills.add(totalCharges).subtract(totalSettlements);
-            summary.put("outstandingAmount", outstanding);
+        BigDecimal totalCharges = amountOf(totals, Ledger.CHARGES);
+        summary.put("totalCharges", totalCharges);
 
-            // Payment mode breakdown
-            List<Advances> advances = advancesRepository.findByPaymentDateBetween(startDate, endDate);
-            Map<String, BigDecimal> paymentModeBreakdown = advances.stream()
-                    .collect(Collectors.groupingBy(
-                            Advances::getPaymentMode,
-                            Collectors.reducing(BigDecimal.ZERO, Advances::getAmount, BigDecimal::add)));
-            summary.put("paymentModeBreakdown", paymentModeBreakdown);
+        summary.put("totalPostings", amountOf(totals, Ledger.POSTINGS));
 
-            logger.info("Generated financial summary successfully");
-            return summary;
+        // Outstanding amount
+        BigDecimal outstanding = totalBills.add(totalCharges).subtract(totalSettlements);
+        summary.put("outstandingAmount", outstanding);
 
-        } catch (Exception e) {
-            logger.error("Error generating financial summary: {}", e.getMessage(), e);
-            return new HashMap<>();
+        // Payment mode breakdown
+        Map<String, BigDecimal> paymentModeBreakdown = new LinkedHashMap<>();
+        for (GroupTotalDTO total : dailyRevenueRepository.sumByPaymentMode(Ledger.ADVANCES.name(), startDate,
+                endDate)) {
+            paymentModeBreakdown.merge(total.getGroup() != null ? total.getGroup() : "Unknown",
+                    total.getTotalAmount(), BigDecimal::add);
         }
+        summary.put("paymentModeBreakdown", paymentModeBreakdown);
+
+        logger.info("Generated financial summary successfully");
+        return summary;
     }
 
     /**
-     * Convert FoBill entity to DTO
+     * Rebuild the daily revenue cube for a date range from the ledger tables
      * 
-     * @param foBill the FoBill entity
-     * @return FoBillDTO
+     * @param startDate the start date
+     * @param endDate   the end date
+     * @return summary of the rebuild
      */
-    private FoBillDTO convertToDTO(FoBill foBill) {
-        FoBillDTO dto = new FoBillDTO();
-        dto.setBillId(foBill.getBillId());
-        dto.setFolioNo(foBill.getFolioNo());
-        dto.setTotalAmount(foBill.getTotalAmount());
-        dto.setBillDate(foBill.getBillDate());
-        dto.setUserId(foBill.getUserId());
-        return dto;
+    public Map<String, Object> rebuildDailyRevenue(LocalDate startDate, LocalDate endDate) {
+        return dailyRevenueService.rebuild(startDate, endDate);
+    }
+
+    private Map<String, GroupTotalDTO> totalsByLedger(LocalDate startDate, LocalDate endDate) {
+        Map<String, GroupTotalDTO> totals = new HashMap<>();
+        for (GroupTotalDTO total : dailyRevenueRepository.sumByLedger(startDate, endDate)) {
+            totals.put(total.getGroup(), total);
+        }
+        return totals;
+    }
+
+    private static BigDecimal amountOf(Map<String, GroupTotalDTO> totals, Ledger ledger) {
+        GroupTotalDTO total = totals.get(ledger.name());
+        return total != null ? total.getTotalAmount() : BigDecimal.ZERO;
+    }
+
+    private static long countOf(Map<String, GroupTotalDTO> totals, Ledger ledger) {
+        GroupTotalDTO total = totals.get(ledger.name());
+        return total != null ? total.getCount() : 0;
+    }
+
+    private static String blankToNull(String value) {
+        return value != null && !value.trim().isEmpty() ? value : null;
     }
 
     /**
-     * Get room occupancy report
+     * Get room occupancy report with occupancy, ADR and RevPAR per night and
+     * per room type
      * 
-     * @param startDate the start date
-     * @param endDate   the end date
+     * @param startDate the first night
+     * @param endDate   the last night
      * @return Room occupancy report
      */
     public Map<String, Object> getRoomOccupancyReport(LocalDate startDate, LocalDate endDate) {
         logger.info("Generating room occupancy report from {} to {}", startDate, endDate);
 
-        try {
-            Map<String, Object> report = new HashMap<>();
-
-            // Mock data for room occupancy - you would integrate with actual room service
-            report.put("totalRooms", 50);
-            report.put("occupiedRooms", 35);
-            report.put("availableRooms", 15);
-            report.put("occupancyRate", 70.0);
-            report.put("period", startDate.toString() + " to " + endDate.toString());
-
-            logger.info("Generated room occupancy report successfully");
-            return report;
+        Map<String, Object> report = occupancyCalculator.calculate(startDate, endDate);
 
-        } catch (Exception e) {
-            logger.error("Error generating room occupancy report: {}", e.getMessage(), e);
-            return new HashMap<>();
-        }
+        logger.info("Generated room occupancy report successfully");
+        return report;
     }
 
     /**
@@ -318,33 +223,28 @@ public class ReportService {
     public Map<String, Object> getPaymentSummaryReport(LocalDate startDate, LocalDate endDate) {
         logger.info("Generating payment summary report from {} to {}", startDate, endDate);
 
-        try {
-            Map<String, Object> report = new HashMap<>();
-
-            // Get payment summaries
-            List<PaymentReportDTO> summaries = getPaymentSummaries(startDate, endDate, null, null, null, null);
+        Map<String, Object> report = new HashMap<>();
 
-            BigDecimal totalPayments = summaries.stream()
-                    .map(PaymentReportDTO::getTotalAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Get payment summaries
+        List<PaymentReportDTO> summaries = getPaymentSummaries(startDate, endDate, null, null, null, null);
 
-            Map<String, BigDecimal> paymentModeBreakdown = summaries.stream()
-                    .collect(Collectors.groupingBy(
-                            PaymentReportDTO::getPaymentMode,
-                            Collectors.reducing(BigDecimal.ZERO, PaymentReportDTO::getTotalAmount, BigDecimal::add)));
+        BigDecimal totalPayments = summaries.stream()
+                .map(PaymentReportDTO::getTotalAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-            report.put("totalPayments", totalPayments);
-            report.put("paymentCount", summaries.size());
-            report.put("paymentModeBreakdown", paymentModeBreakdown);
-            report.put("period", startDate.toString() + " to " + endDate.toString());
+        Map<String, BigDecimal> paymentModeBreakdown = new LinkedHashMap<>();
+        for (PaymentReportDTO summary : summaries) {
+            paymentModeBreakdown.merge(summary.getPaymentMode() != null ? summary.getPaymentMode() : "Unknown",
+                    summary.getTotalAmount(), BigDecimal::add);
+        }
 
-            logger.info("Generated payment summary report successfully");
-            return report;
+        report.put("totalPayments", totalPayments);
+        report.put("paymentCount", summaries.size());
+        report.put("paymentModeBreakdown", paymentModeBreakdown);
+        report.put("period", startDate.toString() + " to " + endDate.toString());
 
-        } catch (Exception e) {
-            logger.error("Error generating payment summary report: {}", e.getMessage(), e);
-            return new HashMap<>();
-        }
+        logger.info("Generated payment summary report successfully");
+        return report;
     }
 
     /**
@@ -357,19 +257,13 @@ public class ReportService {
     public Map<String, Object> getFinancialSummaryReport(LocalDate startDate, LocalDate endDate) {
         logger.info("Generating financial summary report from {} to {}", startDate, endDate);
 
-        try {
-            // This can reuse the existing getFinancialSummary method
-            Map<String, Object> report = getFinancialSummary(startDate, endDate);
-            report.put("period", startDate.toString() + " to " + endDate.toString());
-            report.put("reportType", "financial_summary");
-
-            logger.info("Generated financial summary report successfully");
-            return report;
+        // This can reuse the existing getFinancialSummary method
+        Map<String, Object> report = getFinancialSummary(startDate, endDate);
+        report.put("period", startDate.toString() + " to " + endDate.toString());
+        report.put("reportType", "financial_summary");
 
-        } catch (Exception e) {
-            logger.error("Error generating financial summary report: {}", e.getMessage(), e);
-            return new HashMap<>();
-        }
+        logger.info("Generated financial summary report successfully");
+        return report;
     }
 
     /**
@@ -381,45 +275,36 @@ public class ReportService {
     public Map<String, Object> getDailySummaryReport(LocalDate reportDate) {
         logger.info("Generating daily summary report for {}", reportDate);
 
-        try {
-            Map<String, Object> report = new HashMap<>();
+        Map<String, Object> report = new HashMap<>();
 
-            // Total advances for the day
-            BigDecimal dailyAdvances = advancesRepository.getTotalAmountByDate(reportDate);
-            report.put("dailyAdvances", dailyAdvances);
+        // One read of the day's cells covers every ledger
+        Map<String, GroupTotalDTO> totals = totalsByLedger(reportDate, reportDate);
 
-            // Total bills for the day
-            BigDecimal dailyBills = foBillRepository.getTotalAmountByDate(reportDate);
-            report.put("dailyBills", dailyBills);
+        BigDecimal dailyAdvances = amountOf(totals, Ledger.ADVANCES);
+        report.put("dailyAdvances", dailyAdvances);
 
-            // Total settlements for the day
-            BigDecimal dailySettlements = billSettlementRepository.getTotalAmountByDate(reportDate);
-            report.put("dailySettlements", dailySettlements);
+        BigDecimal dailyBills = amountOf(totals, Ledger.BILLED);
+        report.put("dailyBills", dailyBills);
 
-            // Total charges for the day
-            BigDecimal dailyCharges = additionalChargesRepository.getTotalAmountByDate(reportDate);
-            report.put("dailyCharges", dailyCharges);
+        BigDecimal dailySettlements = amountOf(totals, Ledger.SETTLEMENTS);
+        report.put("dailySettlements", dailySettlements);
 
-            // Net revenue for the day
-            BigDecimal netRevenue = dailyBills.add(dailyCharges);
-            report.put("netRevenue", netRevenue);
+        BigDecimal dailyCharges = amountOf(totals, Ledger.CHARGES);
+        report.put("dailyCharges", dailyCharges);
 
-            // Transaction counts
-            int advanceCount = advancesRepository.countByPaymentDate(reportDate);
-            int billCount = foBillRepository.countByBillDate(reportDate);
-            int settlementCount = billSettlementRepository.countByPaymentDate(reportDate);
+        report.put("dailyPostings", amountOf(totals, Ledger.POSTINGS));
 
-            report.put("advanceCount", advanceCount);
-            report.put("billCount", billCount);
-            report.put("settlementCount", settlementCount);
-            report.put("reportDate", reportDate.toString());
+        // Net revenue for the day
+        BigDecimal netRevenue = dailyBills.add(dailyCharges);
+        report.put("netRevenue", netRevenue);
 
-            logger.info("Generated daily summary report successfully");
-            return report;
+        // Transaction counts
+        report.put("advanceCount", countOf(totals, Ledger.ADVANCES));
+        report.put("billCount", countOf(totals, Ledger.BILLED));
+        report.put("settlementCount", countOf(totals, Ledger.SETTLEMENTS));
+        report.put("reportDate", reportDate.toString());
 
-        } catch (Exception e) {
-            logger.error("Error generating daily summary report: {}", e.getMessage(), e);
-            return new HashMap<>();
-        }
+        logger.info("Generated daily summary report successfully");
+        return report;
     }
 }
\ No newline at end of file
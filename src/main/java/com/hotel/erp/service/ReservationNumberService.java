@@ -0,0 +1,95 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.entity.AccountYear;
+import com.hotel.erp.repository.AccountYearRepository;
+import com.hotel.erp.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Generates reservation numbers in the format NNN/XX-YY, numbered per account
+ * year.
+ *
+ * The current account year is cached and re-read at most every
+ * {@link #ACCOUNT_YEAR_TTL}; account years are opened directly in the
+ * database, so a new year is picked up within that time. The sequence itself
+ * comes from {@link SequenceAllocator}, so a booking normally costs no
+ * database query for its number.
+ */
+@Service
+public class ReservationNumberService {
+
+    static final Duration ACCOUNT_YEAR_TTL = Duration.ofMinutes(5);
+
+    private static final String SEQUENCE_PREFIX = "RES/";
+
+    private final AccountYearRepository accountYearRepository;
+    private final ReservationRepository reservationRepository;
+    private final SequenceAllocator sequenceAllocator;
+
+    private volatile CachedAccountYear cachedAccountYear;
+
+    @Autowired
+    public ReservationNumberService(AccountYearRepository accountYearRepository,
+            ReservationRepository reservationRepository, SequenceAllocator sequenceAllocator) {
+        this.accountYearRepository = accountYearRepository;
+        this.reservationRepository = reservationRepository;
+        this.sequenceAllocator = sequenceAllocator;
+    }
+
+    /**
+     * Generate the next reservation number for the current account year
+     * 
+     * @return the reservation number
+     */
+    public String nextReservationNumber() {
+        String accYear = getCurrentAccountYear();
+        String suffix = "/" + accYear;
+
+        // Seed the year's counter from existing reservations the first time it is used
+        long sequence = sequenceAllocator.next(SEQUENCE_PREFIX + accYear, () -> highestExistingNumber(suffix));
+
+        return String.format("%03d%s", sequence, suffix);
+    }
+
+    /**
+     * Get the current account year, reading it from the database only when the
+     * cached value has expired
+     * 
+     * @return the current account year, e.g. 24-25
+     */
+    public String getCurrentAccountYear() {
+        CachedAccountYear cached = cachedAccountYear;
+        long now = System.nanoTime();
+        if (cached != null && now - cached.loadedAt < ACCOUNT_YEAR_TTL.toNanos()) {
+            return cached.accYear;
+        }
+
+        AccountYear accountYear = accountYearRepository.findTopByOrderByAccYearDesc()
+                .orElseThrow(() -> new RuntimeException("No account year defined in the system"));
+        cachedAccountYear = new CachedAccountYear(accountYear.getAccYear(), now);
+        return accountYear.getAccYear();
+    }
+
+    /**
+     * Numbers issued before the sequence existed were based on a table count, so
+     * seed from the highest one actually in use rather than from a count
+     */
+    private long highestExistingNumber(String suffix) {
+        long highest = 0;
+        for (String reservationNo : reservationRepository.findReservationNosEndingWith(suffix)) {
+            String number = reservationNo.substring(0, reservationNo.length() - suffix.length());
+            try {
+                highest = Math.max(highest, Long.parseLong(number));
+            } catch (NumberFormatException e) {
+                // Not one of ours, e.g. an imported channel reference
+            }
+        }
+        return highest;
+    }
+
+    private record CachedAccountYear(String accYear, long loadedAt) {
+    }
+}
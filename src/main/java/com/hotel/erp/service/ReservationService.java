@@ -1,5 +1,6 @@
 package com.hotel.erp.service;
 
+import com.hotel.erp.dto.CursorPage;
 import com.hotel.erp.dto.ReservationDTO;
 import com.hotel.erp.entity.Reservation;
 
@@ -13,6 +14,10 @@ public interface ReservationService {
 
     List<Reservation> getAllReservations();
 
+    CursorPage<Reservation> getReservationsPage(String cursor, Integer limit, String sort, String direction);
+
+    KeysetPager.Scan<Reservation> scanReservations(String cursor, String sort, String direction);
+
     Optional<Reservation> getReservationById(Integer id);
 
     void deleteReservation(Integer id);
@@ -0,0 +1,368 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.entity.Checkin;
+import com.hotel.erp.entity.Reservation;
+import com.hotel.erp.entity.Room;
+import com.hotel.erp.repository.CheckinRepository;
+import com.hotel.erp.repository.ReservationRepository;
+import com.hotel.erp.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory room availability index.
+ *
+ * Every room keeps a day bitmap of the nights it is booked, built from
+ * reservations with a selected room and from checkin stays. Reservation and
+ * checkin changes are applied after commit, so "free rooms of type X for
+ * [from, to)" is answered without touching the database.
+ *
+ * A checkin without a check-out date is an open stay: the room is held from
+ * check-in until at least tomorrow, whatever "tomorrow" is when asked.
+ */
+@Service
+public class RoomAvailabilityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomAvailabilityIndex.class);
+
+    /** Day 0 of every room bitmap */
+    private static final long BASE_DAY = LocalDate.of(2000, 1, 1).toEpochDay();
+
+    private static final String CANCELLED = "1";
+
+    private final RoomRepository roomRepository;
+    private final ReservationRepository reservationRepository;
+    private final CheckinRepository checkinRepository;
+
+    private final Map<String, RoomCalendar> rooms = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> stayRooms = new ConcurrentHashMap<>();
+    private final AtomicLong missedUpdates = new AtomicLong();
+    private volatile boolean loaded;
+
+    @Autowired
+    public RoomAvailabilityIndex(RoomRepository roomRepository, ReservationRepository reservationRepository,
+            CheckinRepository checkinRepository) {
+        this.roomRepository = roomRepository;
+        this.reservationRepository = reservationRepository;
+        this.checkinRepository = checkinRepository;
+    }
+
+    /**
+     * Find the rooms that are free for every night in [fromDate, toDate)
+     *
+     * @param fromDate   the arrival date
+     * @param toDate     the departure date (exclusive)
+     * @param roomTypeId the room type, or null for any type
+     * @return ids of the free rooms
+     */
+    public List<Integer> findFreeRoomIds(LocalDate fromDate, LocalDate toDate, Integer roomTypeId) {
+        if (fromDate == null || toDate == null || !toDate.isAfter(fromDate)) {
+            throw new IllegalArgumentException("toDate must be after fromDate");
+        }
+        ensureLoaded();
+        long from = fromDate.toEpochDay();
+        long to = toDate.toEpochDay();
+        long today = LocalDate.now().toEpochDay();
+        List<Integer> free = new ArrayList<>();
+        for (RoomCalendar calendar : rooms.values()) {
+            if ((roomTypeId == null || roomTypeId.equals(calendar.roomTypeId)) && calendar.isFree(from, to, today)) {
+                free.add(calendar.roomId);
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Check whether a room is free for every night in [fromDate, toDate)
+     *
+     * @param roomNo   the room number
+     * @param fromDate the arrival date
+     * @param toDate   the departure date (exclusive)
+     * @return true if the room exists and has no booking in the range
+     */
+    public boolean isRoomFree(String roomNo, LocalDate fromDate, LocalDate toDate) {
+        ensureLoaded();
+        RoomCalendar calendar = rooms.get(roomNo);
+        return calendar != null
+                && calendar.isFree(fromDate.toEpochDay(), toDate.toEpochDay(), LocalDate.now().toEpochDay());
+    }
+
+    /**
+     * Index a saved reservation, replacing whatever was indexed for it before
+     *
+     * @param reservation the saved reservation
+     */
+    public void indexReservation(Reservation reservation) {
+        afterCommit(reservationUpdate(reservation));
+    }
+
+    /**
+     * Remove a deleted reservation from the index
+     *
+     * @param reservationNo the reservation number
+     */
+    public void removeReservation(String reservationNo) {
+        afterCommit(() -> removeStay("R:" + reservationNo));
+    }
+
+    /**
+     * Index a saved checkin, replacing whatever was indexed for it before
+     *
+     * @param checkin the saved checkin
+     */
+    public void indexCheckin(Checkin checkin) {
+        afterCommit(checkinUpdate(checkin));
+    }
+
+    /**
+     * Remove a deleted checkin from the index
+     *
+     * @param checkinId the checkin id
+     */
+    public void removeCheckin(Long checkinId) {
+        afterCommit(() -> removeStay("C:" + checkinId));
+    }
+
+    /**
+     * Add or update a room; its bookings are kept if the room number is unchanged
+     *
+     * @param previousRoomNo the room number before the change, or null for a new room
+     * @param room           the saved room
+     */
+    public void indexRoom(String previousRoomNo, Room room) {
+        Integer roomId = room.getId();
+        String roomNo = room.getRoomNo();
+        Integer roomTypeId = room.getRoomTypeId();
+        afterCommit(() -> {
+            if (previousRoomNo != null && !previousRoomNo.equals(roomNo)) {
+                rooms.remove(previousRoomNo);
+            }
+            rooms.computeIfAbsent(roomNo, no -> new RoomCalendar(roomId)).roomTypeId = roomTypeId;
+        });
+    }
+
+    /**
+     * Remove a deleted room from the index
+     *
+     * @param roomNo the room number
+     */
+    public void removeRoom(String roomNo) {
+        afterCommit(() -> rooms.remove(roomNo));
+    }
+
+    /**
+     * Drop the index; it is rebuilt from the database on next use
+     */
+    public synchronized void rebuild() {
+        loaded = false;
+        rooms.clear();
+        stayRooms.clear();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            while (!loaded) {
+                long missed = missedUpdates.get();
+                load();
+                // a change that committed while we were reading may be missing, read again
+                loaded = missedUpdates.get() == missed;
+            }
+        }
+    }
+
+    private void load() {
+        long started = System.currentTimeMillis();
+        rooms.clear();
+        stayRooms.clear();
+        for (Room room : roomRepository.findAll()) {
+            RoomCalendar calendar = new RoomCalendar(room.getId());
+            calendar.roomTypeId = room.getRoomTypeId();
+            rooms.put(room.getRoomNo(), calendar);
+        }
+        LocalDate today = LocalDate.now();
+        List<Reservation> reservations = reservationRepository.findBookedStaysEndingOnOrAfter(today);
+        List<Checkin> checkins = checkinRepository.findStaysEndingOnOrAfter(today);
+        reservations.forEach(reservation -> reservationUpdate(reservation).run());
+        checkins.forEach(checkin -> checkinUpdate(checkin).run());
+        logger.info("Built room availability index: {} rooms, {} reservations, {} checkins in {} ms",
+                rooms.size(), reservations.size(), checkins.size(), System.currentTimeMillis() - started);
+    }
+
+    private Runnable reservationUpdate(Reservation reservation) {
+        String key = "R:" + reservation.getReservationNo();
+        if (CANCELLED.equals(reservation.getStatus()) || reservation.getFromDate() == null
+                || reservation.getToDate() == null) {
+            return () -> removeStay(key);
+        }
+        List<String> roomNos = splitRooms(reservation.getSelectedRoom());
+        long from = reservation.getFromDate().toEpochDay();
+        long to = Math.max(reservation.getToDate().toEpochDay(), from + 1);
+        return () -> putStay(key, roomNos, from, to, false);
+    }
+
+    private Runnable checkinUpdate(Checkin checkin) {
+        String key = "C:" + checkin.getId();
+        // once checked in, the stay replaces the reservation it came from
+        String reservationKey = checkin.getReservationNo() != null ? "R:" + checkin.getReservationNo() : null;
+        if (checkin.getCheckInDate() == null) {
+            return () -> removeStay(key);
+        }
+        List<String> roomNos = splitRooms(checkin.getRoomNo());
+        long from = checkin.getCheckInDate().toEpochDay();
+        boolean open = checkin.getCheckOutDate() == null;
+        long to = open ? from + 1 : Math.max(checkin.getCheckOutDate().toEpochDay(), from + 1);
+        return () -> {
+            if (reservationKey != null) {
+                removeStay(reservationKey);
+            }
+            putStay(key, roomNos, from, to, open);
+        };
+    }
+
+    private void putStay(String key, List<String> roomNos, long from, long to, boolean open) {
+        List<String> previous = stayRooms.put(key, roomNos);
+        if (previous != null) {
+            for (String roomNo : previous) {
+                if (!roomNos.contains(roomNo)) {
+                    RoomCalendar calendar = rooms.get(roomNo);
+                    if (calendar != null) {
+                        calendar.remove(key);
+                    }
+                }
+            }
+        }
+        for (String roomNo : roomNos) {
+            RoomCalendar calendar = rooms.get(roomNo);
+            if (calendar != null) {
+                calendar.put(key, from, to, open);
+            } else {
+                logger.debug("Stay {} refers to unknown room {}", key, roomNo);
+            }
+        }
+    }
+
+    private void removeStay(String key) {
+        List<String> previous = stayRooms.remove(key);
+        if (previous == null) {
+            return;
+        }
+        for (String roomNo : previous) {
+            RoomCalendar calendar = rooms.get(roomNo);
+            if (calendar != null) {
+                calendar.remove(key);
+            }
+        }
+    }
+
+    private static List<String> splitRooms(String selectedRoom) {
+        if (selectedRoom == null || selectedRoom.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> roomNos = new ArrayList<>();
+        for (String roomNo : selectedRoom.split(",")) {
+            if (!roomNo.isBlank()) {
+                roomNos.add(roomNo.trim());
+            }
+        }
+        return roomNos;
+    }
+
+    /**
+     * Run an index update after the surrounding transaction commits, so a
+     * rolled back booking never blocks a room. Before the index is built the
+     * update is only counted; the build picks the change up from the database.
+     */
+    private void afterCommit(Runnable update) {
+        Runnable apply = () -> {
+            if (loaded) {
+                update.run();
+            } else {
+                missedUpdates.incrementAndGet();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * Bookings of a single room. Each stay is kept as a night range so the
+     * bitmap can be rebuilt when a stay moves or is cancelled.
+     */
+    private static final class RoomCalendar {
+        private final Integer roomId;
+        private volatile Integer roomTypeId;
+        private final Map<String, long[]> stays = new HashMap<>();
+        private final Map<String, Long> openStays = new HashMap<>();
+        private volatile BitSet nights = new BitSet();
+        private volatile long openSince = Long.MAX_VALUE;
+
+        RoomCalendar(Integer roomId) {
+            this.roomId = roomId;
+        }
+
+        synchronized void put(String key, long from, long to, boolean open) {
+            stays.remove(key);
+            openStays.remove(key);
+            if (open) {
+                openStays.put(key, from);
+            } else {
+                stays.put(key, new long[] { from, to });
+            }
+            refresh();
+        }
+
+        synchronized void remove(String key) {
+            if (stays.remove(key) != null | openStays.remove(key) != null) {
+                refresh();
+            }
+        }
+
+        boolean isFree(long from, long to, long today) {
+            long since = openSince;
+            if (since != Long.MAX_VALUE && from < Math.max(since + 1, today + 1) && to > since) {
+                return false;
+            }
+            BitSet booked = nights;
+            int first = booked.nextSetBit(offset(from));
+            return first < 0 || first >= offset(to);
+        }
+
+        private void refresh() {
+            BitSet rebuilt = new BitSet();
+            for (long[] stay : stays.values()) {
+                rebuilt.set(offset(stay[0]), offset(stay[1]));
+            }
+            nights = rebuilt;
+            openSince = openStays.values().stream().min(Long::compare).orElse(Long.MAX_VALUE);
+        }
+
+        private static int offset(long epochDay) {
+            return (int) Math.max(epochDay - BASE_DAY, 0);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.hotel.erp.service;
 
 import com.hotel.erp.dto.RoomDTO;
 import com.hotel.erp.entity.Room.RoomStatus;
+import java.time.LocalDate;
 import java.util.List;
 
 public interface RoomService {
@@ -21,5 +22,7 @@ public interface RoomService {
 
     List<RoomDTO> getRoomsByRoomType(Integer roomTypeId);
 
+    List<RoomDTO> getAvailableRooms(LocalDate fromDate, LocalDate toDate, Integer roomTypeId);
+
     void deleteRoom(Integer id);
 }
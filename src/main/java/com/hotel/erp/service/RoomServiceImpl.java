@@ -11,6 +11,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -20,11 +23,19 @@ public class RoomServiceImpl implements RoomService {
 
     private final RoomRepository roomRepository;
     private final RoomTypeRepository roomTypeRepository;
+    private final RoomAvailabilityIndex roomAvailabilityIndex;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final RoomStatusBoard roomStatusBoard;
 
     @Autowired
-    public RoomServiceImpl(RoomRepository roomRepository, RoomTypeRepository roomTypeRepository) {
+    public RoomServiceImpl(RoomRepository roomRepository, RoomTypeRepository roomTypeRepository,
+            RoomAvailabilityIndex roomAvailabilityIndex, OptimisticRetryExecutor optimisticRetryExecutor,
+            RoomStatusBoard roomStatusBoard) {
         this.roomRepository = roomRepository;
         this.roomTypeRepository = roomTypeRepository;
+        this.roomAvailabilityIndex = roomAvailabilityIndex;
+        this.optimisticRetryExecutor = optimisticRetryExecutor;
+        this.roomStatusBoard = roomStatusBoard;
     }
 
     @Override
@@ -45,6 +56,8 @@ public class RoomServiceImpl implements RoomService {
 
         // Save entity
         Room savedRoom = roomRepository.save(room);
+        roomAvailabilityIndex.indexRoom(null, savedRoom);
+        roomStatusBoard.roomSaved(null, savedRoom);
 
         // Convert back to DTO and return
         return mapToDTO(savedRoom);
@@ -52,10 +65,15 @@ public class RoomServiceImpl implements RoomService {
 
     @Override
     public RoomDTO updateRoom(Integer id, RoomDTO roomDTO) {
+        return optimisticRetryExecutor.execute("updateRoom", () -> doUpdateRoom(id, roomDTO));
+    }
+
+    private RoomDTO doUpdateRoom(Integer id, RoomDTO roomDTO) {
         // Find existing room
         Room room = roomRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Room with id " + id + " not found"));
+        optimisticRetryExecutor.checkVersion("updateRoom", roomDTO.getVersion(), room.getVersion());
 
         // Check if new room number conflicts with existing (but not this room)
         if (!room.getRoomNo().equals(roomDTO.getRoomNo()) &&
@@ -70,6 +88,7 @@ public class RoomServiceImpl implements RoomService {
         }
 
         // Update fields
+        String previousRoomNo = room.getRoomNo();
         room.setRoomNo(roomDTO.getRoomNo());
         room.setFloor(roomDTO.getFloor());
         room.setNoOfPersons(roomDTO.getNoOfPersons());
@@ -80,8 +99,10 @@ public class RoomServiceImpl implements RoomService {
         room.setCurrentFolio(roomDTO.getCurrentFolio());
         room.setRoomTypeId(roomDTO.getRoomTypeId());
 
-        // Save changes
-        Room updatedRoom = roomRepository.save(room);
+        // Save changes; flushing bumps the version returned to the client
+        Room updatedRoom = roomRepository.saveAndFlush(room);
+        roomAvailabilityIndex.indexRoom(previousRoomNo, updatedRoom);
+        roomStatusBoard.roomSaved(previousRoomNo, updatedRoom);
 
         // Return updated DTO
         return mapToDTO(updatedRoom);
@@ -135,13 +156,31 @@ public class RoomServiceImpl implements RoomService {
     }
 
     @Override
-    public void deleteRoom(Integer id) {
-        if (!roomRepository.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
-                    "Room with id " + id + " not found");
+    public List<RoomDTO> getAvailableRooms(LocalDate fromDate, LocalDate toDate, Integer roomTypeId) {
+        List<Integer> roomIds;
+        try {
+            roomIds = roomAvailabilityIndex.findFreeRoomIds(fromDate, toDate, roomTypeId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (roomIds.isEmpty()) {
+            return new ArrayList<>();
         }
+        return roomRepository.findAllById(roomIds).stream()
+                .sorted(Comparator.comparing(Room::getRoomNo))
+                .map(this::mapToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void deleteRoom(Integer id) {
+        Room room = roomRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Room with id " + id + " not found"));
 
         roomRepository.deleteById(id);
+        roomAvailabilityIndex.removeRoom(room.getRoomNo());
+        roomStatusBoard.roomRemoved(id);
     }
 
     // Helper method to validate room type exists
@@ -165,6 +204,7 @@ public class RoomServiceImpl implements RoomService {
         dto.setRate(room.getRate());
         dto.setCurrentFolio(room.getCurrentFolio());
         dto.setRoomTypeId(room.getRoomTypeId());
+        dto.setVersion(room.getVersion());
 
         // Set room type name if available
         if (room.getRoomTypeId() != null) {
@@ -0,0 +1,493 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.RoomBoardDTO;
+import com.hotel.erp.entity.Checkin;
+import com.hotel.erp.entity.Housekeeping;
+import com.hotel.erp.entity.Room;
+import com.hotel.erp.entity.RoomType;
+import com.hotel.erp.repository.CheckinRepository;
+import com.hotel.erp.repository.HousekeepingRepository;
+import com.hotel.erp.repository.RoomRepository;
+import com.hotel.erp.repository.RoomTypeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory room status board: one tile per room with its status, the guest
+ * in house and the latest housekeeping task.
+ *
+ * Room, checkin and housekeeping changes made through the services are
+ * applied after commit, so the room grid is served without touching the
+ * database. Every change gets the next board sequence number and is pushed
+ * to Server-Sent Events subscribers as a "room" or "room-removed" event;
+ * a new subscriber first receives a "snapshot" event with every tile.
+ *
+ * A guest is in house on the night audit's terms: checked in on or before
+ * today and not yet past the check-out date. As that depends on the date,
+ * the board is rebuilt and re-sent once a day just after midnight.
+ */
+@Service
+public class RoomStatusBoard {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomStatusBoard.class);
+
+    private static final String CHECKED_IN = "CHECKED_IN";
+
+    private final RoomRepository roomRepository;
+    private final RoomTypeRepository roomTypeRepository;
+    private final CheckinRepository checkinRepository;
+    private final HousekeepingRepository housekeepingRepository;
+    private final long emitterTimeoutMs;
+
+    private final Map<Integer, RoomBoardDTO> tiles = new ConcurrentHashMap<>();
+    private final Map<String, Integer> roomIds = new ConcurrentHashMap<>();
+    /** Rooms held by each in-house checkin; guarded by this */
+    private final Map<Long, List<String>> stayRooms = new HashMap<>();
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService pushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "room-board-push");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong missedUpdates = new AtomicLong();
+    private volatile boolean loaded;
+    /** Last board change number; guarded by this */
+    private long sequence;
+
+    @Autowired
+    public RoomStatusBoard(RoomRepository roomRepository, RoomTypeRepository roomTypeRepository,
+            CheckinRepository checkinRepository, HousekeepingRepository housekeepingRepository,
+            @Value("${hotel.room-board.emitter-timeout-ms:1800000}") long emitterTimeoutMs) {
+        this.roomRepository = roomRepository;
+        this.roomTypeRepository = roomTypeRepository;
+        this.checkinRepository = checkinRepository;
+        this.housekeepingRepository = housekeepingRepository;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+    }
+
+    /**
+     * Every tile of the board with the sequence number it is current to
+     *
+     * @return "sequence" and "rooms", the tiles ordered by room number
+     */
+    public Map<String, Object> getSnapshot() {
+        ensureLoaded();
+        synchronized (this) {
+            return snapshot();
+        }
+    }
+
+    /**
+     * Subscribe to board changes. The first event is a snapshot; a client
+     * that reconnects gets a fresh snapshot rather than a replay.
+     *
+     * @return the event stream
+     */
+    public SseEmitter subscribe() {
+        ensureLoaded();
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(error -> subscribers.remove(emitter));
+        synchronized (this) {
+            // queued under the lock, so the snapshot goes out before any later change
+            Map<String, Object> snapshot = snapshot();
+            long current = sequence;
+            subscribers.add(emitter);
+            pushExecutor.execute(() -> send(emitter, "snapshot", snapshot, current));
+        }
+        return emitter;
+    }
+
+    /**
+     * Show a saved room on the board, keeping its guest and housekeeping
+     * task if the room number is unchanged
+     *
+     * @param previousRoomNo the room number before the change, or null for a new room
+     * @param room           the saved room
+     */
+    public void roomSaved(String previousRoomNo, Room room) {
+        String roomTypeName = room.getRoomTypeId() == null ? null
+                : roomTypeRepository.findById(room.getRoomTypeId()).map(RoomType::getRoomTypeName).orElse(null);
+        RoomBoardDTO saved = roomTile(room, roomTypeName);
+        afterCommit(() -> {
+            RoomBoardDTO existing = tiles.get(saved.getRoomId());
+            RoomBoardDTO tile = saved;
+            if (existing != null && existing.getRoomNo().equals(saved.getRoomNo())) {
+                tile = existing.copy();
+                copyRoomFields(saved, tile);
+            } else if (existing != null) {
+                roomIds.remove(existing.getRoomNo());
+            }
+            if (previousRoomNo != null && !previousRoomNo.equals(saved.getRoomNo())) {
+                roomIds.remove(previousRoomNo);
+            }
+            roomIds.put(tile.getRoomNo(), tile.getRoomId());
+            publish(tile);
+        });
+    }
+
+    /**
+     * Take a deleted room off the board
+     *
+     * @param roomId the room id
+     */
+    public void roomRemoved(Integer roomId) {
+        afterCommit(() -> {
+            RoomBoardDTO removed = tiles.remove(roomId);
+            if (removed == null) {
+                return;
+            }
+            roomIds.remove(removed.getRoomNo());
+            long current = ++sequence;
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("roomId", roomId);
+            event.put("roomNo", removed.getRoomNo());
+            event.put("sequence", current);
+            push("room-removed", event, current);
+        });
+    }
+
+    /**
+     * Show a saved checkin on the rooms it holds, or clear it from them
+     * once the guest is no longer in house
+     *
+     * @param checkin the saved checkin
+     */
+    public void checkinSaved(Checkin checkin) {
+        Long checkinId = checkin.getId();
+        List<String> roomNos = splitRooms(checkin.getRoomNo());
+        String status = checkin.getStatus();
+        LocalDate checkInDate = checkin.getCheckInDate();
+        LocalDate checkOutDate = checkin.getCheckOutDate();
+        String folioNo = checkin.getFolioNo();
+        String guestName = checkin.getGuestName();
+        afterCommit(() -> {
+            boolean inHouse = isInHouse(status, checkInDate, checkOutDate, LocalDate.now());
+            List<String> held = inHouse ? roomNos : Collections.emptyList();
+            List<String> previous = inHouse ? stayRooms.put(checkinId, roomNos) : stayRooms.remove(checkinId);
+            if (previous != null) {
+                for (String roomNo : previous) {
+                    if (!held.contains(roomNo)) {
+                        vacate(roomNo, checkinId);
+                    }
+                }
+            }
+            for (String roomNo : held) {
+                RoomBoardDTO tile = copyOf(roomNo);
+                if (tile != null) {
+                    tile.setCheckinId(checkinId);
+                    tile.setFolioNo(folioNo);
+                    tile.setGuestName(guestName);
+                    tile.setCheckInDate(checkInDate);
+                    tile.setCheckOutDate(checkOutDate);
+                    publish(tile);
+                }
+            }
+        });
+    }
+
+    /**
+     * Clear a deleted checkin from the rooms it held
+     *
+     * @param checkinId the checkin id
+     */
+    public void checkinRemoved(Long checkinId) {
+        afterCommit(() -> {
+            List<String> previous = stayRooms.remove(checkinId);
+            if (previous != null) {
+                previous.forEach(roomNo -> vacate(roomNo, checkinId));
+            }
+        });
+    }
+
+    /**
+     * Show a room's latest housekeeping task after one of its tasks was
+     * created, changed or deleted. Call inside the transaction that made the
+     * change, so the latest task is read with the change in place.
+     *
+     * @param roomNo the task's room number
+     */
+    public void housekeepingChanged(String roomNo) {
+        if (roomNo == null) {
+            return;
+        }
+        Optional<Housekeeping> latest = housekeepingRepository.findTopByRoomNoOrderByIdDesc(roomNo);
+        Long taskId = latest.map(Housekeeping::getId).orElse(null);
+        String status = latest.map(Housekeeping::getStatus).orElse(null);
+        String assignedTo = latest.map(Housekeeping::getAssignedTo).orElse(null);
+        afterCommit(() -> {
+            RoomBoardDTO tile = copyOf(roomNo);
+            if (tile != null) {
+                tile.setHousekeepingTaskId(taskId);
+                tile.setHousekeepingStatus(status);
+                tile.setHousekeepingAssignedTo(assignedTo);
+                publish(tile);
+            }
+        });
+    }
+
+    /**
+     * Rebuild the board once the date rolls over, as arrivals and departures
+     * change who is in house, and send every subscriber the new snapshot
+     */
+    @Scheduled(cron = "${hotel.room-board.refresh-cron:0 1 0 * * *}")
+    public void refresh() {
+        if (!loaded) {
+            return;
+        }
+        synchronized (this) {
+            loaded = false;
+            ensureLoaded();
+            Map<String, Object> snapshot = snapshot();
+            push("snapshot", snapshot, sequence);
+        }
+    }
+
+    /**
+     * Keep idle event streams open through proxies that close silent
+     * connections, and notice clients that went away
+     */
+    @Scheduled(fixedDelayString = "${hotel.room-board.heartbeat-ms:25000}")
+    public void heartbeat() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        pushExecutor.execute(() -> {
+            for (SseEmitter emitter : subscribers) {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    subscribers.remove(emitter);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pushExecutor.shutdownNow();
+        subscribers.forEach(SseEmitter::complete);
+        subscribers.clear();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            while (!loaded) {
+                long missed = missedUpdates.get();
+                load();
+                // a change that committed while we were reading may be missing, read again
+                loaded = missedUpdates.get() == missed;
+            }
+        }
+    }
+
+    private void load() {
+        long started = System.currentTimeMillis();
+        tiles.clear();
+        roomIds.clear();
+        stayRooms.clear();
+        long current = ++sequence;
+
+        Map<Integer, String> roomTypeNames = new HashMap<>();
+        for (RoomType roomType : roomTypeRepository.findAll()) {
+            roomTypeNames.put(roomType.getRoomTypeId(), roomType.getRoomTypeName());
+        }
+        for (Room room : roomRepository.findAll()) {
+            RoomBoardDTO tile = roomTile(room, roomTypeNames.get(room.getRoomTypeId()));
+            tile.setSequence(current);
+            tiles.put(tile.getRoomId(), tile);
+            roomIds.put(tile.getRoomNo(), tile.getRoomId());
+        }
+
+        LocalDate today = LocalDate.now();
+        int inHouse = 0;
+        for (Checkin checkin : checkinRepository.findAllActiveCheckins()) {
+            if (!isInHouse(checkin.getStatus(), checkin.getCheckInDate(), checkin.getCheckOutDate(), today)) {
+                continue;
+            }
+            inHouse++;
+            List<String> roomNos = splitRooms(checkin.getRoomNo());
+            stayRooms.put(checkin.getId(), roomNos);
+            for (String roomNo : roomNos) {
+                RoomBoardDTO tile = tileOf(roomNo);
+                if (tile != null) {
+                    tile.setCheckinId(checkin.getId());
+                    tile.setFolioNo(checkin.getFolioNo());
+                    tile.setGuestName(checkin.getGuestName());
+                    tile.setCheckInDate(checkin.getCheckInDate());
+                    tile.setCheckOutDate(checkin.getCheckOutDate());
+                }
+            }
+        }
+
+        for (Housekeeping task : housekeepingRepository.findLatestPerRoom()) {
+            RoomBoardDTO tile = tileOf(task.getRoomNo());
+            if (tile != null) {
+                tile.setHousekeepingTaskId(task.getId());
+                tile.setHousekeepingStatus(task.getStatus());
+                tile.setHousekeepingAssignedTo(task.getAssignedTo());
+            }
+        }
+        logger.info("Built room status board: {} rooms, {} in-house checkins in {} ms",
+                tiles.size(), inHouse, System.currentTimeMillis() - started);
+    }
+
+    private Map<String, Object> snapshot() {
+        List<RoomBoardDTO> rooms = new ArrayList<>(tiles.values());
+        rooms.sort(Comparator.comparing(RoomBoardDTO::getRoomNo, Comparator.nullsLast(String::compareTo)));
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("sequence", sequence);
+        snapshot.put("rooms", rooms);
+        return snapshot;
+    }
+
+    private void vacate(String roomNo, Long checkinId) {
+        RoomBoardDTO tile = tileOf(roomNo);
+        if (tile != null && checkinId.equals(tile.getCheckinId())) {
+            tile = tile.copy();
+            tile.setCheckinId(null);
+            tile.setFolioNo(null);
+            tile.setGuestName(null);
+            tile.setCheckInDate(null);
+            tile.setCheckOutDate(null);
+            publish(tile);
+        }
+    }
+
+    private RoomBoardDTO tileOf(String roomNo) {
+        Integer roomId = roomIds.get(roomNo);
+        return roomId != null ? tiles.get(roomId) : null;
+    }
+
+    private RoomBoardDTO copyOf(String roomNo) {
+        RoomBoardDTO tile = tileOf(roomNo);
+        return tile != null ? tile.copy() : null;
+    }
+
+    /**
+     * Replace a tile and push it; published tiles are never modified, so
+     * readers and the push thread can hold them without locking
+     */
+    private void publish(RoomBoardDTO tile) {
+        long current = ++sequence;
+        tile.setSequence(current);
+        tiles.put(tile.getRoomId(), tile);
+        push("room", tile, current);
+    }
+
+    private void push(String name, Object data, long id) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        pushExecutor.execute(() -> {
+            for (SseEmitter emitter : subscribers) {
+                send(emitter, name, data, id);
+            }
+        });
+    }
+
+    private void send(SseEmitter emitter, String name, Object data, long id) {
+        try {
+            emitter.send(SseEmitter.event().id(Long.toString(id)).name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Dropping room board subscriber: {}", e.getMessage());
+            subscribers.remove(emitter);
+        }
+    }
+
+    private static RoomBoardDTO roomTile(Room room, String roomTypeName) {
+        RoomBoardDTO tile = new RoomBoardDTO();
+        tile.setRoomId(room.getId());
+        tile.setRoomNo(room.getRoomNo());
+        tile.setFloor(room.getFloor());
+        tile.setRoomTypeId(room.getRoomTypeId());
+        tile.setRoomTypeName(roomTypeName);
+        tile.setStatus(room.getStatus());
+        tile.setCurrentFolio(room.getCurrentFolio());
+        tile.setVersion(room.getVersion());
+        return tile;
+    }
+
+    private static void copyRoomFields(RoomBoardDTO from, RoomBoardDTO to) {
+        to.setFloor(from.getFloor());
+        to.setRoomTypeId(from.getRoomTypeId());
+        to.setRoomTypeName(from.getRoomTypeName());
+        to.setStatus(from.getStatus());
+        to.setCurrentFolio(from.getCurrentFolio());
+        to.setVersion(from.getVersion());
+    }
+
+    private static boolean isInHouse(String status, LocalDate checkInDate, LocalDate checkOutDate, LocalDate today) {
+        return CHECKED_IN.equals(status) && checkInDate != null && !checkInDate.isAfter(today)
+                && (checkOutDate == null || checkOutDate.isAfter(today));
+    }
+
+    private static List<String> splitRooms(String roomNo) {
+        if (roomNo == null || roomNo.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> roomNos = new ArrayList<>();
+        for (String part : roomNo.split(",")) {
+            if (!part.isBlank()) {
+                roomNos.add(part.trim());
+            }
+        }
+        return roomNos;
+    }
+
+    /**
+     * Apply a board change after the surrounding transaction commits, so a
+     * rolled back change is never shown. Before the board is built the change
+     * is only counted; the build picks it up from the database.
+     */
+    private void afterCommit(Runnable update) {
+        Runnable apply = () -> {
+            if (!loaded) {
+                missedUpdates.incrementAndGet();
+                return;
+            }
+            synchronized (this) {
+                update.run();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+}
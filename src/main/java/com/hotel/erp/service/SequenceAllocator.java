@@ -0,0 +1,130 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.entity.SequenceCounter;
+import com.hotel.erp.repository.SequenceCounterRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out document numbers per sequence key (e.g. "FOL/202510/").
+ *
+ * Numbers are reserved from the sequence_counter table in blocks and then
+ * handed out from memory with a single atomic increment, so the database is
+ * touched once per block instead of once per number. A restart skips the
+ * unused tail of the current block but never reuses a number.
+ */
+@Service
+public class SequenceAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenceAllocator.class);
+
+    private final SequenceCounterRepository sequenceCounterRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+
+    private final ConcurrentHashMap<String, AtomicReference<Block>> blocks = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SequenceAllocator(SequenceCounterRepository sequenceCounterRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${hotel.sequence.block-size:20}") int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Sequence block size must be at least 1");
+        }
+        this.sequenceCounterRepository = sequenceCounterRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Get the next number for a sequence key
+     * 
+     * @param sequenceKey the sequence key
+     * @param seed        supplies the last number already used for the key; only
+     *                    called the first time the key is seen by the database
+     * @return the next number, unique for the key across threads and restarts
+     */
+    public long next(String sequenceKey, LongSupplier seed) {
+        AtomicReference<Block> holder = blocks.computeIfAbsent(sequenceKey,
+                key -> new AtomicReference<>(Block.EMPTY));
+
+        long value = holder.get().take();
+        if (value > 0) {
+            return value;
+        }
+
+        synchronized (holder) {
+            // Another thread may have refilled the block while we waited
+            value = holder.get().take();
+            if (value > 0) {
+                return value;
+            }
+
+            // Take our number before publishing the block, or other threads
+            // could drain it first and leave us nothing
+            Block block = reserveBlock(sequenceKey, seed);
+            value = block.take();
+            holder.set(block);
+            return value;
+        }
+    }
+
+    /**
+     * Drop the in-memory blocks; the next call per key reserves a fresh block
+     */
+    public void reset() {
+        blocks.clear();
+    }
+
+    private Block reserveBlock(String sequenceKey, LongSupplier seed) {
+        Block block = transactionTemplate.execute(status -> {
+            SequenceCounter counter = sequenceCounterRepository.findForUpdate(sequenceKey)
+                    .orElseGet(() -> {
+                        SequenceCounter created = new SequenceCounter();
+                        created.setSequenceKey(sequenceKey);
+                        created.setHighWaterMark(seed.getAsLong());
+                        return created;
+                    });
+
+            long first = counter.getHighWaterMark() + 1;
+            long last = counter.getHighWaterMark() + blockSize;
+            counter.setHighWaterMark(last);
+            counter.setUpdatedOn(LocalDateTime.now());
+            sequenceCounterRepository.save(counter);
+            return new Block(first, last);
+        });
+
+        logger.debug("Reserved sequence block {}..{} for {}", block.next.get(), block.last, sequenceKey);
+        return block;
+    }
+
+    private static final class Block {
+        static final Block EMPTY = new Block(1, 0);
+
+        final AtomicLong next;
+        final long last;
+
+        Block(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+
+        long take() {
+            long value = next.getAndIncrement();
+            return value <= last ? value : -1;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.CursorPage;
+import com.hotel.erp.dto.StockMovementDTO;
+import com.hotel.erp.entity.StockMovement;
+import com.hotel.erp.exception.ResourceNotFoundException;
+import com.hotel.erp.repository.InventoryRepository;
+import com.hotel.erp.repository.StockMovementRepository;
+import com.hotel.erp.service.KeysetPager.Keyset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Moves inventory stock and keeps the append-only stock ledger.
+ *
+ * Every movement changes its item with a single in-place UPDATE that checks
+ * the stock it needs in its WHERE clause, so thousands of small issues a day
+ * can run concurrently: movements of one item queue briefly on its row lock
+ * and none is lost, and movements of different items never wait for each
+ * other. The stock status, free quantity and stock value are set in the same
+ * statement. Each movement is then appended to stock_movement with the stock
+ * it left behind.
+ *
+ * averageConsumption is an exponentially weighted average of the quantity
+ * issued per day, rolled forward once a night from the ledger. The stock
+ * each posting leaves behind is passed on to the ReorderMonitor.
+ */
+@Service
+public class StockLedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockLedgerService.class);
+
+    private static final String INSERT_MOVEMENT = "INSERT INTO stock_movement "
+            + "(item_id, item_code, movement_type, quantity, stock_delta, reserved_delta, stock_after, unit_cost, "
+            + "reference_type, reference_no, room_no, remarks, movement_date, user_id, created_on) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_AVERAGE = "UPDATE inventory SET average_consumption = ?, "
+            + "consumption_averaged_through = ? WHERE id = ? "
+            + "AND (consumption_averaged_through IS NULL OR consumption_averaged_through < ?)";
+
+    private static final Keyset<StockMovement> MOVEMENT_KEYSET = Keyset.of(StockMovement.class, "id", "movementDate");
+
+    private final InventoryRepository inventoryRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final BatchInserter batchInserter;
+    private final KeysetPager keysetPager;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReorderMonitor reorderMonitor;
+    private final BigDecimal smoothing;
+    private final int backfillDays;
+
+    @Autowired
+    public StockLedgerService(InventoryRepository inventoryRepository,
+            StockMovementRepository stockMovementRepository, BatchInserter batchInserter, KeysetPager keysetPager,
+            JdbcTemplate jdbcTemplate, ReorderMonitor reorderMonitor,
+            @Value("${hotel.inventory.consumption-smoothing:0.2}") BigDecimal smoothing,
+            @Value("${hotel.inventory.consumption-backfill-days:60}") int backfillDays) {
+        if (smoothing.signum() <= 0 || smoothing.compareTo(BigDecimal.ONE) > 0) {
+            throw new IllegalArgumentException("Consumption smoothing must be in (0, 1]");
+        }
+        this.inventoryRepository = inventoryRepository;
+        this.stockMovementRepository = stockMovementRepository;
+        this.batchInserter = batchInserter;
+        this.keysetPager = keysetPager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.reorderMonitor = reorderMonitor;
+        this.smoothing = smoothing;
+        this.backfillDays = Math.max(1, backfillDays);
+    }
+
+    /**
+     * Post one stock movement
+     *
+     * @param movement the movement
+     * @return the ledger row
+     * @throws IllegalArgumentException if the movement is invalid or the item
+     *                                  has too little stock for it
+     */
+    @Transactional
+    public StockMovement post(StockMovementDTO movement) {
+        return postAll(List.of(movement)).get(0);
+    }
+
+    /**
+     * Post several stock movements together, e.g. the lines of a goods receipt
+     * or the amenities put in a room: either all are applied or none is. The
+     * ledger rows are inserted in one JDBC batch. Inventory entities already
+     * loaded in the caller's transaction are not refreshed.
+     *
+     * @param movements the movements, applied in order per item
+     * @return the ledger rows, in the order given
+     * @throws IllegalArgumentException if any movement is invalid or any item
+     *                                  has too little stock
+     */
+    @Transactional
+    public List<StockMovement> postAll(List<StockMovementDTO> movements) {
+        batchInserter.checkSize(movements.size());
+        Map<String, Long> itemIds = resolveItemIds(movements);
+        for (int index = 0; index < movements.size(); index++) {
+            validate(movements.get(index), itemIds, movements.size() > 1 ? "Movement " + (index + 1) + ": " : "");
+        }
+
+        // Lock items in id order, so two postings sharing items cannot deadlock
+        List<Integer> order = new ArrayList<>(movements.size());
+        for (int index = 0; index < movements.size(); index++) {
+            order.add(index);
+        }
+        order.sort(Comparator.comparing((Integer index) -> itemIds.get(movements.get(index).getItemCode().trim())));
+
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+        StockMovement[] rows = new StockMovement[movements.size()];
+        for (int index : order) {
+            StockMovementDTO dto = movements.get(index);
+            rows[index] = apply(dto, itemIds.get(dto.getItemCode().trim()), today, now);
+        }
+
+        List<Object[]> values = new ArrayList<>(rows.length);
+        for (StockMovement row : rows) {
+            values.add(new Object[] {
+                    row.getItemId(), row.getItemCode(), row.getMovementType().name(), row.getQuantity(),
+                    row.getStockDelta(), row.getReservedDelta(), row.getStockAfter(), row.getUnitCost(),
+                    row.getReferenceType(), row.getReferenceNo(), row.getRoomNo(), row.getRemarks(),
+                    Date.valueOf(row.getMovementDate()), row.getUserId(), Timestamp.valueOf(row.getCreatedOn())
+            });
+        }
+        List<Long> ids = batchInserter.insert(INSERT_MOVEMENT, "id", values);
+        List<StockMovement> posted = new ArrayList<>(rows.length);
+        Map<Long, StockMovement> lastPerItem = new LinkedHashMap<>();
+        for (int index = 0; index < rows.length; index++) {
+            rows[index].setId(ids.get(index));
+            posted.add(rows[index]);
+            lastPerItem.put(rows[index].getItemId(), rows[index]);
+        }
+        for (StockMovement last : lastPerItem.values()) {
+            reorderMonitor.stockChanged(last.getItemId(), last.getId(), last.getStockAfter());
+        }
+        logger.debug("Posted {} stock movements", posted.size());
+        return posted;
+    }
+
+    /**
+     * Get one keyset page of an item's movements
+     *
+     * @param itemCode  the item code
+     * @param cursor    the nextCursor of the previous page, or null for the first page
+     * @param limit     the page size
+     * @param fromDate  the first movement date, or null
+     * @param toDate    the last movement date, or null
+     * @param direction "asc" or "desc"
+     * @return the page
+     */
+    public CursorPage<StockMovement> getMovements(String itemCode, String cursor, Integer limit,
+            LocalDate fromDate, LocalDate toDate, String direction) {
+        Long itemId = inventoryRepository.findByItemCode(itemCode)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory item not found: " + itemCode))
+                .getId();
+        return keysetPager.page(MOVEMENT_KEYSET.where("itemId", itemId).sortedBy("id", direction)
+                .between(fromDate, toDate), cursor, limit);
+    }
+
+    /**
+     * Nightly roll of yesterday's issues into the consumption averages
+     */
+    @Scheduled(cron = "${hotel.inventory.consumption-roll-cron:0 10 0 * * *}")
+    public void scheduledConsumptionRoll() {
+        rollConsumption(LocalDate.now().minusDays(1));
+    }
+
+    /**
+     * Fold the quantity issued each day up to a date into every item's
+     * average daily consumption. Each item moves on from the last day it
+     * was averaged through, so running this again for the same date changes
+     * nothing, and a missed night is caught up (at most the configured
+     * backfill days). Days without issues count as zero. An item averaged
+     * for the first time starts from that day's issues.
+     *
+     * @param through the last day to fold in
+     * @return items updated and days read
+     */
+    public Map<String, Object> rollConsumption(LocalDate through) {
+        long started = System.currentTimeMillis();
+        LocalDate earliest = through.minusDays(backfillDays - 1L);
+        List<Object[]> items = inventoryRepository.findConsumptionAverages();
+        LocalDate from = through;
+        for (Object[] item : items) {
+            LocalDate last = (LocalDate) item[2];
+            if (last != null && last.isBefore(from)) {
+                from = last.plusDays(1).isBefore(earliest) ? earliest : last.plusDays(1);
+            }
+        }
+
+        Map<Long, Map<LocalDate, BigDecimal>> issued = new HashMap<>();
+        for (Object[] row : stockMovementRepository.sumIssuedPerItemAndDay(from, through)) {
+            issued.computeIfAbsent((Long) row[0], id -> new HashMap<>()).put((LocalDate) row[1], (BigDecimal) row[2]);
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        for (Object[] item : items) {
+            Long id = (Long) item[0];
+            LocalDate last = (LocalDate) item[2];
+            if (last != null && !last.isBefore(through)) {
+                continue;
+            }
+            Map<LocalDate, BigDecimal> days = issued.getOrDefault(id, Map.of());
+            BigDecimal average;
+            LocalDate day;
+            if (last == null) {
+                average = days.getOrDefault(through, BigDecimal.ZERO);
+                day = through.plusDays(1);
+            } else {
+                average = item[1] != null ? (BigDecimal) item[1] : BigDecimal.ZERO;
+                day = last.plusDays(1).isBefore(earliest) ? earliest : last.plusDays(1);
+            }
+            for (; !day.isAfter(through); day = day.plusDays(1)) {
+                BigDecimal quantity = days.getOrDefault(day, BigDecimal.ZERO);
+                average = average.add(smoothing.multiply(quantity.subtract(average)));
+            }
+            updates.add(new Object[] { average.setScale(2, RoundingMode.HALF_UP), Date.valueOf(through), id,
+                    Date.valueOf(through) });
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_AVERAGE, updates);
+            // suggested quantities depend on the averages
+            reorderMonitor.rebuild();
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("through", through);
+        summary.put("items", updates.size());
+        summary.put("fromDate", from);
+        logger.info("Rolled consumption averages through {} for {} items in {} ms", through, updates.size(),
+                System.currentTimeMillis() - started);
+        return summary;
+    }
+
+    private Map<String, Long> resolveItemIds(List<StockMovementDTO> movements) {
+        Set<String> itemCodes = new HashSet<>();
+        for (StockMovementDTO movement : movements) {
+            if (movement != null && movement.getItemCode() != null) {
+                itemCodes.add(movement.getItemCode().trim());
+            }
+        }
+        Map<String, Long> itemIds = new HashMap<>();
+        if (!itemCodes.isEmpty()) {
+            for (Object[] row : inventoryRepository.findIdsByItemCodeIn(itemCodes)) {
+                itemIds.put((String) row[1], (Long) row[0]);
+            }
+        }
+        return itemIds;
+    }
+
+    private static void validate(StockMovementDTO movement, Map<String, Long> itemIds, String prefix) {
+        if (movement == null) {
+            throw new IllegalArgumentException(prefix + "Movement is empty");
+        }
+        if (movement.getItemCode() == null || movement.getItemCode().isBlank()) {
+            throw new IllegalArgumentException(prefix + "Item code is required");
+        }
+        if (!itemIds.containsKey(movement.getItemCode().trim())) {
+            throw new IllegalArgumentException(prefix + "Unknown item: " + movement.getItemCode());
+        }
+        if (movement.getMovementType() == null) {
+            throw new IllegalArgumentException(prefix + "Movement type is required");
+        }
+        BigDecimal quantity = movement.getQuantity();
+        if (quantity == null || quantity.signum() < 0
+                || (quantity.signum() == 0 && movement.getMovementType() != StockMovement.Type.COUNT)) {
+            throw new IllegalArgumentException(prefix + "Quantity must be greater than zero");
+        }
+        if (movement.getMovementType() == StockMovement.Type.RECEIVE
+                && (movement.getUnitCost() == null || movement.getUnitCost().signum() < 0)) {
+            throw new IllegalArgumentException(prefix + "A receipt needs a unit cost of zero or more");
+        }
+    }
+
+    private StockMovement apply(StockMovementDTO dto, Long itemId, LocalDate today, LocalDateTime now) {
+        BigDecimal quantity = dto.getQuantity();
+        BigDecimal none = BigDecimal.ZERO;
+        StockMovement row = new StockMovement();
+        row.setItemId(itemId);
+        row.setItemCode(dto.getItemCode().trim());
+        row.setMovementType(dto.getMovementType());
+        row.setQuantity(quantity);
+        row.setReferenceType(dto.getReferenceType());
+        row.setReferenceNo(dto.getReferenceNo());
+        row.setRoomNo(dto.getRoomNo());
+        row.setRemarks(dto.getRemarks());
+        row.setUserId(dto.getUserId());
+        row.setMovementDate(today);
+        row.setCreatedOn(now);
+
+        int updated;
+        switch (dto.getMovementType()) {
+            case RECEIVE:
+                updated = inventoryRepository.receiveStock(itemId, quantity, dto.getUnitCost(), today, now);
+                row.setStockDelta(quantity);
+                row.setUnitCost(dto.getUnitCost());
+                break;
+            case ISSUE:
+                updated = inventoryRepository.moveStock(itemId, quantity.negate(), none, quantity, 1, now);
+                row.setStockDelta(quantity.negate());
+                break;
+            case RESERVE:
+                updated = inventoryRepository.moveStock(itemId, none, quantity, none, 1, now);
+                row.setReservedDelta(quantity);
+                break;
+            case RELEASE:
+                updated = inventoryRepository.moveStock(itemId, none, quantity.negate(), none, 0, now);
+                row.setReservedDelta(quantity.negate());
+                break;
+            case ISSUE_RESERVED:
+                updated = inventoryRepository.moveStock(itemId, quantity.negate(), quantity.negate(), quantity, 0,
+                        now);
+                row.setStockDelta(quantity.negate());
+                row.setReservedDelta(quantity.negate());
+                break;
+            case COUNT:
+                updated = inventoryRepository.countStock(itemId, quantity, today, now);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported movement type: " + dto.getMovementType());
+        }
+        if (updated == 0) {
+            throw new IllegalArgumentException("Not enough "
+                    + (row.getReservedDelta().signum() < 0 ? "reserved" : "available") + " stock of "
+                    + row.getItemCode() + " to " + dto.getMovementType().name().toLowerCase().replace('_', ' ')
+                    + " " + quantity.stripTrailingZeros().toPlainString());
+        }
+
+        Object[] level = inventoryRepository.findStockLevel(itemId).get(0);
+        row.setStockAfter((BigDecimal) level[0]);
+        if (dto.getMovementType() == StockMovement.Type.COUNT) {
+            row.setStockDelta((BigDecimal) level[1]);
+        }
+        return row;
+    }
+}
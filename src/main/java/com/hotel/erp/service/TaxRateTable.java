@@ -0,0 +1,135 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.entity.Tax;
+import com.hotel.erp.repository.TaxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory copy of tax_master used for pricing.
+ *
+ * Readers get an immutable {@link Snapshot}; TaxServiceImpl calls
+ * {@link #invalidate()} after changing a tax and the next reader loads a new
+ * snapshot, so pricing does no database I/O between tax changes.
+ */
+@Service
+public class TaxRateTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaxRateTable.class);
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final TaxRepository taxRepository;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    // bumped by every invalidation; a snapshot loaded across one is not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public TaxRateTable(TaxRepository taxRepository) {
+        this.taxRepository = taxRepository;
+    }
+
+    /**
+     * Get the current tax snapshot, loading it if it has been invalidated
+     * 
+     * @return the current snapshot
+     */
+    public Snapshot current() {
+        Snapshot snapshot = current.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = current.get();
+            if (snapshot == null) {
+                long loadedGeneration = generation.get();
+                snapshot = load();
+                // a tax change that committed while we were reading may be missing from the
+                // snapshot; use it for this call only and let the next reader load again
+                if (generation.get() == loadedGeneration) {
+                    current.compareAndSet(null, snapshot);
+                }
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Drop the current snapshot. Inside a transaction this happens after commit,
+     * so a rolled back change never becomes visible to pricing.
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    drop();
+                }
+            });
+        } else {
+            drop();
+        }
+    }
+
+    private void drop() {
+        generation.incrementAndGet();
+        current.set(null);
+    }
+
+    private Snapshot load() {
+        List<Tax> taxes = taxRepository.findAll();
+        Snapshot snapshot = new Snapshot(versions.incrementAndGet(), taxes);
+        logger.debug("Loaded tax snapshot v{} with {} taxes, total {}%", snapshot.getVersion(),
+                taxes.size(), snapshot.getTotalPercentage());
+        return snapshot;
+    }
+
+    /**
+     * Immutable view of the tax rates in force at the time it was loaded
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final BigDecimal totalPercentage;
+
+        Snapshot(long version, List<Tax> taxes) {
+            BigDecimal percentage = BigDecimal.ZERO;
+            for (Tax tax : taxes) {
+                if (tax.getTaxPercentage() != null) {
+                    percentage = percentage.add(tax.getTaxPercentage());
+                }
+            }
+            this.version = version;
+            this.totalPercentage = percentage;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Sum of all tax percentages, e.g. 18.00
+         */
+        public BigDecimal getTotalPercentage() {
+            return totalPercentage;
+        }
+
+        /**
+         * Tax due on a taxable amount, rounded to two decimals
+         */
+        public BigDecimal taxOn(BigDecimal amount) {
+            return amount.multiply(totalPercentage).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+        }
+    }
+}
@@ -0,0 +1,709 @@
+package com.hotel.erp.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hand-built inverted index behind GuestSearchIndex. Not thread safe; the
+ * owner guards it.
+ *
+ * Field values are split into terms (lower-cased runs of letters and digits;
+ * phone numbers are kept whole as their digits). Every distinct term has a
+ * postings list of (document, field) pairs, and every term is in turn listed
+ * under the trigrams of "^term$", so a query token finds its terms by:
+ * <ul>
+ * <li>exact match, from the term dictionary;</li>
+ * <li>prefix or infix match, by intersecting the lists of the token's
+ * trigrams and checking the few candidates left;</li>
+ * <li>fuzzy match, for tokens without digits, by counting shared trigrams and
+ * checking the edit distance of the terms that share enough of them.</li>
+ * </ul>
+ * Terms are far fewer than documents (names, phones and folio numbers repeat
+ * across stays and their postings), so lookups work on the term dictionary and
+ * only the chosen terms' postings are read.
+ *
+ * Documents are numbered as they are added. A changed document is added again
+ * under a new number and its old number is marked removed; removed postings
+ * are skipped by searches and dropped once they pile up.
+ */
+final class TermIndex {
+
+    /** Query tokens shorter than this are ignored */
+    static final int MIN_TOKEN_LENGTH = 2;
+
+    private static final int FIELD_BITS = 3;
+    private static final int MAX_FIELDS = 1 << FIELD_BITS;
+    // the most terms one query token may expand to, the best matches kept
+    private static final int MAX_TERMS_PER_TOKEN = 2000;
+    // trigram lists longer than this are not counted for fuzzy matches
+    private static final int MAX_FUZZY_GRAM_TERMS = 50000;
+
+    private static final float EXACT = 1.0f;
+    private static final float PREFIX = 0.8f;
+    private static final float INFIX = 0.6f;
+    private static final float FUZZY = 0.4f;
+
+    private final float[] fieldWeights;
+    private final BitSet digitFields;
+
+    // documents
+    private byte[] kinds = new byte[1024];
+    private long[] ids = new long[1024];
+    private int[] fingerprints = new int[1024];
+    private int documents;
+    private int live;
+    private final BitSet removed = new BitSet();
+    private int stale;
+    // per kind, the number of each row id's document plus one; row ids are dense sequences
+    private final int[][] ordinals;
+
+    // terms
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final IntList termLengths = new IntList(1024);
+    private final List<IntList> postings = new ArrayList<>();
+    private final Map<String, IntList> grams = new HashMap<>();
+
+    /**
+     * @param kindCount    the number of document kinds
+     * @param fieldWeights the ranking weight of each field, at most 8 fields
+     * @param digitFields  the fields indexed as one run of digits, e.g. phone numbers
+     */
+    TermIndex(int kindCount, float[] fieldWeights, BitSet digitFields) {
+        if (fieldWeights.length > MAX_FIELDS) {
+            throw new IllegalArgumentException("At most " + MAX_FIELDS + " fields can be indexed");
+        }
+        this.fieldWeights = fieldWeights.clone();
+        this.digitFields = (BitSet) digitFields.clone();
+        this.ordinals = new int[kindCount][16];
+    }
+
+    /**
+     * Add or replace a document
+     *
+     * @param kind   the document kind
+     * @param id     the row id
+     * @param values the value of each field, by field number; nulls allowed
+     */
+    void put(int kind, long id, String[] values) {
+        if (id < 0 || id >= Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Row id out of range: " + id);
+        }
+        int fingerprint = Arrays.hashCode(values);
+        int current = ordinalOf(kind, id);
+        if (current >= 0) {
+            if (fingerprints[current] == fingerprint) {
+                return;
+            }
+            markRemoved(current);
+        } else {
+            live++;
+        }
+
+        int ordinal = documents++;
+        if (ordinal == kinds.length) {
+            int capacity = kinds.length * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            fingerprints = Arrays.copyOf(fingerprints, capacity);
+        }
+        kinds[ordinal] = (byte) kind;
+        ids[ordinal] = id;
+        fingerprints[ordinal] = fingerprint;
+        if (id >= ordinals[kind].length) {
+            ordinals[kind] = Arrays.copyOf(ordinals[kind], (int) Math.min(Integer.MAX_VALUE - 8,
+                    Math.max(id + 1, ordinals[kind].length * 2L)));
+        }
+        ordinals[kind][(int) id] = ordinal + 1;
+
+        for (int field = 0; field < values.length; field++) {
+            for (String term : terms(field, values[field])) {
+                postings.get(termId(term)).add(ordinal << FIELD_BITS | field);
+            }
+        }
+    }
+
+    /**
+     * Remove a document
+     */
+    void remove(int kind, long id) {
+        int current = ordinalOf(kind, id);
+        if (current >= 0) {
+            ordinals[kind][(int) id] = 0;
+            live--;
+            markRemoved(current);
+        }
+    }
+
+    /**
+     * @return the number of documents indexed
+     */
+    int size() {
+        return live;
+    }
+
+    /**
+     * @return the number of distinct terms
+     */
+    int termCount() {
+        return terms.size();
+    }
+
+    /**
+     * Find the documents matching every token of a query, best first
+     *
+     * @param query     the query
+     * @param kindMask  bit per document kind to search
+     * @param fieldMask bit per field to search
+     * @param limit     the most hits
+     * @return the hits
+     */
+    List<Hit> search(String query, int kindMask, int fieldMask, int limit) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : words(query)) {
+            if (token.length() >= MIN_TOKEN_LENGTH) {
+                tokens.add(token);
+            }
+        }
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        List<TermMatches> matches = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            TermMatches termMatches = matchTerms(token);
+            if (termMatches.size == 0) {
+                return List.of();
+            }
+            matches.add(termMatches);
+        }
+        // the most selective token first, so later tokens only check its documents
+        matches.sort((a, b) -> Long.compare(a.postings, b.postings));
+
+        ScoreMap scores = null;
+        for (TermMatches termMatches : matches) {
+            ScoreMap next = new ScoreMap(scores == null
+                    ? (int) Math.min(termMatches.postings, 1 << 20) : scores.size);
+            for (int k = 0; k < termMatches.size; k++) {
+                IntList list = postings.get(termMatches.termIds[k]);
+                float termScore = termMatches.scores[k];
+                for (int i = 0; i < list.size; i++) {
+                    int posting = list.values[i];
+                    int ordinal = posting >>> FIELD_BITS;
+                    int field = posting & (MAX_FIELDS - 1);
+                    if ((fieldMask & 1 << field) == 0 || (kindMask & 1 << kinds[ordinal]) == 0
+                            || removed.get(ordinal)) {
+                        continue;
+                    }
+                    float previous = scores == null ? 0 : scores.get(ordinal);
+                    if (previous < 0) {
+                        continue;
+                    }
+                    next.putMax(ordinal, previous + termScore * fieldWeights[field]);
+                }
+            }
+            scores = next;
+            if (scores.size == 0) {
+                return List.of();
+            }
+        }
+        return best(scores, limit);
+    }
+
+    /**
+     * The best scoring documents, newer first among equals
+     */
+    private List<Hit> best(ScoreMap scores, int limit) {
+        // score bits then ordinal, so the natural order of the packed longs is the ranking;
+        // a min-heap keeps the best `limit` of them
+        long[] heap = new long[Math.min(limit, scores.size)];
+        int size = 0;
+        for (int slot = 0; slot < scores.keys.length; slot++) {
+            int ordinal = scores.keys[slot] - 1;
+            if (ordinal < 0) {
+                continue;
+            }
+            long packed = (long) Float.floatToIntBits(scores.values[slot]) << 32 | ordinal;
+            if (size < heap.length) {
+                heap[size] = packed;
+                siftUp(heap, size++);
+            } else if (packed > heap[0]) {
+                heap[0] = packed;
+                siftDown(heap, size);
+            }
+        }
+        long[] ranked = Arrays.copyOf(heap, size);
+        Arrays.sort(ranked);
+        List<Hit> hits = new ArrayList<>(size);
+        for (int i = size - 1; i >= 0; i--) {
+            int ordinal = (int) ranked[i];
+            hits.add(new Hit(kinds[ordinal], ids[ordinal], Float.intBitsToFloat((int) (ranked[i] >>> 32))));
+        }
+        return hits;
+    }
+
+    private static void siftUp(long[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent] <= heap[index]) {
+                return;
+            }
+            long swap = heap[parent];
+            heap[parent] = heap[index];
+            heap[index] = swap;
+            index = parent;
+        }
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        int index = 0;
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            if (left < size && heap[left] < heap[smallest]) {
+                smallest = left;
+            }
+            if (left + 1 < size && heap[left + 1] < heap[smallest]) {
+                smallest = left + 1;
+            }
+            if (smallest == index) {
+                return;
+            }
+            long swap = heap[smallest];
+            heap[smallest] = heap[index];
+            heap[index] = swap;
+            index = smallest;
+        }
+    }
+
+    /**
+     * Find the terms a query token matches and how well
+     */
+    private TermMatches matchTerms(String token) {
+        TermMatches matches = new TermMatches();
+        Integer exact = termIds.get(token);
+        if (exact != null) {
+            matches.add(exact, EXACT);
+        }
+
+        // prefix and infix: every trigram of the token must be in the term
+        IntList candidates = null;
+        if (token.length() < 3) {
+            // two characters: only a prefix can be told apart
+            candidates = grams.get("^" + token);
+        } else {
+            for (int i = 0; i + 3 <= token.length(); i++) {
+                IntList list = grams.get(token.substring(i, i + 3));
+                if (list == null) {
+                    candidates = null;
+                    break;
+                }
+                candidates = candidates == null ? list : candidates.intersect(list);
+                if (candidates.size == 0) {
+                    break;
+                }
+            }
+        }
+        if (candidates != null) {
+            // terms under the "^xy" gram start like the token; only those can be prefix matches
+            IntList starts = token.length() == 2 ? candidates : grams.get("^" + token.substring(0, 2));
+            int start = 0;
+            for (int i = 0; i < candidates.size; i++) {
+                int termId = candidates.values[i];
+                if (exact != null && termId == exact) {
+                    continue;
+                }
+                while (starts != null && start < starts.size && starts.values[start] < termId) {
+                    start++;
+                }
+                boolean startsAlike = starts != null && start < starts.size && starts.values[start] == termId;
+                float coverage = 0.5f + 0.5f * token.length() / termLengths.values[termId];
+                if (startsAlike && (token.length() == 2 || terms.get(termId).startsWith(token))) {
+                    matches.add(termId, PREFIX * coverage);
+                } else if (token.length() == 3 || terms.get(termId).contains(token)) {
+                    // a three character token is its own trigram, so every candidate contains it
+                    matches.add(termId, INFIX * coverage);
+                }
+            }
+        }
+
+        // a typo in a number would find someone else's folio or phone, so only words are fuzzy
+        if (token.length() >= 4 && !hasDigit(token)) {
+            addFuzzyMatches(token, exact, candidates, matches);
+        }
+        matches.keepBest(MAX_TERMS_PER_TOKEN);
+        for (int k = 0; k < matches.size; k++) {
+            matches.postings += postings.get(matches.termIds[k]).size;
+        }
+        return matches;
+    }
+
+    /**
+     * Add the terms within one edit (two for tokens of 8 or more characters)
+     * of the token, or of the token's length of the term's start, leaving out
+     * the exact and substring matches already found
+     */
+    private void addFuzzyMatches(String token, Integer exact, IntList substringMatches, TermMatches matches) {
+        int maxEdits = token.length() >= 8 ? 2 : 1;
+        List<String> tokenGrams = gramsOf(token);
+        // one edit changes at most four trigrams (a swap of two characters)
+        int needed = tokenGrams.size() - 4 * maxEdits;
+        List<IntList> counted = new ArrayList<>(tokenGrams.size());
+        int total = 0;
+        for (String gram : tokenGrams) {
+            IntList list = grams.get(gram);
+            if (list == null) {
+                continue;
+            }
+            if (list.size > MAX_FUZZY_GRAM_TERMS) {
+                needed--;
+                continue;
+            }
+            counted.add(list);
+            total += list.size;
+        }
+        // count the grams each term shares with the token: sort the term ids and measure the runs
+        int[] shared = new int[total];
+        int offset = 0;
+        for (IntList list : counted) {
+            System.arraycopy(list.values, 0, shared, offset, list.size);
+            offset += list.size;
+        }
+        Arrays.sort(shared);
+        int minShared = Math.max(1, needed);
+        for (int start = 0, end; start < total; start = end) {
+            int termId = shared[start];
+            end = start + 1;
+            while (end < total && shared[end] == termId) {
+                end++;
+            }
+            if (end - start < minShared || (exact != null && termId == exact)
+                    || substringMatches != null && substringMatches.contains(termId)) {
+                continue;
+            }
+            String term = terms.get(termId);
+            int edits = editDistance(token, term, maxEdits);
+            if (edits > maxEdits && term.length() > token.length()) {
+                edits = editDistance(token, term.substring(0, token.length()), maxEdits);
+            }
+            if (edits <= maxEdits) {
+                matches.add(termId, FUZZY - 0.1f * (edits - 1));
+            }
+        }
+    }
+
+    private static boolean hasDigit(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (Character.isDigit(token.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int termId(String term) {
+        Integer id = termIds.get(term);
+        if (id != null) {
+            return id;
+        }
+        int created = terms.size();
+        terms.add(term);
+        termLengths.add(term.length());
+        termIds.put(term, created);
+        postings.add(new IntList(2));
+        for (String gram : gramsOf(term)) {
+            grams.computeIfAbsent(gram, key -> new IntList(4)).add(created);
+        }
+        return created;
+    }
+
+    private int ordinalOf(int kind, long id) {
+        return id >= 0 && id < ordinals[kind].length ? ordinals[kind][(int) id] - 1 : -1;
+    }
+
+    private void markRemoved(int ordinal) {
+        removed.set(ordinal);
+        stale++;
+        // drop the postings of replaced and removed documents once a fifth of the documents are stale
+        if (stale > 1000 && stale > documents / 5) {
+            purge();
+        }
+    }
+
+    private void purge() {
+        for (IntList list : postings) {
+            int size = 0;
+            for (int i = 0; i < list.size; i++) {
+                int posting = list.values[i];
+                if (!removed.get(posting >>> FIELD_BITS)) {
+                    list.values[size++] = posting;
+                }
+            }
+            list.size = size;
+        }
+        stale = 0;
+    }
+
+    /**
+     * The distinct terms of one field value
+     */
+    private Set<String> terms(int field, String value) {
+        if (value == null || value.isBlank()) {
+            return Set.of();
+        }
+        if (digitFields.get(field)) {
+            StringBuilder digits = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                if (Character.isDigit(value.charAt(i))) {
+                    digits.append(value.charAt(i));
+                }
+            }
+            return digits.length() > 0 ? Set.of(digits.toString()) : Set.of();
+        }
+        return new LinkedHashSet<>(words(value));
+    }
+
+    /**
+     * Split text into lower-cased runs of letters and digits
+     */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * The trigrams of "^term$"
+     */
+    private static List<String> gramsOf(String term) {
+        String padded = "^" + term + "$";
+        List<String> result = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    /**
+     * Edit distance counting an insertion, deletion, substitution or swap of
+     * two neighbouring characters as one edit (optimal string alignment),
+     * given up once it must exceed max
+     *
+     * @return the distance, or max + 1 if it is larger than max
+     */
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * One search hit
+     */
+    record Hit(int kind, long id, float score) {
+    }
+
+    /**
+     * A growable int array; kept sorted where values are added in order
+     */
+    static final class IntList {
+        int[] values;
+        int size;
+
+        IntList(int capacity) {
+            values = new int[capacity];
+        }
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Whether an ascending list holds a value
+         */
+        boolean contains(int value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        /**
+         * Intersect two ascending lists
+         */
+        IntList intersect(IntList other) {
+            IntList result = new IntList(Math.max(1, Math.min(size, other.size)));
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                if (values[i] < other.values[j]) {
+                    i++;
+                } else if (values[i] > other.values[j]) {
+                    j++;
+                } else {
+                    result.add(values[i]);
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The terms one query token matched, with their scores, and the number of
+     * postings they hold
+     */
+    static final class TermMatches {
+        int[] termIds = new int[16];
+        float[] scores = new float[16];
+        int size;
+        long postings;
+
+        void add(int termId, float score) {
+            if (size == termIds.length) {
+                termIds = Arrays.copyOf(termIds, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            termIds[size] = termId;
+            scores[size++] = score;
+        }
+
+        /**
+         * Keep the best scoring terms
+         */
+        void keepBest(int max) {
+            if (size <= max) {
+                return;
+            }
+            // score bits then position, descending
+            long[] packed = new long[size];
+            for (int k = 0; k < size; k++) {
+                packed[k] = (long) Float.floatToIntBits(scores[k]) << 32 | k;
+            }
+            Arrays.sort(packed);
+            int[] keptIds = new int[max];
+            float[] keptScores = new float[max];
+            for (int k = 0; k < max; k++) {
+                int position = (int) packed[size - 1 - k];
+                keptIds[k] = termIds[position];
+                keptScores[k] = scores[position];
+            }
+            termIds = keptIds;
+            scores = keptScores;
+            size = max;
+        }
+    }
+
+    /**
+     * Document number to score, open addressing; get returns -1 for a
+     * document that is not in the map
+     */
+    static final class ScoreMap {
+        int[] keys;
+        float[] values;
+        int size;
+
+        ScoreMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+            keys = new int[capacity];
+            values = new float[capacity];
+        }
+
+        float get(int ordinal) {
+            int mask = keys.length - 1;
+            for (int slot = mix(ordinal) & mask;; slot = (slot + 1) & mask) {
+                int key = keys[slot];
+                if (key == 0) {
+                    return -1;
+                }
+                if (key == ordinal + 1) {
+                    return values[slot];
+                }
+            }
+        }
+
+        void putMax(int ordinal, float value) {
+            int mask = keys.length - 1;
+            int slot = mix(ordinal) & mask;
+            while (keys[slot] != 0 && keys[slot] != ordinal + 1) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == 0) {
+                keys[slot] = ordinal + 1;
+                values[slot] = value;
+                if (++size * 2 > keys.length) {
+                    grow();
+                }
+            } else if (value > values[slot]) {
+                values[slot] = value;
+            }
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            float[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new float[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = mix(oldKeys[i] - 1) & mask;
+                    while (keys[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int mix(int ordinal) {
+            return ordinal * 0x9E3779B1 >>> 7 ^ ordinal;
+        }
+    }
+}
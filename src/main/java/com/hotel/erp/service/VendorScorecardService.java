@@ -0,0 +1,351 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.VendorScorecardDTO;
+import com.hotel.erp.entity.SupplierPerformance;
+import com.hotel.erp.entity.Vendor;
+import com.hotel.erp.exception.ResourceNotFoundException;
+import com.hotel.erp.repository.SupplierPerformanceRepository;
+import com.hotel.erp.repository.VendorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory vendor scorecards.
+ *
+ * Every vendor's running delivery totals (see SupplierPerformance) are kept
+ * with its master data, ordered by score, best first. Purchasing refreshes a
+ * vendor's card once a receipt, order or close commits, and the vendor screens
+ * refresh it when the vendor is saved, so rankings and comparisons are read
+ * off the ordered set without a query.
+ *
+ * The score weighs on-time delivery 40%, fill rate 30%, price 20% (the
+ * percentage paid above standard cost, taken off 100) and the buyer's rating
+ * 10%. Measures a vendor has no deliveries for are left out and the rest
+ * reweighted.
+ */
+@Service
+public class VendorScorecardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VendorScorecardService.class);
+
+    private static final String ACTIVE = "ACTIVE";
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final VendorRepository vendorRepository;
+    private final SupplierPerformanceRepository performanceRepository;
+
+    private final Map<Long, Card> cards = new ConcurrentHashMap<>();
+    private final NavigableSet<Card> byScore = new ConcurrentSkipListSet<>(Card.RANKING);
+    private final AtomicLong missedUpdates = new AtomicLong();
+    private volatile boolean loaded;
+
+    @Autowired
+    public VendorScorecardService(VendorRepository vendorRepository,
+            SupplierPerformanceRepository performanceRepository) {
+        this.vendorRepository = vendorRepository;
+        this.performanceRepository = performanceRepository;
+    }
+
+    /**
+     * Get one vendor's scorecard
+     *
+     * @param vendorId the vendor
+     * @return the scorecard
+     */
+    public VendorScorecardDTO getScorecard(Long vendorId) {
+        ensureLoaded();
+        Card card = cards.get(vendorId);
+        if (card == null) {
+            throw new ResourceNotFoundException("Vendor not found: " + vendorId);
+        }
+        return card.toDTO();
+    }
+
+    /**
+     * Get the best scoring vendors. Vendors without a score come last.
+     *
+     * @param limit    the most vendors to return
+     * @param category only vendors of this category, or null
+     * @param status   only vendors with this status, or null for any
+     * @return the scorecards, best first
+     */
+    public List<VendorScorecardDTO> getTop(int limit, String category, String status) {
+        ensureLoaded();
+        List<VendorScorecardDTO> top = new ArrayList<>();
+        for (Card card : byScore) {
+            if (top.size() >= limit) {
+                break;
+            }
+            if ((category == null || category.equalsIgnoreCase(card.category))
+                    && (status == null || status.equalsIgnoreCase(card.status))) {
+                top.add(card.toDTO());
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Get the active vendors rated at least minRating, the highest rated
+     * first and the better score first within a rating
+     *
+     * @param minRating the lowest rating
+     * @return the vendors
+     */
+    public List<Vendor> getTopRated(int minRating) {
+        ensureLoaded();
+        List<Card> rated = new ArrayList<>();
+        for (Card card : byScore) {
+            if (ACTIVE.equals(card.status) && card.rating != null && card.rating >= minRating) {
+                rated.add(card);
+            }
+        }
+        rated.sort(Comparator.comparing((Card card) -> card.rating).reversed());
+        if (rated.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Vendor> vendors = new HashMap<>();
+        vendorRepository.findAllById(rated.stream().map(card -> card.vendorId).toList())
+                .forEach(vendor -> vendors.put(vendor.getId(), vendor));
+        List<Vendor> result = new ArrayList<>(rated.size());
+        for (Card card : rated) {
+            Vendor vendor = vendors.get(card.vendorId);
+            if (vendor != null) {
+                result.add(vendor);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Count the vendors per status with one grouped query
+     *
+     * @return the total, the counts of the usual statuses and every status' count
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        long total = 0;
+        for (Object[] row : vendorRepository.countPerStatus()) {
+            long count = ((Number) row[1]).longValue();
+            byStatus.put(row[0] != null ? row[0].toString() : "UNKNOWN", count);
+            total += count;
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("total", total);
+        stats.put("active", byStatus.getOrDefault(ACTIVE, 0L));
+        stats.put("inactive", byStatus.getOrDefault("INACTIVE", 0L));
+        stats.put("blacklisted", byStatus.getOrDefault("BLACKLISTED", 0L));
+        stats.put("suspended", byStatus.getOrDefault("SUSPENDED", 0L));
+        stats.put("byStatus", byStatus);
+        return stats;
+    }
+
+    /**
+     * Re-read a vendor's card once the surrounding transaction commits: after
+     * it is saved or deleted, or its delivery totals change
+     *
+     * @param vendorId the vendor
+     */
+    public void vendorChanged(Long vendorId) {
+        if (vendorId != null) {
+            afterCommit(() -> refresh(vendorId));
+        }
+    }
+
+    /**
+     * Drop the scorecards; they are rebuilt from the database on next use
+     */
+    public synchronized void rebuild() {
+        loaded = false;
+        cards.clear();
+        byScore.clear();
+    }
+
+    /**
+     * Reading under the lock means a refresh that starts after a commit always
+     * lands after any refresh that read before it
+     */
+    private synchronized void refresh(Long vendorId) {
+        Card previous = cards.remove(vendorId);
+        if (previous != null) {
+            byScore.remove(previous);
+        }
+        Vendor vendor = vendorRepository.findById(vendorId).orElse(null);
+        if (vendor == null) {
+            return;
+        }
+        put(new Card(vendor, performanceRepository.findById(vendorId).orElse(null)));
+    }
+
+    private void put(Card card) {
+        cards.put(card.vendorId, card);
+        byScore.add(card);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            while (!loaded) {
+                long missed = missedUpdates.get();
+                load();
+                // a change that committed while we were reading may be missing, read again
+                loaded = missedUpdates.get() == missed;
+            }
+        }
+    }
+
+    private void load() {
+        long started = System.currentTimeMillis();
+        cards.clear();
+        byScore.clear();
+        Map<Long, SupplierPerformance> performance = new HashMap<>();
+        performanceRepository.findAll().forEach(row -> performance.put(row.getVendorId(), row));
+        for (Vendor vendor : vendorRepository.findAll()) {
+            put(new Card(vendor, performance.get(vendor.getId())));
+        }
+        logger.info("Built vendor scorecards: {} vendors, {} with deliveries in {} ms", cards.size(),
+                performance.size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Run a scorecard update after the surrounding transaction commits, so a
+     * rolled back receipt never moves a vendor. Before the scorecards are
+     * built the update is only counted; the build reads the vendor instead.
+     */
+    private void afterCommit(Runnable update) {
+        Runnable apply = () -> {
+            if (loaded) {
+                update.run();
+            } else {
+                missedUpdates.incrementAndGet();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * One vendor's scorecard. Cards are replaced, never changed, so the
+     * ordered set never holds an entry whose key has moved.
+     */
+    private static final class Card {
+        static final Comparator<Card> RANKING = Comparator
+                .comparing((Card card) -> card.score, Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(card -> card.vendorId);
+
+        final Long vendorId;
+        final String vendorCode;
+        final String vendorName;
+        final String category;
+        final String status;
+        final Integer rating;
+        final long ordersPlaced;
+        final long receipts;
+        final BigDecimal totalSpend;
+        final LocalDate lastReceiptDate;
+        final BigDecimal onTimeRate;
+        final BigDecimal fillRate;
+        final BigDecimal priceVarianceRate;
+        final BigDecimal averageLeadDays;
+        final BigDecimal score;
+
+        Card(Vendor vendor, SupplierPerformance performance) {
+            this.vendorId = vendor.getId();
+            this.vendorCode = vendor.getVendorCode();
+            this.vendorName = vendor.getVendorName();
+            this.category = vendor.getCategory();
+            this.status = vendor.getStatus();
+            this.rating = vendor.getRating();
+            if (performance != null) {
+                this.ordersPlaced = performance.getOrdersPlaced();
+                this.receipts = performance.getReceipts();
+                this.totalSpend = performance.getTotalSpend();
+                this.lastReceiptDate = performance.getLastReceiptDate();
+                this.onTimeRate = performance.getOnTimeRate();
+                this.fillRate = performance.getFillRate();
+                this.priceVarianceRate = performance.getPriceVarianceRate();
+                this.averageLeadDays = performance.getAverageLeadDays();
+            } else {
+                this.ordersPlaced = 0;
+                this.receipts = 0;
+                this.totalSpend = BigDecimal.ZERO;
+                this.lastReceiptDate = null;
+                this.onTimeRate = null;
+                this.fillRate = null;
+                this.priceVarianceRate = null;
+                this.averageLeadDays = null;
+            }
+            this.score = score();
+        }
+
+        private BigDecimal score() {
+            BigDecimal weighted = BigDecimal.ZERO;
+            int weights = 0;
+            if (onTimeRate != null) {
+                weighted = weighted.add(onTimeRate.multiply(BigDecimal.valueOf(40)));
+                weights += 40;
+            }
+            if (fillRate != null) {
+                weighted = weighted.add(fillRate.min(HUNDRED).multiply(BigDecimal.valueOf(30)));
+                weights += 30;
+            }
+            if (priceVarianceRate != null) {
+                BigDecimal overpaid = priceVarianceRate.max(BigDecimal.ZERO).min(HUNDRED);
+                weighted = weighted.add(HUNDRED.subtract(overpaid).multiply(BigDecimal.valueOf(20)));
+                weights += 20;
+            }
+            if (rating != null && rating > 0) {
+                weighted = weighted.add(BigDecimal.valueOf(Math.min(rating, 5) * 20L * 10));
+                weights += 10;
+            }
+            return weights == 0 ? null : weighted.divide(BigDecimal.valueOf(weights), 1, RoundingMode.HALF_UP);
+        }
+
+        VendorScorecardDTO toDTO() {
+            VendorScorecardDTO dto = new VendorScorecardDTO();
+            dto.setVendorId(vendorId);
+            dto.setVendorCode(vendorCode);
+            dto.setVendorName(vendorName);
+            dto.setCategory(category);
+            dto.setStatus(status);
+            dto.setRating(rating);
+            dto.setOrdersPlaced(ordersPlaced);
+            dto.setReceipts(receipts);
+            dto.setTotalSpend(totalSpend);
+            dto.setLastReceiptDate(lastReceiptDate);
+            dto.setOnTimeRate(onTimeRate);
+            dto.setFillRate(fillRate);
+            dto.setPriceVarianceRate(priceVarianceRate);
+            dto.setAverageLeadDays(averageLeadDays);
+            dto.setScore(score);
+            return dto;
+        }
+    }
+}
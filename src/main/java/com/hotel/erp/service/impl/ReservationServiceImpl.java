@@ -1,35 +1,60 @@
 package com.hotel.erp.service.impl;
 
+import com.hotel.erp.dto.CursorPage;
 import com.hotel.erp.dto.ReservationDTO;
-import com.hotel.erp.entity.AccountYear;
+import com.hotel.erp.dto.StayQuoteDTO;
 import com.hotel.erp.entity.Reservation;
-import com.hotel.erp.entity.Tax;
 import com.hotel.erp.exception.ResourceNotFoundException;
-import com.hotel.erp.repository.AccountYearRepository;
 import com.hotel.erp.repository.ReservationRepository;
-import com.hotel.erp.repository.TaxRepository;
+import com.hotel.erp.service.GuestSearchIndex;
+import com.hotel.erp.service.GuestSearchIndex.Field;
+import com.hotel.erp.service.GuestSearchIndex.Kind;
+import com.hotel.erp.service.KeysetPager;
+import com.hotel.erp.service.KeysetPager.Keyset;
+import com.hotel.erp.service.OptimisticRetryExecutor;
+import com.hotel.erp.service.PricingService;
+import com.hotel.erp.service.ReservationNumberService;
 import com.hotel.erp.service.ReservationService;
+import com.hotel.erp.service.RoomAvailabilityIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class ReservationServiceImpl implements ReservationService {
 
+    private static final Keyset<Reservation> RESERVATION_KEYSET = Keyset.of(Reservation.class, "id", "fromDate");
+
     @Autowired
     private ReservationRepository reservationRepository;
 
     @Autowired
-    private AccountYearRepository accountYearRepository;
+    private ReservationNumberService reservationNumberService;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Autowired
+    private RoomAvailabilityIndex roomAvailabilityIndex;
+
+    @Autowired
+    private OptimisticRetryExecutor optimisticRetryExecutor;
 
     @Autowired
-    private TaxRepository taxRepository;
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private GuestSearchIndex guestSearchIndex;
+
+    @Value("${hotel.search.max-results:200}")
+    private int maxSearchResults;
 
     @Override
     @Transactional
@@ -51,14 +76,22 @@ public class ReservationServiceImpl implements ReservationService {
         // Calculate total amount if rate is provided
         calculateTotalAmount(reservation);
 
-        return reservationRepository.save(reservation);
+        Reservation savedReservation = reservationRepository.save(reservation);
+        roomAvailabilityIndex.indexReservation(savedReservation);
+        guestSearchIndex.reservationSaved(savedReservation);
+        return savedReservation;
     }
 
     @Override
-    @Transactional
     public Reservation updateReservation(Integer id, ReservationDTO reservationDTO) {
+        return optimisticRetryExecutor.execute("updateReservation", () -> doUpdateReservation(id, reservationDTO));
+    }
+
+    private Reservation doUpdateReservation(Integer id, ReservationDTO reservationDTO) {
         Reservation existingReservation = reservationRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with id: " + id));
+        optimisticRetryExecutor.checkVersion("updateReservation", reservationDTO.getVersion(),
+                existingReservation.getVersion());
 
         // Validate input
         validateReservationData(reservationDTO);
@@ -72,7 +105,11 @@ public class ReservationServiceImpl implements ReservationService {
         // Recalculate total amount if rate is provided
         calculateTotalAmount(existingReservation);
 
-        return reservationRepository.save(existingReservation);
+        // Flushing bumps the version returned to the client
+        Reservation savedReservation = reservationRepository.saveAndFlush(existingReservation);
+        roomAvailabilityIndex.indexReservation(savedReservation);
+        guestSearchIndex.reservationSaved(savedReservation);
+        return savedReservation;
     }
 
     @Override
@@ -80,6 +117,16 @@ public class ReservationServiceImpl implements ReservationService {
         return reservationRepository.findAll();
     }
 
+    @Override
+    public CursorPage<Reservation> getReservationsPage(String cursor, Integer limit, String sort, String direction) {
+        return keysetPager.page(RESERVATION_KEYSET.sortedBy(sort, direction), cursor, limit);
+    }
+
+    @Override
+    public KeysetPager.Scan<Reservation> scanReservations(String cursor, String sort, String direction) {
+        return keysetPager.scan(RESERVATION_KEYSET.sortedBy(sort, direction), cursor);
+    }
+
     @Override
     public Optional<Reservation> getReservationById(Integer id) {
         return reservationRepository.findById(id);
@@ -88,20 +135,30 @@ public class ReservationServiceImpl implements ReservationService {
     @Override
     @Transactional
     public void deleteReservation(Integer id) {
-        if (!reservationRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Reservation not found with id: " + id);
-        }
+        Reservation reservation = reservationRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with id: " + id));
         reservationRepository.deleteById(id);
+        roomAvailabilityIndex.removeReservation(reservation.getReservationNo());
+        guestSearchIndex.removed(Kind.RESERVATION, id);
     }
 
     @Override
     public List<Reservation> findReservationsByGuestName(String guestName) {
-        return reservationRepository.findByGuestNameContainingIgnoreCase(guestName);
+        return findIndexed(guestName, Field.NAME);
     }
 
     @Override
     public List<Reservation> findReservationsByContactNo(String contactNo) {
-        return reservationRepository.findByContactNoContaining(contactNo);
+        return findIndexed(contactNo, Field.PHONE);
+    }
+
+    /**
+     * Reservations matching the search index on one field, best match first
+     */
+    private List<Reservation> findIndexed(String query, Field field) {
+        List<Long> ids = guestSearchIndex.searchIds(query, Kind.RESERVATION, EnumSet.of(field), maxSearchResults);
+        return GuestSearchIndex.inOrder(ids,
+                reservationRepository.findAllById(ids.stream().map(Long::intValue).toList()), Reservation::getId);
     }
 
     @Override
@@ -115,15 +172,8 @@ public class ReservationServiceImpl implements ReservationService {
     }
 
     private String generateReservationNumber() {
-        // Get current account year
-        AccountYear accountYear = accountYearRepository.findTopByOrderByAccYearDesc()
-                .orElseThrow(() -> new RuntimeException("No account year defined in the system"));
-
-        // Get count of existing reservations and add 1
-        long count = reservationRepository.count() + 1;
-
         // Format: "001/XX-YY" where XX-YY is the account year
-        return String.format("%03d/%s", count, accountYear.getAccYear());
+        return reservationNumberService.nextReservationNumber();
     }
 
     private void validateReservationData(ReservationDTO reservationDTO) {
@@ -190,29 +240,20 @@ public class ReservationServiceImpl implements ReservationService {
 
     private void calculateTotalAmount(Reservation reservation) {
         if (reservation.getRate() != null) {
-            // Calculate number of days
-            long days = ChronoUnit.DAYS.between(reservation.getFromDate(), reservation.getToDate());
-            if (days < 1)
-                days = 1; // Minimum 1 day
-
-            // Calculate base amount
-            double baseAmount = reservation.getRate() * days * reservation.getNoOfRooms();
-
-            // Apply tax if not tax inclusive
-            if (!"Y".equals(reservation.getWithTax()) || Boolean.FALSE.equals(reservation.getIsTaxInclusive())) {
-                // Get tax rate from tax_master
-                double taxRate = 0.0;
-                List<Tax> taxes = taxRepository.findAll();
-                for (Tax tax : taxes) {
-                    taxRate += tax.getTaxPercentage().doubleValue() / 100.0;
-                }
-
-                double taxAmount = baseAmount * taxRate;
-                reservation.setTax(taxAmount);
-                reservation.setTotalAmt(baseAmount + taxAmount);
-            } else {
-                reservation.setTotalAmt(baseAmount);
+            // Priced as a quote is, so the booked total matches what the guest was quoted
+            StayQuoteDTO stay = new StayQuoteDTO();
+            stay.setFromDate(reservation.getFromDate());
+            stay.setToDate(reservation.getToDate());
+            stay.setNoOfRooms(reservation.getNoOfRooms());
+            stay.setRate(reservation.getRate());
+            stay.setWithTax(reservation.getWithTax());
+            stay.setIsTaxInclusive(reservation.getIsTaxInclusive());
+            pricingService.quoteStay(stay);
+
+            if (stay.getTaxAmount().signum() != 0) {
+                reservation.setTax(stay.getTaxAmount().doubleValue());
             }
+            reservation.setTotalAmt(stay.getTotalAmount().doubleValue());
         }
     }
 }
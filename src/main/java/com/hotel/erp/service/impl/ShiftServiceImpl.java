@@ -3,6 +3,7 @@ package com.hotel.erp.service.impl;
 import com.hotel.erp.dto.ShiftDTO;
 import com.hotel.erp.entity.Shift;
 import com.hotel.erp.repository.ShiftRepository;
+import com.hotel.erp.service.OptimisticRetryExecutor;
 import com.hotel.erp.service.ShiftService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,10 +17,12 @@ import java.time.LocalDateTime;
 public class ShiftServiceImpl implements ShiftService {
 
     private final ShiftRepository shiftRepository;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
 
     @Autowired
-    public ShiftServiceImpl(ShiftRepository shiftRepository) {
+    public ShiftServiceImpl(ShiftRepository shiftRepository, OptimisticRetryExecutor optimisticRetryExecutor) {
         this.shiftRepository = shiftRepository;
+        this.optimisticRetryExecutor = optimisticRetryExecutor;
     }
 
     @Override
@@ -49,8 +52,11 @@ public class ShiftServiceImpl implements ShiftService {
     }
 
     @Override
-    @Transactional
     public ShiftDTO updateShift(Long id, ShiftDTO shiftDTO) {
+        return optimisticRetryExecutor.execute("updateShift", () -> doUpdateShift(id, shiftDTO));
+    }
+
+    private ShiftDTO doUpdateShift(Long id, ShiftDTO shiftDTO) {
         Shift shift = shiftRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Shift not found with ID: " + id));
 
@@ -82,7 +88,7 @@ public class ShiftServiceImpl implements ShiftService {
             shift.setShiftName(shiftDTO.getShiftName());
         }
 
-        Shift updatedShift = shiftRepository.save(shift);
+        Shift updatedShift = shiftRepository.saveAndFlush(shift);
         return mapToDTO(updatedShift);
     }
 
@@ -125,18 +131,19 @@ public class ShiftServiceImpl implements ShiftService {
     }
 
     @Override
-    @Transactional
     public ShiftDTO changeAuditDate(Long id, ShiftDTO shiftDTO) {
         if (shiftDTO.getAuditDate() == null) {
             throw new IllegalArgumentException("Audit date cannot be null");
         }
 
-        Shift shift = shiftRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Shift not found with ID: " + id));
+        return optimisticRetryExecutor.execute("changeAuditDate", () -> {
+            Shift shift = shiftRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException("Shift not found with ID: " + id));
 
-        shift.setAuditDate(shiftDTO.getAuditDate());
-        Shift updatedShift = shiftRepository.save(shift);
-        return mapToDTO(updatedShift);
+            shift.setAuditDate(shiftDTO.getAuditDate());
+            Shift updatedShift = shiftRepository.saveAndFlush(shift);
+            return mapToDTO(updatedShift);
+        });
     }
 
     // Helper methods for mapping between Entity and DTO
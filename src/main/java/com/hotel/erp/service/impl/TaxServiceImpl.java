@@ -3,6 +3,7 @@ package com.hotel.erp.service.impl;
 import com.hotel.erp.dto.TaxDTO;
 import com.hotel.erp.entity.Tax;
 import com.hotel.erp.repository.TaxRepository;
+import com.hotel.erp.service.TaxRateTable;
 import com.hotel.erp.service.TaxService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,10 +16,12 @@ import jakarta.persistence.EntityNotFoundException;
 public class TaxServiceImpl implements TaxService {
 
     private final TaxRepository taxRepository;
+    private final TaxRateTable taxRateTable;
 
     @Autowired
-    public TaxServiceImpl(TaxRepository taxRepository) {
+    public TaxServiceImpl(TaxRepository taxRepository, TaxRateTable taxRateTable) {
         this.taxRepository = taxRepository;
+        this.taxRateTable = taxRateTable;
     }
 
     @Override
@@ -26,6 +29,7 @@ public class TaxServiceImpl implements TaxService {
     public TaxDTO createTax(TaxDTO taxDTO) {
         Tax tax = mapToEntity(taxDTO);
         Tax savedTax = taxRepository.save(tax);
+        taxRateTable.invalidate();
         return mapToDTO(savedTax);
     }
 
@@ -39,6 +43,7 @@ public class TaxServiceImpl implements TaxService {
         tax.setTaxPercentage(taxDTO.getTaxPercentage());
 
         Tax updatedTax = taxRepository.save(tax);
+        taxRateTable.invalidate();
         return mapToDTO(updatedTax);
     }
 
@@ -64,6 +69,7 @@ public class TaxServiceImpl implements TaxService {
             throw new EntityNotFoundException("Tax not found with ID: " + id);
         }
         taxRepository.deleteById(id);
+        taxRateTable.invalidate();
     }
 
     // Helper methods for mapping between Entity and DTO
@@ -0,0 +1,66 @@
+package com.hotel.erp.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * RFC 4180 CSV in UTF-8, with a byte order mark so Excel detects the
+ * encoding. Text that a spreadsheet would run as a formula is prefixed with
+ * an apostrophe.
+ */
+class CsvRowWriter implements RowWriter {
+
+    private final Writer writer;
+    private boolean started;
+
+    CsvRowWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void writeRow(List<?> cells) throws IOException {
+        if (!started) {
+            writer.write('\uFEFF');
+            started = true;
+        }
+        for (int i = 0; i < cells.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(format(cells.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    private static String format(Object cell) {
+        if (cell == null) {
+            return "";
+        }
+        if (cell instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        if (cell instanceof Number) {
+            return cell.toString();
+        }
+        String text = cell.toString();
+        if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0
+                || text.indexOf('\r') >= 0) {
+            text = "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
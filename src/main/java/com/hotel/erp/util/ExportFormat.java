@@ -0,0 +1,58 @@
+package com.hotel.erp.util;
+
+import org.springframework.http.MediaType;
+
+import java.io.OutputStream;
+
+/**
+ * File formats the export endpoints can write
+ */
+public enum ExportFormat {
+    CSV("csv", new MediaType("text", "csv")),
+    XLSX("xlsx", MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    ExportFormat(String extension, MediaType mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Parse a format request parameter
+     *
+     * @param format "csv" (default) or "xlsx"
+     * @return the format
+     */
+    public static ExportFormat of(String format) {
+        if (format == null || format.isBlank()) {
+            return CSV;
+        }
+        for (ExportFormat value : values()) {
+            if (value.extension.equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("format must be 'csv' or 'xlsx'");
+    }
+
+    /**
+     * Start writing a table to a stream
+     *
+     * @param out       the stream; left open
+     * @param sheetName the worksheet name, for formats that have one
+     * @return the writer
+     */
+    public RowWriter open(OutputStream out, String sheetName) {
+        return this == XLSX ? new XlsxRowWriter(out, sheetName) : new CsvRowWriter(out);
+    }
+}
@@ -0,0 +1,57 @@
+package com.hotel.erp.util;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Builds file download responses that write a table row by row while the rows
+ * are read, in the same way as {@link NdjsonResponses}.
+ */
+public final class ExportResponses {
+
+    private ExportResponses() {
+    }
+
+    /**
+     * Stream a table as a CSV or XLSX attachment
+     *
+     * @param format   the file format
+     * @param fileName the download name, without extension; also the sheet name
+     * @param header   the column names, written as the first row
+     * @param producer called once with a sink; passes every row to it
+     * @return the streaming response
+     */
+    public static ResponseEntity<StreamingResponseBody> stream(ExportFormat format, String fileName,
+            List<String> header, Consumer<Consumer<List<?>>> producer) {
+        StreamingResponseBody body = out -> {
+            RowWriter rows = format.open(out, fileName);
+            rows.writeRow(header);
+            try {
+                producer.accept(row -> {
+                    try {
+                        rows.writeRow(row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            rows.finish();
+        };
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(fileName + "." + format.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,49 @@
+package com.hotel.erp.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Builds newline delimited JSON responses that are written row by row while
+ * the rows are read, so a full table export never sits in memory.
+ */
+public final class NdjsonResponses {
+
+    private NdjsonResponses() {
+    }
+
+    /**
+     * Stream rows as NDJSON
+     *
+     * @param objectMapper the mapper used for each row
+     * @param producer     called once with a sink; passes every row to it
+     * @return the streaming response
+     */
+    public static <T> ResponseEntity<StreamingResponseBody> stream(ObjectMapper objectMapper,
+            Consumer<Consumer<T>> producer) {
+        ObjectWriter writer = objectMapper.writer();
+        StreamingResponseBody body = out -> {
+            try {
+                producer.accept(row -> {
+                    try {
+                        out.write(writer.writeValueAsBytes(row));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
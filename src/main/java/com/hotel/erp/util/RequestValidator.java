@@ -0,0 +1,70 @@
+package com.hotel.erp.util;
+
+import com.hotel.erp.exception.RequestValidationException;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Checks the fields of a bound request body and reports all failures
+ * together. Only the first failure of each field is kept.
+ *
+ * <pre>
+ * RequestValidator.check()
+ *         .required("amount", dto.getAmount())
+ *         .positive("amount", dto.getAmount())
+ *         .validate();
+ * </pre>
+ */
+public final class RequestValidator {
+
+    private final Map<String, String> errors = new LinkedHashMap<>();
+
+    private RequestValidator() {
+    }
+
+    public static RequestValidator check() {
+        return new RequestValidator();
+    }
+
+    /**
+     * Fail if the value is null or a blank string
+     */
+    public RequestValidator required(String field, Object value) {
+        if (value == null || value instanceof String text && text.isBlank()) {
+            errors.putIfAbsent(field, "is required");
+        }
+        return this;
+    }
+
+    /**
+     * Fail if the value is present and not greater than zero
+     */
+    public RequestValidator positive(String field, BigDecimal value) {
+        if (value != null && value.signum() <= 0) {
+            errors.putIfAbsent(field, "must be greater than zero");
+        }
+        return this;
+    }
+
+    /**
+     * Fail if the value is present and not the name of one of the constants
+     */
+    public RequestValidator oneOf(String field, String value, Class<? extends Enum<?>> type) {
+        if (value != null && Arrays.stream(type.getEnumConstants()).noneMatch(constant -> constant.name().equals(value))) {
+            errors.putIfAbsent(field, "must be one of " + Arrays.toString(type.getEnumConstants()));
+        }
+        return this;
+    }
+
+    /**
+     * @throws RequestValidationException if any check failed
+     */
+    public void validate() {
+        if (!errors.isEmpty()) {
+            throw new RequestValidationException(errors);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.hotel.erp.util;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a table one row at a time to an output stream, see
+ * {@link ExportFormat#open}
+ */
+public interface RowWriter {
+
+    /**
+     * Write one row. Numbers are written as numbers; anything else as its
+     * text, with null as an empty cell.
+     */
+    void writeRow(List<?> cells) throws IOException;
+
+    /**
+     * Write whatever the format needs after the last row and flush. Does not
+     * close the underlying stream.
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,190 @@
+package com.hotel.erp.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Minimal Office Open XML workbook written as a stream: the worksheet XML is
+ * zipped as the rows arrive and the package parts that list the sheets are
+ * written at the end, so memory use does not grow with the row count. Text
+ * is stored as inline strings, so there is no shared string table to hold.
+ * A sheet that reaches Excel's row limit continues on a new sheet, starting
+ * with the first row written (the header) again.
+ */
+class XlsxRowWriter implements RowWriter {
+
+    static final int MAX_ROWS = 1_048_576;
+
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String PACKAGE_REL_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+
+    private final ZipOutputStream zip;
+    private final Writer writer;
+    private final String sheetName;
+    private final int maxRows;
+    private List<?> firstRow;
+    private int sheets;
+    private int rowsInSheet;
+
+    XlsxRowWriter(OutputStream out, String sheetName) {
+        this(out, sheetName, MAX_ROWS);
+    }
+
+    XlsxRowWriter(OutputStream out, String sheetName, int maxRows) {
+        this.maxRows = maxRows;
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+        this.sheetName = sanitizeSheetName(sheetName);
+    }
+
+    @Override
+    public void writeRow(List<?> cells) throws IOException {
+        if (firstRow == null) {
+            firstRow = List.copyOf(cells.stream().map(cell -> cell != null ? cell : "").toList());
+        }
+        if (sheets == 0 || rowsInSheet == maxRows) {
+            if (sheets > 0) {
+                endSheet();
+            }
+            startSheet();
+            if (sheets > 1) {
+                row(firstRow);
+            }
+        }
+        row(cells);
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (sheets == 0) {
+            startSheet();
+        }
+        endSheet();
+
+        StringBuilder types = new StringBuilder(XML_HEADER)
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ")
+                .append("ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>");
+        StringBuilder workbook = new StringBuilder(XML_HEADER)
+                .append("<workbook xmlns=\"").append(MAIN_NS).append("\" xmlns:r=\"").append(REL_NS).append("\"><sheets>");
+        StringBuilder workbookRels = new StringBuilder(XML_HEADER)
+                .append("<Relationships xmlns=\"").append(PACKAGE_REL_NS).append("\">");
+        for (int sheet = 1; sheet <= sheets; sheet++) {
+            types.append("<Override PartName=\"/xl/worksheets/sheet").append(sheet).append(".xml\" ")
+                    .append("ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+            String name = sheet == 1 ? sheetName : truncate(sheetName, 27) + " (" + sheet + ")";
+            workbook.append("<sheet name=\"").append(escape(name)).append("\" sheetId=\"").append(sheet)
+                    .append("\" r:id=\"rId").append(sheet).append("\"/>");
+            workbookRels.append("<Relationship Id=\"rId").append(sheet).append("\" Type=\"").append(REL_NS)
+                    .append("/worksheet\" Target=\"worksheets/sheet").append(sheet).append(".xml\"/>");
+        }
+        types.append("</Types>");
+        workbook.append("</sheets></workbook>");
+        workbookRels.append("</Relationships>");
+
+        entry("[Content_Types].xml", types);
+        entry("_rels/.rels", new StringBuilder(XML_HEADER)
+                .append("<Relationships xmlns=\"").append(PACKAGE_REL_NS).append("\">")
+                .append("<Relationship Id=\"rId1\" Type=\"").append(REL_NS)
+                .append("/officeDocument\" Target=\"xl/workbook.xml\"/></Relationships>"));
+        entry("xl/workbook.xml", workbook);
+        entry("xl/_rels/workbook.xml.rels", workbookRels);
+        zip.finish();
+        zip.flush();
+    }
+
+    private void startSheet() throws IOException {
+        sheets++;
+        rowsInSheet = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheets + ".xml"));
+        writer.write(XML_HEADER);
+        writer.write("<worksheet xmlns=\"" + MAIN_NS + "\"><sheetData>");
+    }
+
+    private void endSheet() throws IOException {
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    private void row(List<?> cells) throws IOException {
+        rowsInSheet++;
+        writer.write("<row r=\"" + rowsInSheet + "\">");
+        for (int column = 0; column < cells.size(); column++) {
+            Object cell = cells.get(column);
+            if (cell == null) {
+                continue;
+            }
+            String ref = columnName(column) + rowsInSheet;
+            if (cell instanceof Number number && isFinite(number)) {
+                String value = cell instanceof BigDecimal decimal ? decimal.toPlainString() : cell.toString();
+                writer.write("<c r=\"" + ref + "\"><v>" + value + "</v></c>");
+            } else {
+                writer.write("<c r=\"" + ref + "\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                writer.write(escape(cell.toString()));
+                writer.write("</t></is></c>");
+            }
+        }
+        writer.write("</row>");
+    }
+
+    private void entry(String name, CharSequence content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writer.write(content.toString());
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    private static boolean isFinite(Number number) {
+        return !(number instanceof Double d && !Double.isFinite(d)) && !(number instanceof Float f && !Float.isFinite(f));
+    }
+
+    static String columnName(int column) {
+        StringBuilder name = new StringBuilder();
+        for (int n = column + 1; n > 0; n = (n - 1) / 26) {
+            name.insert(0, (char) ('A' + (n - 1) % 26));
+        }
+        return name.toString();
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> escaped.append("&amp;");
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '"' -> escaped.append("&quot;");
+                default -> {
+                    // control characters other than tab and newlines are not allowed in XML 1.0
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String sanitizeSheetName(String name) {
+        String cleaned = name == null ? "" : name.replaceAll("[\\\\/?*\\[\\]:]", " ").trim();
+        return cleaned.isEmpty() ? "Sheet1" : truncate(cleaned, 31);
+    }
+
+    private static String truncate(String text, int length) {
+        return text.length() <= length ? text : text.substring(0, length);
+    }
+}
@@ -0,0 +1,48 @@
+-- Indexes for the folio, reservation and date lookups of the ledger tables.
+-- Composite indexes lead with the column the repositories filter on by
+-- equality and follow with the date they range over, so one index serves both
+-- "by folio" and "by folio between dates".
+
+-- advances (adv_date is Advances.paymentDate, settlement_mode is paymentMode)
+CREATE INDEX idx_advances_folio_date ON advances (folio_no, adv_date);
+CREATE INDEX idx_advances_reservation ON advances (reservation_no);
+CREATE INDEX idx_advances_date_mode ON advances (adv_date, settlement_mode);
+CREATE INDEX idx_advances_mode_date ON advances (settlement_mode, adv_date);
+CREATE INDEX idx_advances_receipt ON advances (receipt_no);
+CREATE INDEX idx_advances_guest ON advances (guest_name);
+
+-- post_transaction
+CREATE INDEX idx_post_transaction_folio_date ON post_transaction (folio_no, trans_date);
+CREATE INDEX idx_post_transaction_date_head ON post_transaction (trans_date, acc_head);
+CREATE INDEX idx_post_transaction_head_date ON post_transaction (acc_head, trans_date);
+CREATE INDEX idx_post_transaction_reservation ON post_transaction (reservation_no);
+CREATE INDEX idx_post_transaction_room_date ON post_transaction (room_no, trans_date);
+CREATE INDEX idx_post_transaction_bill ON post_transaction (bill_no);
+CREATE INDEX idx_post_transaction_user ON post_transaction (user_id);
+
+-- additional_charges
+CREATE INDEX idx_additional_charges_folio_date ON additional_charges (folio_no, charge_date);
+CREATE INDEX idx_additional_charges_reservation ON additional_charges (reservation_no);
+CREATE INDEX idx_additional_charges_date_type ON additional_charges (charge_date, charge_type);
+CREATE INDEX idx_additional_charges_type_date ON additional_charges (charge_type, charge_date);
+
+-- fo_bill and bill_settlement
+CREATE INDEX idx_fo_bill_folio_date ON fo_bill (folio_no, bill_date);
+CREATE INDEX idx_fo_bill_date ON fo_bill (bill_date);
+CREATE INDEX idx_bill_settlement_bill ON bill_settlement (bill_id);
+CREATE INDEX idx_bill_settlement_date_mode ON bill_settlement (payment_date, payment_mode);
+CREATE INDEX idx_bill_settlement_mode_date ON bill_settlement (payment_mode, payment_date);
+
+-- checkin (folio_no already has its unique key)
+CREATE INDEX idx_checkin_reservation ON checkin (reservation_no);
+CREATE INDEX idx_checkin_status_checkout ON checkin (status, check_out_date);
+CREATE INDEX idx_checkin_checkout ON checkin (check_out_date);
+CREATE INDEX idx_checkin_dates ON checkin (check_in_date, check_out_date);
+CREATE INDEX idx_checkin_room ON checkin (selected_room);
+CREATE INDEX idx_checkin_customer ON checkin (customer_id);
+CREATE INDEX idx_checkin_user ON checkin (user_id);
+
+-- reservation
+CREATE INDEX idx_reservation_no ON reservation (reservation_no);
+CREATE INDEX idx_reservation_status ON reservation (status);
+CREATE INDEX idx_reservation_to_date ON reservation (to_date);
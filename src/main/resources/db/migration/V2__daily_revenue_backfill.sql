@@ -0,0 +1,30 @@
+-- Fill the daily revenue cube (the daily_revenue table, created by Hibernate)
+-- from the ledgers written before it existed. Same cells as
+-- DailyRevenueService.rebuild, over all dates; later writes keep it current.
+
+DELETE FROM daily_revenue;
+
+INSERT INTO daily_revenue (report_date, ledger, account_head, payment_mode, shift_no, amount, entry_count, updated_on)
+SELECT adv_date, 'ADVANCES', '', COALESCE(settlement_mode, ''), COALESCE(shift_no, 0), SUM(amount), COUNT(*), CURRENT_TIMESTAMP
+FROM advances WHERE adv_date IS NOT NULL AND amount IS NOT NULL
+GROUP BY adv_date, COALESCE(settlement_mode, ''), COALESCE(shift_no, 0);
+
+INSERT INTO daily_revenue (report_date, ledger, account_head, payment_mode, shift_no, amount, entry_count, updated_on)
+SELECT trans_date, 'POSTINGS', COALESCE(acc_head, ''), '', COALESCE(shift_no, 0), SUM(amount), COUNT(*), CURRENT_TIMESTAMP
+FROM post_transaction WHERE trans_date IS NOT NULL AND amount IS NOT NULL
+GROUP BY trans_date, COALESCE(acc_head, ''), COALESCE(shift_no, 0);
+
+INSERT INTO daily_revenue (report_date, ledger, account_head, payment_mode, shift_no, amount, entry_count, updated_on)
+SELECT charge_date, 'CHARGES', COALESCE(charge_type, ''), '', 0, SUM(amount), COUNT(*), CURRENT_TIMESTAMP
+FROM additional_charges WHERE charge_date IS NOT NULL AND amount IS NOT NULL
+GROUP BY charge_date, COALESCE(charge_type, '');
+
+INSERT INTO daily_revenue (report_date, ledger, account_head, payment_mode, shift_no, amount, entry_count, updated_on)
+SELECT bill_date, 'BILLED', '', '', 0, SUM(total_amount), COUNT(*), CURRENT_TIMESTAMP
+FROM fo_bill WHERE bill_date IS NOT NULL AND total_amount IS NOT NULL
+GROUP BY bill_date;
+
+INSERT INTO daily_revenue (report_date, ledger, account_head, payment_mode, shift_no, amount, entry_count, updated_on)
+SELECT payment_date, 'SETTLEMENTS', '', COALESCE(payment_mode, ''), 0, SUM(amount), COUNT(*), CURRENT_TIMESTAMP
+FROM bill_settlement WHERE payment_date IS NOT NULL AND amount IS NOT NULL
+GROUP BY payment_date, COALESCE(payment_mode, '');
@@ -0,0 +1,10 @@
+-- Seed the optimistic lock version of rows written before the version
+-- columns existed (Hibernate adds them as nullable). A row with a null
+-- version can never be updated through JPA, as its version check never
+-- matches.
+
+UPDATE checkin SET version = 0 WHERE version IS NULL;
+UPDATE room SET version = 0 WHERE version IS NULL;
+UPDATE reservation SET version = 0 WHERE version IS NULL;
+UPDATE fo_bill SET version = 0 WHERE version IS NULL;
+UPDATE shift SET version = 0 WHERE version IS NULL;
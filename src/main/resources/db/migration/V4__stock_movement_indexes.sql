@@ -0,0 +1,7 @@
+-- Indexes for the stock ledger. An item's movements are paged by id within
+-- the item; the nightly consumption roll sums issues per item over a range
+-- of movement dates.
+
+CREATE INDEX idx_stock_movement_item ON stock_movement (item_id, id);
+CREATE INDEX idx_stock_movement_date_type ON stock_movement (movement_date, movement_type, item_id);
+CREATE INDEX idx_stock_movement_reference ON stock_movement (reference_type, reference_no);
@@ -0,0 +1,15 @@
+-- Indexes for purchasing. Orders, requisitions and receipts are paged by id
+-- or date within a status, vendor or department filter; lines are read per
+-- order and receipt; the reports sum receipts per vendor over a date range.
+
+CREATE INDEX idx_purchase_order_status ON purchase_order (status, id);
+CREATE INDEX idx_purchase_order_vendor ON purchase_order (vendor_id, id);
+CREATE INDEX idx_purchase_order_date ON purchase_order (order_date, id);
+CREATE INDEX idx_purchase_order_line_order ON purchase_order_line (purchase_order_id, line_no);
+CREATE INDEX idx_purchase_order_line_item ON purchase_order_line (item_id);
+CREATE INDEX idx_goods_receipt_order ON goods_receipt (purchase_order_id, id);
+CREATE INDEX idx_goods_receipt_date_vendor ON goods_receipt (receipt_date, vendor_id);
+CREATE INDEX idx_goods_receipt_line_receipt ON goods_receipt_line (goods_receipt_id, id);
+CREATE INDEX idx_purchase_requisition_status ON purchase_requisition (status, id);
+CREATE INDEX idx_purchase_requisition_department ON purchase_requisition (department, id);
+CREATE INDEX idx_purchase_requisition_order ON purchase_requisition (purchase_order_id);
@@ -0,0 +1,8 @@
+-- Vendor scorecard. Seed the price variance totals of performance rows
+-- written before the columns existed (Hibernate adds them as nullable), and
+-- index the vendor status so the statistics count reads the index alone.
+
+UPDATE supplier_performance SET standard_amount = 0 WHERE standard_amount IS NULL;
+UPDATE supplier_performance SET price_variance = 0 WHERE price_variance IS NULL;
+
+CREATE INDEX idx_vendors_status ON vendors (status);
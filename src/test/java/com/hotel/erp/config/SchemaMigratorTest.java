@@ -0,0 +1,102 @@
+package com.hotel.erp.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SchemaMigratorTest {
+
+    @TempDir
+    private Path scripts;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        script("V1__rooms.sql", "CREATE TABLE room_note (id INT PRIMARY KEY);");
+        script("V2__notes.sql", "CREATE TABLE guest_note (id INT PRIMARY KEY);\n"
+                + "INSERT INTO note_source (id) VALUES (1);");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void shouldRefuseToStartAfterAScriptFailedPartWay() {
+        // When
+        assertThatThrownBy(() -> migrator().migrate())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("V2__notes.sql failed part way");
+
+        // Then: the first statement stays applied and the version is recorded as failed
+        assertThat(tableExists("guest_note")).isTrue();
+        assertThat(jdbcTemplate.queryForList("SELECT version, success FROM schema_migration ORDER BY version"))
+                .extracting(row -> row.get("VERSION") + "=" + row.get("SUCCESS"))
+                .containsExactly("1=true", "2=false");
+        assertThatThrownBy(() -> migrator().migrate())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("V2 (notes, ")
+                .hasMessageContaining("delete its row from schema_migration");
+
+        // When: an operator undoes the script, fixes what it needs and clears the failure
+        jdbcTemplate.execute("DROP TABLE guest_note");
+        jdbcTemplate.execute("CREATE TABLE note_source (id INT PRIMARY KEY)");
+        jdbcTemplate.update("DELETE FROM schema_migration WHERE version = 2");
+        migrator().migrate();
+
+        // Then
+        assertThat(tableExists("guest_note")).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM schema_migration WHERE success = TRUE",
+                Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldUpgradeAHistoryTableWithoutTheSuccessColumn() throws IOException {
+        // Given: V1 recorded by the migrator before it tracked failures
+        jdbcTemplate.execute("CREATE TABLE room_note (id INT PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE schema_migration (version INT NOT NULL PRIMARY KEY, "
+                + "description VARCHAR(200) NOT NULL, checksum BIGINT NOT NULL, "
+                + "installed_on TIMESTAMP NOT NULL, execution_ms BIGINT NOT NULL)");
+        jdbcTemplate.update("INSERT INTO schema_migration VALUES (1, 'rooms', 0, CURRENT_TIMESTAMP, 5)");
+        script("V2__notes.sql", "CREATE TABLE guest_note (id INT PRIMARY KEY);");
+
+        // When
+        migrator().migrate();
+
+        // Then: V1 is not run again
+        assertThat(jdbcTemplate.queryForList("SELECT version, success FROM schema_migration ORDER BY version"))
+                .extracting(row -> row.get("VERSION") + "=" + row.get("SUCCESS"))
+                .containsExactly("1=true", "2=true");
+        assertThat(tableExists("guest_note")).isTrue();
+    }
+
+    private SchemaMigrator migrator() {
+        return new SchemaMigrator(jdbcTemplate, null, scripts.toUri().toString(), true);
+    }
+
+    private void script(String name, String sql) throws IOException {
+        Files.writeString(scripts.resolve(name), sql);
+    }
+
+    private boolean tableExists(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = ?",
+                Integer.class, table.toUpperCase()) == 1;
+    }
+}
@@ -0,0 +1,141 @@
+package com.hotel.erp.controller;
+
+import com.hotel.erp.entity.Checkin;
+import com.hotel.erp.entity.Reservation;
+import com.hotel.erp.repository.AdvancesRepository;
+import com.hotel.erp.repository.CheckinRepository;
+import com.hotel.erp.repository.PostTransactionRepository;
+import com.hotel.erp.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = { "spring.jpa.hibernate.ddl-auto=create-drop", "spring.jpa.show-sql=false" })
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc(addFilters = false)
+public class BulkEntryControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private CheckinRepository checkinRepository;
+
+    @Autowired
+    private AdvancesRepository advancesRepository;
+
+    @Autowired
+    private PostTransactionRepository postTransactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        advancesRepository.deleteAll();
+        postTransactionRepository.deleteAll();
+        checkinRepository.deleteAll();
+        reservationRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM folio_balance");
+        jdbcTemplate.update("DELETE FROM daily_revenue");
+
+        Reservation reservation = new Reservation();
+        reservation.setReservationNo("R1");
+        reservation.setFromDate(LocalDate.now());
+        reservation.setToDate(LocalDate.now().plusDays(2));
+        reservation.setContactNo("9876543210");
+        reservation.setGuestName("Ann");
+        reservation.setTotalPax(1);
+        reservation.setNoOfRooms(1);
+        reservationRepository.save(reservation);
+
+        Checkin checkin = new Checkin();
+        checkin.setFolioNo("F1");
+        checkin.setContactNo("9876543210");
+        checkin.setCheckInDate(LocalDate.now());
+        checkin.setNoOfPersons(1);
+        checkin.setRoomNo("101");
+        checkin.setStatus("CHECKED_IN");
+        checkinRepository.save(checkin);
+    }
+
+    @Test
+    public void shouldSaveValidAdvancesAndReportEachFailedOne() throws Exception {
+        // When
+        send("/api/advances/bulk", "[{\"amount\":100,\"reservationNo\":\"R1\",\"paymentMode\":\"Cash\"},"
+                + "{\"amount\":-1,\"reservationNo\":\"R1\"},"
+                + "{\"amount\":5,\"reservationNo\":\"NOPE\"},"
+                + "null,"
+                + "{\"amount\":50.5,\"reservationNo\":\"R1\",\"paymentMode\":\"UPI\"}]")
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(5))
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[1].status").value("FAILED"))
+                .andExpect(jsonPath("$.items[1].error").value("Amount must be positive"))
+                .andExpect(jsonPath("$.items[2].status").value("FAILED"))
+                .andExpect(jsonPath("$.items[2].error")
+                        .value("Reservation number does not exist in reservation table"))
+                .andExpect(jsonPath("$.items[3].status").value("FAILED"))
+                .andExpect(jsonPath("$.items[4].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[4].index").value(4));
+
+        assertThat(advancesRepository.count()).isEqualTo(2);
+        BigDecimal revenue = jdbcTemplate.queryForObject(
+                "SELECT SUM(amount) FROM daily_revenue WHERE ledger = 'ADVANCES'", BigDecimal.class);
+        assertThat(revenue).isEqualByComparingTo("150.50");
+    }
+
+    @Test
+    public void shouldSaveValidPostingsAndRecordThemInTheFolioBalance() throws Exception {
+        // When
+        send("/api/post-transactions/bulk",
+                "[{\"amount\":20,\"transDate\":\"" + LocalDate.now() + "\",\"accHead\":\"FOOD\",\"folioNo\":\"F1\"},"
+                        + "{\"amount\":30,\"transDate\":\"" + LocalDate.now() + "\",\"accHead\":\"BAR\",\"folioNo\":\"F1\"},"
+                        + "{}]")
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.items[2].status").value("FAILED"))
+                .andExpect(jsonPath("$.items[2].error").value("Amount must be positive"));
+
+        assertThat(postTransactionRepository.count()).isEqualTo(2);
+        BigDecimal postings = jdbcTemplate.queryForObject(
+                "SELECT total_postings FROM folio_balance WHERE folio_no = 'F1'", BigDecimal.class);
+        assertThat(postings).isEqualByComparingTo("50");
+    }
+
+    @Test
+    public void shouldRejectAnEmptyBulkRequest() throws Exception {
+        send("/api/advances/bulk", "[]")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value("error"));
+
+        assertThat(advancesRepository.count()).isZero();
+    }
+
+    private ResultActions send(String url, String body) throws Exception {
+        return mockMvc.perform(post(url).contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+}
@@ -0,0 +1,88 @@
+package com.hotel.erp.controller;
+
+import com.hotel.erp.dto.FolioBalanceDTO;
+import com.hotel.erp.dto.PostTransactionDTO;
+import com.hotel.erp.entity.AccountYear;
+import com.hotel.erp.entity.Checkin;
+import com.hotel.erp.repository.AccountYearRepository;
+import com.hotel.erp.repository.CheckinRepository;
+import com.hotel.erp.service.FolioBalanceService;
+import com.hotel.erp.service.PostTransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = { "spring.jpa.hibernate.ddl-auto=create-drop", "spring.jpa.show-sql=false" })
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc(addFilters = false)
+public class CompleteBillingControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AccountYearRepository accountYearRepository;
+
+    @Autowired
+    private CheckinRepository checkinRepository;
+
+    @Autowired
+    private PostTransactionService postTransactionService;
+
+    @Autowired
+    private FolioBalanceService folioBalanceService;
+
+    @Test
+    public void shouldRecordTheFinalBillInTheFolioBalance() throws Exception {
+        // Given
+        if (accountYearRepository.count() == 0) {
+            AccountYear year = new AccountYear();
+            year.setAccYear("26-27");
+            accountYearRepository.save(year);
+        }
+        Checkin checkin = new Checkin();
+        checkin.setFolioNo("F-FINAL");
+        checkin.setContactNo("9876543210");
+        checkin.setCheckInDate(LocalDate.now());
+        checkin.setNoOfPersons(1);
+        checkin.setRoomNo("101");
+        checkin.setStatus("CHECKED_IN");
+        checkinRepository.save(checkin);
+        postTransactionService.createTransaction(posting("ROOM", "120.00"));
+        postTransactionService.createTransaction(posting("FOOD", "35.50"));
+
+        // When
+        mockMvc.perform(post("/api/billing/complete/generate-final-bill/F-FINAL")
+                .contentType(MediaType.APPLICATION_JSON).content("{\"userId\":1}"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bill.totalAmount").value(155.5));
+
+        FolioBalanceDTO stored = folioBalanceService.getFolioBalance("F-FINAL");
+        FolioBalanceDTO computed = folioBalanceService.computeFolioBalance("F-FINAL");
+        assertThat(stored.getTotalBilled()).isEqualByComparingTo("155.50");
+        assertThat(stored.getTotalBilled()).isEqualByComparingTo(computed.getTotalBilled());
+        assertThat(stored.getBalance()).isEqualByComparingTo(computed.getBalance());
+    }
+
+    private static PostTransactionDTO posting(String accHead, String amount) {
+        PostTransactionDTO posting = new PostTransactionDTO();
+        posting.setAmount(new BigDecimal(amount));
+        posting.setTransDate(LocalDate.now());
+        posting.setAccHead(accHead);
+        posting.setFolioNo("F-FINAL");
+        return posting;
+    }
+}
@@ -0,0 +1,155 @@
+package com.hotel.erp.controller;
+
+import com.hotel.erp.dto.RoomDTO;
+import com.hotel.erp.entity.Reservation;
+import com.hotel.erp.repository.CheckinRepository;
+import com.hotel.erp.repository.ReservationRepository;
+import com.hotel.erp.repository.RoomRepository;
+import com.hotel.erp.service.CheckinService;
+import com.hotel.erp.service.RoomService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = { "spring.jpa.hibernate.ddl-auto=create-drop", "spring.jpa.show-sql=false" })
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc(addFilters = false)
+public class FrontDeskConcurrencyTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private CheckinService checkinService;
+
+    @Autowired
+    private CheckinRepository checkinRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Test
+    public void shouldApplyEveryConcurrentRoomUpdate() throws Exception {
+        // Given
+        int id = roomService.createRoom(room("201", 2)).getId();
+        AtomicInteger rates = new AtomicInteger(100);
+
+        // When: each clerk sets a different rate, so every update changes the row
+        List<Throwable> failures = inParallel(8, () -> {
+            RoomDTO update = room("201", 2);
+            update.setRate((double) rates.incrementAndGet());
+            return roomService.updateRoom(id, update);
+        });
+
+        // Then
+        assertThat(failures).isEmpty();
+        assertThat(roomRepository.findById(id).get().getVersion()).isEqualTo(8L);
+    }
+
+    @Test
+    public void shouldRejectAnUpdateFromAStaleVersion() throws Exception {
+        // Given
+        int id = roomService.createRoom(room("301", 3)).getId();
+        RoomDTO repriced = room("301", 3);
+        repriced.setRate(120.0);
+        roomService.updateRoom(id, repriced);
+        long version = roomRepository.findById(id).get().getVersion();
+        assertThat(version).isEqualTo(1L);
+
+        // When / Then
+        putIt("/api/admin/rooms/" + id, "{\"roomNo\":\"301\",\"floor\":4,\"version\":" + (version - 1) + "}")
+                .andExpect(status().isConflict());
+        assertThat(roomRepository.findById(id).get().getFloor()).isEqualTo(3);
+
+        putIt("/api/admin/rooms/" + id, "{\"roomNo\":\"301\",\"floor\":4,\"version\":" + version + "}")
+                .andExpect(status().isOk());
+        assertThat(roomRepository.findById(id).get().getFloor()).isEqualTo(4);
+    }
+
+    @Test
+    public void shouldCheckInAReservationOnceWhenClerksRace() throws Exception {
+        // Given
+        roomService.createRoom(room("401", 4));
+        Reservation reservation = new Reservation();
+        reservation.setReservationNo("R401");
+        reservation.setFromDate(LocalDate.now());
+        reservation.setToDate(LocalDate.now().plusDays(2));
+        reservation.setContactNo("9876543210");
+        reservation.setGuestName("Ann");
+        reservation.setTotalPax(1);
+        reservation.setNoOfRooms(1);
+        reservation.setSelectedRoom("401");
+        reservationRepository.save(reservation);
+        long before = checkinRepository.count();
+
+        // When
+        List<Throwable> failures = inParallel(4, () -> checkinService.checkInFromReservation("R401", 1));
+
+        // Then
+        assertThat(checkinRepository.count()).isEqualTo(before + 1);
+        assertThat(failures).hasSize(3);
+    }
+
+    private static RoomDTO room(String roomNo, int floor) {
+        RoomDTO room = new RoomDTO();
+        room.setRoomNo(roomNo);
+        room.setFloor(floor);
+        room.setRate(100.0);
+        return room;
+    }
+
+    /**
+     * Start the task on several threads at once and collect what they threw
+     */
+    private static List<Throwable> inParallel(int threads, Callable<Object> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(pool.submit(() -> {
+                barrier.await();
+                return task.call();
+            }));
+        }
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<Object> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        pool.shutdown();
+        return failures;
+    }
+
+    private ResultActions putIt(String url, String body) throws Exception {
+        return mockMvc.perform(put(url).contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+}
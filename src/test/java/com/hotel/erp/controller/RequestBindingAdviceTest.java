@@ -0,0 +1,90 @@
+package com.hotel.erp.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = { "spring.jpa.hibernate.ddl-auto=create-drop", "spring.jpa.show-sql=false" })
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc(addFilters = false)
+public class RequestBindingAdviceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void shouldRejectMalformedJson() throws Exception {
+        send("/api/advances", "{\"amount\": 10,")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value("error"))
+                .andExpect(jsonPath("$.message").value(startsWith("Malformed JSON: ")))
+                .andExpect(jsonPath("$.errors").doesNotExist());
+    }
+
+    @Test
+    public void shouldRejectAMissingBody() throws Exception {
+        send("/api/post-transactions", "")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value("error"))
+                .andExpect(jsonPath("$.message").value("Request body is missing or unreadable"));
+    }
+
+    @Test
+    public void shouldNameTheFieldThatDoesNotBind() throws Exception {
+        send("/api/post-transactions", "{\"amount\":\"twenty\",\"transDate\":\"2026-10-01\",\"accHead\":\"FOOD\"}")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid request"))
+                .andExpect(jsonPath("$.errors", hasSize(1)))
+                .andExpect(jsonPath("$.errors[0].field").value("amount"))
+                .andExpect(jsonPath("$.errors[0].message").value("must be a number"));
+
+        send("/api/post-transactions", "{\"amount\":\"20.00\",\"transDate\":\"01/10/2026\",\"accHead\":\"FOOD\"}")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].field").value("transDate"))
+                .andExpect(jsonPath("$.errors[0].message").value("must be a date in YYYY-MM-DD format"));
+
+        send("/api/payment-workflow/pre-checkin-advance", "{\"reservationNo\":\"R1\",\"userId\":\"three\"}")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].field").value("userId"))
+                .andExpect(jsonPath("$.errors[0].message").value("must be a whole number"));
+    }
+
+    @Test
+    public void shouldListEveryInvalidField() throws Exception {
+        send("/api/payment-workflow/pre-checkin-advance",
+                "{\"reservationNo\":\"R1\",\"guestName\":\" \",\"amount\":-5}")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value("error"))
+                .andExpect(jsonPath("$.message").value("Invalid request"))
+                .andExpect(jsonPath("$.errors", hasSize(4)))
+                .andExpect(jsonPath("$.errors[0].field").value("guestName"))
+                .andExpect(jsonPath("$.errors[0].message").value("is required"))
+                .andExpect(jsonPath("$.errors[1].field").value("paymentMode"))
+                .andExpect(jsonPath("$.errors[2].field").value("amount"))
+                .andExpect(jsonPath("$.errors[2].message").value("must be greater than zero"))
+                .andExpect(jsonPath("$.errors[3].field").value("userId"));
+
+        send("/api/post-transactions", "{\"amount\":\"20.00\",\"accHead\":\"FOOD\",\"transactionStatus\":\"Open\"}")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors", hasSize(2)))
+                .andExpect(jsonPath("$.errors[0].field").value("transDate"))
+                .andExpect(jsonPath("$.errors[0].message").value("is required"))
+                .andExpect(jsonPath("$.errors[1].field").value("transactionStatus"))
+                .andExpect(jsonPath("$.errors[1].message").value("must be one of [Pending, Completed, Failed]"));
+    }
+
+    private ResultActions send(String url, String body) throws Exception {
+        return mockMvc.perform(post(url).contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+}
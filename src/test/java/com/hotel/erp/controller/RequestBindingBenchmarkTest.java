@@ -0,0 +1,88 @@
+package com.hotel.erp.controller;
+
+import com.hotel.erp.entity.Reservation;
+import com.hotel.erp.repository.ReservationRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Sequential create requests against the cashier endpoints, timing request
+ * binding, validation and the service write together. Skipped unless run
+ * with -Dbenchmark=true, e.g.
+ * mvn test -Dtest=RequestBindingBenchmarkTest -Dbenchmark=true
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = { "spring.jpa.hibernate.ddl-auto=create-drop", "spring.jpa.show-sql=false" })
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc(addFilters = false)
+public class RequestBindingBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestBindingBenchmarkTest.class);
+
+    private static final int WARMUP = 500;
+    private static final int MEASURED = 3000;
+
+    private static final String ADVANCE = "{\"amount\":\"150.25\",\"paymentDate\":\"2026-10-01\","
+            + "\"paymentMode\":\"Cash\",\"reservationNo\":\"R1\",\"guestName\":\"Ann\",\"remarks\":\"x\","
+            + "\"userId\":\"3\",\"shiftNo\":2,\"auditDate\":\"\",\"shiftDate\":\"2026-10-01\"}";
+    private static final String PRE_CHECKIN_ADVANCE = "{\"reservationNo\":\"R1\",\"guestName\":\"Ann\","
+            + "\"paymentMode\":\"Cash\",\"amount\":100.5,\"remarks\":\"x\",\"userId\":3}";
+    private static final String POST_TRANSACTION = "{\"amount\":\"20.00\",\"transDate\":\"2026-10-01\","
+            + "\"accHead\":\"FOOD\",\"narration\":\"n\",\"guestName\":\"Ann\",\"userId\":3,"
+            + "\"shiftNo\":\"1\",\"transactionStatus\":\"Pending\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Test
+    public void timeCashierCreates() throws Exception {
+        Reservation reservation = new Reservation();
+        reservation.setReservationNo("R1");
+        reservation.setFromDate(LocalDate.of(2026, 9, 1));
+        reservation.setToDate(LocalDate.of(2026, 11, 1));
+        reservation.setContactNo("1");
+        reservation.setGuestName("Ann");
+        reservation.setTotalPax(1);
+        reservation.setNoOfRooms(1);
+        reservationRepository.save(reservation);
+
+        String[][] cases = {
+                { "/api/advances", ADVANCE },
+                { "/api/payment-workflow/pre-checkin-advance", PRE_CHECKIN_ADVANCE },
+                { "/api/post-transactions", POST_TRANSACTION } };
+        for (String[] endpoint : cases) {
+            send(endpoint[0], endpoint[1], WARMUP);
+            long started = System.nanoTime();
+            send(endpoint[0], endpoint[1], MEASURED);
+            logger.info("{} us/op={}", endpoint[0], (System.nanoTime() - started) / MEASURED / 1000);
+        }
+    }
+
+    private void send(String url, String body, int times) throws Exception {
+        for (int i = 0; i < times; i++) {
+            MockHttpServletResponse response = mockMvc
+                    .perform(post(url).contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andReturn().getResponse();
+            assertThat(response.getStatus()).as(response.getContentAsString()).isLessThan(300);
+        }
+    }
+}
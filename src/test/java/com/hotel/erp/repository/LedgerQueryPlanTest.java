@@ -0,0 +1,172 @@
+package com.hotel.erp.repository;
+
+import com.hotel.erp.HotelManagementErpApplication;
+import com.hotel.erp.config.SchemaMigrator;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every query declared on the ledger repositories against H2 in MySQL
+ * mode with the schema migrations applied, and fails if the plan of any of
+ * them reads a whole table or a whole index instead of seeking into one.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-plans;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.hotel.erp.repository.LedgerQueryPlanTest$CapturingInspector" })
+@ContextConfiguration(classes = HotelManagementErpApplication.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SchemaMigrator.class)
+public class LedgerQueryPlanTest {
+
+    private static final List<Class<?>> REPOSITORIES = List.of(
+            AdvancesRepository.class,
+            PostTransactionRepository.class,
+            AdditionalChargesRepository.class,
+            FoBillRepository.class,
+            BillSettlementRepository.class,
+            CheckinRepository.class,
+            ReservationRepository.class,
+            DailyRevenueRepository.class);
+
+    /** Queries that cannot or need not use an index, with the reason */
+    private static final Map<String, String> EXPECTED_SCANS = Map.ofEntries(
+            Map.entry("PostTransactionRepository.findByGuestNameContainingIgnoreCase", "substring search"),
+            Map.entry("PostTransactionRepository.findByAccHeadContainingIgnoreCase", "substring search"),
+            Map.entry("AdditionalChargesRepository.searchCharges", "substring search"),
+            Map.entry("FoBillRepository.searchBills", "substring search"),
+            Map.entry("BillSettlementRepository.searchSettlements", "substring search"),
+            Map.entry("ReservationRepository.findReservationNosEndingWith", "suffix search, run once per year"),
+            Map.entry("CheckinRepository.findHighestFolioNos", "seeds the folio counter once a month"),
+            Map.entry("CheckinRepository.findFolioBalancesPage", "pages through every folio by design"),
+            Map.entry("CheckinRepository.findByCheckOutDateIsNotNull", "returns nearly every checkin"),
+            Map.entry("CheckinRepository.findStaysEndingOnOrAfter", "open stays, read once at startup"),
+            Map.entry("PostTransactionRepository.findByTransactionStatus", "three statuses, most rows match"));
+
+    /** A plan comment naming the table or index read, with the seek condition if there is one */
+    private static final Pattern ACCESS = Pattern.compile("/\\* (PUBLIC\\.[A-Za-z0-9_.]+)(:[^*]*)?\\s*\\*/");
+
+    private static final List<String> CAPTURED = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void ledgerQueriesShouldNotScanWholeTables() throws Exception {
+        List<String> fullScans = new ArrayList<>();
+        int checked = 0;
+
+        for (Class<?> repositoryType : REPOSITORIES) {
+            Object repository = context.getBean(repositoryType);
+            for (Method method : repositoryType.getDeclaredMethods()) {
+                String name = repositoryType.getSimpleName() + "." + method.getName();
+                if (method.isDefault() || method.isSynthetic() || EXPECTED_SCANS.containsKey(name)) {
+                    continue;
+                }
+
+                CAPTURED.clear();
+                Object result = method.invoke(repository, arguments(method));
+                if (result instanceof Stream<?> stream) {
+                    stream.close();
+                }
+                assertThat(CAPTURED).as("SQL run by %s", name).isNotEmpty();
+
+                for (String sql : List.copyOf(CAPTURED)) {
+                    String plan = explain(sql);
+                    Matcher access = ACCESS.matcher(plan);
+                    while (access.find()) {
+                        if (access.group(1).endsWith(".tableScan") || access.group(2) == null) {
+                            fullScans.add(name + " reads all of " + access.group(1) + "\n" + plan);
+                        }
+                    }
+                }
+                checked++;
+            }
+        }
+
+        assertThat(checked).isGreaterThan(50);
+        assertThat(fullScans).as("queries without a usable index").isEmpty();
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.query(connection -> connection.prepareStatement("EXPLAIN " + sql),
+                rs -> rs.next() ? rs.getString(1) : "");
+    }
+
+    private static Object[] arguments(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        Object[] arguments = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            arguments[i] = sampleValue(types[i]);
+        }
+        return arguments;
+    }
+
+    private static Object sampleValue(Class<?> type) {
+        if (type == String.class) {
+            return "X";
+        }
+        if (type == Long.class || type == long.class) {
+            return 1L;
+        }
+        if (type == Integer.class || type == int.class) {
+            return 1;
+        }
+        if (type == BigDecimal.class) {
+            return BigDecimal.ONE;
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.now();
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return List.of("X");
+        }
+        if (type == Pageable.class) {
+            return PageRequest.of(0, 10);
+        }
+        if (type.isEnum()) {
+            return type.getEnumConstants()[0];
+        }
+        throw new IllegalArgumentException("No sample value for " + type);
+    }
+
+    /**
+     * Records the SQL Hibernate sends so the test can explain it
+     */
+    public static class CapturingInspector implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            CAPTURED.add(sql);
+            return sql;
+        }
+    }
+}
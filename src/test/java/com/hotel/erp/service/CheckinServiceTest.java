@@ -0,0 +1,82 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.entity.Checkin;
+import com.hotel.erp.repository.CheckinRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CheckinServiceTest {
+
+    private static final String PREFIX = "FOL/" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMM")) + "/";
+
+    @Mock
+    private CheckinRepository checkinRepository;
+
+    @Mock
+    private SequenceAllocator sequenceAllocator;
+
+    @Mock
+    private FolioBalanceService folioBalanceService;
+
+    @Mock
+    private RoomAvailabilityIndex roomAvailabilityIndex;
+
+    @Mock
+    private RoomStatusBoard roomStatusBoard;
+
+    @Mock
+    private GuestSearchIndex guestSearchIndex;
+
+    @InjectMocks
+    private CheckinService checkinService;
+
+    @BeforeEach
+    public void setUp() {
+        // Seed a fresh counter each time, as on the month's first check-in
+        when(sequenceAllocator.next(eq(PREFIX), any()))
+                .thenAnswer(invocation -> invocation.<LongSupplier>getArgument(1).getAsLong() + 1);
+        when(checkinRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    public void shouldSkipHandEnteredFolioNumbersWhenSeedingTheCounter() {
+        // Given
+        when(checkinRepository.findHighestFolioNos(PREFIX, PageRequest.of(0, 20)))
+                .thenReturn(List.of(PREFIX + "WALKIN", PREFIX + "ABC", PREFIX + "0042", PREFIX + "0041"));
+
+        // When
+        Checkin saved = checkinService.saveCheckin(new Checkin());
+
+        // Then
+        assertThat(saved.getFolioNo()).isEqualTo(PREFIX + "0043");
+    }
+
+    @Test
+    public void shouldStartAtOneWhenOnlyHandEnteredFolioNumbersExist() {
+        // Given
+        when(checkinRepository.findHighestFolioNos(PREFIX, PageRequest.of(0, 20)))
+                .thenReturn(List.of(PREFIX + "ABC"));
+
+        // When
+        Checkin saved = checkinService.saveCheckin(new Checkin());
+
+        // Then
+        assertThat(saved.getFolioNo()).isEqualTo(PREFIX + "0001");
+    }
+}
@@ -0,0 +1,186 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.AdditionalChargesDTO;
+import com.hotel.erp.entity.AdditionalCharges;
+import com.hotel.erp.entity.Advances;
+import com.hotel.erp.entity.BillSettlement;
+import com.hotel.erp.entity.FoBill;
+import com.hotel.erp.entity.PostTransaction;
+import com.hotel.erp.repository.AdditionalChargesRepository;
+import com.hotel.erp.repository.AdvancesRepository;
+import com.hotel.erp.repository.BillSettlementRepository;
+import com.hotel.erp.repository.FoBillRepository;
+import com.hotel.erp.repository.PostTransactionRepository;
+import com.hotel.erp.service.DailyRevenueService.Entry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = { "spring.jpa.hibernate.ddl-auto=create-drop", "spring.jpa.show-sql=false" })
+@AutoConfigureTestDatabase
+public class DailyRevenueServiceTest {
+
+    @Autowired
+    private DailyRevenueService dailyRevenueService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private AdditionalChargesService additionalChargesService;
+
+    @Autowired
+    private AdvancesRepository advancesRepository;
+
+    @Autowired
+    private FoBillRepository foBillRepository;
+
+    @Autowired
+    private BillSettlementRepository billSettlementRepository;
+
+    @Autowired
+    private PostTransactionRepository postTransactionRepository;
+
+    @Autowired
+    private AdditionalChargesRepository additionalChargesRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    public void clearLedgers() {
+        jdbcTemplate.update("DELETE FROM daily_revenue");
+        billSettlementRepository.deleteAll();
+        foBillRepository.deleteAll();
+        advancesRepository.deleteAll();
+        postTransactionRepository.deleteAll();
+        additionalChargesRepository.deleteAll();
+    }
+
+    @Test
+    public void shouldMatchRebuildAfterIncrementalWrites() {
+        // Given
+        for (int i = 0; i < 20; i++) {
+            LocalDate day = today.minusDays(i % 3);
+            Advances advance = new Advances();
+            advance.setAmount(BigDecimal.valueOf(i));
+            advance.setPaymentDate(day);
+            advance.setPaymentMode(i % 5 == 0 ? null : "Cash");
+            advance.setShiftNo(i % 2);
+            dailyRevenueService.record(Entry.of(advancesRepository.save(advance)));
+
+            FoBill bill = new FoBill();
+            bill.setFolioNo("F" + (i % 3));
+            bill.setTotalAmount(BigDecimal.ONE);
+            bill.setBillDate(day);
+            bill = foBillRepository.save(bill);
+            dailyRevenueService.record(Entry.of(bill));
+
+            BillSettlement settlement = new BillSettlement();
+            settlement.setBillId(bill.getBillId());
+            settlement.setAmount(BigDecimal.TEN);
+            settlement.setPaymentDate(day);
+            settlement.setPaymentMode(i % 2 == 0 ? "Card" : "Cash");
+            dailyRevenueService.record(Entry.of(billSettlementRepository.save(settlement)));
+
+            PostTransaction posting = new PostTransaction();
+            posting.setTransDate(day);
+            posting.setAccHead("ROOM RENT");
+            posting.setAmount(BigDecimal.valueOf(100));
+            posting.setFolioNo("F1");
+            dailyRevenueService.record(Entry.of(postTransactionRepository.save(posting)));
+
+            AdditionalChargesDTO charge = new AdditionalChargesDTO();
+            charge.setChargeType(i % 2 == 0 ? "LAUNDRY" : "MINIBAR");
+            charge.setAmount(BigDecimal.valueOf(5));
+            charge.setChargeDate(day);
+            AdditionalCharges saved = additionalChargesService.createCharge(charge);
+            if (i == 3) {
+                AdditionalChargesDTO update = new AdditionalChargesDTO();
+                update.setAmount(BigDecimal.valueOf(50));
+                update.setChargeType("SPA");
+                additionalChargesService.updateCharge(saved.getId(), update);
+            }
+            if (i == 4) {
+                additionalChargesService.deleteCharge(saved.getId());
+            }
+        }
+        // an edit in place, then one that moves the advance to another day
+        Advances edited = advancesRepository.findAll().get(1);
+        Entry before = Entry.of(edited);
+        edited.setAmount(BigDecimal.valueOf(1000));
+        dailyRevenueService.recordChange(before, Entry.of(advancesRepository.save(edited)));
+        before = Entry.of(edited);
+        edited.setPaymentDate(today.minusDays(10));
+        dailyRevenueService.recordChange(before, Entry.of(advancesRepository.save(edited)));
+
+        List<String> incremental = cells();
+
+        // When
+        dailyRevenueService.rebuild(today.minusDays(30), today);
+
+        // Then
+        assertThat(incremental).isNotEmpty();
+        assertThat(cells()).isEqualTo(incremental);
+
+        Map<String, Object> daily = reportService.getDailySummaryReport(today);
+        assertThat((BigDecimal) daily.get("dailyAdvances"))
+                .isEqualByComparingTo(advancesRepository.getTotalAmountByDate(today));
+        assertThat((BigDecimal) daily.get("dailyBills"))
+                .isEqualByComparingTo(foBillRepository.getTotalAmountByDate(today));
+        assertThat((BigDecimal) daily.get("dailySettlements"))
+                .isEqualByComparingTo(billSettlementRepository.getTotalAmountByDate(today));
+        assertThat((BigDecimal) daily.get("dailyCharges"))
+                .isEqualByComparingTo(additionalChargesRepository.getTotalAmountByDate(today));
+        assertThat(((Number) daily.get("advanceCount")).longValue())
+                .isEqualTo(advancesRepository.countByPaymentDate(today));
+
+        Map<String, Object> financial = reportService.getFinancialSummary(today.minusDays(30), today);
+        assertThat((BigDecimal) financial.get("totalAdvances"))
+                .isEqualByComparingTo(advancesRepository.getTotalAmountByDateRange(today.minusDays(30), today));
+    }
+
+    @Test
+    public void shouldDropRemovedEntriesFromTotals() {
+        // Given
+        Advances advance = new Advances();
+        advance.setAmount(new BigDecimal("250.00"));
+        advance.setPaymentDate(today);
+        advance.setPaymentMode("Cash");
+        advance = advancesRepository.save(advance);
+        dailyRevenueService.record(Entry.of(advance));
+
+        // When
+        dailyRevenueService.remove(Entry.of(advance));
+        advancesRepository.delete(advance);
+
+        // Then
+        Map<String, Object> daily = reportService.getDailySummaryReport(today);
+        assertThat((BigDecimal) daily.get("dailyAdvances")).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(((Number) daily.get("advanceCount")).longValue()).isZero();
+
+        dailyRevenueService.rebuild(today, today);
+        assertThat(cells()).isEmpty();
+    }
+
+    /**
+     * Every non-empty cell as one comparable string, in key order
+     */
+    private List<String> cells() {
+        return jdbcTemplate.queryForList("SELECT CONCAT(report_date, '|', ledger, '|', account_head, '|', "
+                + "payment_mode, '|', shift_no, '|', CAST(amount AS DECIMAL(14,2)), '|', entry_count) "
+                + "FROM daily_revenue WHERE entry_count > 0 ORDER BY 1", String.class);
+    }
+}
@@ -0,0 +1,198 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.PostTransactionDTO;
+import com.hotel.erp.dto.ReservationDTO;
+import com.hotel.erp.entity.AccountYear;
+import com.hotel.erp.entity.Checkin;
+import com.hotel.erp.entity.PostTransaction;
+import com.hotel.erp.entity.Reservation;
+import com.hotel.erp.repository.AccountYearRepository;
+import com.hotel.erp.repository.CheckinRepository;
+import com.hotel.erp.service.GuestSearchIndex.Kind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = { "spring.jpa.hibernate.ddl-auto=create-drop", "spring.jpa.show-sql=false" })
+@AutoConfigureTestDatabase
+public class GuestSearchIndexTest {
+
+    @Autowired
+    private GuestSearchIndex guestSearchIndex;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private PostTransactionService postTransactionService;
+
+    @Autowired
+    private AccountYearRepository accountYearRepository;
+
+    @Autowired
+    private CheckinRepository checkinRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        if (accountYearRepository.count() == 0) {
+            AccountYear year = new AccountYear();
+            year.setAccYear("26-27");
+            accountYearRepository.save(year);
+        }
+        if (checkinRepository.findByFolioNo("F-SEARCH").isEmpty()) {
+            Checkin checkin = new Checkin();
+            checkin.setFolioNo("F-SEARCH");
+            checkin.setContactNo("9876543210");
+            checkin.setCheckInDate(LocalDate.now());
+            checkin.setNoOfPersons(1);
+            checkin.setRoomNo("101");
+            checkin.setStatus("CHECKED_IN");
+            checkinRepository.save(checkin);
+        }
+    }
+
+    @Test
+    public void shouldFindReservationsByPartOfAPhoneNumberOrAMisspeltName() {
+        // Given
+        Reservation jonathan = reservation("Jonathan Whitfield", "+91 98450 12345");
+        Reservation john = reservation("John Whitfielder", "9845077777");
+        reservation("Priya Raman", "044-2222-3333");
+
+        // When / Then
+        assertThat(guestNames(reservationService.findReservationsByGuestName("whitfield")))
+                .containsExactly("Jonathan Whitfield", "John Whitfielder");
+        assertThat(guestNames(reservationService.findReservationsByGuestName("jonathon whitfeild")))
+                .containsExactly("Jonathan Whitfield");
+        assertThat(guestNames(reservationService.findReservationsByContactNo("12345")))
+                .containsExactly("Jonathan Whitfield");
+        assertThat(guestSearchIndex.search(john.getReservationNo(), null, 10))
+                .extracting(hit -> hit.getId()).containsExactly(john.getId().longValue());
+
+        reservationService.deleteReservation(jonathan.getId());
+        assertThat(guestNames(reservationService.findReservationsByGuestName("whitfield")))
+                .containsExactly("John Whitfielder");
+    }
+
+    @Test
+    public void shouldFindTransactionsByNarrationAndAccountHead() {
+        // Given
+        PostTransaction minibar = postTransactionService.createTransaction(posting("MINIBAR", "Two colas, one beer"));
+        PostTransaction laundry = postTransactionService.createTransaction(posting("LAUNDRY", "Express pressing"));
+        postTransactionService.createTransactions(List.of(posting("LAUNDRY", "Dry cleaning suit")));
+
+        // When / Then
+        assertThat(ids(postTransactionService.searchTransactions("colas"))).containsExactly(minibar.getId());
+        assertThat(ids(postTransactionService.searchTransactions("minibar"))).containsExactly(minibar.getId());
+        assertThat(ids(postTransactionService.searchTransactions("laundry pressing"))).containsExactly(laundry.getId());
+        assertThat(postTransactionService.searchTransactions("laundry")).hasSize(2);
+        assertThat(postTransactionService.searchTransactions("cleaning")).hasSize(1);
+    }
+
+    @Test
+    public void shouldPickUpRowsWrittenOutsideTheApplicationOnRebuild() {
+        // Given
+        jdbcTemplate.update("INSERT INTO post_transaction (amount, trans_date, acc_head, narration, folio_no, "
+                + "transaction_status) VALUES (?, ?, ?, ?, ?, ?)", new BigDecimal("15.00"),
+                Date.valueOf(LocalDate.now()), "TELEPHONE", "Imported trunk call", "F-IMPORT", "Pending");
+        assertThat(guestSearchIndex.searchIds("trunk", Kind.TRANSACTION, null, 10)).isEmpty();
+
+        // When
+        guestSearchIndex.rebuild();
+
+        // Then
+        assertThat(guestSearchIndex.searchIds("trunk", Kind.TRANSACTION, null, 10)).hasSize(1);
+    }
+
+    @Test
+    public void shouldKeepWritesCommittedWhileTheIndexIsRebuilt() throws Exception {
+        // Given: enough postings that each rebuild is still reading them well
+        // after it has read the reservations
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            rows.add(new Object[] { new BigDecimal("1.00"), Date.valueOf(LocalDate.now()), "ROOM",
+                    "Filler row " + i, "F-FILL" + i, "Pending" });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO post_transaction (amount, trans_date, acc_head, narration, folio_no, "
+                + "transaction_status) VALUES (?, ?, ?, ?, ?, ?)", rows);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        AtomicBoolean rebuilding = new AtomicBoolean(true);
+
+        // When: reservations keep committing while the index is rebuilt
+        Future<?> rebuilds = pool.submit(() -> {
+            try {
+                for (int i = 0; i < 3; i++) {
+                    guestSearchIndex.rebuild();
+                }
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+        Future<List<Long>> writes = pool.submit(() -> {
+            List<Long> ids = new ArrayList<>();
+            while (rebuilding.get()) {
+                ids.add(reservation("Saunders Walk-in", "9000000000").getId().longValue());
+            }
+            return ids;
+        });
+        List<Long> written;
+        try {
+            rebuilds.get();
+            written = writes.get();
+        } finally {
+            pool.shutdown();
+            jdbcTemplate.update("DELETE FROM post_transaction WHERE folio_no LIKE 'F-FILL%'");
+        }
+
+        // Then
+        assertThat(written).isNotEmpty();
+        assertThat(guestSearchIndex.searchIds("saunders", Kind.RESERVATION, null, 5000))
+                .containsExactlyInAnyOrderElementsOf(written);
+    }
+
+    private Reservation reservation(String guestName, String contactNo) {
+        ReservationDTO reservation = new ReservationDTO();
+        reservation.setGuestName(guestName);
+        reservation.setContactNo(contactNo);
+        reservation.setFromDate(LocalDate.now());
+        reservation.setToDate(LocalDate.now().plusDays(3));
+        reservation.setTotalPax(1);
+        reservation.setNoOfRooms(1);
+        return reservationService.createReservation(reservation);
+    }
+
+    private static PostTransactionDTO posting(String accHead, String narration) {
+        PostTransactionDTO posting = new PostTransactionDTO();
+        posting.setAmount(new BigDecimal("25.00"));
+        posting.setTransDate(LocalDate.now());
+        posting.setAccHead(accHead);
+        posting.setNarration(narration);
+        posting.setFolioNo("F-SEARCH");
+        return posting;
+    }
+
+    private static List<String> guestNames(List<Reservation> reservations) {
+        return reservations.stream().map(Reservation::getGuestName).toList();
+    }
+
+    private static List<Long> ids(List<PostTransaction> transactions) {
+        return transactions.stream().map(PostTransaction::getId).toList();
+    }
+}
@@ -0,0 +1,244 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.HousekeepingDTO;
+import com.hotel.erp.dto.HousekeepingPlanDTO;
+import com.hotel.erp.dto.HousekeepingPlanDTO.RoomPlan;
+import com.hotel.erp.dto.HousekeepingPlanDTO.StaffPlan;
+import com.hotel.erp.dto.HousekeepingPlanRequestDTO;
+import com.hotel.erp.entity.Checkin;
+import com.hotel.erp.entity.Housekeeping;
+import com.hotel.erp.entity.Room;
+import com.hotel.erp.repository.CheckinRepository;
+import com.hotel.erp.repository.HousekeepingRepository;
+import com.hotel.erp.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HousekeepingAssignmentServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final double PLAN_BUDGET_MILLIS = 25.0;
+
+    private final List<Room> rooms = new ArrayList<>();
+    private final List<Checkin> stays = new ArrayList<>();
+    private final List<Housekeeping> tasks = new ArrayList<>();
+    private final Map<String, Long> createdTaskIds = new HashMap<>();
+
+    private HousekeepingService housekeepingService;
+    private HousekeepingAssignmentService assignmentService;
+
+    @BeforeEach
+    public void setUp() {
+        RoomRepository roomRepository = mock(RoomRepository.class);
+        when(roomRepository.findAll()).thenReturn(rooms);
+        CheckinRepository checkinRepository = mock(CheckinRepository.class);
+        when(checkinRepository.findStaysOccupyingOn(any())).thenReturn(stays);
+        HousekeepingRepository housekeepingRepository = mock(HousekeepingRepository.class);
+        when(housekeepingRepository.findByStatusInAndTaskDateLessThanEqual(any(), any())).thenReturn(tasks);
+
+        housekeepingService = mock(HousekeepingService.class);
+        when(housekeepingService.createTask(any())).thenAnswer(invocation -> {
+            HousekeepingDTO dto = invocation.getArgument(0);
+            Housekeeping task = new Housekeeping();
+            task.setId(1000L + createdTaskIds.size());
+            task.setRoomNo(dto.getRoomNo());
+            createdTaskIds.put(dto.getRoomNo(), task.getId());
+            task.setStatus(dto.getStatus());
+            return task;
+        });
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        assignmentService = new HousekeepingAssignmentService(housekeepingRepository, checkinRepository,
+                roomRepository, housekeepingService, transactionManager, 2, 1, 1, 1);
+    }
+
+    @Test
+    public void shouldBalanceCreditsAcrossTheAttendants() {
+        // Given: 5 floors of 20 rooms, every third one a departure
+        for (int floor = 1; floor <= 5; floor++) {
+            for (int number = 1; number <= 20; number++) {
+                stay(floor, floor * 100 + number, number % 3 == 0);
+            }
+        }
+
+        // When
+        HousekeepingPlanDTO plan = assignmentService.plan(request(false, "Ann", "Bob", "Cara", "Dev"));
+
+        // Then: 130 credits, each attendant within one departure of the others
+        assertThat(plan.getRooms()).isEqualTo(100);
+        assertThat(plan.getTotalCredits()).isEqualTo(130.0);
+        assertThat(plan.getTasksCreated()).isEqualTo(100);
+        List<Double> credits = plan.getStaff().stream().map(StaffPlan::getCredits).toList();
+        assertThat(credits.stream().mapToDouble(Double::doubleValue).max().getAsDouble()
+                - credits.stream().mapToDouble(Double::doubleValue).min().getAsDouble()).isLessThanOrEqualTo(2.0);
+        assertThat(plan.getStaff()).flatExtracting(StaffPlan::getRooms).hasSize(100);
+        verify(housekeepingService, never()).createTask(any());
+        verify(housekeepingService, never()).assignTask(anyLong(), anyString());
+    }
+
+    @Test
+    public void shouldGiveEachAttendantOneStretchOfFloors() {
+        // Given
+        for (int floor = 1; floor <= 5; floor++) {
+            for (int number = 1; number <= 20; number++) {
+                stay(floor, floor * 100 + number, number % 3 == 0);
+            }
+        }
+
+        // When
+        HousekeepingPlanDTO plan = assignmentService.plan(request(false, "Ann", "Bob", "Cara", "Dev"));
+
+        // Then: floors are contiguous per attendant and only split where one run ends and the next begins
+        int floorsWorked = 0;
+        for (StaffPlan staff : plan.getStaff()) {
+            List<Integer> floors = staff.getFloors();
+            assertThat(floors.get(floors.size() - 1) - floors.get(0) + 1).isEqualTo(floors.size());
+            assertThat(staff.getRooms()).extracting(RoomPlan::getFloor).isSortedAccordingTo(Integer::compare);
+            floorsWorked += floors.size();
+        }
+        assertThat(floorsWorked).isLessThanOrEqualTo(5 + 4 - 1);
+
+        // And when there is a floor's worth of work per attendant, each works one floor
+        stays.clear();
+        rooms.clear();
+        for (int floor = 1; floor <= 4; floor++) {
+            for (int number = 1; number <= 10; number++) {
+                stay(floor, floor * 100 + number, false);
+            }
+        }
+        HousekeepingPlanDTO even = assignmentService.plan(request(false, "Ann", "Bob", "Cara", "Dev"));
+        assertThat(even.getStaff()).extracting(StaffPlan::getFloors)
+                .containsExactly(List.of(1), List.of(2), List.of(3), List.of(4));
+    }
+
+    @Test
+    public void shouldPlaceOnlyNewRoomsInAnIncrementalPlan() {
+        // Given: Ann works floor 1, Bob floor 2 and Cara, now off duty, one room on floor 3
+        for (int roomNo = 101; roomNo <= 104; roomNo++) {
+            task(stay(1, roomNo, false), "Ann", "Pending");
+        }
+        for (int roomNo = 201; roomNo <= 203; roomNo++) {
+            task(stay(2, roomNo, false), "Bob", roomNo == 201 ? "In Progress" : "Pending");
+        }
+        Housekeeping caras = task(stay(3, 301, false), "Cara", "Pending");
+        // a late checkout on floor 2 and a newly dirty room on floor 1
+        stay(2, 204, true);
+        stay(1, 105, false);
+
+        // When
+        HousekeepingPlanRequestDTO request = request(true, "Ann", "Bob");
+        request.setDryRun(false);
+        HousekeepingPlanDTO plan = assignmentService.plan(request);
+
+        // Then: existing rooms stay put, 204 goes to Bob on its floor, 105 to Ann on hers,
+        // and Cara's room to whoever it costs least
+        assertThat(roomsOf(plan, "Ann")).containsExactly("101", "102", "103", "104", "105");
+        assertThat(roomsOf(plan, "Bob")).containsExactly("201", "202", "203", "204", "301");
+        assertThat(plan.getStaff()).extracting(StaffPlan::getCredits).containsExactly(5.0, 6.0);
+        assertThat(plan.getTasksCreated()).isEqualTo(2);
+        assertThat(plan.getTasksReassigned()).isEqualTo(3);
+        verify(housekeepingService).assignTask(caras.getId(), "Bob");
+        verify(housekeepingService).assignTask(createdTaskIds.get("204"), "Bob");
+        verify(housekeepingService).assignTask(createdTaskIds.get("105"), "Ann");
+        for (Housekeeping task : tasks) {
+            if (task != caras) {
+                verify(housekeepingService, never()).assignTask(task.getId(), "Ann");
+                verify(housekeepingService, never()).assignTask(task.getId(), "Bob");
+            }
+        }
+    }
+
+    @Test
+    public void shouldPlanAFullHotelWithinMilliseconds() {
+        // Given: 400 rooms over 20 floors, half of them assigned from an earlier plan
+        for (int floor = 1; floor <= 20; floor++) {
+            for (int number = 1; number <= 20; number++) {
+                Room room = stay(floor, floor * 100 + number, number % 2 == 0);
+                if (number <= 10) {
+                    task(room, "Staff " + (floor % 12), "Pending");
+                }
+            }
+        }
+        String[] staff = new String[12];
+        for (int i = 0; i < staff.length; i++) {
+            staff[i] = "Staff " + i;
+        }
+
+        // When: the best of a few runs of each kind, once the code is warm
+        long bestFull = Long.MAX_VALUE;
+        long bestIncremental = Long.MAX_VALUE;
+        for (int run = 0; run < 30; run++) {
+            long started = System.nanoTime();
+            HousekeepingPlanDTO full = assignmentService.plan(request(false, staff));
+            long planned = System.nanoTime();
+            HousekeepingPlanDTO incremental = assignmentService.plan(request(true, staff));
+            bestFull = Math.min(bestFull, planned - started);
+            bestIncremental = Math.min(bestIncremental, System.nanoTime() - planned);
+            assertThat(full.getRooms()).isEqualTo(400);
+            assertThat(incremental.getRooms()).isEqualTo(400);
+        }
+
+        // Then: a generous budget, to stay clear of a busy build machine
+        assertThat(bestFull / 1_000_000.0).isLessThan(PLAN_BUDGET_MILLIS);
+        assertThat(bestIncremental / 1_000_000.0).isLessThan(PLAN_BUDGET_MILLIS);
+    }
+
+    private Room stay(int floor, int roomNo, boolean departure) {
+        Room room = new Room();
+        room.setRoomNo(String.valueOf(roomNo));
+        room.setFloor(floor);
+        rooms.add(room);
+
+        Checkin checkin = new Checkin();
+        checkin.setRoomNo(room.getRoomNo());
+        checkin.setCheckInDate(TODAY.minusDays(2));
+        checkin.setCheckOutDate(departure ? TODAY : TODAY.plusDays(1));
+        stays.add(checkin);
+        return room;
+    }
+
+    private Housekeeping task(Room room, String assignedTo, String status) {
+        Housekeeping task = new Housekeeping();
+        task.setId(10_000L + tasks.size());
+        task.setRoomNo(room.getRoomNo());
+        task.setAssignedTo(assignedTo);
+        task.setStatus(status);
+        task.setTaskDate(TODAY);
+        tasks.add(task);
+        return task;
+    }
+
+    private static HousekeepingPlanRequestDTO request(boolean incremental, String... staff) {
+        HousekeepingPlanRequestDTO request = new HousekeepingPlanRequestDTO();
+        request.setStaff(List.of(staff));
+        request.setDate(TODAY);
+        request.setIncremental(incremental);
+        request.setDryRun(true);
+        return request;
+    }
+
+    private static List<String> roomsOf(HousekeepingPlanDTO plan, String staff) {
+        return plan.getStaff().stream().filter(staffPlan -> staffPlan.getStaff().equals(staff))
+                .flatMap(staffPlan -> staffPlan.getRooms().stream()).map(RoomPlan::getRoomNo)
+                .collect(Collectors.toList());
+    }
+}
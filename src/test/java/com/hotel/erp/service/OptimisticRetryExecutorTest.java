@@ -0,0 +1,98 @@
+package com.hotel.erp.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OptimisticRetryExecutorTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private PlatformTransactionManager transactionManager;
+    private OptimisticRetryExecutor retryExecutor;
+
+    @BeforeEach
+    public void setUp() {
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        retryExecutor = new OptimisticRetryExecutor(transactionManager, MAX_ATTEMPTS, 0);
+    }
+
+    @Test
+    public void shouldRetryAConflictInAFreshTransaction() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retryExecutor.execute("checkout", () -> {
+            if (attempts.incrementAndGet() < MAX_ATTEMPTS) {
+                throw new ObjectOptimisticLockingFailureException("Checkin", 1L);
+            }
+            return "done";
+        });
+
+        assertThat(result).isEqualTo("done");
+        assertThat(attempts).hasValue(MAX_ATTEMPTS);
+        verify(transactionManager, times(MAX_ATTEMPTS)).getTransaction(any());
+        verify(transactionManager, times(MAX_ATTEMPTS - 1)).rollback(any());
+        assertThat(retryExecutor.getMetrics().get("checkout"))
+                .containsEntry("calls", 1L)
+                .containsEntry("conflicts", 2L)
+                .containsEntry("retried", 1L)
+                .containsEntry("exhausted", 0L);
+    }
+
+    @Test
+    public void shouldAnswerConflictWhenEveryAttemptConflicts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> retryExecutor.execute("settlement", () -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("FoBill", 1L);
+        }))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+
+        assertThat(attempts).hasValue(MAX_ATTEMPTS);
+        assertThat(retryExecutor.getMetrics().get("settlement"))
+                .containsEntry("conflicts", (long) MAX_ATTEMPTS)
+                .containsEntry("exhausted", 1L);
+    }
+
+    @Test
+    public void shouldNotRetryOtherFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> retryExecutor.execute("room update", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("Room not found");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(attempts).hasValue(1);
+        assertThat(retryExecutor.getMetrics().get("room update")).containsEntry("conflicts", 0L);
+    }
+
+    @Test
+    public void shouldRejectAStaleVersionWithoutRetrying() {
+        retryExecutor.checkVersion("room update", null, 4L);
+        retryExecutor.checkVersion("room update", 4L, 4L);
+
+        assertThatThrownBy(() -> retryExecutor.checkVersion("room update", 3L, 4L))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        assertThat(retryExecutor.getMetrics().get("room update")).containsEntry("stale", 1L);
+    }
+}
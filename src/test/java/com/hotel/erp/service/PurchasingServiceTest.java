@@ -0,0 +1,299 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.GoodsReceiptDTO;
+import com.hotel.erp.dto.PurchaseOrderDetailDTO;
+import com.hotel.erp.dto.PurchaseOrderRequestDTO;
+import com.hotel.erp.dto.PurchaseRequisitionDTO;
+import com.hotel.erp.entity.GoodsReceiptLine;
+import com.hotel.erp.entity.Inventory;
+import com.hotel.erp.entity.PurchaseOrder;
+import com.hotel.erp.entity.PurchaseOrderLine;
+import com.hotel.erp.entity.PurchaseRequisition;
+import com.hotel.erp.entity.StockMovement;
+import com.hotel.erp.entity.SupplierPerformance;
+import com.hotel.erp.entity.Vendor;
+import com.hotel.erp.repository.GoodsReceiptRepository;
+import com.hotel.erp.repository.InventoryRepository;
+import com.hotel.erp.repository.PurchaseRequisitionRepository;
+import com.hotel.erp.repository.StockMovementRepository;
+import com.hotel.erp.repository.SupplierPerformanceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = { "spring.jpa.hibernate.ddl-auto=create-drop", "spring.jpa.show-sql=false" })
+@AutoConfigureTestDatabase
+public class PurchasingServiceTest {
+
+    private static final AtomicInteger NAMES = new AtomicInteger();
+
+    @Autowired
+    private PurchasingService purchasingService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private GoodsReceiptRepository receiptRepository;
+
+    @Autowired
+    private PurchaseRequisitionRepository requisitionRepository;
+
+    @Autowired
+    private SupplierPerformanceRepository performanceRepository;
+
+    @Test
+    public void shouldMoveFromOrderedThroughPartiallyReceivedToReceived() {
+        // Given
+        Vendor vendor = supplier();
+        Inventory soap = item("10.00");
+        Inventory towel = item("4.00");
+        PurchaseOrderDetailDTO order = order(vendor, line(soap, 10, null), line(towel, 5, null));
+        PurchaseOrderLine soapLine = order.getLines().get(0);
+        PurchaseOrderLine towelLine = order.getLines().get(1);
+
+        // When: part of the soap arrives
+        PurchaseOrderDetailDTO partial = purchasingService.receive(order.getOrder().getId(),
+                receipt(Map.of(soapLine.getId(), 4)));
+
+        // Then
+        assertThat(partial.getOrder().getStatus()).isEqualTo(PurchaseOrder.Status.PARTIALLY_RECEIVED);
+        assertThat(partial.getLines()).extracting(PurchaseOrderLine::getReceivedQuantity)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("4"), BigDecimal.ZERO);
+        assertThat(stockOf(soap)).isEqualByComparingTo("4");
+        assertThatThrownBy(() -> purchasingService.updateStatus(order.getOrder().getId(),
+                PurchaseOrder.Status.CANCELLED, 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cannot go from PARTIALLY_RECEIVED to CANCELLED");
+
+        // When: everything outstanding arrives
+        PurchaseOrderDetailDTO full = purchasingService.receive(order.getOrder().getId(), receipt(Map.of()));
+
+        // Then
+        assertThat(full.getOrder().getStatus()).isEqualTo(PurchaseOrder.Status.RECEIVED);
+        assertThat(full.getOrder().getReceivedAmount()).isEqualByComparingTo("120.00");
+        assertThat(full.getReceipts()).hasSize(2);
+        assertThat(full.getLines()).allSatisfy(line -> assertThat(line.getOutstandingQuantity()).isZero());
+        assertThat(stockOf(soap)).isEqualByComparingTo("10");
+        assertThat(stockOf(towel)).isEqualByComparingTo("5");
+        assertThatThrownBy(() -> purchasingService.receive(order.getOrder().getId(), receipt(Map.of())))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("only ORDERED or PARTIALLY_RECEIVED orders can be received");
+    }
+
+    @Test
+    public void shouldRejectAnOverReceiptAndPostNothing() {
+        // Given
+        Vendor vendor = supplier();
+        Inventory soap = item("10.00");
+        Inventory towel = item("4.00");
+        PurchaseOrderDetailDTO order = order(vendor, line(soap, 10, null), line(towel, 5, null));
+        Long orderId = order.getOrder().getId();
+        purchasingService.receive(orderId, receipt(Map.of(order.getLines().get(1).getId(), 2)));
+        long movementsBefore = stockMovementRepository.count();
+
+        // When / Then: the soap fits, but only 3 towels are outstanding
+        assertThatThrownBy(() -> purchasingService.receive(orderId,
+                receipt(Map.of(order.getLines().get(0).getId(), 10, order.getLines().get(1).getId(), 4))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Only 3 of " + towel.getItemCode() + " is outstanding");
+
+        assertThat(stockMovementRepository.count()).isEqualTo(movementsBefore);
+        assertThat(receiptRepository.findByPurchaseOrderIdOrderById(orderId)).hasSize(1);
+        assertThat(stockOf(soap)).isEqualByComparingTo("0");
+        assertThat(stockOf(towel)).isEqualByComparingTo("2");
+        PurchaseOrderDetailDTO after = purchasingService.getPurchaseOrder(orderId);
+        assertThat(after.getOrder().getStatus()).isEqualTo(PurchaseOrder.Status.PARTIALLY_RECEIVED);
+        assertThat(after.getLines().get(1).getReceivedQuantity()).isEqualByComparingTo("2");
+    }
+
+    @Test
+    public void shouldPostStockAtTheOrderPriceAndLinkItToTheReceiptLines() {
+        // Given: the soap is ordered above its standard cost
+        Vendor vendor = supplier();
+        Inventory soap = item("10.00");
+        Inventory towel = item("4.00");
+        PurchaseOrderDetailDTO order = order(vendor, line(soap, 6, "12.50"), line(towel, 3, null));
+
+        // When
+        PurchaseOrderDetailDTO received = purchasingService.receive(order.getOrder().getId(), receipt(Map.of()));
+
+        // Then
+        String receiptNo = received.getReceipts().get(0).getReceiptNo();
+        assertThat(received.getReceipts().get(0).getTotalAmount()).isEqualByComparingTo("87.00");
+        List<GoodsReceiptLine> receiptLines = received.getReceiptLines();
+        assertThat(receiptLines).hasSize(2);
+        Map<Long, StockMovement> movements = stockMovementRepository
+                .findAllById(receiptLines.stream().map(GoodsReceiptLine::getStockMovementId).toList()).stream()
+                .collect(Collectors.toMap(StockMovement::getId, Function.identity()));
+        assertThat(movements).hasSize(2);
+        for (GoodsReceiptLine receiptLine : receiptLines) {
+            StockMovement movement = movements.get(receiptLine.getStockMovementId());
+            assertThat(movement.getItemCode()).isEqualTo(receiptLine.getItemCode());
+            assertThat(movement.getMovementType()).isEqualTo(StockMovement.Type.RECEIVE);
+            assertThat(movement.getQuantity()).isEqualByComparingTo(receiptLine.getQuantity());
+            assertThat(movement.getUnitCost()).isEqualByComparingTo(receiptLine.getUnitPrice());
+            assertThat(movement.getReferenceType()).isEqualTo("GRN");
+            assertThat(movement.getReferenceNo()).isEqualTo(receiptNo);
+        }
+        assertThat(movements.get(receiptLines.get(0).getStockMovementId()).getUnitCost())
+                .isEqualByComparingTo("12.50");
+        assertThat(movements.get(receiptLines.get(1).getStockMovementId()).getUnitCost())
+                .isEqualByComparingTo("4.00");
+        SupplierPerformance performance = performanceRepository.findById(vendor.getId()).get();
+        assertThat(performance.getStandardAmount()).isEqualByComparingTo("72.00");
+        assertThat(performance.getPriceVariance()).isEqualByComparingTo("15.00");
+    }
+
+    @Test
+    public void shouldReleaseTheRequisitionsOfACancelledOrder() {
+        // Given
+        Vendor vendor = supplier();
+        Inventory soap = item("10.00");
+        PurchaseRequisition requisition = approvedRequisition(soap, 8);
+        PurchaseOrderRequestDTO request = new PurchaseOrderRequestDTO();
+        request.setVendorId(vendor.getId());
+        request.setRequisitionIds(List.of(requisition.getId()));
+        PurchaseOrderDetailDTO order = purchasingService.createPurchaseOrder(request);
+        Long orderId = order.getOrder().getId();
+        PurchaseRequisition ordered = requisitionRepository.findById(requisition.getId()).get();
+        assertThat(ordered.getStatus()).isEqualTo(PurchaseRequisition.Status.ORDERED);
+        assertThat(ordered.getPurchaseOrderId()).isEqualTo(orderId);
+        assertThat(order.getOrder().getDepartment()).isEqualTo("HOUSEKEEPING");
+        assertThat(order.getLines().get(0).getRequisitionId()).isEqualTo(requisition.getId());
+
+        // When
+        PurchaseOrder cancelled = purchasingService.updateStatus(orderId, PurchaseOrder.Status.CANCELLED, 1);
+
+        // Then
+        assertThat(cancelled.getStatus()).isEqualTo(PurchaseOrder.Status.CANCELLED);
+        PurchaseRequisition released = requisitionRepository.findById(requisition.getId()).get();
+        assertThat(released.getStatus()).isEqualTo(PurchaseRequisition.Status.APPROVED);
+        assertThat(released.getPurchaseOrderId()).isNull();
+        assertThatThrownBy(() -> purchasingService.updateStatus(orderId, PurchaseOrder.Status.APPROVED, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        // and the released requisition can go on another order
+        request.setVendorId(supplier().getId());
+        assertThat(purchasingService.createPurchaseOrder(request).getLines()).hasSize(1);
+    }
+
+    @Test
+    public void shouldSeedSupplierPerformanceOnceAndAddToItAfterwards() {
+        // Given
+        Vendor vendor = supplier();
+        Inventory soap = item("10.00");
+        assertThat(performanceRepository.findById(vendor.getId())).isEmpty();
+
+        // When: the first order is placed
+        PurchaseOrderDetailDTO first = order(vendor, line(soap, 5, null));
+
+        // Then: the row is seeded
+        SupplierPerformance seeded = performanceRepository.findById(vendor.getId()).get();
+        assertThat(seeded.getVendorName()).isEqualTo(vendor.getVendorName());
+        assertThat(seeded.getOrdersPlaced()).isEqualTo(1L);
+        assertThat(seeded.getReceipts()).isZero();
+
+        // When: it is received, and a second order is placed
+        purchasingService.receive(first.getOrder().getId(), receipt(Map.of()));
+        order(vendor, line(soap, 2, null));
+
+        // Then: the same row has been added to
+        assertThat(performanceRepository.findAll())
+                .filteredOn(performance -> performance.getVendorId().equals(vendor.getId())).hasSize(1);
+        SupplierPerformance performance = performanceRepository.findById(vendor.getId()).get();
+        assertThat(performance.getOrdersPlaced()).isEqualTo(2L);
+        assertThat(performance.getReceipts()).isEqualTo(1L);
+        assertThat(performance.getOnTimeReceipts()).isEqualTo(1L);
+        assertThat(performance.getTotalSpend()).isEqualByComparingTo("50.00");
+        assertThat(performance.getClosedOrders()).isEqualTo(1L);
+        assertThat(performance.getClosedOrderedQuantity()).isEqualByComparingTo("5");
+        assertThat(performance.getClosedReceivedQuantity()).isEqualByComparingTo("5");
+        assertThat(performance.getLastReceiptDate()).isEqualTo(LocalDate.now());
+    }
+
+    private Vendor supplier() {
+        Vendor vendor = new Vendor();
+        vendor.setVendorName("Supplier " + NAMES.incrementAndGet());
+        vendor.setCategory("HOUSEKEEPING");
+        vendor.setStatus("ACTIVE");
+        return purchasingService.createSupplier(vendor);
+    }
+
+    private Inventory item(String unitCost) {
+        Inventory item = new Inventory();
+        item.setItemCode("PUR-" + NAMES.incrementAndGet());
+        item.setItemName(item.getItemCode());
+        item.setCategory("HOUSEKEEPING");
+        item.setUnitOfMeasure("PCS");
+        item.setLocation("S1");
+        item.setCreatedBy(1L);
+        item.setAuditDate(LocalDate.now());
+        item.setUnitCost(new BigDecimal(unitCost));
+        item.setMaximumStock(new BigDecimal("1000"));
+        return inventoryRepository.save(item);
+    }
+
+    private PurchaseRequisition approvedRequisition(Inventory item, int quantity) {
+        PurchaseRequisitionDTO dto = new PurchaseRequisitionDTO();
+        dto.setDepartment("HOUSEKEEPING");
+        dto.setItemCode(item.getItemCode());
+        dto.setQuantity(BigDecimal.valueOf(quantity));
+        PurchaseRequisition requisition = purchasingService.createRequisition(dto);
+        return purchasingService.setRequisitionStatus(requisition.getId(), PurchaseRequisition.Status.APPROVED);
+    }
+
+    private static PurchaseOrderRequestDTO.Line line(Inventory item, int quantity, String unitPrice) {
+        PurchaseOrderRequestDTO.Line line = new PurchaseOrderRequestDTO.Line();
+        line.setItemCode(item.getItemCode());
+        line.setQuantity(BigDecimal.valueOf(quantity));
+        line.setUnitPrice(unitPrice != null ? new BigDecimal(unitPrice) : null);
+        return line;
+    }
+
+    /**
+     * Raise an order and take it through approval to ORDERED
+     */
+    private PurchaseOrderDetailDTO order(Vendor vendor, PurchaseOrderRequestDTO.Line... lines) {
+        PurchaseOrderRequestDTO request = new PurchaseOrderRequestDTO();
+        request.setVendorId(vendor.getId());
+        request.setExpectedDelivery(LocalDate.now().plusDays(3));
+        request.setLines(List.of(lines));
+        Long orderId = purchasingService.createPurchaseOrder(request).getOrder().getId();
+        purchasingService.updateStatus(orderId, PurchaseOrder.Status.APPROVED, 1);
+        purchasingService.updateStatus(orderId, PurchaseOrder.Status.ORDERED, 1);
+        return purchasingService.getPurchaseOrder(orderId);
+    }
+
+    private static GoodsReceiptDTO receipt(Map<Long, Integer> quantities) {
+        GoodsReceiptDTO receipt = new GoodsReceiptDTO();
+        receipt.setReceivedBy("Stores");
+        quantities.forEach((lineId, quantity) -> {
+            GoodsReceiptDTO.Line line = new GoodsReceiptDTO.Line();
+            line.setPurchaseOrderLineId(lineId);
+            line.setQuantity(BigDecimal.valueOf(quantity));
+            receipt.getLines().add(line);
+        });
+        return receipt;
+    }
+
+    private BigDecimal stockOf(Inventory item) {
+        return inventoryRepository.findByItemCode(item.getItemCode()).get().getCurrentStock();
+    }
+}
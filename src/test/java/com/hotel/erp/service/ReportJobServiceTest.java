@@ -0,0 +1,78 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.GroupTotalDTO;
+import com.hotel.erp.dto.ReportJobDTO;
+import com.hotel.erp.repository.DailyRevenueRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReportJobServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 1);
+
+    @Mock
+    private DailyRevenueRepository dailyRevenueRepository;
+
+    @InjectMocks
+    private ReportService reportService;
+
+    private ReportJobService reportJobService;
+
+    @BeforeEach
+    public void setUp() {
+        reportJobService = new ReportJobService(reportService, new SyncTaskExecutor(), Duration.ofMinutes(5));
+    }
+
+    @Test
+    public void shouldFailTheJobWhenTheReportCannotBeRead() {
+        // Given
+        when(dailyRevenueRepository.sumByLedger(any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        // When
+        ReportJobDTO job = reportJobService.submit("daily-summary", Map.of("date", DAY.toString()));
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo("FAILED");
+        assertThat(job.getError()).isEqualTo("Connection refused");
+        assertThat(reportJobService.getResult(job.getJobId())).isEmpty();
+    }
+
+    @Test
+    public void shouldRunTheReportAgainAfterAFailedJob() {
+        // Given
+        when(dailyRevenueRepository.sumByLedger(any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"))
+                .thenReturn(List.of(new GroupTotalDTO("BILLED", new BigDecimal("250.00"), 2L)));
+        ReportJobDTO failed = reportJobService.submit("daily-summary", Map.of("date", DAY.toString()));
+
+        // When
+        ReportJobDTO retried = reportJobService.submit("daily-summary", Map.of("date", DAY.toString()));
+
+        // Then
+        assertThat(failed.getStatus()).isEqualTo("FAILED");
+        assertThat(retried.getJobId()).isNotEqualTo(failed.getJobId());
+        assertThat(retried.getStatus()).isEqualTo("COMPLETED");
+        assertThat(reportJobService.getResult(retried.getJobId())).get()
+                .asInstanceOf(MAP)
+                .containsEntry("billCount", 2L);
+    }
+}
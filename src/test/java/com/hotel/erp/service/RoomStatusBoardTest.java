@@ -0,0 +1,194 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.controller.RoomController;
+import com.hotel.erp.dto.RoomBoardDTO;
+import com.hotel.erp.entity.Checkin;
+import com.hotel.erp.entity.Room;
+import com.hotel.erp.entity.Room.RoomStatus;
+import com.hotel.erp.repository.CheckinRepository;
+import com.hotel.erp.repository.HousekeepingRepository;
+import com.hotel.erp.repository.RoomRepository;
+import com.hotel.erp.repository.RoomTypeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+public class RoomStatusBoardTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final List<Checkin> activeCheckins = new ArrayList<>();
+
+    private CheckinRepository checkinRepository;
+    private RoomStatusBoard board;
+
+    @BeforeEach
+    public void setUp() {
+        RoomRepository roomRepository = mock(RoomRepository.class);
+        when(roomRepository.findAll()).thenReturn(List.of(room(1, "101"), room(2, "102")));
+        RoomTypeRepository roomTypeRepository = mock(RoomTypeRepository.class);
+        when(roomTypeRepository.findAll()).thenReturn(List.of());
+        checkinRepository = mock(CheckinRepository.class);
+        when(checkinRepository.findAllActiveCheckins()).thenAnswer(invocation -> new ArrayList<>(activeCheckins));
+        HousekeepingRepository housekeepingRepository = mock(HousekeepingRepository.class);
+        when(housekeepingRepository.findLatestPerRoom()).thenReturn(List.of());
+
+        board = new RoomStatusBoard(roomRepository, roomTypeRepository, checkinRepository, housekeepingRepository,
+                60_000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        board.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void shouldShowACommittedCheckinAndCheckoutOnTheBoardAndTheStream() throws Exception {
+        // Given
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new RoomController(mock(RoomService.class), board)).build();
+        MvcResult stream = mockMvc.perform(get("/api/admin/rooms/board/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitStream(stream, "event:snapshot");
+        Checkin checkin = checkin(7L, "101,102", "CHECKED_IN", "Asha Rao");
+
+        // When: checked in, but not yet committed
+        List<TransactionSynchronization> checkedIn = inTransaction(() -> board.checkinSaved(checkin));
+
+        // Then
+        assertThat(tile("101").getGuestName()).isNull();
+
+        // When
+        checkedIn.forEach(TransactionSynchronization::afterCommit);
+
+        // Then
+        assertThat(tile("101").getCheckinId()).isEqualTo(7L);
+        assertThat(tile("102").getGuestName()).isEqualTo("Asha Rao");
+        assertThat(tile("102").getSequence()).isEqualTo(3L);
+        assertThat(board.getSnapshot()).containsEntry("sequence", 3L);
+        awaitStream(stream, "id:3\nevent:room\ndata:{\"roomId\":2,\"roomNo\":\"102\"");
+        assertThat(stream.getResponse().getContentAsString()).contains("\"guestName\":\"Asha Rao\"");
+
+        // When: checked out
+        checkin.setStatus("CHECKED_OUT");
+        inTransaction(() -> board.checkinSaved(checkin)).forEach(TransactionSynchronization::afterCommit);
+
+        // Then: both rooms vacated
+        assertThat(tile("101").isOccupied()).isFalse();
+        assertThat(tile("102").isOccupied()).isFalse();
+        assertThat(tile("102").getFolioNo()).isNull();
+        assertThat(board.getSnapshot()).containsEntry("sequence", 5L);
+        awaitStream(stream, "id:5\nevent:room\ndata:{\"roomId\":2,\"roomNo\":\"102\"");
+    }
+
+    @Test
+    public void shouldLeaveTheBoardAsItWasWhenTheCheckinRollsBack() {
+        // Given
+        Map<String, Object> before = board.getSnapshot();
+
+        // When
+        List<TransactionSynchronization> rolledBack =
+                inTransaction(() -> board.checkinSaved(checkin(8L, "101", "CHECKED_IN", "Ben Ortiz")));
+        rolledBack.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Then
+        assertThat(board.getSnapshot()).isEqualTo(before).containsEntry("sequence", 1L);
+        assertThat(tile("101").isOccupied()).isFalse();
+    }
+
+    @Test
+    public void shouldReadAgainWhenACheckinCommitsWhileTheBoardIsBuilt() {
+        // Given: a checkin commits after the first build read the checkins
+        Checkin checkin = checkin(9L, "102", "CHECKED_IN", "Chen Wei");
+        AtomicInteger reads = new AtomicInteger();
+        when(checkinRepository.findAllActiveCheckins()).thenAnswer(invocation -> {
+            List<Checkin> current = new ArrayList<>(activeCheckins);
+            if (reads.incrementAndGet() == 1) {
+                activeCheckins.add(checkin);
+                inTransaction(() -> board.checkinSaved(checkin)).forEach(TransactionSynchronization::afterCommit);
+            }
+            return current;
+        });
+
+        // When
+        RoomBoardDTO tile = tile("102");
+
+        // Then
+        assertThat(tile.getGuestName()).isEqualTo("Chen Wei");
+        verify(checkinRepository, times(2)).findAllActiveCheckins();
+    }
+
+    @SuppressWarnings("unchecked")
+    private RoomBoardDTO tile(String roomNo) {
+        List<RoomBoardDTO> rooms = (List<RoomBoardDTO>) board.getSnapshot().get("rooms");
+        return rooms.stream().filter(tile -> tile.getRoomNo().equals(roomNo)).findFirst().orElseThrow();
+    }
+
+    private static void awaitStream(MvcResult stream, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!stream.getResponse().getContentAsString().contains(expected)) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("No \"" + expected + "\" in the stream: " + stream.getResponse().getContentAsString());
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static Room room(Integer id, String roomNo) {
+        Room room = new Room();
+        room.setId(id);
+        room.setRoomNo(roomNo);
+        room.setFloor(1);
+        room.setStatus(RoomStatus.VR);
+        return room;
+    }
+
+    private static Checkin checkin(Long id, String roomNo, String status, String guestName) {
+        Checkin checkin = new Checkin();
+        checkin.setId(id);
+        checkin.setRoomNo(roomNo);
+        checkin.setStatus(status);
+        checkin.setGuestName(guestName);
+        checkin.setFolioNo("F-BOARD-" + id);
+        checkin.setCheckInDate(TODAY);
+        checkin.setCheckOutDate(TODAY.plusDays(2));
+        return checkin;
+    }
+
+    /**
+     * Run work as if inside a transaction and hand back what it registered to
+     * run on completion
+     */
+    private static List<TransactionSynchronization> inTransaction(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.entity.SequenceCounter;
+import com.hotel.erp.repository.SequenceCounterRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SequenceAllocatorTest {
+
+    private static final int BLOCK_SIZE = 50;
+
+    private final Map<String, Long> highWaterMarks = new ConcurrentHashMap<>();
+    private final AtomicInteger storeRoundTrips = new AtomicInteger();
+
+    private SequenceAllocator sequenceAllocator;
+
+    @BeforeEach
+    public void setUp() {
+        SequenceCounterRepository repository = mock(SequenceCounterRepository.class);
+        when(repository.findForUpdate(any())).thenAnswer(invocation -> {
+            storeRoundTrips.incrementAndGet();
+            String key = invocation.getArgument(0);
+            Long mark = highWaterMarks.get(key);
+            if (mark == null) {
+                return Optional.empty();
+            }
+            SequenceCounter counter = new SequenceCounter();
+            counter.setSequenceKey(key);
+            counter.setHighWaterMark(mark);
+            return Optional.of(counter);
+        });
+        when(repository.save(any())).thenAnswer(invocation -> {
+            SequenceCounter counter = invocation.getArgument(0);
+            highWaterMarks.put(counter.getSequenceKey(), counter.getHighWaterMark());
+            return counter;
+        });
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        sequenceAllocator = new SequenceAllocator(repository, transactionManager, BLOCK_SIZE);
+    }
+
+    @Test
+    public void shouldStartAfterSeedAndContinueAcrossBlocks() {
+        AtomicInteger seedCalls = new AtomicInteger();
+
+        for (long expected = 8; expected < 8 + BLOCK_SIZE * 3; expected++) {
+            long value = sequenceAllocator.next("FOL/202501/", () -> {
+                seedCalls.incrementAndGet();
+                return 7;
+            });
+            assertThat(value).isEqualTo(expected);
+        }
+
+        assertThat(seedCalls).hasValue(1);
+        assertThat(storeRoundTrips).hasValue(3);
+    }
+
+    @Test
+    public void shouldKeepSequencesIndependentPerKey() {
+        assertThat(sequenceAllocator.next("FOL/202501/", () -> 0)).isEqualTo(1);
+        assertThat(sequenceAllocator.next("FOL/202502/", () -> 0)).isEqualTo(1);
+        assertThat(sequenceAllocator.next("FOL/202501/", () -> 0)).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldNotReuseNumbersAfterRestart() {
+        long beforeRestart = sequenceAllocator.next("FOL/202501/", () -> 0);
+
+        sequenceAllocator.reset();
+        long afterRestart = sequenceAllocator.next("FOL/202501/", () -> 0);
+
+        assertThat(afterRestart).isGreaterThan(beforeRestart);
+        assertThat(afterRestart).isEqualTo(BLOCK_SIZE + 1);
+    }
+
+    @Test
+    public void shouldNeverHandOutDuplicatesUnderContention() throws InterruptedException {
+        int threads = 16;
+        int perThread = 2_000;
+        Set<Long> issued = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    if (!issued.add(sequenceAllocator.next("FOL/202501/", () -> 0))) {
+                        duplicates.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        int total = threads * perThread;
+        assertThat(duplicates).hasValue(0);
+        assertThat(issued).hasSize(total);
+        // Numbers are dense: every value from 1 to total was handed out
+        assertThat(issued.stream().mapToLong(Long::longValue).max().getAsLong()).isEqualTo(total);
+        // Constant work per number: one store round trip per block, independent of volume
+        assertThat(storeRoundTrips).hasValue(total / BLOCK_SIZE);
+    }
+}
@@ -0,0 +1,197 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.StockMovementDTO;
+import com.hotel.erp.entity.Inventory;
+import com.hotel.erp.entity.StockMovement;
+import com.hotel.erp.repository.InventoryRepository;
+import com.hotel.erp.repository.StockMovementRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = { "spring.jpa.hibernate.ddl-auto=create-drop", "spring.jpa.show-sql=false" })
+@AutoConfigureTestDatabase
+public class StockLedgerServiceTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void shouldKeepEveryConcurrentIssue() throws Exception {
+        // Given
+        item("SOAP");
+        item("SHAMPOO");
+        stockLedgerService.post(movement("SOAP", StockMovement.Type.RECEIVE, 1000, BigDecimal.ONE));
+        stockLedgerService.post(movement("SHAMPOO", StockMovement.Type.RECEIVE, 1000, BigDecimal.ONE));
+        long rowsBefore = stockMovementRepository.count();
+
+        // When: half the threads take soap then shampoo, half the other way round
+        List<Throwable> failures = inParallel(thread -> {
+            for (int i = 0; i < 50; i++) {
+                String first = thread % 2 == 0 ? "SOAP" : "SHAMPOO";
+                String second = thread % 2 == 0 ? "SHAMPOO" : "SOAP";
+                stockLedgerService.postAll(List.of(movement(first, StockMovement.Type.ISSUE, 1, null),
+                        movement(second, StockMovement.Type.ISSUE, 1, null)));
+            }
+        });
+
+        // Then
+        assertThat(failures).isEmpty();
+        Inventory soap = inventoryRepository.findByItemCode("SOAP").get();
+        Inventory shampoo = inventoryRepository.findByItemCode("SHAMPOO").get();
+        assertThat(soap.getCurrentStock()).isEqualByComparingTo("600");
+        assertThat(soap.getTotalConsumed()).isEqualByComparingTo("400");
+        assertThat(shampoo.getCurrentStock()).isEqualByComparingTo("600");
+        assertThat(stockMovementRepository.count()).isEqualTo(rowsBefore + THREADS * 50 * 2);
+    }
+
+    @Test
+    public void shouldNeverIssueMoreThanIsOnHand() throws Exception {
+        // Given
+        item("TOWEL");
+        stockLedgerService.post(movement("TOWEL", StockMovement.Type.RECEIVE, 10, BigDecimal.ONE));
+        AtomicInteger issued = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        // When
+        List<Throwable> failures = inParallel(thread -> {
+            for (int i = 0; i < 5; i++) {
+                try {
+                    stockLedgerService.post(movement("TOWEL", StockMovement.Type.ISSUE, 1, null));
+                    issued.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    refused.incrementAndGet();
+                }
+            }
+        });
+
+        // Then
+        assertThat(failures).isEmpty();
+        assertThat(issued).hasValue(10);
+        assertThat(refused).hasValue(THREADS * 5 - 10);
+        assertThat(inventoryRepository.findByItemCode("TOWEL").get().getCurrentStock())
+                .isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    public void shouldApplyNoneOfAPostingWhenOneMovementFails() {
+        // Given
+        item("SLIPPERS");
+        item("COMB");
+        stockLedgerService.post(movement("SLIPPERS", StockMovement.Type.RECEIVE, 5, BigDecimal.ONE));
+        stockLedgerService.post(movement("COMB", StockMovement.Type.RECEIVE, 1, BigDecimal.ONE));
+
+        // When / Then
+        assertThatThrownBy(() -> stockLedgerService.postAll(List.of(
+                movement("SLIPPERS", StockMovement.Type.ISSUE, 2, null),
+                movement("COMB", StockMovement.Type.ISSUE, 3, null))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Not enough available stock of COMB");
+        assertThat(inventoryRepository.findByItemCode("SLIPPERS").get().getCurrentStock())
+                .isEqualByComparingTo("5");
+    }
+
+    @Test
+    public void shouldCountMissingAllocatedAndReservedQuantitiesAsZero() {
+        // Given: an item saved before these columns had defaults
+        Inventory item = item("BATHROBE");
+        jdbcTemplate.update("UPDATE inventory SET allocated_quantity = NULL, reserved_quantity = NULL, "
+                + "total_received = NULL, total_consumed = NULL WHERE id = ?", item.getId());
+
+        // When
+        stockLedgerService.post(movement("BATHROBE", StockMovement.Type.RECEIVE, 10, BigDecimal.ONE));
+        stockLedgerService.post(movement("BATHROBE", StockMovement.Type.ISSUE, 3, null));
+        stockLedgerService.post(movement("BATHROBE", StockMovement.Type.RESERVE, 2, null));
+
+        // Then
+        Inventory bathrobe = inventoryRepository.findByItemCode("BATHROBE").get();
+        assertThat(bathrobe.getCurrentStock()).isEqualByComparingTo("7");
+        assertThat(bathrobe.getReservedQuantity()).isEqualByComparingTo("2");
+        assertThat(bathrobe.getAvailableQuantity()).isEqualByComparingTo("5");
+        assertThat(bathrobe.getTotalReceived()).isEqualByComparingTo("10");
+        assertThat(bathrobe.getTotalConsumed()).isEqualByComparingTo("3");
+    }
+
+    private Inventory item(String code) {
+        Inventory item = new Inventory();
+        item.setItemCode(code);
+        item.setItemName(code);
+        item.setCategory("AMENITIES");
+        item.setUnitOfMeasure("PCS");
+        item.setLocation("S1");
+        item.setCreatedBy(1L);
+        item.setAuditDate(LocalDate.now());
+        item.setMinimumStock(BigDecimal.ONE);
+        item.setReorderLevel(BigDecimal.ONE);
+        item.setMaximumStock(new BigDecimal("5000"));
+        return inventoryRepository.save(item);
+    }
+
+    private static StockMovementDTO movement(String itemCode, StockMovement.Type type, int quantity,
+            BigDecimal unitCost) {
+        StockMovementDTO movement = new StockMovementDTO();
+        movement.setItemCode(itemCode);
+        movement.setMovementType(type);
+        movement.setQuantity(BigDecimal.valueOf(quantity));
+        movement.setUnitCost(unitCost);
+        return movement;
+    }
+
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+
+    /**
+     * Start the task on every thread at once and collect what escaped it
+     */
+    private static List<Throwable> inParallel(ThreadTask task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int number = thread;
+            futures.add(pool.submit(() -> {
+                barrier.await();
+                task.run(number);
+                return null;
+            }));
+        }
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        pool.shutdown();
+        return failures;
+    }
+}
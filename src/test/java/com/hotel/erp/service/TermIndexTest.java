@@ -0,0 +1,160 @@
+package com.hotel.erp.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TermIndexTest {
+
+    private static final int GUEST = 0;
+    private static final int POSTING = 1;
+
+    private static final int NAME = 0;
+    private static final int PHONE = 1;
+    private static final int FOLIO = 2;
+    private static final int TEXT = 3;
+
+    private static final int ALL_KINDS = 0b11;
+    private static final int ALL_FIELDS = 0b1111;
+
+    private TermIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        BitSet digitFields = new BitSet();
+        digitFields.set(PHONE);
+        index = new TermIndex(2, new float[] { 1.0f, 1.0f, 1.0f, 0.5f }, digitFields);
+    }
+
+    @Test
+    public void shouldMatchExactPrefixAndInfix() {
+        index.put(GUEST, 1, values("John Smith", "+91 98765-43210", "FO2501001", null));
+
+        float exact = scoreOf("smith");
+        float prefix = scoreOf("smi");
+        float infix = scoreOf("mit");
+
+        assertThat(exact).isEqualTo(1.0f);
+        assertThat(prefix).isGreaterThan(infix).isLessThan(exact);
+        assertThat(infix).isPositive();
+        // a phone number is one term of its digits, found from any part of it
+        assertThat(ids("43210")).containsExactly(1L);
+        assertThat(ids("9198765")).containsExactly(1L);
+        assertThat(ids("fo2501")).containsExactly(1L);
+        // every word of the query must match
+        assertThat(ids("john smith")).containsExactly(1L);
+        assertThat(ids("john jones")).isEmpty();
+    }
+
+    @Test
+    public void shouldMatchMisspeltWords() {
+        index.put(GUEST, 1, values("John Smith", null, null, null));
+        index.put(GUEST, 2, values("Katherine Wells", null, null, null));
+
+        assertThat(ids("jonh")).containsExactly(1L);
+        assertThat(ids("smtih")).containsExactly(1L);
+        assertThat(ids("katharine")).containsExactly(2L);
+        assertThat(ids("kathreine wlels")).containsExactly(2L);
+        assertThat(scoreOf("jonh")).isLessThan(scoreOf("joh"));
+    }
+
+    @Test
+    public void shouldNeverMatchTokensWithDigitsFuzzily() {
+        index.put(GUEST, 1, values("Ann Lee", "9876543210", "FO2501001", null));
+
+        assertThat(ids("fo2501002")).isEmpty();
+        assertThat(ids("9876543219")).isEmpty();
+        assertThat(ids("9876543201")).isEmpty();
+        assertThat(ids("fo2501001")).containsExactly(1L);
+    }
+
+    @Test
+    public void shouldRankByMatchAndFieldWeight() {
+        index.put(GUEST, 1, values("Smithson", null, null, null));
+        index.put(POSTING, 2, values(null, null, null, "smith laundry"));
+        index.put(GUEST, 3, values("Smith", null, null, null));
+        index.put(GUEST, 4, values("Blacksmith", null, null, null));
+
+        List<TermIndex.Hit> hits = index.search("smith", ALL_KINDS, ALL_FIELDS, 10);
+
+        // exact name, then prefix, then exact in the half-weight text, then infix
+        assertThat(hits).extracting(TermIndex.Hit::id).containsExactly(3L, 1L, 2L, 4L);
+        assertThat(index.search("smith", ALL_KINDS, ALL_FIELDS, 2)).extracting(TermIndex.Hit::id)
+                .containsExactly(3L, 1L);
+        assertThat(index.search("smith", 1 << POSTING, ALL_FIELDS, 10)).extracting(TermIndex.Hit::id)
+                .containsExactly(2L);
+        assertThat(index.search("smith", ALL_KINDS, 1 << TEXT, 10)).extracting(TermIndex.Hit::id)
+                .containsExactly(2L);
+    }
+
+    @Test
+    public void shouldRankNewerDocumentsFirstAmongEquals() {
+        index.put(GUEST, 7, values("Maria Garcia", null, null, null));
+        index.put(GUEST, 3, values("Maria Garcia", null, null, null));
+
+        assertThat(ids("garcia")).containsExactly(3L, 7L);
+    }
+
+    @Test
+    public void shouldReplaceAndRemoveDocuments() {
+        index.put(GUEST, 1, values("Alice Brown", null, null, null));
+        index.put(GUEST, 1, values("Alice Green", null, null, null));
+        index.put(POSTING, 1, values("Alice Green", null, null, null));
+
+        assertThat(ids("brown")).isEmpty();
+        assertThat(ids("green")).containsExactly(1L, 1L);
+        assertThat(index.size()).isEqualTo(2);
+
+        index.remove(GUEST, 1);
+        index.remove(GUEST, 1);
+
+        assertThat(index.search("green", ALL_KINDS, ALL_FIELDS, 10))
+                .containsExactly(new TermIndex.Hit(POSTING, 1, 1.0f));
+        assertThat(index.size()).isEqualTo(1);
+
+        index.put(GUEST, 1, values("Alice Green", null, null, null));
+        assertThat(ids("green")).hasSize(2);
+    }
+
+    @Test
+    public void shouldIgnoreTooShortQueries() {
+        index.put(GUEST, 1, values("A B Cole", null, null, null));
+
+        assertThat(ids("a")).isEmpty();
+        assertThat(ids("")).isEmpty();
+        assertThat(ids("a cole")).containsExactly(1L);
+    }
+
+    @Test
+    public void shouldCountOptimalStringAlignmentEdits() {
+        assertThat(TermIndex.editDistance("smith", "smith", 2)).isZero();
+        assertThat(TermIndex.editDistance("smith", "smtih", 2)).isEqualTo(1);
+        assertThat(TermIndex.editDistance("smith", "smyth", 2)).isEqualTo(1);
+        assertThat(TermIndex.editDistance("smith", "smiths", 2)).isEqualTo(1);
+        assertThat(TermIndex.editDistance("smith", "jones", 2)).isEqualTo(3);
+        assertThat(TermIndex.words("O'Brien, Room-101")).containsExactly("o", "brien", "room", "101");
+    }
+
+    private static String[] values(String name, String phone, String folio, String text) {
+        String[] values = new String[4];
+        values[NAME] = name;
+        values[PHONE] = phone;
+        values[FOLIO] = folio;
+        values[TEXT] = text;
+        return values;
+    }
+
+    private List<Long> ids(String query) {
+        return index.search(query, ALL_KINDS, ALL_FIELDS, 10).stream().map(TermIndex.Hit::id).toList();
+    }
+
+    private float scoreOf(String query) {
+        List<TermIndex.Hit> hits = index.search(query, ALL_KINDS, ALL_FIELDS, 10);
+        assertThat(hits).hasSize(1);
+        return hits.get(0).score();
+    }
+}
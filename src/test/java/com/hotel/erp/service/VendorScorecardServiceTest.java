@@ -0,0 +1,204 @@
+package com.hotel.erp.service;
+
+import com.hotel.erp.dto.VendorScorecardDTO;
+import com.hotel.erp.entity.SupplierPerformance;
+import com.hotel.erp.entity.Vendor;
+import com.hotel.erp.repository.SupplierPerformanceRepository;
+import com.hotel.erp.repository.VendorRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class VendorScorecardServiceTest {
+
+    private final Map<Long, Vendor> vendors = new HashMap<>();
+    private final Map<Long, SupplierPerformance> performance = new HashMap<>();
+
+    private VendorRepository vendorRepository;
+    private VendorScorecardService scorecardService;
+
+    @BeforeEach
+    public void setUp() {
+        vendorRepository = mock(VendorRepository.class);
+        when(vendorRepository.findAll()).thenAnswer(invocation -> new ArrayList<>(vendors.values()));
+        when(vendorRepository.findById(any())).thenAnswer(invocation ->
+                Optional.ofNullable(vendors.get(invocation.<Long>getArgument(0))));
+        when(vendorRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<Vendor> found = new ArrayList<>();
+            invocation.<Iterable<Long>>getArgument(0).forEach(id -> found.add(vendors.get(id)));
+            return found;
+        });
+
+        SupplierPerformanceRepository performanceRepository = mock(SupplierPerformanceRepository.class);
+        when(performanceRepository.findAll()).thenAnswer(invocation -> new ArrayList<>(performance.values()));
+        when(performanceRepository.findById(any())).thenAnswer(invocation ->
+                Optional.ofNullable(performance.get(invocation.<Long>getArgument(0))));
+
+        scorecardService = new VendorScorecardService(vendorRepository, performanceRepository);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void shouldScoreAVendorWithoutDeliveriesOnRatingAlone() {
+        vendor(1L, "ACTIVE", 4);
+
+        VendorScorecardDTO card = scorecardService.getScorecard(1L);
+
+        assertThat(card.getScore()).isEqualByComparingTo("80.0");
+        assertThat(card.getOnTimeRate()).isNull();
+        assertThat(card.getFillRate()).isNull();
+        assertThat(card.getReceipts()).isZero();
+    }
+
+    @Test
+    public void shouldWeighEveryMeasureAndReweightTheMissingOnes() {
+        // on time 75%, fill 90%, 5% over standard cost, rated 5
+        vendor(1L, "ACTIVE", 5);
+        performance(1L, 4, 3, "90", "100", "5", "100");
+        // on time 50%, no order complete yet, 10% over standard cost, rated 3
+        vendor(2L, "ACTIVE", 3);
+        performance(2L, 2, 1, "0", "0", "10", "100");
+
+        assertThat(scorecardService.getScorecard(1L).getScore())
+                .isEqualByComparingTo("86.0"); // (75*40 + 90*30 + 95*20 + 100*10) / 100
+        assertThat(scorecardService.getScorecard(2L).getScore())
+                .isEqualByComparingTo("62.9"); // (50*40 + 90*20 + 60*10) / 70
+    }
+
+    @Test
+    public void shouldRankVendorsWithoutAnyDataLast() {
+        vendor(1L, "ACTIVE", null);
+        vendor(2L, "ACTIVE", 1);
+        vendor(3L, "ACTIVE", 5);
+        performance(3L, 4, 3, "90", "100", "5", "100");
+        vendor(4L, "ACTIVE", 0);
+
+        assertThat(scorecardService.getScorecard(1L).getScore()).isNull();
+        assertThat(scorecardService.getScorecard(4L).getScore()).isNull();
+        assertThat(scorecardService.getTop(10, null, null)).extracting(VendorScorecardDTO::getVendorId)
+                .containsExactly(3L, 2L, 1L, 4L);
+        assertThat(scorecardService.getTop(2, null, null)).extracting(VendorScorecardDTO::getVendorId)
+                .containsExactly(3L, 2L);
+    }
+
+    @Test
+    public void shouldListTopRatedVendorsByRatingThenScore() {
+        vendor(1L, "ACTIVE", 4);
+        performance(1L, 2, 1, "0", "0", "0", "0"); // (50*40 + 80*10) / 50 = 56
+        vendor(2L, "ACTIVE", 4); // 80 on rating alone
+        vendor(3L, "ACTIVE", 5);
+        performance(3L, 2, 0, "0", "0", "0", "0"); // (0*40 + 100*10) / 50 = 20
+        vendor(4L, "ACTIVE", 2);
+        vendor(5L, "INACTIVE", 5);
+
+        assertThat(scorecardService.getTopRated(3)).extracting(Vendor::getId).containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    public void shouldKeepTheCardOfAVendorWhoseSaveRolledBack() {
+        // Given
+        vendor(1L, "ACTIVE", 3);
+        assertThat(scorecardService.getScorecard(1L).getRating()).isEqualTo(3);
+        vendor(1L, "ACTIVE", 5);
+
+        // When
+        List<TransactionSynchronization> rolledBack = inTransaction(() -> scorecardService.vendorChanged(1L));
+        rolledBack.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Then
+        assertThat(scorecardService.getScorecard(1L).getRating()).isEqualTo(3);
+
+        // When
+        List<TransactionSynchronization> committed = inTransaction(() -> scorecardService.vendorChanged(1L));
+        committed.forEach(TransactionSynchronization::afterCommit);
+
+        // Then
+        assertThat(scorecardService.getScorecard(1L).getRating()).isEqualTo(5);
+        assertThat(scorecardService.getScorecard(1L).getScore()).isEqualByComparingTo("100.0");
+    }
+
+    @Test
+    public void shouldReadAgainWhenAVendorChangesWhileTheCardsAreBuilt() {
+        // Given: the vendor is re-rated, and the change committed, while the first build reads
+        vendor(1L, "ACTIVE", 2);
+        AtomicInteger reads = new AtomicInteger();
+        when(vendorRepository.findAll()).thenAnswer(invocation -> {
+            Collection<Vendor> current = new ArrayList<>(vendors.values());
+            if (reads.incrementAndGet() == 1) {
+                vendor(1L, "ACTIVE", 5);
+                scorecardService.vendorChanged(1L);
+            }
+            return current;
+        });
+
+        // When
+        VendorScorecardDTO card = scorecardService.getScorecard(1L);
+
+        // Then
+        assertThat(card.getRating()).isEqualTo(5);
+        verify(vendorRepository, times(2)).findAll();
+    }
+
+    private void vendor(Long id, String status, Integer rating) {
+        Vendor vendor = new Vendor();
+        vendor.setId(id);
+        vendor.setVendorCode("SUP_" + id);
+        vendor.setVendorName("Vendor " + id);
+        vendor.setCategory("FOOD");
+        vendor.setStatus(status);
+        vendor.setRating(rating);
+        vendors.put(id, vendor);
+    }
+
+    private void performance(Long vendorId, long receipts, long onTimeReceipts, String closedReceived,
+            String closedOrdered, String priceVariance, String standardAmount) {
+        SupplierPerformance row = new SupplierPerformance();
+        row.setVendorId(vendorId);
+        row.setReceipts(receipts);
+        row.setOnTimeReceipts(onTimeReceipts);
+        row.setClosedReceivedQuantity(new BigDecimal(closedReceived));
+        row.setClosedOrderedQuantity(new BigDecimal(closedOrdered));
+        row.setPriceVariance(new BigDecimal(priceVariance));
+        row.setStandardAmount(new BigDecimal(standardAmount));
+        performance.put(vendorId, row);
+    }
+
+    /**
+     * Run work as if inside a transaction and hand back what it registered to
+     * run on completion
+     */
+    private static List<TransactionSynchronization> inTransaction(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
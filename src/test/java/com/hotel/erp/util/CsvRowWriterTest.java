@@ -0,0 +1,62 @@
+package com.hotel.erp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CsvRowWriterTest {
+
+    @Test
+    public void shouldQuoteOnlyTheCellsThatNeedIt() throws IOException {
+        String csv = write(
+                List.of("Folio", "Narration"),
+                Arrays.asList("F1", "Dinner, two covers"),
+                Arrays.asList("F2", "The \"Royal\" suite"),
+                Arrays.asList("F3", "Line one\nline two"),
+                Arrays.asList("F4", "Carriage\rreturn"),
+                Arrays.asList("F5", null));
+
+        assertThat(csv).isEqualTo("\uFEFF"
+                + "Folio,Narration\r\n"
+                + "F1,\"Dinner, two covers\"\r\n"
+                + "F2,\"The \"\"Royal\"\" suite\"\r\n"
+                + "F3,\"Line one\nline two\"\r\n"
+                + "F4,\"Carriage\rreturn\"\r\n"
+                + "F5,\r\n");
+    }
+
+    @Test
+    public void shouldKeepSpreadsheetsFromRunningTextAsAFormula() throws IOException {
+        String csv = write(
+                List.of("=1+1", "+91 98765", "-discount", "@SUM(A1)"),
+                List.of("=HYPERLINK(\"http://x\",\"y\")", "a=b"));
+
+        assertThat(csv).isEqualTo("\uFEFF"
+                + "'=1+1,'+91 98765,'-discount,'@SUM(A1)\r\n"
+                + "\"'=HYPERLINK(\"\"http://x\"\",\"\"y\"\")\",a=b\r\n");
+    }
+
+    @Test
+    public void shouldWriteNumbersAsTheyAre() throws IOException {
+        String csv = write(List.of(new BigDecimal("-12.50"), new BigDecimal("1E+3"), -3, 2.5));
+
+        assertThat(csv).isEqualTo("\uFEFF-12.50,1000,-3,2.5\r\n");
+    }
+
+    private static String write(List<?>... rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvRowWriter writer = new CsvRowWriter(out);
+        for (List<?> row : rows) {
+            writer.writeRow(row);
+        }
+        writer.finish();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
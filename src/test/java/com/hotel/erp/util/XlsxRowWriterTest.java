@@ -0,0 +1,170 @@
+package com.hotel.erp.util;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class XlsxRowWriterTest {
+
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String CONTENT_TYPES_NS = "http://schemas.openxmlformats.org/package/2006/content-types";
+    private static final String PACKAGE_REL_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    @Test
+    public void shouldWriteAWorkbookThatParses() throws Exception {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XlsxRowWriter writer = new XlsxRowWriter(out, "Tom & Co: Ledger");
+
+        // When
+        writer.writeRow(List.of("Folio", "Amount", "Note"));
+        writer.writeRow(List.of("F1", new BigDecimal("1234.50"), "Tom & Jerry <\"VIP\">\u0001\tend"));
+        writer.writeRow(Arrays.asList("F2", Double.NaN, null));
+        writer.finish();
+
+        // Then
+        Map<String, byte[]> parts = unzip(out.toByteArray());
+        assertThat(parts).containsOnlyKeys("[Content_Types].xml", "_rels/.rels", "xl/workbook.xml",
+                "xl/_rels/workbook.xml.rels", "xl/worksheets/sheet1.xml");
+
+        Document types = parse(parts.get("[Content_Types].xml"));
+        assertThat(attributes(types, CONTENT_TYPES_NS, "Override", "PartName"))
+                .containsExactly("/xl/workbook.xml", "/xl/worksheets/sheet1.xml");
+
+        Document packageRels = parse(parts.get("_rels/.rels"));
+        assertThat(attributes(packageRels, PACKAGE_REL_NS, "Relationship", "Target"))
+                .containsExactly("xl/workbook.xml");
+
+        Document workbook = parse(parts.get("xl/workbook.xml"));
+        assertThat(attributes(workbook, MAIN_NS, "sheet", "name")).containsExactly("Tom & Co  Ledger");
+        Element sheet = (Element) workbook.getElementsByTagNameNS(MAIN_NS, "sheet").item(0);
+        assertThat(sheet.getAttributeNS(REL_NS, "id")).isEqualTo("rId1");
+
+        List<List<String>> rows = rows(parse(parts.get("xl/worksheets/sheet1.xml")));
+        assertThat(rows).containsExactly(
+                List.of("A1=Folio", "B1=Amount", "C1=Note"),
+                List.of("A2=F1", "B2#1234.50", "C2=Tom & Jerry <\"VIP\">\tend"),
+                List.of("A3=F2", "B3=NaN"));
+    }
+
+    @Test
+    public void shouldContinueOnANewSheetWithTheHeaderAtTheRowLimit() throws Exception {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XlsxRowWriter writer = new XlsxRowWriter(out, "Advances", 3);
+
+        // When
+        writer.writeRow(List.of("Id"));
+        for (int id = 1; id <= 5; id++) {
+            writer.writeRow(List.of(id));
+        }
+        writer.finish();
+
+        // Then
+        Map<String, byte[]> parts = unzip(out.toByteArray());
+        assertThat(attributes(parse(parts.get("[Content_Types].xml")), CONTENT_TYPES_NS, "Override", "PartName"))
+                .containsExactly("/xl/workbook.xml", "/xl/worksheets/sheet1.xml", "/xl/worksheets/sheet2.xml",
+                        "/xl/worksheets/sheet3.xml");
+        assertThat(attributes(parse(parts.get("xl/workbook.xml")), MAIN_NS, "sheet", "name"))
+                .containsExactly("Advances", "Advances (2)", "Advances (3)");
+        assertThat(attributes(parse(parts.get("xl/_rels/workbook.xml.rels")), PACKAGE_REL_NS, "Relationship",
+                "Target")).containsExactly("worksheets/sheet1.xml", "worksheets/sheet2.xml", "worksheets/sheet3.xml");
+
+        assertThat(rows(parse(parts.get("xl/worksheets/sheet1.xml"))))
+                .containsExactly(List.of("A1=Id"), List.of("A2#1"), List.of("A3#2"));
+        assertThat(rows(parse(parts.get("xl/worksheets/sheet2.xml"))))
+                .containsExactly(List.of("A1=Id"), List.of("A2#3"), List.of("A3#4"));
+        assertThat(rows(parse(parts.get("xl/worksheets/sheet3.xml"))))
+                .containsExactly(List.of("A1=Id"), List.of("A2#5"));
+    }
+
+    @Test
+    public void shouldWriteOneEmptySheetWhenThereAreNoRows() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XlsxRowWriter writer = new XlsxRowWriter(out, null);
+
+        writer.finish();
+
+        Map<String, byte[]> parts = unzip(out.toByteArray());
+        assertThat(attributes(parse(parts.get("xl/workbook.xml")), MAIN_NS, "sheet", "name"))
+                .containsExactly("Sheet1");
+        assertThat(rows(parse(parts.get("xl/worksheets/sheet1.xml")))).isEmpty();
+    }
+
+    @Test
+    public void shouldNameColumnsLikeASpreadsheet() {
+        assertThat(XlsxRowWriter.columnName(0)).isEqualTo("A");
+        assertThat(XlsxRowWriter.columnName(25)).isEqualTo("Z");
+        assertThat(XlsxRowWriter.columnName(26)).isEqualTo("AA");
+        assertThat(XlsxRowWriter.columnName(701)).isEqualTo("ZZ");
+        assertThat(XlsxRowWriter.columnName(702)).isEqualTo("AAA");
+    }
+
+    private static Map<String, byte[]> unzip(byte[] bytes) throws Exception {
+        Map<String, byte[]> parts = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                parts.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+        return parts;
+    }
+
+    private static Document parse(byte[] xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+    }
+
+    private static List<String> attributes(Document document, String namespace, String element, String attribute) {
+        List<String> values = new ArrayList<>();
+        NodeList nodes = document.getElementsByTagNameNS(namespace, element);
+        for (int i = 0; i < nodes.getLength(); i++) {
+            values.add(((Element) nodes.item(i)).getAttribute(attribute));
+        }
+        return values;
+    }
+
+    /**
+     * Each row's cells as "ref=text" for inline strings and "ref#value" for
+     * numbers, checking the row numbers run from 1 without gaps
+     */
+    private static List<List<String>> rows(Document sheet) {
+        List<List<String>> rows = new ArrayList<>();
+        NodeList rowNodes = sheet.getElementsByTagNameNS(MAIN_NS, "row");
+        for (int r = 0; r < rowNodes.getLength(); r++) {
+            Element row = (Element) rowNodes.item(r);
+            assertThat(row.getAttribute("r")).isEqualTo(String.valueOf(r + 1));
+            List<String> cells = new ArrayList<>();
+            NodeList cellNodes = row.getElementsByTagNameNS(MAIN_NS, "c");
+            for (int c = 0; c < cellNodes.getLength(); c++) {
+                Element cell = (Element) cellNodes.item(c);
+                if ("inlineStr".equals(cell.getAttribute("t"))) {
+                    cells.add(cell.getAttribute("r") + "="
+                            + cell.getElementsByTagNameNS(MAIN_NS, "t").item(0).getTextContent());
+                } else {
+                    cells.add(cell.getAttribute("r") + "#"
+                            + cell.getElementsByTagNameNS(MAIN_NS, "v").item(0).getTextContent());
+                }
+            }
+            rows.add(cells);
+        }
+        return rows;
+    }
+}